@@ -0,0 +1,49 @@
+package com.frozenkoi.alertdialogfragment.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a dialog on the constant that holds its id. The annotation processor generates, in a
+ * class named after the host with the suffix {@code Dialogs}, a method returning a
+ * {@code DialogSpec.Builder} with the values declared here, and a method creating the
+ * {@code AlertDialogFragment}.
+ * <pre>
+ * &#64;DeclareDialog(name = "Confirm", title = R.string.confirm_title,
+ *                positive = R.string.ok, negative = R.string.cancel)
+ * static final String DIALOG_CONFIRM = "dialog.confirm";
+ * </pre>
+ * The field must be a {@code static final String} with a constant value. Resources are string
+ * resource ids, which are only constants in application modules.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface DeclareDialog {
+    /** Value of the resource ids that are not set. */
+    int NO_RESOURCE = -1;
+
+    /**
+     * @return Name of the generated methods, like {@code Confirm} for {@code confirmSpec()} and
+     *         {@code newConfirm()}. By default the name of the field in camel case.
+     */
+    String name() default "";
+
+    int title() default NO_RESOURCE;
+
+    int message() default NO_RESOURCE;
+
+    int positive() default NO_RESOURCE;
+
+    int neutral() default NO_RESOURCE;
+
+    int negative() default NO_RESOURCE;
+
+    boolean reverseButtons() default false;
+
+    /**
+     * @return Time the dialog stays visible before dismissing itself, or 0. Can't be negative.
+     */
+    long autoDismissMillis() default 0;
+}
@@ -0,0 +1,23 @@
+package com.frozenkoi.alertdialogfragment.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Handles the button clicks of a dialog. The method takes the button, or the position of the item
+ * clicked, as an {@code int}, optionally preceded by the {@code DialogInterface}.
+ * <p/>
+ * The annotation processor generates a {@code bind} method, in a class named after the host with
+ * the suffix {@code Dialogs}, that registers a handler calling this method directly in the
+ * {@code DialogRouter} of the host. The method must not be private.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface OnDialogClick {
+    /**
+     * @return The id of the dialog.
+     */
+    String value();
+}
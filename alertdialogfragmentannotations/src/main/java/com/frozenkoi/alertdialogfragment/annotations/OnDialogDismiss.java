@@ -0,0 +1,19 @@
+package com.frozenkoi.alertdialogfragment.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Handles the dismissal of a dialog. The method takes no parameters, or the
+ * {@code DialogInterface}. It must not be private, see {@link OnDialogClick}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface OnDialogDismiss {
+    /**
+     * @return The id of the dialog.
+     */
+    String value();
+}
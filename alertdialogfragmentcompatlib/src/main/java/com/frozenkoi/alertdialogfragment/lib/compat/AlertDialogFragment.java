@@ -3,53 +3,110 @@ package com.frozenkoi.alertdialogfragment.lib.compat;
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.Dialog;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.StringRes;
 import android.support.v4.app.DialogFragment;
-import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentManager;
+import android.widget.AdapterView;
+
+import com.frozenkoi.alertdialogfragment.core.DialogFuture;
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+import com.frozenkoi.alertdialogfragment.core.EventDispatcher;
+import com.frozenkoi.alertdialogfragment.core.ListenerRegistry;
+import com.frozenkoi.alertdialogfragment.core.ProgressSlot;
+import com.frozenkoi.alertdialogfragment.core.SelectionBits;
+import com.frozenkoi.alertdialogfragment.engine.DialogEngine;
+import com.frozenkoi.alertdialogfragment.engine.DialogMetrics;
+
+import java.util.concurrent.Executor;
 
 /**
  * Subclass of DialogFragment that handles click events and other dialog lifecycle events.
+ * <p/>
+ * The work is done by a {@link DialogEngine}, shared with the framework flavor of the library;
+ * this class only adapts it to the support library fragments and to {@link AlertDialogObserver}.
  */
-public final class AlertDialogFragment extends DialogFragment {
-    private static final String KEY_DIALOG_ID = "key_dialog_id";
-    private  static final String KEY_BUTTON_TEXT_ID_POSITIVE = "key_positive_text_id";
-    private static final String KEY_BUTTON_TEXT_ID_NEUTRAL  = "key_neutral_text_id";
-    private static final String KEY_BUTTON_TEXT_ID_NEGATIVE = "key_negative_text_id";
-    private static final String KEY_BUTTON_TEXT_STRING_POSITIVE = "key_positive_text_label";
-    private static final String KEY_BUTTON_TEXT_STRING_NEUTRAL = "key_neutral_text_label";
-    private static final String KEY_BUTTON_TEXT_STRING_NEGATIVE = "key_negative_text_label";
-
-    public static final String KEY_DIALOG_TITLE_ID = "key_dialog_title_text_id";
-    public static final String KEY_DIALOG_MESSAGE_ID = "key_dialog_message_text_id";
-    private static final String KEY_DIALOG_TITLE_STRING = "key_dialog_title_string";
-    private static final String KEY_DIALOG_MESSAGE_STRING = "key_dialog_message_string";
-
-    public static final int ID_NOT_FOUND = -1;
-    public static final String DIALOG_ID_NOT_FOUND = "-1";
+public final class AlertDialogFragment extends DialogFragment
+        implements DialogEngine.Adapter<AlertDialogFragment.AlertDialogObserver> {
+    public static final String KEY_DIALOG_TITLE_ID = DialogEngine.KEY_DIALOG_TITLE_ID;
+    public static final String KEY_DIALOG_MESSAGE_ID = DialogEngine.KEY_DIALOG_MESSAGE_ID;
+
+    public static final int ID_NOT_FOUND = DialogEngine.ID_NOT_FOUND;
+    public static final String DIALOG_ID_NOT_FOUND = DialogEngine.DIALOG_ID_NOT_FOUND;
 
     /**
      * Key for configuration for reversing button order. Stores a boolean in the bundle.
-     * @see #mReverseButtons
+     * @see DialogSpec#isReverseButtons()
      */
-    public static final String KEY_REVERSE_BUTTON_ORDER = "key_reverse_buttons";
+    public static final String KEY_REVERSE_BUTTON_ORDER = DialogEngine.KEY_REVERSE_BUTTON_ORDER;
     /**
      * Default configuration for button reversal. Used when no configuration is explicitly used.
      */
     private static final boolean DEFAULT_BUTTON_INVERSION = false;
-    /**
-     * Reverse the positive and negative button positions.
-     */
-    private boolean mReverseButtons = false;
+
+    /** Does the work of the fragment. */
+    @NonNull
+    private final DialogEngine<AlertDialogObserver> mEngine = new DialogEngine<>(this,
+            new EventDispatcher.Delivery<DialogInterface, AlertDialogObserver>() {
+                @Override
+                public void deliverClick(final AlertDialogObserver observer,
+                                         final DialogInterface dialog, final int which) {
+                    observer.onDialogButtonClicked(dialog, mEngine.getDialogId(), which);
+                }
+
+                @Override
+                public void deliverCancel(final AlertDialogObserver observer,
+                                          final DialogInterface dialog) {
+                    observer.onDialogCancelled(dialog, mEngine.getDialogId());
+                }
+
+                @Override
+                public void deliverDismiss(final AlertDialogObserver observer,
+                                           final DialogInterface dialog) {
+                    observer.onDialogDismissed(dialog, mEngine.getDialogId());
+                }
+            });
 
     /** Required empty constructor. */
     public AlertDialogFragment() {
         super();
     }
 
+    /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
+     * @param spec The contents of the dialog.
+     * @return A newly created AlertDialogFragment with a {@link Bundle} set as the arguments.
+     */
+    public static AlertDialogFragment createDialogFragment(@NonNull final DialogSpec spec) {
+        AlertDialogFragment adf = new AlertDialogFragment();
+        adf.mEngine.onCreatedByFactory();
+        final Bundle args = new Bundle();
+        DialogEngine.writeArguments(spec, args);
+        adf.setArguments(args);
+        return adf;
+    }
+
+    /**
+     * Shows a dialog and returns its result as a future, for code that isn't its host. The
+     * observer of the host, if any, still gets the events. Call it on the main thread.
+     * @param manager Shows the dialog, tagged with its id.
+     * @param spec The contents of the dialog.
+     * @return Completed on the main thread with the first click, cancel or dismiss the observer
+     *         gets, or with a dismiss if the dialog ends without delivering a result event,
+     *         across configuration changes. Can be waited on from a background thread.
+     */
+    @NonNull
+    public static DialogFuture showForResult(@NonNull final FragmentManager manager,
+                                             @NonNull final DialogSpec spec) {
+        final AlertDialogFragment adf = createDialogFragment(spec);
+        final DialogFuture future = DialogEngine.newResultFuture(adf.getArguments());
+        adf.show(manager, spec.getDialogId());
+        return future;
+    }
+
     /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
      * @param dialogID The dialog string id. Used to identify one AlertDialogFragment from another.
      * @param titleId The resource id of the text to use for the title.
@@ -58,13 +115,10 @@ public final class AlertDialogFragment extends DialogFragment {
      */
     public static AlertDialogFragment createDialogFragment(@NonNull final String dialogID
             , @StringRes final int titleId, @StringRes final int messageId) {
-        AlertDialogFragment adf = new AlertDialogFragment();
-        final Bundle args = new Bundle();
-        args.putString(KEY_DIALOG_ID, dialogID);
-        args.putInt(KEY_DIALOG_TITLE_ID, titleId);
-        args.putInt(KEY_DIALOG_MESSAGE_ID, messageId);
-        adf.setArguments(args);
-        return adf;
+        return createDialogFragment(new DialogSpec.Builder(dialogID)
+                .setTitle(titleId)
+                .setMessage(messageId)
+                .build());
     }
 
     /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
@@ -104,13 +158,14 @@ public final class AlertDialogFragment extends DialogFragment {
             , final boolean reverseButtons
             , @StringRes final int positiveButtonId, @StringRes final int neutralButtonId
             , @StringRes final int negativeButtonId) {
-        AlertDialogFragment adf = createDialogFragment(dialogID, titleId, messageId);
-        Bundle args = adf.getArguments();
-        args.putInt(KEY_BUTTON_TEXT_ID_POSITIVE, positiveButtonId);
-        args.putInt(KEY_BUTTON_TEXT_ID_NEUTRAL, neutralButtonId);
-        args.putInt(KEY_BUTTON_TEXT_ID_NEGATIVE, negativeButtonId);
-        args.putBoolean(KEY_REVERSE_BUTTON_ORDER, reverseButtons);
-        return adf;
+        return createDialogFragment(new DialogSpec.Builder(dialogID)
+                .setTitle(titleId)
+                .setMessage(messageId)
+                .setReverseButtons(reverseButtons)
+                .setPositiveButton(positiveButtonId)
+                .setNeutralButton(neutralButtonId)
+                .setNegativeButton(negativeButtonId)
+                .build());
     }
 
     /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
@@ -126,170 +181,221 @@ public final class AlertDialogFragment extends DialogFragment {
             @Nullable final String title, @Nullable final String message,
             @Nullable final String positiveButtonLabel, @Nullable final String neutralButtonLabel,
             @Nullable final String negativeButtonLabel) {
-        AlertDialogFragment adf = new AlertDialogFragment();
-        final Bundle args = new Bundle();
-        args.putString(KEY_DIALOG_ID, dialogID);
-        args.putString(KEY_DIALOG_TITLE_STRING, title);
-        args.putString(KEY_DIALOG_MESSAGE_STRING, message);
-        args.putString(KEY_BUTTON_TEXT_STRING_POSITIVE, positiveButtonLabel);
-        args.putString(KEY_BUTTON_TEXT_STRING_NEUTRAL, neutralButtonLabel);
-        args.putString(KEY_BUTTON_TEXT_STRING_NEGATIVE, negativeButtonLabel);
-        adf.setArguments(args);
-        return adf;
+        return createDialogFragment(new DialogSpec.Builder(dialogID)
+                .setTitle(title)
+                .setMessage(message)
+                .setPositiveButton(positiveButtonLabel)
+                .setNeutralButton(neutralButtonLabel)
+                .setNegativeButton(negativeButtonLabel)
+                .build());
     }
 
-    @NonNull
-    @Override
-    public Dialog onCreateDialog(final Bundle savedInstanceState) {
-        //return super.onCreateDialog(savedInstanceState);
-        mReverseButtons = getArguments().getBoolean(KEY_REVERSE_BUTTON_ORDER,
-                                                    DEFAULT_BUTTON_INVERSION);
-
-        AlertDialog.Builder b = new AlertDialog.Builder(getActivity());
-        int id = getArguments().getInt(KEY_DIALOG_TITLE_ID, ID_NOT_FOUND);
-        if (ID_NOT_FOUND != id) {
-            b.setTitle(id);
-        }
+    /**
+     * @see DialogEngine#setDialogMetrics(DialogMetrics)
+     */
+    public static void setDialogMetrics(@Nullable final DialogMetrics metrics) {
+        DialogEngine.setDialogMetrics(metrics);
+    }
 
-        String str = getArguments().getString(KEY_DIALOG_TITLE_STRING);
-        if (str != null) {
-            b.setTitle(str);
-        }
+    /**
+     * @see DialogEngine#setContentExecutor(Executor)
+     */
+    public static void setContentExecutor(@NonNull final Executor executor) {
+        DialogEngine.setContentExecutor(executor);
+    }
 
-        id = getArguments().getInt(KEY_DIALOG_MESSAGE_ID, ID_NOT_FOUND);
-        if (ID_NOT_FOUND != id) {
-            b.setMessage(id);
-        }
+    /**
+     * @see DialogEngine#warmStrings(Context, DialogSpec...)
+     */
+    public static void warmStrings(@NonNull final Context context,
+                                   @NonNull final DialogSpec... specs) {
+        DialogEngine.warmStrings(context, specs);
+    }
 
-        str = getArguments().getString(KEY_DIALOG_MESSAGE_STRING);
-        if (str != null) {
-            b.setMessage(str);
-        }
+    /**
+     * Optional; call it when the Activity is created for dialogs that must show without delay.
+     * @see DialogEngine#prewarm(Activity, DialogSpec)
+     */
+    public static void prewarm(@NonNull final Activity activity, @NonNull final DialogSpec spec) {
+        DialogEngine.prewarm(activity, spec);
+    }
 
-        id = getArguments().getInt(KEY_BUTTON_TEXT_ID_POSITIVE, ID_NOT_FOUND);
-        if (ID_NOT_FOUND != id) {
-            if (mReverseButtons) {
-                b.setNegativeButton(id, mButtonEventHandler);
-            } else {
-                b.setPositiveButton(id, mButtonEventHandler);
-            }
-        }
+    /**
+     * @see DialogEngine#getProgress(String)
+     */
+    @NonNull
+    public static ProgressSlot getProgress(@NonNull final String dialogID) {
+        return DialogEngine.getProgress(dialogID);
+    }
 
-        str = getArguments().getString(KEY_BUTTON_TEXT_STRING_POSITIVE);
-        if (str != null) {
-            if (mReverseButtons) {
-                b.setNegativeButton(str, mButtonEventHandler);
-            } else {
-                b.setPositiveButton(str, mButtonEventHandler);
-            }
-        }
+    @Override
+    public void onCreate(@Nullable final Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mEngine.onCreate(savedInstanceState);
+    }
 
-        id = getArguments().getInt(KEY_BUTTON_TEXT_ID_NEUTRAL, ID_NOT_FOUND);
-        if (ID_NOT_FOUND != id) {
-            b.setNeutralButton(id, mButtonEventHandler);
-        }
+    @Override
+    public void onStart() {
+        super.onStart();
+        mEngine.onStart();
+    }
 
-        str = getArguments().getString(KEY_BUTTON_TEXT_STRING_NEUTRAL);
-        if (str != null) {
-            b.setNeutralButton(str, mButtonEventHandler);
-        }
+    @Override
+    public void onStop() {
+        super.onStop();
+        mEngine.onStop();
+    }
 
-        id = getArguments().getInt(KEY_BUTTON_TEXT_ID_NEGATIVE, ID_NOT_FOUND);
-        if (ID_NOT_FOUND != id) {
-            if (mReverseButtons) {
-                b.setPositiveButton(id, mButtonEventHandler);
-            } else {
-                b.setNegativeButton(id, mButtonEventHandler);
-            }
-        }
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mEngine.onDestroy();
+    }
 
-        str = getArguments().getString(KEY_BUTTON_TEXT_STRING_NEGATIVE);
-        if (str != null) {
-            if (mReverseButtons) {
-                b.setPositiveButton(str, mButtonEventHandler);
-            } else {
-                b.setNegativeButton(str, mButtonEventHandler);
-            }
-        }
+    @Override
+    public void onResume() {
+        super.onResume();
+        mEngine.onResume();
+    }
 
-        AlertDialog dialog = b.create();
+    @Override
+    public void onPause() {
+        super.onPause();
+        mEngine.onPause();
+    }
 
-        return dialog;
+    @Override
+    public void onSaveInstanceState(final Bundle outState) {
+        super.onSaveInstanceState(outState);
+        mEngine.onSaveInstanceState(outState);
     }
 
-    private AlertDialogObserver getTarget() {
-        AlertDialogObserver retVal = null;
-        Fragment t = getTargetFragment();
-        if (t instanceof AlertDialogObserver) {
-            retVal = (AlertDialogObserver) t;   //Cast
-        }
-        if (null == retVal) {
-            Activity a = getActivity();
-            if (a instanceof AlertDialogObserver) {
-                retVal = (AlertDialogObserver) a;   //Cast
-            }
-        }
-        return retVal;
+    /**
+     * @return The dialog string id, interned with
+     *         {@link com.frozenkoi.alertdialogfragment.core.DialogIdInterner#intern(String)}.
+     *         Only valid once the fragment has been created.
+     */
+    public int getDialogKey() {
+        return mEngine.getDialogKey();
     }
 
-    private final DialogInterface.OnClickListener mButtonEventHandler
-            = new DialogInterface.OnClickListener() {
-        @Override
-        public void onClick(final DialogInterface dialog, final int which) {
-            final String whichDialog = getArguments().getString(KEY_DIALOG_ID, DIALOG_ID_NOT_FOUND);
+    @NonNull
+    @Override
+    public Dialog onCreateDialog(final Bundle savedInstanceState) {
+        return mEngine.onCreateDialog(savedInstanceState);
+    }
 
-            final int whichButton = chooseButtonOrder(which, mReverseButtons);
-            AlertDialogObserver target = getTarget();
-            if (null != target) {
-                target.onDialogButtonClicked(dialog, whichDialog, whichButton);
-            }
-        }
-    };
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        mEngine.onDestroyView();
+    }
 
     /**
-     * Utility function to choose which button to use based on the 'real' button and whether the
-     * positive and negative buttons are being inverted.
-     * @param which Which button we want to use.
-     * @param reverseButtons {@code true} if inverting or {@code false} if not.
-     * @return The id that we should use. If reverseButtons is {@code false} the same value
-     *         as {@code which}. For buttons other than positive and negative, return {@code which}
-     *         unchanged regardless of {@code reverseButtons}.
+     * @return The checked item of a single choice dialog, or {@link AdapterView#INVALID_POSITION}
+     *         if there is none, or if the dialog isn't created yet.
+     * @see DialogSpec#ITEMS_SINGLE_CHOICE
      */
-    private static int chooseButtonOrder(final int which, final boolean reverseButtons) {
-        int whichButton = which;
-        if (reverseButtons) {
-            switch (which) {
-                case DialogInterface.BUTTON_POSITIVE:
-                    whichButton = DialogInterface.BUTTON_NEGATIVE;
-                    break;
-                case DialogInterface.BUTTON_NEGATIVE:
-                    whichButton = DialogInterface.BUTTON_POSITIVE;
-                    break;
-                default:
-                    whichButton = which;
-            }
-        }
-        return whichButton;
+    public int getCheckedItem() {
+        return mEngine.getCheckedItem();
+    }
+
+    /**
+     * @return The checked items of a multi choice dialog, or {@code null} for other dialogs, or if
+     *         the dialog isn't created yet. Changes as the user checks items, copy it with
+     *         {@link SelectionBits#toLongArray()} to keep it.
+     * @see DialogSpec#ITEMS_MULTI_CHOICE
+     */
+    @Nullable
+    public SelectionBits getCheckedItems() {
+        return mEngine.getCheckedItems();
+    }
+
+    /**
+     * @return The text of a text input dialog, or {@code null} for other dialogs, or if the dialog
+     *         isn't created yet.
+     * @see DialogSpec#isTextInput()
+     */
+    @Nullable
+    public String getInputText() {
+        return mEngine.getInputText();
+    }
+
+    @Override
+    public void onAttach(final Context context) {
+        super.onAttach(context);
+        mEngine.onAttach();
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        mEngine.onDetach();
     }
 
     @Override
     public void onCancel(final DialogInterface dialog) {
         super.onCancel(dialog);
-
-        AlertDialogObserver target = getTarget();
-        if (null != target) {
-            target.onDialogCancelled(dialog, getArguments().getString(KEY_DIALOG_ID, DIALOG_ID_NOT_FOUND));
-        }
+        mEngine.onCancel(dialog);
     }
 
     @Override
     public void onDismiss(final DialogInterface dialog) {
         super.onDismiss(dialog);
+        mEngine.onDismiss(dialog);
+    }
 
-        AlertDialogObserver target = getTarget();
-        if (null != target) {
-            target.onDialogDismissed(dialog, getArguments().getString(KEY_DIALOG_ID, DIALOG_ID_NOT_FOUND));
+    /**
+     * A handler registered in the {@link DialogRouter} of {@code host} takes precedence over
+     * {@code host} itself implementing {@link AlertDialogObserver}.
+     */
+    @Nullable
+    @Override
+    public AlertDialogObserver resolveObserver(
+            @Nullable final Object host, final int dialogKey,
+            @NonNull final EventDispatcher<?, AlertDialogObserver> dispatcher) {
+        if (host instanceof DialogRouter.Host) {
+            final DialogRouter router = ((DialogRouter.Host) host).getDialogRouter();   //Cast
+            dispatcher.watch(router.getRoutes());
+            final AlertDialogObserver handler = router.resolve(dialogKey);
+            if (null != handler) {
+                return handler;
+            }
+        }
+        if (host instanceof AlertDialogObserver) {
+            return (AlertDialogObserver) host;   //Cast
         }
+        return null;
+    }
+
+    @NonNull
+    @Override
+    public ListenerRegistry<AlertDialogObserver> getListeners() {
+        return DialogResults.getListeners();
+    }
+
+    /**
+     * Provides the content of the dialogs that load it in the background, see
+     * {@link DialogSpec.Builder#setAsyncContent(boolean)}. Implemented by the target fragment or
+     * the Activity.
+     */
+    public interface ContentProvider extends DialogEngine.ContentProvider {
+    }
+
+    /**
+     * Provides the items of the dialogs that have items, see
+     * {@link DialogSpec.Builder#setItemMode(int)}. Implemented by the target fragment or the
+     * Activity.
+     */
+    public interface ItemProvider extends DialogEngine.ItemProvider {
+    }
+
+    /**
+     * Provides the validator of the text input dialogs, see
+     * {@link DialogSpec.Builder#setTextInput(boolean)}. Implemented by the target fragment or the
+     * Activity; without one, any text is valid.
+     */
+    public interface InputValidatorProvider extends DialogEngine.InputValidatorProvider {
     }
 
     /**
@@ -302,7 +408,7 @@ public final class AlertDialogFragment extends DialogFragment {
          * @param whichDialog The id of the dialog that is being dismissed.
          * @param whichButton Id of the button that was clicked. The button that was clicked (e.g.
          *            {@link DialogInterface#BUTTON1}) or the position
-         *            of the item clicked.
+         *            of the item clicked, see {@link DialogSpec.Builder#setItemMode(int)}.
          *
          * @see android.content.DialogInterface.OnClickListener#onClick(
            android.content.DialogInterface, int)
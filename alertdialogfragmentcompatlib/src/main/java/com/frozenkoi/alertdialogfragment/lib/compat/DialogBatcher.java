@@ -0,0 +1,179 @@
+package com.frozenkoi.alertdialogfragment.lib.compat;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.app.DialogFragment;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentManager;
+import android.support.v4.app.FragmentTransaction;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the dialogs shown, replaced and dismissed during one pass of the main thread message
+ * loop and commits them together in a single {@link FragmentTransaction}.
+ * <p/>
+ * {@link DialogFragment#show(FragmentManager, String)} and {@link DialogFragment#dismiss()} commit
+ * one transaction each, so a burst of dialogs means a burst of transactions. With a batcher, the
+ * operations on the same tag collapse into one: showing and then dismissing a dialog before the
+ * batch is committed does nothing at all, and showing a dialog twice only shows the last one.
+ * <p/>
+ * Must be used from the main thread.
+ */
+public final class DialogBatcher {
+    /** Add the fragment. */
+    private static final int OP_SHOW = 1;
+    /** Remove the fragment with the same tag, if any, and add the fragment. */
+    private static final int OP_REPLACE = 2;
+    /** Remove the fragment with the same tag, if any. */
+    private static final int OP_DISMISS = 3;
+
+    @NonNull
+    private final FragmentManager mFragmentManager;
+    @NonNull
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    /** Pending operations, one per tag, in the order the tags were first used. */
+    @NonNull
+    private final LinkedHashMap<String, Op> mPending = new LinkedHashMap<>();
+    /** {@code true} if {@link #mCommitter} is posted. */
+    private boolean mCommitPosted = false;
+
+    @NonNull
+    private final Runnable mCommitter = new Runnable() {
+        @Override
+        public void run() {
+            mCommitPosted = false;
+            flush();
+        }
+    };
+
+    /**
+     * @param fragmentManager The manager the dialogs are shown in.
+     */
+    public DialogBatcher(@NonNull final FragmentManager fragmentManager) {
+        mFragmentManager = fragmentManager;
+    }
+
+    /**
+     * Shows a dialog in the next batch. Like {@link DialogFragment#show(FragmentManager, String)}.
+     * @param dialog The dialog to show.
+     * @param tag The tag for the fragment.
+     */
+    public void show(@NonNull final DialogFragment dialog, @NonNull final String tag) {
+        final Op previous = mPending.get(tag);
+        if (null == previous || OP_SHOW == previous.mType) {
+            enqueue(tag, OP_SHOW, dialog);
+        } else {
+            // something was removed first, so the new dialog takes its place
+            enqueue(tag, OP_REPLACE, dialog);
+        }
+    }
+
+    /**
+     * Dismisses the dialog with {@code tag}, if there is one, and shows {@code dialog} in its
+     * place, in the next batch.
+     * @param dialog The dialog to show.
+     * @param tag The tag for the fragment.
+     */
+    public void replace(@NonNull final DialogFragment dialog, @NonNull final String tag) {
+        enqueue(tag, OP_REPLACE, dialog);
+    }
+
+    /**
+     * Dismisses the dialog with {@code tag} in the next batch. Like
+     * {@link DialogFragment#dismiss()}. If the dialog was going to be shown in the same batch, it
+     * is not shown at all.
+     * @param tag The tag of the fragment.
+     */
+    public void dismiss(@NonNull final String tag) {
+        final Op previous = mPending.get(tag);
+        if (null != previous && OP_SHOW == previous.mType) {
+            // shown and dismissed in the same batch, nothing to do
+            mPending.remove(tag);
+            return;
+        }
+        enqueue(tag, OP_DISMISS, null);
+    }
+
+    /**
+     * Commits the pending operations now instead of waiting for the posted commit.
+     */
+    public void flush() {
+        if (mCommitPosted) {
+            mHandler.removeCallbacks(mCommitter);
+            mCommitPosted = false;
+        }
+        if (mPending.isEmpty() || mFragmentManager.isDestroyed()) {
+            mPending.clear();
+            return;
+        }
+
+        final FragmentTransaction ft = mFragmentManager.beginTransaction();
+        final Iterator<Map.Entry<String, Op>> it = mPending.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<String, Op> entry = it.next();
+            final String tag = entry.getKey();
+            final Op op = entry.getValue();
+            if (OP_SHOW != op.mType) {
+                final Fragment existing = mFragmentManager.findFragmentByTag(tag);
+                if (existing instanceof DialogFragment) {
+                    ft.remove(existing);
+                }
+            }
+            if (null != op.mDialog) {
+                ft.add(op.mDialog, tag);
+            }
+            it.remove();
+        }
+        // the operations were requested while the state could be changed, but the commit is
+        // deferred and can land after onSaveInstanceState
+        ft.commitAllowingStateLoss();
+    }
+
+    /**
+     * Drops the pending operations without committing them. Call it when the host is destroyed.
+     */
+    public void cancel() {
+        mHandler.removeCallbacks(mCommitter);
+        mCommitPosted = false;
+        mPending.clear();
+    }
+
+    /**
+     * Records the operation for a tag, replacing any previous one, and schedules the commit.
+     */
+    private void enqueue(@NonNull final String tag, final int type,
+                         @Nullable final DialogFragment dialog) {
+        final Op op = mPending.get(tag);
+        if (null == op) {
+            mPending.put(tag, new Op(type, dialog));
+        } else {
+            op.mType = type;
+            op.mDialog = dialog;
+        }
+        if (!mCommitPosted) {
+            mCommitPosted = true;
+            mHandler.post(mCommitter);
+        }
+    }
+
+    /**
+     * A pending operation on a tag.
+     */
+    private static final class Op {
+        /** One of the {@code OP_} constants. */
+        int mType;
+        /** The dialog to add, {@code null} for {@link #OP_DISMISS}. */
+        @Nullable
+        DialogFragment mDialog;
+
+        Op(final int type, @Nullable final DialogFragment dialog) {
+            mType = type;
+            mDialog = dialog;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.frozenkoi.alertdialogfragment.lib.compat;
+
+import android.os.Bundle;
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.app.FragmentManager;
+
+import com.frozenkoi.alertdialogfragment.core.DialogQueue;
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+import com.frozenkoi.alertdialogfragment.engine.ParcelableDialogSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connects a {@link DialogQueue} to {@link AlertDialogFragment}s and to the saved state of its
+ * host.
+ */
+public final class DialogQueues {
+    private static final String KEY_SHOWING = "dialog_queue_showing";
+    private static final String KEY_SPECS = "dialog_queue_specs";
+    private static final String KEY_PRIORITIES = "dialog_queue_priorities";
+
+    /** Not instantiable. */
+    private DialogQueues() {
+    }
+
+    /**
+     * @param fragmentManager The manager to show the dialogs in.
+     * @return A presenter that shows each dialog as an {@link AlertDialogFragment} tagged with
+     *         its dialog id.
+     */
+    @NonNull
+    public static DialogQueue.Presenter showIn(@NonNull final FragmentManager fragmentManager) {
+        return new DialogQueue.Presenter() {
+            @Override
+            public void present(@NonNull final DialogSpec spec) {
+                AlertDialogFragment.createDialogFragment(spec)
+                        .show(fragmentManager, spec.getDialogId());
+            }
+        };
+    }
+
+    /**
+     * Saves the waiting dialogs and the one showing. Call it from the host
+     * {@code onSaveInstanceState}.
+     * @param queue The queue.
+     * @param outState The host state.
+     */
+    public static void onSaveInstanceState(@NonNull final DialogQueue queue,
+                                           @NonNull final Bundle outState) {
+        final List<DialogSpec> pending = queue.getPendingSpecs();
+        final ParcelableDialogSpec[] specs = new ParcelableDialogSpec[pending.size()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = new ParcelableDialogSpec(pending.get(i));
+        }
+        outState.putString(KEY_SHOWING, queue.getShowingDialogId());
+        outState.putParcelableArray(KEY_SPECS, specs);
+        outState.putIntArray(KEY_PRIORITIES, queue.getPendingPriorities());
+    }
+
+    /**
+     * Restores the state saved by {@link #onSaveInstanceState(DialogQueue, Bundle)}. The dialog
+     * that was showing is restored by its FragmentManager, so it is not presented again.
+     * @param queue The queue.
+     * @param savedInstanceState The host state. Can be {@code null}.
+     */
+    public static void onRestoreInstanceState(@NonNull final DialogQueue queue,
+                                              @Nullable final Bundle savedInstanceState) {
+        if (null == savedInstanceState) {
+            return;
+        }
+        final Parcelable[] specs = savedInstanceState.getParcelableArray(KEY_SPECS);
+        final int[] priorities = savedInstanceState.getIntArray(KEY_PRIORITIES);
+        if (null == specs || null == priorities) {
+            return;
+        }
+        final ArrayList<DialogSpec> pending = new ArrayList<>(specs.length);
+        for (final Parcelable spec : specs) {
+            pending.add(((ParcelableDialogSpec) spec).getSpec());
+        }
+        queue.restoreState(savedInstanceState.getString(KEY_SHOWING), pending, priorities);
+    }
+}
@@ -0,0 +1,91 @@
+package com.frozenkoi.alertdialogfragment.lib.compat;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.frozenkoi.alertdialogfragment.core.DialogIdInterner;
+import com.frozenkoi.alertdialogfragment.core.ListenerRegistry;
+import com.frozenkoi.alertdialogfragment.engine.DialogEngine;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Process-wide listeners of dialog events, for components that are not the host of the dialog,
+ * like view models and repositories, so they don't have to be reached through the Activity.
+ * <p/>
+ * Listeners get the events of every dialog with the id they subscribed to, after the target
+ * fragment or Activity. They are only weakly referenced, so the subscriber must keep a reference
+ * to its listener; a listener that was collected is removed on the next event of its dialog.
+ * <p/>
+ * Listeners subscribed with {@link #subscribe(String, AlertDialogFragment.AlertDialogObserver)}
+ * are called on the main thread, right after the host. Those subscribed with
+ * {@link #subscribeInBackground(String, AlertDialogFragment.AlertDialogObserver)} or with an
+ * {@link Executor} are called later, on that executor, so they can do I/O; by then the dialog
+ * may be gone, so they must not use it.
+ */
+public final class DialogResults {
+    /** The listeners of the process. */
+    @NonNull
+    private static final ListenerRegistry<AlertDialogFragment.AlertDialogObserver> sListeners
+            = new ListenerRegistry<>();
+    /** Runs the listeners subscribed in the background. */
+    @NonNull
+    private static final Executor BACKGROUND = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            DialogEngine.getContentExecutor().execute(command);
+        }
+    };
+
+    private DialogResults() {
+    }
+
+    /**
+     * Subscribes a listener called on the main thread.
+     * @param dialogID The id of the dialogs to listen to.
+     * @param listener Receives the events. Only weakly referenced.
+     * @return The subscription, to cancel it.
+     */
+    @NonNull
+    public static ListenerRegistry.Subscription<AlertDialogFragment.AlertDialogObserver>
+            subscribe(@NonNull final String dialogID,
+                      @NonNull final AlertDialogFragment.AlertDialogObserver listener) {
+        return subscribe(dialogID, listener, null);
+    }
+
+    /**
+     * Subscribes a listener called on the executor that runs the background work of the dialogs,
+     * see {@link AlertDialogFragment#setContentExecutor(Executor)}.
+     * @param dialogID The id of the dialogs to listen to.
+     * @param listener Receives the events. Only weakly referenced.
+     * @return The subscription, to cancel it.
+     */
+    @NonNull
+    public static ListenerRegistry.Subscription<AlertDialogFragment.AlertDialogObserver>
+            subscribeInBackground(@NonNull final String dialogID,
+                                  @NonNull final AlertDialogFragment.AlertDialogObserver listener) {
+        return subscribe(dialogID, listener, BACKGROUND);
+    }
+
+    /**
+     * @param dialogID The id of the dialogs to listen to.
+     * @param listener Receives the events. Only weakly referenced.
+     * @param executor Runs the listener, or {@code null} to run it on the main thread.
+     * @return The subscription, to cancel it.
+     */
+    @NonNull
+    public static ListenerRegistry.Subscription<AlertDialogFragment.AlertDialogObserver>
+            subscribe(@NonNull final String dialogID,
+                      @NonNull final AlertDialogFragment.AlertDialogObserver listener,
+                      @Nullable final Executor executor) {
+        return sListeners.subscribe(DialogIdInterner.intern(dialogID), listener, executor);
+    }
+
+    /**
+     * @return The listeners of the process, that the dialogs deliver their events to.
+     */
+    @NonNull
+    static ListenerRegistry<AlertDialogFragment.AlertDialogObserver> getListeners() {
+        return sListeners;
+    }
+}
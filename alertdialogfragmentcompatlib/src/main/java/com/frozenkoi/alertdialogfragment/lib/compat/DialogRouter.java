@@ -0,0 +1,83 @@
+package com.frozenkoi.alertdialogfragment.lib.compat;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.frozenkoi.alertdialogfragment.core.DialogIdInterner;
+import com.frozenkoi.alertdialogfragment.core.RouteTable;
+
+/**
+ * Table of {@link AlertDialogFragment.AlertDialogObserver}s keyed by dialog id.
+ * <p/>
+ * Hosts register one handler per dialog id, once, instead of switching on the dialog id inside a
+ * single observer. An {@link AlertDialogFragment} looks up its handler the first time it needs it
+ * and keeps it until it is attached or detached again, or until the table changes.
+ * <p/>
+ * The table is a {@link RouteTable}, keyed by the integer keys from {@link DialogIdInterner}, so a
+ * lookup doesn't hash the dialog id.
+ */
+public final class DialogRouter {
+    /** Handlers keyed by interned dialog id. */
+    @NonNull
+    private final RouteTable<AlertDialogFragment.AlertDialogObserver> mHandlers
+            = new RouteTable<>();
+
+    /**
+     * Registers the handler for all the events of the dialogs with the given id. Replaces any
+     * handler previously registered for the same id.
+     * @param dialogID The dialog string id, as passed to
+     *                 {@link AlertDialogFragment#createDialogFragment}.
+     * @param handler The observer that will receive the events of that dialog.
+     */
+    public void register(@NonNull final String dialogID,
+                         @NonNull final AlertDialogFragment.AlertDialogObserver handler) {
+        mHandlers.register(dialogID, handler);
+    }
+
+    /**
+     * Registers the handler for all the events of the dialogs with the given key.
+     * @param dialogKey The dialog id, interned with {@link DialogIdInterner#intern(String)}.
+     * @param handler The observer that will receive the events of that dialog.
+     */
+    public void register(final int dialogKey,
+                         @NonNull final AlertDialogFragment.AlertDialogObserver handler) {
+        mHandlers.register(dialogKey, handler);
+    }
+
+    /**
+     * Removes the handler registered for the given dialog id, if any.
+     * @param dialogID The dialog string id.
+     */
+    public void unregister(@NonNull final String dialogID) {
+        mHandlers.unregister(dialogID);
+    }
+
+    /**
+     * @param dialogKey The interned dialog id.
+     * @return The handler registered for {@code dialogKey} or {@code null} if there is none.
+     */
+    @Nullable
+    AlertDialogFragment.AlertDialogObserver resolve(final int dialogKey) {
+        return mHandlers.resolve(dialogKey);
+    }
+
+    /**
+     * @return The table behind this router, for watching its version.
+     */
+    @NonNull
+    RouteTable<AlertDialogFragment.AlertDialogObserver> getRoutes() {
+        return mHandlers;
+    }
+
+    /**
+     * Implemented by Activities and Fragments that route dialog events through a
+     * {@link DialogRouter} instead of implementing {@link AlertDialogFragment.AlertDialogObserver}.
+     */
+    public interface Host {
+        /**
+         * @return The router with the handlers for the dialogs shown by this host.
+         */
+        @NonNull
+        DialogRouter getDialogRouter();
+    }
+}
@@ -0,0 +1,78 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The path of a button click: resolving the handler of the dialog and choosing the button.
+ * <p/>
+ * {@link #stringKeyed()} is the same lookup keyed by the dialog id, as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+    /** Number of dialogs with a handler registered. */
+    @Param({"4", "64"})
+    public int mDialogCount;
+
+    private final RouteTable<Handler> mTable = new RouteTable<>();
+    private final HashMap<String, Handler> mStringTable = new HashMap<>();
+    private int[] mKeys;
+    private String[] mIds;
+    private int mNext = 0;
+
+    @Setup
+    public void setUp() {
+        mKeys = new int[mDialogCount];
+        mIds = new String[mDialogCount];
+        for (int i = 0; i < mDialogCount; i++) {
+            // built, not literal, so the ids are not interned by the JVM
+            mIds[i] = new StringBuilder("dialog_").append(i).toString();
+            mKeys[i] = DialogIdInterner.intern(mIds[i]);
+            final Handler handler = new Handler();
+            mTable.register(mKeys[i], handler);
+            mStringTable.put(mIds[i], handler);
+        }
+    }
+
+    @Benchmark
+    public int interned() {
+        final int i = next();
+        final int which = DialogButtons.chooseButtonOrder(DialogButtons.BUTTON_POSITIVE, true);
+        return mTable.resolve(mKeys[i]).onClick(which);
+    }
+
+    @Benchmark
+    public int stringKeyed() {
+        final int i = next();
+        final int which = DialogButtons.chooseButtonOrder(DialogButtons.BUTTON_POSITIVE, true);
+        return mStringTable.get(mIds[i]).onClick(which);
+    }
+
+    /** @return The index of the dialog clicked next, cycling through all of them. */
+    private int next() {
+        final int i = mNext;
+        mNext = i + 1 == mDialogCount ? 0 : i + 1;
+        return i;
+    }
+
+    /** Stands in for an observer. */
+    private static final class Handler {
+        private int mClicks = 0;
+
+        int onClick(final int which) {
+            mClicks++;
+            return mClicks + which;
+        }
+    }
+}
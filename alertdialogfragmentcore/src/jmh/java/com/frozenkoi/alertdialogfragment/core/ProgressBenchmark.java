@@ -0,0 +1,41 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Workers publishing to one {@link ProgressSlot} while nobody takes the values, as between two
+ * frames: after the first publish, the waker must not be called again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class ProgressBenchmark {
+    private final ProgressSlot mSlot = new ProgressSlot();
+    private final AtomicInteger mWakes = new AtomicInteger();
+    private int mProgress = 0;
+
+    public ProgressBenchmark() {
+        mSlot.setWaker(new ProgressSlot.Waker() {
+            @Override
+            public void wake() {
+                mWakes.incrementAndGet();
+            }
+        });
+    }
+
+    @Benchmark
+    public void publish() {
+        // racy on purpose, the workers of an import don't agree on the progress either
+        mSlot.publish(mProgress++ & 0xffff, 1 << 16);
+    }
+}
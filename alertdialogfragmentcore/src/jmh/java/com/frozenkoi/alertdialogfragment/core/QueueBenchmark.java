@@ -0,0 +1,95 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of dialogs going through a {@link DialogQueue}: each invocation enqueues
+ * {@code mBurst} dialogs with mixed priorities and then finishes them all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class QueueBenchmark {
+    /** Dialogs per burst. */
+    @Param({"8", "64"})
+    public int mBurst;
+
+    private DialogSpec[] mSpecs;
+    private DialogQueue mBounded;
+    private DialogQueue mCoalescing;
+    private DialogQueue mMerging;
+    /** Id of the last dialog presented, to finish it. */
+    private String mPresented;
+
+    @Setup
+    public void setUp() {
+        mSpecs = new DialogSpec[mBurst];
+        for (int i = 0; i < mBurst; i++) {
+            mSpecs[i] = new DialogSpec.Builder("dialog_" + i).setTitle(i).build();
+        }
+        final DialogQueue.Presenter presenter = new DialogQueue.Presenter() {
+            @Override
+            public void present(final DialogSpec spec) {
+                mPresented = spec.getDialogId();
+            }
+        };
+        final DialogSpec summary = new DialogSpec.Builder("summary").build();
+        mBounded = new DialogQueue(presenter, mBurst, DialogQueue.OverflowPolicy.DROP_OLDEST,
+                                   DialogQueue.DuplicatePolicy.DROP, null);
+        mCoalescing = new DialogQueue(presenter, 4, DialogQueue.OverflowPolicy.COALESCE,
+                                      DialogQueue.DuplicatePolicy.DROP,
+                                      new DialogQueue.SummaryFactory() {
+                                          @Override
+                                          public DialogSpec createSummary(
+                                                  final List<DialogSpec> coalesced) {
+                                              return summary;
+                                          }
+                                      });
+        mMerging = new DialogQueue(presenter, mBurst, DialogQueue.OverflowPolicy.DROP_NEWEST,
+                                   DialogQueue.DuplicatePolicy.MERGE, null);
+    }
+
+    @Benchmark
+    public int enqueueAndDrain() {
+        return burst(mBounded, 1);
+    }
+
+    @Benchmark
+    public int enqueueCoalescing() {
+        return burst(mCoalescing, 1);
+    }
+
+    @Benchmark
+    public int enqueueDuplicates() {
+        return burst(mMerging, 2);
+    }
+
+    /**
+     * Enqueues every dialog {@code repeat} times and then finishes the dialogs until the queue is
+     * empty.
+     * @return The number of dialogs shown.
+     */
+    private int burst(final DialogQueue queue, final int repeat) {
+        for (int r = 0; r < repeat; r++) {
+            for (int i = 0; i < mSpecs.length; i++) {
+                queue.enqueue(mSpecs[i], i % 3);
+            }
+        }
+        int shown = 0;
+        while (null != queue.getShowingDialogId()) {
+            queue.onDialogFinished(mPresented);
+            shown++;
+        }
+        return shown;
+    }
+}
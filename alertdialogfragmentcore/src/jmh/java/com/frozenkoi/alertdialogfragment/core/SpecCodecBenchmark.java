@@ -0,0 +1,81 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of {@link DialogSpec}s, as done for every dialog created and every
+ * fragment restored.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class SpecCodecBenchmark {
+    /** A dialog with only resource ids, like most dialogs. */
+    private DialogSpec mResourceSpec;
+    /** A dialog with every value set. */
+    private DialogSpec mFullSpec;
+    private int[] mResourceInts;
+    private String[] mResourceStrings;
+    private int[] mFullInts;
+    private String[] mFullStrings;
+
+    @Setup
+    public void setUp() {
+        mResourceSpec = new DialogSpec.Builder("resources")
+                .setTitle(0x7f060001)
+                .setMessage(0x7f060002)
+                .setPositiveButton(0x7f060003)
+                .setNegativeButton(0x7f060004)
+                .build();
+        mFullSpec = new DialogSpec.Builder("full")
+                .setTitle(0x7f060001)
+                .setTitle("Title")
+                .setMessage(0x7f060002)
+                .setMessage("A message that is a bit longer than the title")
+                .setPositiveButton(0x7f060003)
+                .setPositiveButton("Yes")
+                .setNeutralButton(0x7f060005)
+                .setNeutralButton("Later")
+                .setNegativeButton(0x7f060004)
+                .setNegativeButton("No")
+                .setReverseButtons(true)
+                .setCompactArguments(true)
+                .setAutoDismiss(5000)
+                .build();
+        mResourceInts = mResourceSpec.packInts();
+        mResourceStrings = mResourceSpec.packStrings();
+        mFullInts = mFullSpec.packInts();
+        mFullStrings = mFullSpec.packStrings();
+    }
+
+    @Benchmark
+    public void encodeResources(final Blackhole bh) {
+        bh.consume(mResourceSpec.packInts());
+        bh.consume(mResourceSpec.packStrings());
+    }
+
+    @Benchmark
+    public void encodeFull(final Blackhole bh) {
+        bh.consume(mFullSpec.packInts());
+        bh.consume(mFullSpec.packStrings());
+    }
+
+    @Benchmark
+    public DialogSpec decodeResources() {
+        return DialogSpec.unpack(mResourceInts, mResourceStrings);
+    }
+
+    @Benchmark
+    public DialogSpec decodeFull() {
+        return DialogSpec.unpack(mFullInts, mFullStrings);
+    }
+}
@@ -0,0 +1,181 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads the content of dialogs in the background and keeps each load until its dialog takes the
+ * result.
+ * <p/>
+ * Loads are identified by a key that survives the dialog being recreated, so a dialog that comes
+ * back after a configuration change attaches to the load it started instead of starting another
+ * one. A result that arrives while no dialog is attached is kept until one attaches, or until the
+ * load is {@link #remove(String) removed}.
+ * <p/>
+ * {@link #start(String, Source)}, {@link #attach(String, Listener)}, {@link #detach(String)} and
+ * {@link #remove(String)} must be called on the thread the delivery executor runs on; on Android,
+ * the main thread. The sources run on the background executor.
+ */
+public final class ContentLoads {
+    /**
+     * Computes the content of one dialog. Runs in the background and can outlive the dialog and
+     * its host, so it must not hold references to either.
+     */
+    public interface Source {
+        /**
+         * @return The content of the dialog.
+         * @throws Exception If the content can't be computed; the placeholder stays.
+         */
+        DialogContent load() throws Exception;
+    }
+
+    /**
+     * Receives the result of a load, on the delivery thread. Called at most once per load.
+     */
+    public interface Listener {
+        void onContentLoaded(DialogContent content);
+
+        void onContentFailed(Exception error);
+    }
+
+    private final Executor mBackground;
+    private final Executor mDelivery;
+    /** Loads started and not yet delivered or removed, by key. Guarded by itself. */
+    private final Map<String, Load> mLoads = new HashMap<>();
+
+    /**
+     * @param background Runs the sources.
+     * @param delivery Runs the listeners.
+     */
+    public ContentLoads(final Executor background, final Executor delivery) {
+        mBackground = background;
+        mDelivery = delivery;
+    }
+
+    /**
+     * Starts loading, unless a load with the same key was started and not yet delivered.
+     * @param key Identifies the load.
+     * @param source Computes the content.
+     * @return {@code true} if a new load was started.
+     */
+    public boolean start(final String key, final Source source) {
+        final Load load;
+        synchronized (mLoads) {
+            if (mLoads.containsKey(key)) {
+                return false;
+            }
+            load = new Load(key, source);
+            mLoads.put(key, load);
+        }
+        mBackground.execute(load.mRun);
+        return true;
+    }
+
+    /**
+     * @param key Identifies the load.
+     * @return {@code true} if the load was started and not yet delivered or removed.
+     */
+    public boolean isPending(final String key) {
+        synchronized (mLoads) {
+            return mLoads.containsKey(key);
+        }
+    }
+
+    /**
+     * Sets the listener of a load, replacing the previous one. If the load already finished the
+     * result is delivered right away, through the delivery executor.
+     * @param key Identifies the load.
+     * @param listener Receives the result.
+     * @return {@code false} if there is no such load.
+     */
+    public boolean attach(final String key, final Listener listener) {
+        final Load load;
+        synchronized (mLoads) {
+            load = mLoads.get(key);
+            if (null == load) {
+                return false;
+            }
+            load.mListener = listener;
+        }
+        if (load.mDone) {
+            mDelivery.execute(load.mDeliver);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the listener of a load. The load keeps running and its result is kept.
+     * @param key Identifies the load.
+     */
+    public void detach(final String key) {
+        synchronized (mLoads) {
+            final Load load = mLoads.get(key);
+            if (null != load) {
+                load.mListener = null;
+            }
+        }
+    }
+
+    /**
+     * Forgets a load. If it is still running its result is dropped.
+     * @param key Identifies the load.
+     */
+    public void remove(final String key) {
+        synchronized (mLoads) {
+            mLoads.remove(key);
+        }
+    }
+
+    /** One load, from start to delivery. */
+    private final class Load {
+        private final String mKey;
+        private final Source mSource;
+        /** Guarded by {@link #mLoads}. */
+        private Listener mListener;
+        /** Set once the source returned or threw. */
+        private volatile boolean mDone = false;
+        private DialogContent mContent;
+        private Exception mError;
+
+        /** Runs the source on the background executor. */
+        private final Runnable mRun = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mContent = mSource.load();
+                } catch (Exception e) {
+                    mError = e;
+                }
+                mDone = true;
+                mDelivery.execute(mDeliver);
+            }
+        };
+
+        /** Hands the result to the listener on the delivery executor, if there is one. */
+        private final Runnable mDeliver = new Runnable() {
+            @Override
+            public void run() {
+                final Listener listener;
+                synchronized (mLoads) {
+                    if (mLoads.get(mKey) != Load.this || null == mListener) {
+                        // removed, or nobody is attached: wait for the next attach
+                        return;
+                    }
+                    listener = mListener;
+                    mLoads.remove(mKey);
+                }
+                if (null != mError) {
+                    listener.onContentFailed(mError);
+                } else {
+                    listener.onContentLoaded(mContent);
+                }
+            }
+        };
+
+        Load(final String key, final Source source) {
+            mKey = key;
+            mSource = source;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.Arrays;
+
+/**
+ * Runs the timeouts of many tasks with a single pending alarm.
+ * <p/>
+ * Tasks are kept in a binary min-heap by deadline and only the earliest deadline has an alarm
+ * set. Scheduling or cancelling a task that doesn't change the earliest deadline doesn't touch
+ * the alarm at all. Time comes from a {@link Clock} and the alarm is an {@link Alarm}, so the
+ * scheduler runs the same on a Handler or in a plain JVM. Not thread safe.
+ */
+public final class DeadlineScheduler {
+    /** Value of {@link Task#mIndex} for a task that is not scheduled. */
+    private static final int NOT_SCHEDULED = -1;
+    /** Value of {@link #mAlarmDeadline} when no alarm is set. */
+    private static final long NOT_SET = Long.MAX_VALUE;
+
+    /** Source of the time deadlines are measured in. */
+    public interface Clock {
+        /**
+         * @return The current time, in milliseconds. Must not go backwards.
+         */
+        long now();
+    }
+
+    /** Wakes the scheduler up at a deadline. One-shot: once it goes off, it is not set anymore. */
+    public interface Alarm {
+        /**
+         * Replaces any alarm set before with one that calls {@link #runExpired()} at a deadline.
+         * @param deadline When to call {@link #runExpired()}, in {@link Clock#now()} time.
+         */
+        void set(long deadline);
+
+        /** Removes the alarm set, if any. */
+        void clear();
+    }
+
+    /**
+     * Something to run when its time runs out. Each task can be scheduled once at a time;
+     * scheduling it again moves its deadline.
+     */
+    public abstract static class Task {
+        /** {@link Clock#now()} when the task runs. */
+        long mDeadline;
+        /** Position in the heap, or {@link #NOT_SCHEDULED}. */
+        int mIndex = NOT_SCHEDULED;
+
+        /** Called from {@link #runExpired()} when the time of the task runs out. */
+        protected abstract void onExpired();
+
+        /**
+         * @return {@code true} if the task is waiting to run.
+         */
+        public final boolean isScheduled() {
+            return NOT_SCHEDULED != mIndex;
+        }
+    }
+
+    private final Clock mClock;
+    private final Alarm mAlarm;
+    /** Scheduled tasks, as a binary min-heap by deadline. */
+    private Task[] mHeap = new Task[8];
+    private int mSize = 0;
+    /** Deadline of the alarm set, or {@link #NOT_SET}. */
+    private long mAlarmDeadline = NOT_SET;
+
+    /**
+     * @param clock Source of the time.
+     * @param alarm Calls {@link #runExpired()} at the earliest deadline.
+     */
+    public DeadlineScheduler(final Clock clock, final Alarm alarm) {
+        mClock = clock;
+        mAlarm = alarm;
+    }
+
+    /**
+     * Schedules a task.
+     * @param task The task.
+     * @param delayMillis Time until the task runs.
+     */
+    public void schedule(final Task task, final long delayMillis) {
+        task.mDeadline = mClock.now() + Math.max(0, delayMillis);
+        if (task.isScheduled()) {
+            siftUp(task.mIndex);
+            siftDown(task.mIndex);
+        } else {
+            if (mSize == mHeap.length) {
+                mHeap = Arrays.copyOf(mHeap, mSize * 2);
+            }
+            task.mIndex = mSize;
+            mHeap[mSize++] = task;
+            siftUp(task.mIndex);
+        }
+        updateAlarm();
+    }
+
+    /**
+     * Unschedules a task.
+     * @param task The task.
+     * @return The time the task had left, or {@code -1} if it was not scheduled.
+     */
+    public long cancel(final Task task) {
+        if (!task.isScheduled()) {
+            return -1;
+        }
+        final long remaining = getRemaining(task);
+        removeAt(task.mIndex);
+        updateAlarm();
+        return remaining;
+    }
+
+    /**
+     * @param task The task.
+     * @return The time the task has left, or {@code -1} if it is not scheduled.
+     */
+    public long getRemaining(final Task task) {
+        if (!task.isScheduled()) {
+            return -1;
+        }
+        return Math.max(0, task.mDeadline - mClock.now());
+    }
+
+    /**
+     * @return The number of scheduled tasks.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Runs the tasks whose time ran out. Called by the {@link Alarm} when it goes off.
+     */
+    public void runExpired() {
+        mAlarmDeadline = NOT_SET;
+        final long now = mClock.now();
+        while (mSize > 0 && mHeap[0].mDeadline <= now) {
+            final Task task = mHeap[0];
+            removeAt(0);
+            task.onExpired();
+        }
+        updateAlarm();
+    }
+
+    /** Makes sure the alarm matches the earliest deadline. */
+    private void updateAlarm() {
+        final long earliest = mSize > 0 ? mHeap[0].mDeadline : NOT_SET;
+        if (earliest == mAlarmDeadline) {
+            return;
+        }
+        mAlarmDeadline = earliest;
+        if (NOT_SET != earliest) {
+            mAlarm.set(earliest);
+        } else {
+            mAlarm.clear();
+        }
+    }
+
+    /** Removes the task at a position of the heap. */
+    private void removeAt(final int i) {
+        final Task removed = mHeap[i];
+        removed.mIndex = NOT_SCHEDULED;
+        mSize--;
+        if (i != mSize) {
+            final Task last = mHeap[mSize];
+            mHeap[i] = last;
+            last.mIndex = i;
+            siftUp(i);
+            siftDown(last.mIndex);
+        }
+        mHeap[mSize] = null;
+    }
+
+    private void siftUp(int i) {
+        final Task task = mHeap[i];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (mHeap[parent].mDeadline <= task.mDeadline) {
+                break;
+            }
+            mHeap[i] = mHeap[parent];
+            mHeap[i].mIndex = i;
+            i = parent;
+        }
+        mHeap[i] = task;
+        task.mIndex = i;
+    }
+
+    private void siftDown(int i) {
+        final Task task = mHeap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= mSize) {
+                break;
+            }
+            if (child + 1 < mSize && mHeap[child + 1].mDeadline < mHeap[child].mDeadline) {
+                child++;
+            }
+            if (task.mDeadline <= mHeap[child].mDeadline) {
+                break;
+            }
+            mHeap[i] = mHeap[child];
+            mHeap[i].mIndex = i;
+            i = child;
+        }
+        mHeap[i] = task;
+        task.mIndex = i;
+    }
+}
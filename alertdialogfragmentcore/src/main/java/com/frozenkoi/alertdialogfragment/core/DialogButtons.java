@@ -0,0 +1,46 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Button constants and button order logic shared by the compat and nocompat dialogs.
+ * <p/>
+ * The values are the same as the ones in {@code android.content.DialogInterface}, so they can be
+ * passed to and from the platform unchanged.
+ */
+public final class DialogButtons {
+    /** Same as {@code DialogInterface.BUTTON_POSITIVE}. */
+    public static final int BUTTON_POSITIVE = -1;
+    /** Same as {@code DialogInterface.BUTTON_NEGATIVE}. */
+    public static final int BUTTON_NEGATIVE = -2;
+    /** Same as {@code DialogInterface.BUTTON_NEUTRAL}. */
+    public static final int BUTTON_NEUTRAL = -3;
+
+    /** Not instantiable. */
+    private DialogButtons() {
+    }
+
+    /**
+     * Utility function to choose which button to use based on the 'real' button and whether the
+     * positive and negative buttons are being inverted.
+     * @param which Which button we want to use.
+     * @param reverseButtons {@code true} if inverting or {@code false} if not.
+     * @return The id that we should use. If reverseButtons is {@code false} the same value
+     *         as {@code which}. For buttons other than positive and negative, return {@code which}
+     *         unchanged regardless of {@code reverseButtons}.
+     */
+    public static int chooseButtonOrder(final int which, final boolean reverseButtons) {
+        int whichButton = which;
+        if (reverseButtons) {
+            switch (which) {
+                case BUTTON_POSITIVE:
+                    whichButton = BUTTON_NEGATIVE;
+                    break;
+                case BUTTON_NEGATIVE:
+                    whichButton = BUTTON_POSITIVE;
+                    break;
+                default:
+                    whichButton = which;
+            }
+        }
+        return whichButton;
+    }
+}
@@ -0,0 +1,34 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Title and message of a dialog, computed after the dialog is shown. See {@link ContentLoads}.
+ */
+public final class DialogContent {
+    /** The title, or {@code null} to keep the placeholder. */
+    private final String mTitle;
+    /** The body text, or {@code null} to keep the placeholder. */
+    private final String mMessage;
+
+    /**
+     * @param title The title, or {@code null} to keep the placeholder.
+     * @param message The body text, or {@code null} to keep the placeholder.
+     */
+    public DialogContent(final String title, final String message) {
+        mTitle = title;
+        mMessage = message;
+    }
+
+    /**
+     * @return The title, or {@code null} to keep the placeholder.
+     */
+    public String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * @return The body text, or {@code null} to keep the placeholder.
+     */
+    public String getMessage() {
+        return mMessage;
+    }
+}
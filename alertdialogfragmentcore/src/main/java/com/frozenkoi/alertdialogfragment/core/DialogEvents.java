@@ -0,0 +1,230 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Takes the events of one dialog from the widget to everyone that wants them: through its
+ * {@link EventGate}, to its observer with an {@link EventDispatcher}, to the listeners of a
+ * {@link ListenerRegistry} and to the {@link DialogFuture} it was shown with, recording each event
+ * on the way.
+ * <p/>
+ * The dialog fragments and {@link HeadlessRenderer} both use it, so the path of a click can be
+ * tested on a plain JVM. Once the observer is resolved, an event doesn't allocate unless the
+ * dialog has listeners or a future to complete.
+ * <p/>
+ * Not thread safe, on Android it must be used from the main thread.
+ * @param <D> The type of the dialogs, like {@code DialogInterface}.
+ * @param <O> The type of the observers and of the listeners.
+ */
+public final class DialogEvents<D, O> {
+    /**
+     * Records the events, for the journal and the metrics. Implementations must not allocate, so
+     * the whole path doesn't.
+     */
+    public interface Recorder {
+        /**
+         * @param type One of the {@code TYPE_} constants of {@link EventJournal}.
+         * @param which The button or the position clicked, or for
+         *              {@link EventJournal#TYPE_DROPPED} the type of the event dropped, or 0.
+         */
+        void record(int type, int which);
+
+        /**
+         * Called for each click and cancel let through, before it is delivered.
+         */
+        void recordAction();
+    }
+
+    private final String mDialogId;
+    private final int mDialogKey;
+    private final boolean mReverseButtons;
+    private final EventGate mGate;
+    private final EventDispatcher<D, O> mDispatcher;
+    private final EventDispatcher.Delivery<D, O> mDelivery;
+    /** Also receive the events, can be {@code null}. */
+    private final ListenerRegistry<O> mListeners;
+    private final Recorder mRecorder;
+    /** Completed with the result of the dialog, until it is. */
+    private DialogFuture mFuture;
+    /** {@code true} once the show is recorded, so a restart or recreation doesn't record it. */
+    private boolean mShowRecorded = false;
+
+    /**
+     * @param spec The dialog.
+     * @param dialogKey Its id, interned with {@link DialogIdInterner}.
+     * @param dispatcher Delivers the events to its observer. Its buttons are reversed as the spec
+     *                   says.
+     * @param delivery Calls the listeners.
+     * @param listeners Also receive the events, after the observer. Can be {@code null}.
+     * @param recorder Records the events.
+     */
+    public DialogEvents(final DialogSpec spec, final int dialogKey,
+                        final EventDispatcher<D, O> dispatcher,
+                        final EventDispatcher.Delivery<D, O> delivery,
+                        final ListenerRegistry<O> listeners, final Recorder recorder) {
+        mDialogId = spec.getDialogId();
+        mDialogKey = dialogKey;
+        mReverseButtons = spec.isReverseButtons();
+        mGate = new EventGate(spec.getResultEvents(), spec.getClickDebounceMillis());
+        mDispatcher = dispatcher;
+        mDelivery = delivery;
+        mListeners = listeners;
+        mRecorder = recorder;
+        dispatcher.setReverseButtons(mReverseButtons);
+    }
+
+    /**
+     * @param future Completed with the first result delivered, or by the final dismiss. Can be
+     *               {@code null}.
+     */
+    public void setResultFuture(final DialogFuture future) {
+        mFuture = future;
+    }
+
+    /**
+     * Restores the state of the previous instance of a dialog recreated after a configuration
+     * change.
+     * @param closed {@link #isClosed()} of the previous instance.
+     * @param showRecorded {@link #isShowRecorded()} of the previous instance.
+     */
+    public void restore(final boolean closed, final boolean showRecorded) {
+        mGate.restore(closed);
+        mShowRecorded = showRecorded;
+    }
+
+    /**
+     * @return {@code true} if the result of the dialog was delivered, see
+     *         {@link EventGate#isClosed()}.
+     */
+    public boolean isClosed() {
+        return mGate.isClosed();
+    }
+
+    /**
+     * @return {@code true} if the show of the dialog was recorded.
+     */
+    public boolean isShowRecorded() {
+        return mShowRecorded;
+    }
+
+    /**
+     * Records the show of the dialog, the first time only.
+     */
+    public void onShow() {
+        if (!mShowRecorded) {
+            mShowRecorded = true;
+            mRecorder.record(EventJournal.TYPE_SHOW, 0);
+        }
+    }
+
+    /**
+     * A button or an item picked, that the gate may drop.
+     * @param dialog The dialog.
+     * @param which The button clicked, as shown, or the position of the item.
+     * @param nowMillis The current time, for the click debounce.
+     * @return {@code false} if the gate dropped the click.
+     */
+    public boolean onClick(final D dialog, final int which, final long nowMillis) {
+        if (!mGate.onClick(nowMillis)) {
+            mRecorder.record(EventJournal.TYPE_DROPPED, EventJournal.TYPE_CLICK);
+            return false;
+        }
+        mRecorder.recordAction();
+        deliverClick(dialog, which);
+        completeResult(EventGate.EVENT_CLICK, which);
+        return true;
+    }
+
+    /**
+     * Delivers a click without going through the gate, for the items of a choice dialog, which
+     * are not its result.
+     * @param dialog The dialog.
+     * @param which The button clicked, as shown, or the position of the item.
+     */
+    public void deliverClick(final D dialog, final int which) {
+        mRecorder.record(EventJournal.TYPE_CLICK, which);
+        mDispatcher.dispatchClick(dialog, which);
+        if (null == mListeners || 0 == mListeners.size(mDialogKey)) {
+            return;
+        }
+        final int whichButton = DialogButtons.chooseButtonOrder(which, mReverseButtons);
+        mListeners.deliver(mDialogKey, new ListenerRegistry.Event<O>() {
+            @Override
+            public void deliverTo(final O listener) {
+                mDelivery.deliverClick(listener, dialog, whichButton);
+            }
+        });
+    }
+
+    /**
+     * @param dialog The dialog.
+     * @return {@code false} if the gate dropped the cancel.
+     */
+    public boolean onCancel(final D dialog) {
+        if (!mGate.onCancel()) {
+            mRecorder.record(EventJournal.TYPE_DROPPED, EventJournal.TYPE_CANCEL);
+            return false;
+        }
+        mRecorder.recordAction();
+        mRecorder.record(EventJournal.TYPE_CANCEL, 0);
+        mDispatcher.dispatchCancel(dialog);
+        if (null != mListeners && 0 != mListeners.size(mDialogKey)) {
+            mListeners.deliver(mDialogKey, new ListenerRegistry.Event<O>() {
+                @Override
+                public void deliverTo(final O listener) {
+                    mDelivery.deliverCancel(listener, dialog);
+                }
+            });
+        }
+        completeResult(EventGate.EVENT_CANCEL, 0);
+        return true;
+    }
+
+    /**
+     * The end of the dialog, not the dismiss of a configuration change. Completes the future
+     * whether or not the gate lets the dismiss through.
+     * @param dialog The dialog.
+     * @return {@code false} if the gate dropped the dismiss.
+     */
+    public boolean onDismiss(final D dialog) {
+        mRecorder.record(EventJournal.TYPE_DISMISS, 0);
+        final boolean delivered = mGate.onDismiss();
+        if (delivered) {
+            mDispatcher.dispatchDismiss(dialog);
+            if (null != mListeners && 0 != mListeners.size(mDialogKey)) {
+                mListeners.deliver(mDialogKey, new ListenerRegistry.Event<O>() {
+                    @Override
+                    public void deliverTo(final O listener) {
+                        mDelivery.deliverDismiss(listener, dialog);
+                    }
+                });
+            }
+        }
+        completeResult(EventGate.EVENT_DISMISS, 0);
+        return delivered;
+    }
+
+    /**
+     * Completes the future, if there is one. The result is only built then, so the events of
+     * the other dialogs don't allocate.
+     * @param event One of the {@code EVENT_} constants of {@link EventGate}.
+     * @param which The button clicked, as shown, or the position of the item; 0 if not a click.
+     */
+    private void completeResult(final int event, final int which) {
+        if (null == mFuture) {
+            return;
+        }
+        final DialogFuture future = mFuture;
+        mFuture = null;
+        switch (event) {
+            case EventGate.EVENT_CLICK:
+                future.complete(DialogResult.click(mDialogId,
+                        DialogButtons.chooseButtonOrder(which, mReverseButtons)));
+                break;
+            case EventGate.EVENT_CANCEL:
+                future.complete(DialogResult.cancel(mDialogId));
+                break;
+            default:
+                future.complete(DialogResult.dismiss(mDialogId));
+                break;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The result of a dialog, for code that isn't the host of the dialog, like a background task
+ * that asks the user before going on.
+ * <p/>
+ * Completed once, on the main thread, with the first click, cancel or dismiss of the dialog that
+ * its observer gets, and not by the dismiss of a configuration change. The events the
+ * {@link EventGate} of the dialog drops don't complete it either, except the final dismiss: a
+ * dialog that ends without delivering one of the result events its spec declares, like a dialog
+ * that only takes clicks and is cancelled, completes it with a dismiss. Can be waited on with
+ * {@link #get()} from any thread but the main thread, which would never see the dialog, or
+ * listened to with {@link #addListener(Runnable, Executor)} to chain the next step without
+ * blocking.
+ * <p/>
+ * Cancelling the future only drops the interest in the result: the dialog stays up. The future is
+ * cancelled for its waiters if the dialog is destroyed, not for a configuration change, without
+ * completing it.
+ */
+public final class DialogFuture implements Future<DialogResult> {
+    /** The result, once completed and not cancelled. */
+    private DialogResult mResult;
+    private boolean mCancelled = false;
+    /** Listeners waiting for the completion, wrapped with their executors. */
+    private ArrayList<Runnable> mListeners = new ArrayList<>();
+
+    /**
+     * Completes the future, if it isn't done. Called by the dialog.
+     * @param result How the dialog ended.
+     * @return {@code false} if the future was already done.
+     */
+    public boolean complete(final DialogResult result) {
+        if (null == result) {
+            throw new NullPointerException("result");
+        }
+        return finish(result, false);
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return finish(null, true);
+    }
+
+    private boolean finish(final DialogResult result, final boolean cancelled) {
+        final ArrayList<Runnable> listeners;
+        synchronized (this) {
+            if (null == mListeners) {
+                return false;
+            }
+            mResult = result;
+            mCancelled = cancelled;
+            listeners = mListeners;
+            mListeners = null;
+            notifyAll();
+        }
+        // outside the lock, a listener on a direct executor may call back in
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).run();
+        }
+        return true;
+    }
+
+    /**
+     * Runs {@code listener} on {@code executor} once the future is done, right away if it is.
+     * @param listener The listener, which can read the result with {@link #get()}.
+     * @param executor Runs the listener.
+     */
+    public void addListener(final Runnable listener, final Executor executor) {
+        final Runnable posted = new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(listener);
+            }
+        };
+        synchronized (this) {
+            if (null != mListeners) {
+                mListeners.add(posted);
+                return;
+            }
+        }
+        posted.run();
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return null == mListeners;
+    }
+
+    /**
+     * Waits for the dialog to end. Never call it on the main thread.
+     * @return How the dialog ended.
+     * @throws CancellationException If the future was cancelled.
+     * @throws InterruptedException If the waiting thread was interrupted.
+     */
+    @Override
+    public synchronized DialogResult get() throws InterruptedException {
+        while (null != mListeners) {
+            wait();
+        }
+        return getDone();
+    }
+
+    /**
+     * Waits for the dialog to end, for some time. Never call it on the main thread.
+     * @return How the dialog ended.
+     * @throws CancellationException If the future was cancelled.
+     * @throws InterruptedException If the waiting thread was interrupted.
+     * @throws TimeoutException If the dialog didn't end in time.
+     */
+    @Override
+    public synchronized DialogResult get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (null != mListeners) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getDone();
+    }
+
+    private DialogResult getDone() {
+        if (mCancelled) {
+            throw new CancellationException();
+        }
+        return mResult;
+    }
+}
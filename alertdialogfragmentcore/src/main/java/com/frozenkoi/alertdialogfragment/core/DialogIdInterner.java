@@ -0,0 +1,73 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Maps string dialog ids to small, dense integer keys.
+ * <p/>
+ * Each distinct id is given the next free key the first time it is interned and keeps it for the
+ * rest of the process, so a key can be computed once and then used for array and
+ * {@link IntHandlerMap} lookups instead of hashing the string on every event. Keys are not stable
+ * across processes and must not be persisted; persist the string id instead.
+ * <p/>
+ * Ids are never forgotten, not even when the metrics are reset, since dialogs and caches hold on
+ * to their keys. The interner grows with the number of distinct ids, so ids must come from a
+ * bounded set, like constants, and not be built from user input or timestamps.
+ */
+public final class DialogIdInterner {
+    /** Returned by {@link #find(String)} for an id that was never interned. */
+    public static final int NOT_INTERNED = -1;
+
+    /** Keys already handed out, by dialog id. */
+    private static final HashMap<String, Integer> sKeys = new HashMap<>();
+    /** Dialog ids, indexed by their key. */
+    private static final ArrayList<String> sIds = new ArrayList<>();
+
+    /** Not instantiable. */
+    private DialogIdInterner() {
+    }
+
+    /**
+     * @param dialogID The dialog string id.
+     * @return The integer key for {@code dialogID}. Always {@code >= 0}.
+     */
+    public static int intern(final String dialogID) {
+        synchronized (sKeys) {
+            final Integer key = sKeys.get(dialogID);
+            if (null != key) {
+                return key;
+            }
+            final int newKey = sIds.size();
+            sIds.add(dialogID);
+            sKeys.put(dialogID, newKey);
+            return newKey;
+        }
+    }
+
+    /**
+     * Like {@link #intern(String)} but never hands out a new key, for lookups of ids that may
+     * never have been shown.
+     * @param dialogID The dialog string id.
+     * @return The integer key for {@code dialogID} or {@link #NOT_INTERNED}.
+     */
+    public static int find(final String dialogID) {
+        synchronized (sKeys) {
+            final Integer key = sKeys.get(dialogID);
+            return null != key ? key : NOT_INTERNED;
+        }
+    }
+
+    /**
+     * @param key A key returned by {@link #intern(String)}.
+     * @return The dialog string id for {@code key} or {@code null} if no id was interned with it.
+     */
+    public static String lookup(final int key) {
+        synchronized (sKeys) {
+            if (key < 0 || key >= sIds.size()) {
+                return null;
+            }
+            return sIds.get(key);
+        }
+    }
+}
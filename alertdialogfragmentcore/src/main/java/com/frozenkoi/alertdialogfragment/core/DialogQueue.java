@@ -0,0 +1,307 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows dialogs one at a time, highest priority first.
+ * <p/>
+ * Dialogs are described by their {@link DialogSpec} and handed to a {@link Presenter} when it is
+ * their turn. A dialog with the same id as the one showing is dropped, and one with the same id as
+ * a pending one is dropped or merged into it, depending on the {@link DuplicatePolicy}. At most
+ * {@code maxPending} dialogs wait; what happens to the rest depends on the {@link OverflowPolicy}.
+ * <p/>
+ * The dialog fragments tell the queue of their host when they are dismissed, if the host
+ * implements {@link Host}, so the next dialog is shown. Not thread safe, on Android it must be
+ * used from the main thread.
+ */
+public final class DialogQueue {
+    /** What to do with a new dialog when {@code maxPending} dialogs are already waiting. */
+    public enum OverflowPolicy {
+        /** Discard the dialog that has been waiting the longest. */
+        DROP_OLDEST,
+        /** Discard the new dialog. */
+        DROP_NEWEST,
+        /** Replace all the waiting dialogs and the new one with a single summary dialog. */
+        COALESCE
+    }
+
+    /** What to do with a new dialog that has the same id as a waiting one. */
+    public enum DuplicatePolicy {
+        /** Discard the new dialog. */
+        DROP,
+        /** Keep the new dialog in the place of the waiting one, with the highest priority. */
+        MERGE
+    }
+
+    /** Shows the dialogs when it is their turn. */
+    public interface Presenter {
+        /**
+         * Shows a dialog. The queue waits for {@link #onDialogFinished(String)} before showing
+         * the next one.
+         * @param spec The dialog to show.
+         */
+        void present(DialogSpec spec);
+    }
+
+    /**
+     * Creates the dialog shown in place of the coalesced ones for
+     * {@link OverflowPolicy#COALESCE}.
+     */
+    public interface SummaryFactory {
+        /**
+         * @param coalesced The dialogs replaced by the summary, highest priority first.
+         * @return The summary dialog.
+         */
+        DialogSpec createSummary(List<DialogSpec> coalesced);
+    }
+
+    /**
+     * Implemented by Activities and Fragments that show dialogs through a {@link DialogQueue}.
+     */
+    public interface Host {
+        /**
+         * @return The queue for the dialogs shown by this host.
+         */
+        DialogQueue getDialogQueue();
+    }
+
+    private final Presenter mPresenter;
+    private final int mMaxPending;
+    private final OverflowPolicy mOverflowPolicy;
+    private final DuplicatePolicy mDuplicatePolicy;
+    private final SummaryFactory mSummaryFactory;
+
+    /** Waiting dialogs, highest priority first and oldest first within a priority. */
+    private final ArrayList<Entry> mPending = new ArrayList<>();
+    /** Id of the dialog showing, or {@code null} if none is. */
+    private String mShowingId;
+    /** Order of arrival of the next dialog. */
+    private long mNextSequence = 0;
+
+    /**
+     * @param presenter Shows the dialogs.
+     * @param maxPending Maximum number of waiting dialogs. Must be at least 1.
+     * @param overflowPolicy What to do when there are too many waiting dialogs.
+     * @param duplicatePolicy What to do with a dialog with the same id as a waiting one.
+     * @param summaryFactory Creates the summary dialog. Required for
+     *                       {@link OverflowPolicy#COALESCE}, ignored otherwise.
+     */
+    public DialogQueue(final Presenter presenter, final int maxPending,
+                       final OverflowPolicy overflowPolicy,
+                       final DuplicatePolicy duplicatePolicy,
+                       final SummaryFactory summaryFactory) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be at least 1");
+        }
+        if (OverflowPolicy.COALESCE == overflowPolicy && null == summaryFactory) {
+            throw new IllegalArgumentException("COALESCE requires a SummaryFactory");
+        }
+        mPresenter = presenter;
+        mMaxPending = maxPending;
+        mOverflowPolicy = overflowPolicy;
+        mDuplicatePolicy = duplicatePolicy;
+        mSummaryFactory = summaryFactory;
+    }
+
+    /**
+     * Shows a dialog now if none is showing, or when its turn comes.
+     * @param spec The dialog.
+     * @param priority Dialogs with higher priority are shown first.
+     * @return {@code false} if the dialog was discarded.
+     */
+    public boolean enqueue(final DialogSpec spec, final int priority) {
+        final String dialogID = spec.getDialogId();
+        if (dialogID.equals(mShowingId)) {
+            return false;
+        }
+
+        if (null == mShowingId) {
+            show(spec);
+            return true;
+        }
+
+        final int duplicate = indexOf(dialogID);
+        if (duplicate >= 0) {
+            if (DuplicatePolicy.DROP == mDuplicatePolicy) {
+                return false;
+            }
+            final Entry old = mPending.remove(duplicate);
+            insert(new Entry(spec, Math.max(priority, old.mPriority), old.mSequence));
+            return true;
+        }
+
+        if (mPending.size() >= mMaxPending) {
+            switch (mOverflowPolicy) {
+                case DROP_NEWEST:
+                    return false;
+                case DROP_OLDEST:
+                    mPending.remove(indexOfOldest());
+                    break;
+                default:
+                    coalesce(spec, priority);
+                    return true;
+            }
+        }
+
+        insert(new Entry(spec, priority, mNextSequence++));
+        return true;
+    }
+
+    /**
+     * Tells the queue that a dialog is gone, so the next one can be shown. Ignored if the dialog
+     * is not the one showing.
+     * @param dialogID The id of the dialog.
+     */
+    public void onDialogFinished(final String dialogID) {
+        if (!dialogID.equals(mShowingId)) {
+            return;
+        }
+        mShowingId = null;
+        if (!mPending.isEmpty()) {
+            show(mPending.remove(0).mSpec);
+        }
+    }
+
+    /**
+     * Discards all the waiting dialogs. The one showing, if any, is not affected.
+     */
+    public void clear() {
+        mPending.clear();
+    }
+
+    /**
+     * @return The number of waiting dialogs.
+     */
+    public int getPendingCount() {
+        return mPending.size();
+    }
+
+    /**
+     * @return The id of the dialog showing, or {@code null} if none is.
+     */
+    public String getShowingDialogId() {
+        return mShowingId;
+    }
+
+    /**
+     * @return The waiting dialogs, highest priority first. For saving the state of the queue.
+     */
+    public List<DialogSpec> getPendingSpecs() {
+        final ArrayList<DialogSpec> specs = new ArrayList<>(mPending.size());
+        for (int i = 0; i < mPending.size(); i++) {
+            specs.add(mPending.get(i).mSpec);
+        }
+        return specs;
+    }
+
+    /**
+     * @return The priorities of the waiting dialogs, in the order of {@link #getPendingSpecs()}.
+     */
+    public int[] getPendingPriorities() {
+        final int[] priorities = new int[mPending.size()];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = mPending.get(i).mPriority;
+        }
+        return priorities;
+    }
+
+    /**
+     * Restores a state read with {@link #getShowingDialogId()}, {@link #getPendingSpecs()} and
+     * {@link #getPendingPriorities()}, replacing the current one. The dialog that was showing is
+     * not presented again, whoever restores the queue is expected to restore that dialog too.
+     * @param showingId The id of the dialog showing, or {@code null} if none was.
+     * @param specs The waiting dialogs, highest priority first.
+     * @param priorities Their priorities.
+     */
+    public void restoreState(final String showingId, final List<DialogSpec> specs,
+                             final int[] priorities) {
+        if (specs.size() != priorities.length) {
+            throw new IllegalArgumentException("one priority per dialog expected");
+        }
+        mShowingId = showingId;
+        mPending.clear();
+        for (int i = 0; i < priorities.length; i++) {
+            mPending.add(new Entry(specs.get(i), priorities[i], mNextSequence++));
+        }
+    }
+
+    /** Hands a dialog to the presenter. */
+    private void show(final DialogSpec spec) {
+        mShowingId = spec.getDialogId();
+        mPresenter.present(spec);
+    }
+
+    /** Replaces all the waiting dialogs and a new one with a summary. */
+    private void coalesce(final DialogSpec spec, final int priority) {
+        final ArrayList<DialogSpec> coalesced = new ArrayList<>(mPending.size() + 1);
+        int maxPriority = priority;
+        boolean added = false;
+        for (int i = 0; i < mPending.size(); i++) {
+            final Entry e = mPending.get(i);
+            if (!added && priority > e.mPriority) {
+                coalesced.add(spec);
+                added = true;
+            }
+            coalesced.add(e.mSpec);
+            maxPriority = Math.max(maxPriority, e.mPriority);
+        }
+        if (!added) {
+            coalesced.add(spec);
+        }
+        mPending.clear();
+        //noinspection ConstantConditions checked in the constructor
+        insert(new Entry(mSummaryFactory.createSummary(coalesced), maxPriority,
+                         mNextSequence++));
+    }
+
+    /** Inserts an entry keeping {@link #mPending} sorted. */
+    private void insert(final Entry entry) {
+        int i = 0;
+        while (i < mPending.size() && mPending.get(i).isBefore(entry)) {
+            i++;
+        }
+        mPending.add(i, entry);
+    }
+
+    /** @return The position of the waiting dialog with the id, or -1. */
+    private int indexOf(final String dialogID) {
+        for (int i = 0; i < mPending.size(); i++) {
+            if (dialogID.equals(mPending.get(i).mSpec.getDialogId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** @return The position of the dialog that has been waiting the longest. */
+    private int indexOfOldest() {
+        int oldest = 0;
+        for (int i = 1; i < mPending.size(); i++) {
+            if (mPending.get(i).mSequence < mPending.get(oldest).mSequence) {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+
+    /** A waiting dialog. */
+    private static final class Entry {
+        final DialogSpec mSpec;
+        final int mPriority;
+        /** Order of arrival. Breaks ties between dialogs with the same priority. */
+        final long mSequence;
+
+        Entry(final DialogSpec spec, final int priority, final long sequence) {
+            mSpec = spec;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        /** @return {@code true} if this entry goes before {@code other} in the queue. */
+        boolean isBefore(final Entry other) {
+            return mPriority > other.mPriority
+                    || (mPriority == other.mPriority && mSequence < other.mSequence);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * How a dialog ended: the button or item clicked, a cancel, or a dismiss. See
+ * {@link DialogFuture}.
+ */
+public final class DialogResult {
+    private final String mDialogId;
+    /** One of the {@code EVENT_} constants of {@link EventGate}. */
+    private final int mEvent;
+    /** The button or position clicked, or 0. */
+    private final int mWhich;
+
+    private DialogResult(final String dialogId, final int event, final int which) {
+        mDialogId = dialogId;
+        mEvent = event;
+        mWhich = which;
+    }
+
+    /**
+     * @param dialogId The dialog string id.
+     * @param which The button clicked, in the order declared by the spec, or the position of the
+     *              item picked.
+     * @return A click.
+     */
+    public static DialogResult click(final String dialogId, final int which) {
+        return new DialogResult(dialogId, EventGate.EVENT_CLICK, which);
+    }
+
+    /**
+     * @param dialogId The dialog string id.
+     * @return A cancel, by the back key or a touch outside the dialog.
+     */
+    public static DialogResult cancel(final String dialogId) {
+        return new DialogResult(dialogId, EventGate.EVENT_CANCEL, 0);
+    }
+
+    /**
+     * @param dialogId The dialog string id.
+     * @return A dismiss without a click or a cancel, like an auto-dismiss.
+     */
+    public static DialogResult dismiss(final String dialogId) {
+        return new DialogResult(dialogId, EventGate.EVENT_DISMISS, 0);
+    }
+
+    /**
+     * @return The dialog string id.
+     */
+    public String getDialogId() {
+        return mDialogId;
+    }
+
+    /**
+     * @return {@link EventGate#EVENT_CLICK}, {@link EventGate#EVENT_CANCEL} or
+     *         {@link EventGate#EVENT_DISMISS}.
+     */
+    public int getEvent() {
+        return mEvent;
+    }
+
+    /**
+     * @return {@code true} if a button or an item was clicked.
+     */
+    public boolean isClick() {
+        return EventGate.EVENT_CLICK == mEvent;
+    }
+
+    /**
+     * @return The button clicked, like {@link DialogButtons#BUTTON_POSITIVE}, or the position of
+     *         the item picked, or 0 if it isn't a click.
+     */
+    public int getWhich() {
+        return mWhich;
+    }
+
+    @Override
+    public String toString() {
+        switch (mEvent) {
+            case EventGate.EVENT_CLICK:
+                return mDialogId + " click " + mWhich;
+            case EventGate.EVENT_CANCEL:
+                return mDialogId + " cancel";
+            default:
+                return mDialogId + " dismiss";
+        }
+    }
+}
@@ -0,0 +1,814 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Immutable description of the contents of a dialog.
+ * <p/>
+ * Built once by the {@code createDialogFragment} factories and stored in the fragment arguments.
+ * The fragment decodes it once per instance and uses it for building the dialog and for
+ * dispatching its events, instead of looking up each value in the arguments.
+ * <p/>
+ * For every text there is a resource id and a String. When both are set the String is used, see
+ * {@link SpecBinder}.
+ * <p/>
+ * {@link #packInts()} and {@link #packStrings()} encode the spec as one {@code int[]} with a
+ * bitmask and the resource ids that are set, plus one {@code String[]} with the dialog id and the
+ * Strings that are set. {@link #unpack(int[], String[])} decodes them. That is the format the
+ * adapters store in fragment arguments and saved state.
+ */
+public final class DialogSpec {
+    /** Value of the resource ids that are not set. */
+    public static final int NO_RESOURCE = -1;
+    /** Value of {@link #getAutoDismissMillis()} for dialogs that don't dismiss themselves. */
+    public static final long NO_AUTO_DISMISS = 0;
+    /** Value of {@link #getItemMode()} for dialogs without items. */
+    public static final int ITEMS_NONE = 0;
+    /** Items that dismiss the dialog when clicked. */
+    public static final int ITEMS_LIST = 1;
+    /** Items with one of them checked. */
+    public static final int ITEMS_SINGLE_CHOICE = 2;
+    /** Items that are checked and unchecked independently. */
+    public static final int ITEMS_MULTI_CHOICE = 3;
+    /** Default of {@link #getInputDebounceMillis()}. */
+    public static final long DEFAULT_INPUT_DEBOUNCE = 250;
+
+    // Bits of the bitmask in the first element of the packed ints. The low bits tell which
+    // values are present, in the order they are packed.
+    private static final int PRESENT_TITLE_ID = 1;
+    private static final int PRESENT_MESSAGE_ID = 1 << 1;
+    private static final int PRESENT_POSITIVE_ID = 1 << 2;
+    private static final int PRESENT_NEUTRAL_ID = 1 << 3;
+    private static final int PRESENT_NEGATIVE_ID = 1 << 4;
+    private static final int PRESENT_TITLE = 1 << 5;
+    private static final int PRESENT_MESSAGE = 1 << 6;
+    private static final int PRESENT_POSITIVE_LABEL = 1 << 7;
+    private static final int PRESENT_NEUTRAL_LABEL = 1 << 8;
+    private static final int PRESENT_NEGATIVE_LABEL = 1 << 9;
+    private static final int PRESENT_AUTO_DISMISS = 1 << 10;
+    private static final int PRESENT_RESULT_EVENTS = 1 << 11;
+    private static final int PRESENT_CLICK_DEBOUNCE = 1 << 12;
+    private static final int PRESENT_ITEM_MODE = 1 << 13;
+    private static final int PRESENT_INPUT_DEBOUNCE = 1 << 14;
+    private static final int FLAG_REVERSE_BUTTONS = 1 << 16;
+    private static final int FLAG_COMPACT_ARGUMENTS = 1 << 17;
+    private static final int FLAG_ASYNC_CONTENT = 1 << 18;
+    private static final int FLAG_LONG_MESSAGE = 1 << 19;
+    private static final int FLAG_TEXT_INPUT = 1 << 20;
+    private static final int FLAG_PROGRESS = 1 << 21;
+
+    /** The dialog string id. */
+    private final String mDialogId;
+    /** Resource id of the title, or {@link #NO_RESOURCE}. */
+    private final int mTitleId;
+    /** Resource id of the body text, or {@link #NO_RESOURCE}. */
+    private final int mMessageId;
+    /** Resource id of the positive button label, or {@link #NO_RESOURCE}. */
+    private final int mPositiveButtonId;
+    /** Resource id of the neutral button label, or {@link #NO_RESOURCE}. */
+    private final int mNeutralButtonId;
+    /** Resource id of the negative button label, or {@link #NO_RESOURCE}. */
+    private final int mNegativeButtonId;
+    /** The title. */
+    private final String mTitle;
+    /** The body text. */
+    private final String mMessage;
+    /** The positive button label. */
+    private final String mPositiveButtonLabel;
+    /** The neutral button label. */
+    private final String mNeutralButtonLabel;
+    /** The negative button label. */
+    private final String mNegativeButtonLabel;
+    /** Reverse the positive and negative button positions. */
+    private final boolean mReverseButtons;
+    /** Store the spec in the compact format. */
+    private final boolean mCompactArguments;
+    /** Load the title and message in the background, see {@link ContentLoads}. */
+    private final boolean mAsyncContent;
+    /** Lay out the message in chunks, in the background. */
+    private final boolean mLongMessage;
+    /** Time the dialog stays visible before dismissing itself, or {@link #NO_AUTO_DISMISS}. */
+    private final long mAutoDismissMillis;
+    /** Events that are the result of the dialog, or {@link EventGate#DELIVER_ALL}. */
+    private final int mResultEvents;
+    /** Minimum time between two clicks delivered, or {@link EventGate#NO_DEBOUNCE}. */
+    private final long mClickDebounceMillis;
+    /** How the items are shown, or {@link #ITEMS_NONE}. */
+    private final int mItemMode;
+    /** Show a text field. */
+    private final boolean mTextInput;
+    /** Time the text must stay unchanged before it is validated. */
+    private final long mInputDebounceMillis;
+    /** Show a progress bar. */
+    private final boolean mProgress;
+
+    /**
+     * Creates a spec with the values of a builder.
+     * @param builder The builder with the values.
+     */
+    private DialogSpec(final Builder builder) {
+        mDialogId = builder.mDialogId;
+        mTitleId = builder.mTitleId;
+        mMessageId = builder.mMessageId;
+        mPositiveButtonId = builder.mPositiveButtonId;
+        mNeutralButtonId = builder.mNeutralButtonId;
+        mNegativeButtonId = builder.mNegativeButtonId;
+        mTitle = builder.mTitle;
+        mMessage = builder.mMessage;
+        mPositiveButtonLabel = builder.mPositiveButtonLabel;
+        mNeutralButtonLabel = builder.mNeutralButtonLabel;
+        mNegativeButtonLabel = builder.mNegativeButtonLabel;
+        mReverseButtons = builder.mReverseButtons;
+        mCompactArguments = builder.mCompactArguments;
+        mAsyncContent = builder.mAsyncContent;
+        mLongMessage = builder.mLongMessage;
+        mAutoDismissMillis = builder.mAutoDismissMillis;
+        mResultEvents = builder.mResultEvents;
+        mClickDebounceMillis = builder.mClickDebounceMillis;
+        mItemMode = builder.mItemMode;
+        mTextInput = builder.mTextInput;
+        mInputDebounceMillis = builder.mInputDebounceMillis;
+        mProgress = builder.mProgress;
+    }
+
+    /**
+     * @return The bitmask and the resource ids that are set, for {@link #unpack(int[], String[])}.
+     */
+    public int[] packInts() {
+        int present = 0;
+        int intCount = 1;
+        if (NO_RESOURCE != mTitleId) {
+            present |= PRESENT_TITLE_ID;
+            intCount++;
+        }
+        if (NO_RESOURCE != mMessageId) {
+            present |= PRESENT_MESSAGE_ID;
+            intCount++;
+        }
+        if (NO_RESOURCE != mPositiveButtonId) {
+            present |= PRESENT_POSITIVE_ID;
+            intCount++;
+        }
+        if (NO_RESOURCE != mNeutralButtonId) {
+            present |= PRESENT_NEUTRAL_ID;
+            intCount++;
+        }
+        if (NO_RESOURCE != mNegativeButtonId) {
+            present |= PRESENT_NEGATIVE_ID;
+            intCount++;
+        }
+        if (NO_AUTO_DISMISS != mAutoDismissMillis) {
+            present |= PRESENT_AUTO_DISMISS;
+            intCount++;
+        }
+        if (EventGate.DELIVER_ALL != mResultEvents) {
+            present |= PRESENT_RESULT_EVENTS;
+            intCount++;
+        }
+        if (EventGate.NO_DEBOUNCE != mClickDebounceMillis) {
+            present |= PRESENT_CLICK_DEBOUNCE;
+            intCount++;
+        }
+        if (ITEMS_NONE != mItemMode) {
+            present |= PRESENT_ITEM_MODE;
+            intCount++;
+        }
+        if (DEFAULT_INPUT_DEBOUNCE != mInputDebounceMillis) {
+            present |= PRESENT_INPUT_DEBOUNCE;
+            intCount++;
+        }
+        // the Strings are packed separately, but their bits go here
+        if (null != mTitle) {
+            present |= PRESENT_TITLE;
+        }
+        if (null != mMessage) {
+            present |= PRESENT_MESSAGE;
+        }
+        if (null != mPositiveButtonLabel) {
+            present |= PRESENT_POSITIVE_LABEL;
+        }
+        if (null != mNeutralButtonLabel) {
+            present |= PRESENT_NEUTRAL_LABEL;
+        }
+        if (null != mNegativeButtonLabel) {
+            present |= PRESENT_NEGATIVE_LABEL;
+        }
+        if (mReverseButtons) {
+            present |= FLAG_REVERSE_BUTTONS;
+        }
+        if (mCompactArguments) {
+            present |= FLAG_COMPACT_ARGUMENTS;
+        }
+        if (mAsyncContent) {
+            present |= FLAG_ASYNC_CONTENT;
+        }
+        if (mLongMessage) {
+            present |= FLAG_LONG_MESSAGE;
+        }
+        if (mTextInput) {
+            present |= FLAG_TEXT_INPUT;
+        }
+        if (mProgress) {
+            present |= FLAG_PROGRESS;
+        }
+
+        final int[] ints = new int[intCount];
+        int i = 0;
+        ints[i++] = present;
+        i = packInt(ints, i, mTitleId);
+        i = packInt(ints, i, mMessageId);
+        i = packInt(ints, i, mPositiveButtonId);
+        i = packInt(ints, i, mNeutralButtonId);
+        i = packInt(ints, i, mNegativeButtonId);
+        if (NO_AUTO_DISMISS != mAutoDismissMillis) {
+            ints[i++] = (int) Math.min(mAutoDismissMillis, Integer.MAX_VALUE);
+        }
+        if (EventGate.DELIVER_ALL != mResultEvents) {
+            ints[i++] = mResultEvents;
+        }
+        if (EventGate.NO_DEBOUNCE != mClickDebounceMillis) {
+            ints[i++] = (int) Math.min(mClickDebounceMillis, Integer.MAX_VALUE);
+        }
+        if (ITEMS_NONE != mItemMode) {
+            ints[i++] = mItemMode;
+        }
+        if (DEFAULT_INPUT_DEBOUNCE != mInputDebounceMillis) {
+            ints[i] = (int) Math.min(mInputDebounceMillis, Integer.MAX_VALUE);
+        }
+        return ints;
+    }
+
+    /**
+     * @return The dialog id and the Strings that are set, for {@link #unpack(int[], String[])}.
+     */
+    public String[] packStrings() {
+        int stringCount = 1;
+        if (null != mTitle) {
+            stringCount++;
+        }
+        if (null != mMessage) {
+            stringCount++;
+        }
+        if (null != mPositiveButtonLabel) {
+            stringCount++;
+        }
+        if (null != mNeutralButtonLabel) {
+            stringCount++;
+        }
+        if (null != mNegativeButtonLabel) {
+            stringCount++;
+        }
+
+        final String[] strings = new String[stringCount];
+        int j = 0;
+        strings[j++] = mDialogId;
+        j = packString(strings, j, mTitle);
+        j = packString(strings, j, mMessage);
+        j = packString(strings, j, mPositiveButtonLabel);
+        j = packString(strings, j, mNeutralButtonLabel);
+        packString(strings, j, mNegativeButtonLabel);
+        return strings;
+    }
+
+    /**
+     * Decodes a spec encoded with {@link #packInts()} and {@link #packStrings()}.
+     * @param ints The packed bitmask and resource ids.
+     * @param strings The packed Strings.
+     * @return The spec.
+     */
+    public static DialogSpec unpack(final int[] ints, final String[] strings) {
+        final int present = ints[0];
+        int i = 1;
+        int j = 1;
+        final Builder b = new Builder(strings[0]);
+        b.setCompactArguments(0 != (present & FLAG_COMPACT_ARGUMENTS));
+        b.setAsyncContent(0 != (present & FLAG_ASYNC_CONTENT));
+        b.setLongMessage(0 != (present & FLAG_LONG_MESSAGE));
+        b.setTextInput(0 != (present & FLAG_TEXT_INPUT));
+        b.setProgress(0 != (present & FLAG_PROGRESS));
+        b.setReverseButtons(0 != (present & FLAG_REVERSE_BUTTONS));
+        if (0 != (present & PRESENT_TITLE_ID)) {
+            b.setTitle(ints[i++]);
+        }
+        if (0 != (present & PRESENT_MESSAGE_ID)) {
+            b.setMessage(ints[i++]);
+        }
+        if (0 != (present & PRESENT_POSITIVE_ID)) {
+            b.setPositiveButton(ints[i++]);
+        }
+        if (0 != (present & PRESENT_NEUTRAL_ID)) {
+            b.setNeutralButton(ints[i++]);
+        }
+        if (0 != (present & PRESENT_NEGATIVE_ID)) {
+            b.setNegativeButton(ints[i++]);
+        }
+        if (0 != (present & PRESENT_AUTO_DISMISS)) {
+            b.setAutoDismiss(ints[i++]);
+        }
+        if (0 != (present & PRESENT_RESULT_EVENTS)) {
+            b.setResultEvents(ints[i++]);
+        }
+        if (0 != (present & PRESENT_CLICK_DEBOUNCE)) {
+            b.setClickDebounce(ints[i++]);
+        }
+        if (0 != (present & PRESENT_ITEM_MODE)) {
+            b.setItemMode(ints[i++]);
+        }
+        if (0 != (present & PRESENT_INPUT_DEBOUNCE)) {
+            b.setInputDebounce(ints[i]);
+        }
+        if (0 != (present & PRESENT_TITLE)) {
+            b.setTitle(strings[j++]);
+        }
+        if (0 != (present & PRESENT_MESSAGE)) {
+            b.setMessage(strings[j++]);
+        }
+        if (0 != (present & PRESENT_POSITIVE_LABEL)) {
+            b.setPositiveButton(strings[j++]);
+        }
+        if (0 != (present & PRESENT_NEUTRAL_LABEL)) {
+            b.setNeutralButton(strings[j++]);
+        }
+        if (0 != (present & PRESENT_NEGATIVE_LABEL)) {
+            b.setNegativeButton(strings[j]);
+        }
+        return b.build();
+    }
+
+    /**
+     * Stores a resource id in the next free slot if it is set.
+     * @return The next free slot.
+     */
+    private static int packInt(final int[] ints, final int i, final int value) {
+        if (NO_RESOURCE == value) {
+            return i;
+        }
+        ints[i] = value;
+        return i + 1;
+    }
+
+    /**
+     * Stores a String in the next free slot if it is set.
+     * @return The next free slot.
+     */
+    private static int packString(final String[] strings, final int j, final String value) {
+        if (null == value) {
+            return j;
+        }
+        strings[j] = value;
+        return j + 1;
+    }
+
+    /**
+     * @return The dialog string id. Used to identify one dialog from another.
+     */
+    public String getDialogId() {
+        return mDialogId;
+    }
+
+    /**
+     * @return Resource id of the title, or {@link #NO_RESOURCE}.
+     */
+    public int getTitleId() {
+        return mTitleId;
+    }
+
+    /**
+     * @return Resource id of the body text, or {@link #NO_RESOURCE}.
+     */
+    public int getMessageId() {
+        return mMessageId;
+    }
+
+    /**
+     * @return Resource id of the positive button label, or {@link #NO_RESOURCE}.
+     */
+    public int getPositiveButtonId() {
+        return mPositiveButtonId;
+    }
+
+    /**
+     * @return Resource id of the neutral button label, or {@link #NO_RESOURCE}.
+     */
+    public int getNeutralButtonId() {
+        return mNeutralButtonId;
+    }
+
+    /**
+     * @return Resource id of the negative button label, or {@link #NO_RESOURCE}.
+     */
+    public int getNegativeButtonId() {
+        return mNegativeButtonId;
+    }
+
+    /**
+     * @return The title, or {@code null} if not set.
+     */
+    public String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * @return The body text, or {@code null} if not set.
+     */
+    public String getMessage() {
+        return mMessage;
+    }
+
+    /**
+     * @return The positive button label, or {@code null} if not set.
+     */
+    public String getPositiveButtonLabel() {
+        return mPositiveButtonLabel;
+    }
+
+    /**
+     * @return The neutral button label, or {@code null} if not set.
+     */
+    public String getNeutralButtonLabel() {
+        return mNeutralButtonLabel;
+    }
+
+    /**
+     * @return The negative button label, or {@code null} if not set.
+     */
+    public String getNegativeButtonLabel() {
+        return mNegativeButtonLabel;
+    }
+
+    /**
+     * @return {@code true} if the positive and negative buttons are reversed.
+     */
+    public boolean isReverseButtons() {
+        return mReverseButtons;
+    }
+
+    /**
+     * @return Time the dialog stays visible before dismissing itself, or
+     *         {@link #NO_AUTO_DISMISS}.
+     * @see Builder#setAutoDismiss(long)
+     */
+    public long getAutoDismissMillis() {
+        return mAutoDismissMillis;
+    }
+
+    /**
+     * @return The events that are the result of the dialog, or {@link EventGate#DELIVER_ALL}.
+     * @see Builder#setResultEvents(int)
+     */
+    public int getResultEvents() {
+        return mResultEvents;
+    }
+
+    /**
+     * @return Minimum time between two clicks delivered, or {@link EventGate#NO_DEBOUNCE}.
+     * @see Builder#setClickDebounce(long)
+     */
+    public long getClickDebounceMillis() {
+        return mClickDebounceMillis;
+    }
+
+    /**
+     * @return {@code true} if the spec is stored in the compact format.
+     * @see Builder#setCompactArguments(boolean)
+     */
+    public boolean isCompactArguments() {
+        return mCompactArguments;
+    }
+
+    /**
+     * @return {@code true} if the title and message are loaded after the dialog is shown.
+     * @see Builder#setAsyncContent(boolean)
+     */
+    public boolean isAsyncContent() {
+        return mAsyncContent;
+    }
+
+    /**
+     * @return {@code true} if the message is laid out in chunks, in the background.
+     * @see Builder#setLongMessage(boolean)
+     */
+    public boolean isLongMessage() {
+        return mLongMessage;
+    }
+
+    /**
+     * @return How the items are shown, or {@link #ITEMS_NONE}.
+     * @see Builder#setItemMode(int)
+     */
+    public int getItemMode() {
+        return mItemMode;
+    }
+
+    /**
+     * @return {@code true} if the dialog shows a text field.
+     * @see Builder#setTextInput(boolean)
+     */
+    public boolean isTextInput() {
+        return mTextInput;
+    }
+
+    /**
+     * @return Time the text must stay unchanged before it is validated.
+     * @see Builder#setInputDebounce(long)
+     */
+    public long getInputDebounceMillis() {
+        return mInputDebounceMillis;
+    }
+
+    /**
+     * @return {@code true} if the dialog shows a progress bar.
+     * @see Builder#setProgress(boolean)
+     */
+    public boolean isProgress() {
+        return mProgress;
+    }
+
+    /**
+     * Builder for {@link DialogSpec}. Texts not set are left out of the dialog.
+     */
+    public static final class Builder {
+        private final String mDialogId;
+        private int mTitleId = NO_RESOURCE;
+        private int mMessageId = NO_RESOURCE;
+        private int mPositiveButtonId = NO_RESOURCE;
+        private int mNeutralButtonId = NO_RESOURCE;
+        private int mNegativeButtonId = NO_RESOURCE;
+        private String mTitle;
+        private String mMessage;
+        private String mPositiveButtonLabel;
+        private String mNeutralButtonLabel;
+        private String mNegativeButtonLabel;
+        private boolean mReverseButtons = false;
+        private boolean mCompactArguments = false;
+        private boolean mAsyncContent = false;
+        private boolean mLongMessage = false;
+        private int mItemMode = ITEMS_NONE;
+        private boolean mTextInput = false;
+        private long mInputDebounceMillis = DEFAULT_INPUT_DEBOUNCE;
+        private boolean mProgress = false;
+        private long mAutoDismissMillis = NO_AUTO_DISMISS;
+        private int mResultEvents = EventGate.DELIVER_ALL;
+        private long mClickDebounceMillis = EventGate.NO_DEBOUNCE;
+
+        /**
+         * @param dialogID The dialog string id. Used to identify one dialog from another.
+         */
+        public Builder(final String dialogID) {
+            if (null == dialogID) {
+                throw new IllegalArgumentException("dialogID can't be null");
+            }
+            mDialogId = dialogID;
+        }
+
+        /**
+         * @param titleId The resource id of the text to use for the title.
+         * @return This builder.
+         */
+        public Builder setTitle(final int titleId) {
+            mTitleId = titleId;
+            return this;
+        }
+
+        /**
+         * @param title The text to use for the title.
+         * @return This builder.
+         */
+        public Builder setTitle(final String title) {
+            mTitle = title;
+            return this;
+        }
+
+        /**
+         * @param messageId The resource id of the text to use for the body text.
+         * @return This builder.
+         */
+        public Builder setMessage(final int messageId) {
+            mMessageId = messageId;
+            return this;
+        }
+
+        /**
+         * @param message The text to use for the body text.
+         * @return This builder.
+         */
+        public Builder setMessage(final String message) {
+            mMessage = message;
+            return this;
+        }
+
+        /**
+         * @param positiveButtonId String resource to use for the label of the positive button.
+         * @return This builder.
+         */
+        public Builder setPositiveButton(final int positiveButtonId) {
+            mPositiveButtonId = positiveButtonId;
+            return this;
+        }
+
+        /**
+         * @param positiveButtonLabel String to use for the label of the positive button.
+         * @return This builder.
+         */
+        public Builder setPositiveButton(final String positiveButtonLabel) {
+            mPositiveButtonLabel = positiveButtonLabel;
+            return this;
+        }
+
+        /**
+         * @param neutralButtonId String resource to use for the label of the neutral button.
+         * @return This builder.
+         */
+        public Builder setNeutralButton(final int neutralButtonId) {
+            mNeutralButtonId = neutralButtonId;
+            return this;
+        }
+
+        /**
+         * @param neutralButtonLabel String to use for the label of the neutral button.
+         * @return This builder.
+         */
+        public Builder setNeutralButton(final String neutralButtonLabel) {
+            mNeutralButtonLabel = neutralButtonLabel;
+            return this;
+        }
+
+        /**
+         * @param negativeButtonId String resource to use for the label of the negative button.
+         * @return This builder.
+         */
+        public Builder setNegativeButton(final int negativeButtonId) {
+            mNegativeButtonId = negativeButtonId;
+            return this;
+        }
+
+        /**
+         * @param negativeButtonLabel String to use for the label of the negative button.
+         * @return This builder.
+         */
+        public Builder setNegativeButton(final String negativeButtonLabel) {
+            mNegativeButtonLabel = negativeButtonLabel;
+            return this;
+        }
+
+        /**
+         * @param reverseButtons Set to {@code true} to invert the order of the positive and
+         *                       negative buttons.
+         * @return This builder.
+         * @see DialogButtons#chooseButtonOrder(int, boolean)
+         */
+        public Builder setReverseButtons(final boolean reverseButtons) {
+            mReverseButtons = reverseButtons;
+            return this;
+        }
+
+        /**
+         * @param compactArguments Set to {@code true} to store the spec in the fragment arguments
+         *                         as packed arrays instead of as a Parcelable. Makes the saved
+         *                         state of the fragment smaller.
+         * @return This builder.
+         */
+        public Builder setCompactArguments(final boolean compactArguments) {
+            mCompactArguments = compactArguments;
+            return this;
+        }
+
+        /**
+         * @param asyncContent Set to {@code true} to show the dialog right away with the title and
+         *                     message set here as placeholders, and replace them with the content
+         *                     loaded in the background. The host provides the content. Set
+         *                     a placeholder for each text that is loaded, the dialog may leave
+         *                     out the texts that had none when it was built.
+         * @return This builder.
+         */
+        public Builder setAsyncContent(final boolean asyncContent) {
+            mAsyncContent = asyncContent;
+            return this;
+        }
+
+        /**
+         * @param longMessage Set to {@code true} for messages of several KB, like license texts or
+         *                    stack traces. The message is laid out off the main thread, in chunks
+         *                    that are only measured and drawn when they scroll into view.
+         * @return This builder.
+         */
+        public Builder setLongMessage(final boolean longMessage) {
+            mLongMessage = longMessage;
+            return this;
+        }
+
+        /**
+         * Shows a list of items, read from an {@link ItemSource} the host provides when the
+         * dialog is created. The items are not stored in the arguments.
+         * @param itemMode {@link #ITEMS_LIST}, {@link #ITEMS_SINGLE_CHOICE},
+         *                 {@link #ITEMS_MULTI_CHOICE} or {@link #ITEMS_NONE}.
+         * @return This builder.
+         */
+        public Builder setItemMode(final int itemMode) {
+            if (itemMode < ITEMS_NONE || itemMode > ITEMS_MULTI_CHOICE) {
+                throw new IllegalArgumentException("Unknown item mode: " + itemMode);
+            }
+            mItemMode = itemMode;
+            return this;
+        }
+
+        /**
+         * Shows a text field under the message. If the host provides a validator, the text is
+         * validated in the background as it is typed, and the positive button is only enabled
+         * while the text is valid. The text is kept across configuration changes.
+         * @param textInput Set to {@code true} to show the text field.
+         * @return This builder.
+         * @see InputValidation
+         */
+        public Builder setTextInput(final boolean textInput) {
+            mTextInput = textInput;
+            return this;
+        }
+
+        /**
+         * @param millis Time the text must stay unchanged before it is validated, so a validation
+         *               doesn't run for every key typed. {@link #DEFAULT_INPUT_DEBOUNCE} by
+         *               default.
+         * @return This builder.
+         */
+        public Builder setInputDebounce(final long millis) {
+            mInputDebounceMillis = Math.max(0, millis);
+            return this;
+        }
+
+        /**
+         * Shows a progress bar under the message, updated from any thread through the
+         * {@link ProgressSlot} of the dialog. The bar is redrawn at most once per frame however
+         * often the progress is published, and the dialog dismisses itself once the progress
+         * reaches its maximum.
+         * @param progress Set to {@code true} to show the progress bar.
+         * @return This builder.
+         */
+        public Builder setProgress(final boolean progress) {
+            mProgress = progress;
+            return this;
+        }
+
+        /**
+         * Makes the dialog dismiss itself after being visible for some time. The time only runs
+         * while the host is resumed, and what is left is kept across configuration changes.
+         * @param millis Time the dialog stays visible, or {@link #NO_AUTO_DISMISS}.
+         * @return This builder.
+         * @throws IllegalArgumentException If {@code millis} is negative.
+         */
+        public Builder setAutoDismiss(final long millis) {
+            if (millis < NO_AUTO_DISMISS) {
+                throw new IllegalArgumentException("Negative auto-dismiss: " + millis);
+            }
+            mAutoDismissMillis = millis;
+            return this;
+        }
+
+        /**
+         * Declares the events that are the result of the dialog. Only those are delivered to the
+         * observer, and only the first of them, so a cancel and the dismiss that follows it are
+         * delivered as one event. By default every event is delivered.
+         * @param resultEvents Combination of {@link EventGate#EVENT_CLICK},
+         *                     {@link EventGate#EVENT_CANCEL} and {@link EventGate#EVENT_DISMISS},
+         *                     or {@link EventGate#DELIVER_ALL}.
+         * @return This builder.
+         */
+        public Builder setResultEvents(final int resultEvents) {
+            if (0 != (resultEvents & ~EventGate.ALL_EVENTS)) {
+                throw new IllegalArgumentException("Unknown events: " + resultEvents);
+            }
+            mResultEvents = resultEvents;
+            return this;
+        }
+
+        /**
+         * Drops the clicks that come closer than {@code millis} after the last click delivered,
+         * like the second tap of a double-tap.
+         * @param millis The debounce window, or {@link EventGate#NO_DEBOUNCE}. Negative values
+         *               are taken as {@link EventGate#NO_DEBOUNCE}.
+         * @return This builder.
+         */
+        public Builder setClickDebounce(final long millis) {
+            mClickDebounceMillis = Math.max(EventGate.NO_DEBOUNCE, millis);
+            return this;
+        }
+
+        /**
+         * @return A new spec with the values set in this builder.
+         * @throws IllegalStateException If the dialog has more than one of items, a long message,
+         *                               a text field and a progress bar.
+         */
+        public DialogSpec build() {
+            if (mLongMessage && ITEMS_NONE != mItemMode) {
+                throw new IllegalStateException("A dialog with items can't have a long message");
+            }
+            if (mTextInput && (mLongMessage || ITEMS_NONE != mItemMode)) {
+                throw new IllegalStateException(
+                        "A dialog with a text field can't have items or a long message");
+            }
+            if (mProgress && (mTextInput || mLongMessage || ITEMS_NONE != mItemMode)) {
+                throw new IllegalStateException(
+                        "A progress dialog can't have items, a long message or a text field");
+            }
+            return new DialogSpec(this);
+        }
+    }
+}
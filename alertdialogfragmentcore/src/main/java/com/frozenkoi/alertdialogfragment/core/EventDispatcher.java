@@ -0,0 +1,181 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.Arrays;
+
+/**
+ * Delivers the events of one dialog to its observer.
+ * <p/>
+ * The observer is found by a {@link Resolver} the first time it is needed and cached until
+ * {@link #invalidate()} is called or one of the {@link RouteTable}s consulted to find it
+ * changes. Once the observer is resolved, dispatching an event doesn't allocate: the button is
+ * chosen with {@link DialogButtons#chooseButtonOrder(int, boolean)}, the cache is checked against
+ * the table versions and the event is handed to a {@link Delivery} that calls the observer.
+ * <p/>
+ * Not thread safe, on Android it must be used from the main thread.
+ * @param <D> The type of the dialogs, like {@code DialogInterface}.
+ * @param <O> The type of the observers.
+ */
+public final class EventDispatcher<D, O> {
+    /**
+     * Calls the observer. Implementations must not allocate, so the whole dispatch doesn't.
+     * @param <D> The type of the dialogs.
+     * @param <O> The type of the observers.
+     */
+    public interface Delivery<D, O> {
+        /**
+         * @param observer The observer of the dialog.
+         * @param dialog The dialog.
+         * @param which The button clicked, after reversing.
+         */
+        void deliverClick(O observer, D dialog, int which);
+
+        void deliverCancel(O observer, D dialog);
+
+        void deliverDismiss(O observer, D dialog);
+    }
+
+    /**
+     * Finds the observer of the dialog.
+     * @param <O> The type of the observers.
+     */
+    public interface Resolver<O> {
+        /**
+         * Looks for the observer. If it looks in a {@link RouteTable}, it must pass it to
+         * {@link EventDispatcher#watch(RouteTable)}, so the observer is resolved again when the
+         * table changes.
+         * @param dispatcher The dispatcher the observer is for.
+         * @return The observer, or {@code null} if there is none.
+         */
+        O resolve(EventDispatcher<?, O> dispatcher);
+    }
+
+    private final Resolver<O> mResolver;
+    private final Delivery<D, O> mDelivery;
+    /** Reverse the positive and negative buttons. */
+    private boolean mReverseButtons = false;
+
+    /** Cached observer. */
+    private O mTarget;
+    /** {@code true} if {@link #mTarget} holds the result of the last resolution. */
+    private boolean mResolved = false;
+    /**
+     * Tables consulted when resolving {@link #mTarget}, the first {@link #mWatchedCount} of them.
+     * Two fit the target fragment and the Activity.
+     */
+    private RouteTable<?>[] mWatched = new RouteTable<?>[2];
+    /** Versions of {@link #mWatched} when {@link #mTarget} was resolved. */
+    private int[] mWatchedVersions = new int[2];
+    private int mWatchedCount = 0;
+
+    /**
+     * @param resolver Finds the observer.
+     * @param delivery Calls the observer.
+     */
+    public EventDispatcher(final Resolver<O> resolver, final Delivery<D, O> delivery) {
+        mResolver = resolver;
+        mDelivery = delivery;
+    }
+
+    /**
+     * @param reverseButtons {@code true} if the positive and negative buttons are reversed.
+     */
+    public void setReverseButtons(final boolean reverseButtons) {
+        mReverseButtons = reverseButtons;
+    }
+
+    /**
+     * Makes the cached observer stale when {@code table} changes. Called by the
+     * {@link Resolver} for every table it consults, including those that had no handler, so a
+     * handler registered there later is found.
+     * @param table The table the resolver consulted.
+     */
+    public void watch(final RouteTable<?> table) {
+        for (int i = 0; i < mWatchedCount; i++) {
+            if (mWatched[i] == table) {
+                mWatchedVersions[i] = table.getVersion();
+                return;
+            }
+        }
+        if (mWatchedCount == mWatched.length) {
+            mWatched = Arrays.copyOf(mWatched, 2 * mWatchedCount);
+            mWatchedVersions = Arrays.copyOf(mWatchedVersions, 2 * mWatchedCount);
+        }
+        mWatched[mWatchedCount] = table;
+        mWatchedVersions[mWatchedCount] = table.getVersion();
+        mWatchedCount++;
+    }
+
+    /** Forgets the watched tables. */
+    private void clearWatched() {
+        for (int i = 0; i < mWatchedCount; i++) {
+            mWatched[i] = null;
+        }
+        mWatchedCount = 0;
+    }
+
+    /**
+     * @return {@code true} if one of the watched tables changed since the resolution.
+     */
+    private boolean isWatchedChanged() {
+        for (int i = 0; i < mWatchedCount; i++) {
+            if (mWatched[i].getVersion() != mWatchedVersions[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the cached observer, so the next event resolves it again.
+     */
+    public void invalidate() {
+        mTarget = null;
+        clearWatched();
+        mResolved = false;
+    }
+
+    /**
+     * @return The observer of the dialog, or {@code null} if there is none. Resolved on first use
+     *         and cached until {@link #invalidate()} or until a watched table changes.
+     */
+    public O getTarget() {
+        if (!mResolved || isWatchedChanged()) {
+            clearWatched();
+            mTarget = mResolver.resolve(this);
+            mResolved = true;
+        }
+        return mTarget;
+    }
+
+    /**
+     * @param dialog The dialog.
+     * @param which The button clicked, as reported by the dialog.
+     */
+    public void dispatchClick(final D dialog, final int which) {
+        final int whichButton = DialogButtons.chooseButtonOrder(which, mReverseButtons);
+        final O target = getTarget();
+        if (null != target) {
+            mDelivery.deliverClick(target, dialog, whichButton);
+        }
+    }
+
+    /**
+     * @param dialog The dialog.
+     */
+    public void dispatchCancel(final D dialog) {
+        final O target = getTarget();
+        if (null != target) {
+            mDelivery.deliverCancel(target, dialog);
+        }
+    }
+
+    /**
+     * @param dialog The dialog.
+     */
+    public void dispatchDismiss(final D dialog) {
+        final O target = getTarget();
+        if (null != target) {
+            mDelivery.deliverDismiss(target, dialog);
+        }
+    }
+}
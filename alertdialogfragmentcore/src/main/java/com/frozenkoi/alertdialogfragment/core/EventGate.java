@@ -0,0 +1,108 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Decides which events of one dialog reach its observer.
+ * <p/>
+ * Clicks closer than the debounce window to the last click let through are dropped, so a
+ * double-tap is one click. A dialog can also declare the events that are its result, see
+ * {@link DialogSpec.Builder#setResultEvents(int)}: then only those reach the observer, and only
+ * the first of them. A click followed by the dismiss it causes, or a cancel followed by its
+ * dismiss, is delivered as a single event.
+ * <p/>
+ * Doesn't allocate. Not thread safe, on Android it must be used from the main thread.
+ */
+public final class EventGate {
+    /** A button click. */
+    public static final int EVENT_CLICK = 1;
+    /** The dialog was cancelled. */
+    public static final int EVENT_CANCEL = 1 << 1;
+    /** The dialog was dismissed. */
+    public static final int EVENT_DISMISS = 1 << 2;
+    /** Every event. */
+    public static final int ALL_EVENTS = EVENT_CLICK | EVENT_CANCEL | EVENT_DISMISS;
+    /** No result events declared: every event is delivered, as many times as it happens. */
+    public static final int DELIVER_ALL = 0;
+    /** Debounce window that doesn't drop any click. */
+    public static final long NO_DEBOUNCE = 0;
+
+    /** Events that are the result of the dialog, or {@link #DELIVER_ALL}. */
+    private final int mResultEvents;
+    /** Minimum time between two clicks let through. */
+    private final long mClickDebounceMillis;
+    /** {@code true} once a result event was let through. */
+    private boolean mClosed = false;
+    /** {@code true} if {@link #mLastClickMillis} is set. */
+    private boolean mClicked = false;
+    /** When the last click was let through. */
+    private long mLastClickMillis;
+
+    /**
+     * @param resultEvents Combination of the {@code EVENT_} constants, or {@link #DELIVER_ALL}.
+     * @param clickDebounceMillis Minimum time between two clicks, or {@link #NO_DEBOUNCE}.
+     */
+    public EventGate(final int resultEvents, final long clickDebounceMillis) {
+        if (0 != (resultEvents & ~ALL_EVENTS)) {
+            throw new IllegalArgumentException("Unknown events: " + resultEvents);
+        }
+        mResultEvents = resultEvents;
+        mClickDebounceMillis = clickDebounceMillis;
+    }
+
+    /**
+     * Restores the state of the gate of a dialog recreated after a configuration change, so a
+     * dialog that delivered its result doesn't deliver another one.
+     * @param closed {@link #isClosed()} of the gate of the previous instance.
+     */
+    public void restore(final boolean closed) {
+        mClosed = closed;
+    }
+
+    /**
+     * @param nowMillis The current time, in milliseconds.
+     * @return {@code true} if the click is to be delivered.
+     */
+    public boolean onClick(final long nowMillis) {
+        if (mClicked && nowMillis - mLastClickMillis < mClickDebounceMillis) {
+            return false;
+        }
+        if (!pass(EVENT_CLICK)) {
+            return false;
+        }
+        mClicked = true;
+        mLastClickMillis = nowMillis;
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the cancel is to be delivered.
+     */
+    public boolean onCancel() {
+        return pass(EVENT_CANCEL);
+    }
+
+    /**
+     * @return {@code true} if the dismiss is to be delivered.
+     */
+    public boolean onDismiss() {
+        return pass(EVENT_DISMISS);
+    }
+
+    /**
+     * @return {@code true} if the result of the dialog was delivered, so no more events will be.
+     */
+    public boolean isClosed() {
+        return mClosed;
+    }
+
+    /** Lets an event through if the dialog declared no results, or if it's the first result. */
+    private boolean pass(final int event) {
+        if (DELIVER_ALL == mResultEvents) {
+            return true;
+        }
+        if (mClosed || 0 == (mResultEvents & event)) {
+            return false;
+        }
+        mClosed = true;
+        return true;
+    }
+}
@@ -0,0 +1,302 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size ring of the last dialog events, for tracing what the dialogs did before something
+ * went wrong.
+ * <p/>
+ * All the entries are allocated up front and {@link #record(int, int, int, long)} never allocates
+ * or locks: each event claims the next slot with an atomic increment and writes three longs, so
+ * recording can be left on all the time. Once the ring is full the oldest events are overwritten.
+ * <p/>
+ * Each slot is stamped with the sequence number of its event, odd while it is being written,
+ * like a seqlock, so {@link #snapshot()} can run while other threads record and skips the slots
+ * that change under it instead of returning mixed events.
+ * <p/>
+ * {@link #writeTo(OutputStream)} dumps the ring in a compact binary format that
+ * {@link #read(InputStream)} decodes, on the device or on a desktop JVM. The dump carries the
+ * dialog string ids, since the keys of {@link DialogIdInterner} only mean something in the
+ * process that interned them.
+ */
+public final class EventJournal {
+    /** The dialog was shown. Recorded once per dialog, not on every restart or recreation. */
+    public static final int TYPE_SHOW = 1;
+    /** A button or an item was clicked. {@code which} is the button or the position. */
+    public static final int TYPE_CLICK = 2;
+    /** The dialog was cancelled. */
+    public static final int TYPE_CANCEL = 3;
+    /** The dialog was dismissed, whether or not its observer was told. */
+    public static final int TYPE_DISMISS = 4;
+    /**
+     * An event was dropped by the {@link EventGate} of the dialog. {@code which} is the type of
+     * the event dropped.
+     */
+    public static final int TYPE_DROPPED = 5;
+
+    /** First int of a dump, "ADFJ". */
+    private static final int MAGIC = 0x4144464a;
+    /** Version of the format of the dump. */
+    private static final int VERSION = 1;
+    /** Longs per slot: the stamp, the time and the packed event. */
+    private static final int SLOT_LONGS = 3;
+    /** Bits of the packed event that hold {@code which}. */
+    private static final int WHICH_BITS = 24;
+
+    /** Capacity minus one, the capacity being a power of two. */
+    private final int mMask;
+    /** The slots, {@link #SLOT_LONGS} longs each. */
+    private final AtomicLongArray mSlots;
+    /** Sequence number of the next event. */
+    private final AtomicLong mNext = new AtomicLong();
+
+    /**
+     * @param capacity The number of events kept, at most 65536. Rounded up to a power of two.
+     */
+    public EventJournal(final int capacity) {
+        // a dump numbers the dialog ids with shorts, and there can't be more ids than events
+        if (capacity < 1 || capacity > 1 << 16) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        final int rounded = Integer.highestOneBit(capacity) == capacity
+                ? capacity : Integer.highestOneBit(capacity) << 1;
+        mMask = rounded - 1;
+        mSlots = new AtomicLongArray(rounded * SLOT_LONGS);
+    }
+
+    /**
+     * @return The number of events kept.
+     */
+    public int getCapacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * @return The number of events recorded so far, including the overwritten ones.
+     */
+    public long getRecorded() {
+        return mNext.get();
+    }
+
+    /**
+     * Records an event. Can be called from any thread.
+     * @param dialogKey The dialog id, interned with {@link DialogIdInterner#intern(String)}.
+     * @param type One of the {@code TYPE_} constants.
+     * @param which The button or position clicked, the type dropped, or 0. Kept in 24 bits.
+     * @param nanos {@link System#nanoTime()} of the event.
+     */
+    public void record(final int dialogKey, final int type, final int which, final long nanos) {
+        final long sequence = mNext.getAndIncrement();
+        final int slot = (int) (sequence & mMask) * SLOT_LONGS;
+        // odd while writing, so a snapshot doesn't mix this event with the one it replaces
+        mSlots.set(slot, 2 * sequence + 1);
+        mSlots.set(slot + 1, nanos);
+        mSlots.set(slot + 2, pack(dialogKey, type, which));
+        mSlots.set(slot, 2 * sequence + 2);
+    }
+
+    private static long pack(final int dialogKey, final int type, final int which) {
+        return (long) dialogKey << 32 | (long) (type & 0xff) << WHICH_BITS
+                | which & ((1 << WHICH_BITS) - 1);
+    }
+
+    /**
+     * Copies the events kept, oldest first. Can be called while other threads record; the events
+     * written during the copy may be missing.
+     * @return The events.
+     */
+    public List<Entry> snapshot() {
+        final long end = mNext.get();
+        final long start = Math.max(0, end - getCapacity());
+        final ArrayList<Entry> entries = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            final int slot = (int) (sequence & mMask) * SLOT_LONGS;
+            final long stamp = mSlots.get(slot);
+            final long nanos = mSlots.get(slot + 1);
+            final long packed = mSlots.get(slot + 2);
+            if (2 * sequence + 2 != stamp || stamp != mSlots.get(slot)) {
+                // being written, or already overwritten
+                continue;
+            }
+            final int dialogKey = (int) (packed >>> 32);
+            entries.add(new Entry(sequence, nanos, DialogIdInterner.lookup(dialogKey),
+                    (int) (packed >>> WHICH_BITS) & 0xff,
+                    (int) packed << (32 - WHICH_BITS) >> (32 - WHICH_BITS)));
+        }
+        return entries;
+    }
+
+    /**
+     * Dumps the events kept, see {@link #snapshot()}.
+     * @param out Receives the dump. Not closed.
+     * @throws IOException If {@code out} fails.
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        final List<Entry> entries = snapshot();
+        final DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        // lets the decoder turn the times of the events into wall clock times
+        data.writeLong(System.nanoTime());
+        data.writeLong(System.currentTimeMillis());
+        // the ids once each, the events refer to them by index
+        final ArrayList<String> ids = new ArrayList<>();
+        final int[] idIndexes = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            final String id = String.valueOf(entries.get(i).getDialogId());
+            int index = ids.indexOf(id);
+            if (index < 0) {
+                index = ids.size();
+                ids.add(id);
+            }
+            idIndexes[i] = index;
+        }
+        data.writeInt(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            data.writeUTF(ids.get(i));
+        }
+        data.writeInt(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+            data.writeLong(entry.getSequence());
+            data.writeLong(entry.getNanos());
+            data.writeShort(idIndexes[i]);
+            data.writeByte(entry.getType());
+            data.writeInt(entry.getWhich());
+        }
+        data.flush();
+    }
+
+    /**
+     * Decodes a dump written by {@link #writeTo(OutputStream)}.
+     * @param in The dump. Not closed.
+     * @return The events, oldest first, with their wall clock times, see
+     *         {@link Entry#getWallMillis()}.
+     * @throws IOException If {@code in} fails or is not a dump.
+     */
+    public static List<Entry> read(final InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+        if (MAGIC != data.readInt()) {
+            throw new IOException("not an event journal");
+        }
+        final int version = data.readInt();
+        if (VERSION != version) {
+            throw new IOException("unsupported event journal version " + version);
+        }
+        final long dumpNanos = data.readLong();
+        final long dumpMillis = data.readLong();
+        final String[] ids = new String[data.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = data.readUTF();
+        }
+        final int count = data.readInt();
+        if (count < 0) {
+            throw new IOException("corrupt event journal");
+        }
+        final ArrayList<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long sequence = data.readLong();
+            final long nanos = data.readLong();
+            final int idIndex = data.readUnsignedShort();
+            if (idIndex >= ids.length) {
+                throw new IOException("corrupt event journal");
+            }
+            final Entry entry = new Entry(sequence, nanos, ids[idIndex],
+                                          data.readUnsignedByte(), data.readInt());
+            entry.mWallMillis = dumpMillis - (dumpNanos - nanos) / (1000 * 1000);
+            entries.add(entry);
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @param type One of the {@code TYPE_} constants.
+     * @return The name of the type, for printing.
+     */
+    public static String typeName(final int type) {
+        switch (type) {
+            case TYPE_SHOW:
+                return "show";
+            case TYPE_CLICK:
+                return "click";
+            case TYPE_CANCEL:
+                return "cancel";
+            case TYPE_DISMISS:
+                return "dismiss";
+            case TYPE_DROPPED:
+                return "dropped";
+            default:
+                return "type" + type;
+        }
+    }
+
+    /**
+     * An event of the journal.
+     */
+    public static final class Entry {
+        private final long mSequence;
+        private final long mNanos;
+        private final String mDialogId;
+        private final int mType;
+        private final int mWhich;
+        /** Set when decoded, see {@link #getWallMillis()}. */
+        long mWallMillis = -1;
+
+        Entry(final long sequence, final long nanos, final String dialogId, final int type,
+              final int which) {
+            mSequence = sequence;
+            mNanos = nanos;
+            mDialogId = dialogId;
+            mType = type;
+            mWhich = which;
+        }
+
+        /** @return The number of the event, counting from the first one recorded. */
+        public long getSequence() {
+            return mSequence;
+        }
+
+        /** @return {@link System#nanoTime()} of the event, in the process that recorded it. */
+        public long getNanos() {
+            return mNanos;
+        }
+
+        /** @return The dialog string id, or {@code null} if it wasn't interned. */
+        public String getDialogId() {
+            return mDialogId;
+        }
+
+        /** @return One of the {@code TYPE_} constants. */
+        public int getType() {
+            return mType;
+        }
+
+        /** @return The button or position clicked, the type dropped, or 0. */
+        public int getWhich() {
+            return mWhich;
+        }
+
+        /**
+         * @return The wall clock time of the event in milliseconds, for the events decoded with
+         *         {@link #read(InputStream)}, or -1.
+         */
+        public long getWallMillis() {
+            return mWallMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + mSequence + ' ' + mDialogId + ' ' + typeName(mType)
+                    + (TYPE_CLICK == mType || TYPE_DROPPED == mType ? " " + mWhich : "");
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the dialog flow without views, for testing it on a plain JVM.
+ * <p/>
+ * Dialogs go through a {@link DialogQueue}, are bound with {@link SpecBinder} to a target that
+ * only keeps what would be shown, and their events go through the {@link DialogEvents} the dialog
+ * fragments use: an {@link EventGate}, an {@link EventDispatcher} to the observers registered in
+ * the {@link RouteTable} of the current host, and then the listeners of a
+ * {@link ListenerRegistry}. A click on a button or a cancel dismisses the dialog, as in an
+ * {@code AlertDialog}, and the next one in the queue is shown.
+ * <p/>
+ * {@link #rotate()} replaces the host as a configuration change does: the queue and the dialog
+ * showing are saved the way the fragments save them, the host is created again and the state is
+ * restored into it. The old host must not be referenced afterwards, so a driver can check it is
+ * collected.
+ * <p/>
+ * Counts every event, and records them in an {@link EventJournal} if given one, as the fragments
+ * do. Not thread safe.
+ */
+public final class HeadlessRenderer {
+    /**
+     * Receives the events of the dialogs.
+     */
+    public interface Observer {
+        /**
+         * @param dialogID The id of the dialog.
+         * @param which The button clicked, after reversing.
+         */
+        void onClick(String dialogID, int which);
+
+        void onCancel(String dialogID);
+
+        void onDismiss(String dialogID);
+    }
+
+    /**
+     * Stands for the Activity that shows the dialogs.
+     */
+    public interface Host {
+        /**
+         * @return The observers of the dialogs shown by this host.
+         */
+        RouteTable<Observer> getRoutes();
+    }
+
+    /**
+     * Creates the host, at the start and after each {@link #rotate()}.
+     */
+    public interface HostFactory {
+        Host createHost();
+    }
+
+    /** Calls the observers and the listeners. */
+    private static final EventDispatcher.Delivery<DialogSpec, Observer> DELIVERY
+            = new EventDispatcher.Delivery<DialogSpec, Observer>() {
+        @Override
+        public void deliverClick(final Observer observer, final DialogSpec dialog,
+                                 final int which) {
+            observer.onClick(dialog.getDialogId(), which);
+        }
+
+        @Override
+        public void deliverCancel(final Observer observer, final DialogSpec dialog) {
+            observer.onCancel(dialog.getDialogId());
+        }
+
+        @Override
+        public void deliverDismiss(final Observer observer, final DialogSpec dialog) {
+            observer.onDismiss(dialog.getDialogId());
+        }
+    };
+
+    private final HostFactory mHostFactory;
+    /** Also receive the events, after the host. Can be {@code null}. */
+    private final ListenerRegistry<Observer> mListeners;
+    private final int mMaxPending;
+    private final DialogQueue.OverflowPolicy mOverflowPolicy;
+    private final DialogQueue.DuplicatePolicy mDuplicatePolicy;
+    private final DialogQueue.SummaryFactory mSummaryFactory;
+
+    /** Records the events, or {@code null}. */
+    private EventJournal mJournal;
+
+    private Host mHost;
+    private DialogQueue mQueue;
+    /** The dialog showing, or {@code null}. */
+    private Shown mShown;
+
+    private long mShows = 0;
+    private long mClicks = 0;
+    private long mCancels = 0;
+    private long mDismisses = 0;
+    /** Events that didn't pass the gate. */
+    private long mDropped = 0;
+    private long mRotations = 0;
+
+    /**
+     * @param hostFactory Creates the host.
+     * @param listeners Also receive the events, like {@code DialogResults}. Can be {@code null}.
+     * @param maxPending See {@link DialogQueue}.
+     * @param overflowPolicy See {@link DialogQueue}.
+     * @param duplicatePolicy See {@link DialogQueue}.
+     * @param summaryFactory See {@link DialogQueue}.
+     */
+    public HeadlessRenderer(final HostFactory hostFactory,
+                            final ListenerRegistry<Observer> listeners,
+                            final int maxPending,
+                            final DialogQueue.OverflowPolicy overflowPolicy,
+                            final DialogQueue.DuplicatePolicy duplicatePolicy,
+                            final DialogQueue.SummaryFactory summaryFactory) {
+        mHostFactory = hostFactory;
+        mListeners = listeners;
+        mMaxPending = maxPending;
+        mOverflowPolicy = overflowPolicy;
+        mDuplicatePolicy = duplicatePolicy;
+        mSummaryFactory = summaryFactory;
+        mHost = hostFactory.createHost();
+        mQueue = newQueue();
+    }
+
+    /**
+     * @param journal Records the events of the dialogs from now on, or {@code null}.
+     */
+    public void setJournal(final EventJournal journal) {
+        mJournal = journal;
+    }
+
+    /**
+     * @param spec The dialog.
+     * @param priority See {@link DialogQueue#enqueue(DialogSpec, int)}.
+     * @return {@code false} if the queue discarded the dialog.
+     */
+    public boolean enqueue(final DialogSpec spec, final int priority) {
+        return mQueue.enqueue(spec, priority);
+    }
+
+    /**
+     * Clicks a button of the dialog showing. Dismisses the dialog.
+     * @param which The button, one of the {@link DialogButtons} constants, as shown.
+     * @param nowMillis The current time, for the click debounce.
+     * @return {@code false} if no dialog is showing or it doesn't have that button.
+     */
+    public boolean click(final int which, final long nowMillis) {
+        final Shown shown = mShown;
+        if (null == shown || !shown.mTarget.hasButton(which)) {
+            return false;
+        }
+        if (shown.mEvents.onClick(shown.mSpec, which, nowMillis)) {
+            mClicks++;
+        } else {
+            mDropped++;
+        }
+        dismiss(shown);
+        return true;
+    }
+
+    /**
+     * Cancels the dialog showing, as the back key does. Dismisses the dialog.
+     * @return {@code false} if no dialog is showing.
+     */
+    public boolean cancel() {
+        final Shown shown = mShown;
+        if (null == shown) {
+            return false;
+        }
+        if (shown.mEvents.onCancel(shown.mSpec)) {
+            mCancels++;
+        } else {
+            mDropped++;
+        }
+        dismiss(shown);
+        return true;
+    }
+
+    /**
+     * Replaces the host and recreates the dialog showing, as a configuration change does.
+     */
+    public void rotate() {
+        mRotations++;
+        final String showingId = mQueue.getShowingDialogId();
+        final List<DialogSpec> pending = roundTrip(mQueue.getPendingSpecs());
+        final int[] priorities = mQueue.getPendingPriorities();
+        final DialogSpec shown = null == mShown ? null : roundTrip(mShown.mSpec);
+        final boolean closed = null != mShown && mShown.mEvents.isClosed();
+        final boolean showRecorded = null != mShown && mShown.mEvents.isShowRecorded();
+
+        // drop every reference to the old host before creating the new one
+        mShown = null;
+        mQueue = null;
+        mHost = null;
+        mHost = mHostFactory.createHost();
+        mQueue = newQueue();
+        mQueue.restoreState(showingId, pending, priorities);
+        if (null != shown) {
+            render(shown, closed, showRecorded);
+        }
+    }
+
+    /**
+     * @return The id of the dialog showing, or {@code null}.
+     */
+    public String getShowingDialogId() {
+        return null == mShown ? null : mShown.mSpec.getDialogId();
+    }
+
+    /**
+     * @return The title of the dialog showing, as a String or as a resource id, or {@code null}.
+     */
+    public Object getShowingTitle() {
+        return null == mShown ? null : mShown.mTarget.mTitle;
+    }
+
+    /**
+     * @return The message of the dialog showing, as a String or as a resource id, or
+     *         {@code null}.
+     */
+    public Object getShowingMessage() {
+        return null == mShown ? null : mShown.mTarget.mMessage;
+    }
+
+    /**
+     * @return The buttons of the dialog showing, as shown, or an empty array.
+     */
+    public int[] getShowingButtons() {
+        if (null == mShown) {
+            return new int[0];
+        }
+        final int[] buttons = new int[mShown.mTarget.mButtons.size()];
+        for (int i = 0; i < buttons.length; i++) {
+            buttons[i] = mShown.mTarget.mButtons.get(i);
+        }
+        return buttons;
+    }
+
+    /**
+     * @return The number of dialogs waiting.
+     */
+    public int getPendingCount() {
+        return mQueue.getPendingCount();
+    }
+
+    /** @return The number of dialogs shown, counting those shown again after a rotation. */
+    public long getShows() {
+        return mShows;
+    }
+
+    /** @return The number of clicks delivered. */
+    public long getClicks() {
+        return mClicks;
+    }
+
+    /** @return The number of cancels delivered. */
+    public long getCancels() {
+        return mCancels;
+    }
+
+    /** @return The number of dismisses delivered. */
+    public long getDismisses() {
+        return mDismisses;
+    }
+
+    /** @return The number of events the gates didn't let through. */
+    public long getDropped() {
+        return mDropped;
+    }
+
+    /** @return The number of rotations. */
+    public long getRotations() {
+        return mRotations;
+    }
+
+    private DialogQueue newQueue() {
+        return new DialogQueue(new DialogQueue.Presenter() {
+            @Override
+            public void present(final DialogSpec spec) {
+                render(spec, false, false);
+            }
+        }, mMaxPending, mOverflowPolicy, mDuplicatePolicy, mSummaryFactory);
+    }
+
+    /**
+     * Shows a dialog, replacing the one showing if any.
+     * @param closed {@link DialogEvents#isClosed()} of the dialog before a rotation.
+     * @param showRecorded {@link DialogEvents#isShowRecorded()} of the dialog before a rotation.
+     */
+    private void render(final DialogSpec spec, final boolean closed,
+                        final boolean showRecorded) {
+        final Shown shown = new Shown(spec);
+        shown.mEvents.restore(closed, showRecorded);
+        SpecBinder.bind(spec, shown.mTarget);
+        mShown = shown;
+        mShows++;
+        shown.mEvents.onShow();
+    }
+
+    /** Dismisses the dialog and shows the next one. */
+    private void dismiss(final Shown shown) {
+        mShown = null;
+        if (shown.mEvents.onDismiss(shown.mSpec)) {
+            mDismisses++;
+        } else {
+            mDropped++;
+        }
+        mQueue.onDialogFinished(shown.mSpec.getDialogId());
+    }
+
+    /** Encodes and decodes the spec, as saving it in the fragment arguments does. */
+    private static DialogSpec roundTrip(final DialogSpec spec) {
+        return DialogSpec.unpack(spec.packInts(), spec.packStrings());
+    }
+
+    private static List<DialogSpec> roundTrip(final List<DialogSpec> specs) {
+        final ArrayList<DialogSpec> copies = new ArrayList<>(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            copies.add(roundTrip(specs.get(i)));
+        }
+        return copies;
+    }
+
+    /**
+     * A dialog showing, as the fragment would hold it.
+     */
+    private final class Shown {
+        final DialogSpec mSpec;
+        final int mKey;
+        final RenderTarget mTarget = new RenderTarget();
+        final DialogEvents<DialogSpec, Observer> mEvents;
+
+        Shown(final DialogSpec spec) {
+            mSpec = spec;
+            mKey = DialogIdInterner.intern(spec.getDialogId());
+            final EventDispatcher<DialogSpec, Observer> dispatcher = new EventDispatcher<>(
+                    new EventDispatcher.Resolver<Observer>() {
+                        @Override
+                        public Observer resolve(final EventDispatcher<?, Observer> dispatcher) {
+                            final RouteTable<Observer> routes = mHost.getRoutes();
+                            dispatcher.watch(routes);
+                            return routes.resolve(mKey);
+                        }
+                    }, DELIVERY);
+            mEvents = new DialogEvents<>(spec, mKey, dispatcher, DELIVERY, mListeners,
+                    new DialogEvents.Recorder() {
+                        @Override
+                        public void record(final int type, final int which) {
+                            if (null != mJournal) {
+                                mJournal.record(mKey, type, which, System.nanoTime());
+                            }
+                        }
+
+                        @Override
+                        public void recordAction() {
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Keeps what the dialog would show.
+     */
+    private static final class RenderTarget implements SpecBinder.Target {
+        /** A String or an Integer resource id, or {@code null}. */
+        Object mTitle;
+        /** A String or an Integer resource id, or {@code null}. */
+        Object mMessage;
+        /** The buttons, as shown. */
+        final List<Integer> mButtons = new ArrayList<>(3);
+
+        boolean hasButton(final int which) {
+            return mButtons.contains(which);
+        }
+
+        @Override
+        public void setTitle(final String title) {
+            mTitle = title;
+        }
+
+        @Override
+        public void setTitle(final int titleId) {
+            mTitle = titleId;
+        }
+
+        @Override
+        public void setMessage(final String message) {
+            mMessage = message;
+        }
+
+        @Override
+        public void setMessage(final int messageId) {
+            mMessage = messageId;
+        }
+
+        @Override
+        public void setButton(final int which, final String label) {
+            mButtons.add(which);
+        }
+
+        @Override
+        public void setButton(final int which, final int labelId) {
+            mButtons.add(which);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Validates the text of an input dialog in the background as it is typed.
+ * <p/>
+ * Each change of the text waits on a {@link DeadlineScheduler} until the text has stayed the same
+ * for the debounce time, so typing a word runs one validation instead of one per key. The
+ * validation then runs on the background executor and its result is delivered on the delivery
+ * executor, but only if the text hasn't changed since: a validation started for an old text is
+ * skipped if it hasn't started running yet, can see it went stale through
+ * {@link Request#isCancelled()} while running, and its result is dropped either way.
+ * <p/>
+ * Must be used from the thread the scheduler and the delivery executor run on; on Android, the
+ * main thread.
+ */
+public final class InputValidation {
+    /**
+     * Checks the text. Runs in the background and can outlive the dialog and its host, so it must
+     * not hold references to either.
+     */
+    public interface Validator {
+        /**
+         * @param text The text to check.
+         * @param request Tells if the result is still wanted, for validations that can stop early.
+         * @return {@code null} if the text is valid, or why it is not, to show to the user.
+         * @throws Exception If the text can't be checked; it is taken as invalid.
+         */
+        String validate(String text, Request request) throws Exception;
+    }
+
+    /**
+     * A validation of one text.
+     */
+    public interface Request {
+        /**
+         * @return {@code true} if the text changed or the validation was cancelled, so the result
+         *         will be dropped.
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Receives the results, on the delivery thread. Only gets the result for the latest text.
+     */
+    public interface Listener {
+        /**
+         * @param text The text validated.
+         * @param valid {@code true} if it is valid.
+         * @param error Why it is not valid, or {@code null}.
+         */
+        void onValidated(String text, boolean valid, String error);
+    }
+
+    private final Validator mValidator;
+    private final Listener mListener;
+    private final DeadlineScheduler mScheduler;
+    private final Executor mBackground;
+    private final Executor mDelivery;
+    private final long mDebounceMillis;
+
+    /** Incremented on each change and cancel. Read by the background validations. */
+    private volatile int mGeneration = 0;
+    /** The latest text. */
+    private String mText;
+    /** {@code true} if the latest text was validated and is valid. */
+    private boolean mValid = false;
+    /** Starts the validation of the latest text once the debounce time passes. */
+    private final DeadlineScheduler.Task mDebounce = new DeadlineScheduler.Task() {
+        @Override
+        protected void onExpired() {
+            start();
+        }
+    };
+
+    /**
+     * @param validator Checks the texts.
+     * @param listener Receives the results.
+     * @param scheduler Waits the debounce time.
+     * @param background Runs the validator.
+     * @param delivery Runs the listener.
+     * @param debounceMillis Time the text must stay unchanged before it is validated.
+     */
+    public InputValidation(final Validator validator, final Listener listener,
+                           final DeadlineScheduler scheduler, final Executor background,
+                           final Executor delivery, final long debounceMillis) {
+        mValidator = validator;
+        mListener = listener;
+        mScheduler = scheduler;
+        mBackground = background;
+        mDelivery = delivery;
+        mDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Validates a new text once it stays unchanged for the debounce time. Until then the text is
+     * not valid.
+     * @param text The new text.
+     */
+    public void onTextChanged(final String text) {
+        mGeneration++;
+        mText = text;
+        mValid = false;
+        mScheduler.schedule(mDebounce, mDebounceMillis);
+    }
+
+    /**
+     * Validates a text right away, like the text restored after a configuration change.
+     * @param text The text.
+     */
+    public void validateNow(final String text) {
+        mGeneration++;
+        mText = text;
+        mValid = false;
+        mScheduler.cancel(mDebounce);
+        start();
+    }
+
+    /**
+     * Stops waiting and drops the result of the validation running, if any.
+     */
+    public void cancel() {
+        mGeneration++;
+        mScheduler.cancel(mDebounce);
+    }
+
+    /**
+     * @return {@code true} if the latest text was validated and is valid.
+     */
+    public boolean isValid() {
+        return mValid;
+    }
+
+    /** Runs the validator for the latest text. */
+    private void start() {
+        mBackground.execute(new Run(mGeneration, mText));
+    }
+
+    /** One validation, from the background to the delivery. */
+    private final class Run implements Runnable, Request {
+        /** {@link #mGeneration} when the validation was started. */
+        private final int mStartedAt;
+        private final String mInput;
+        /** The result, set in the background before the delivery. */
+        private boolean mPassed;
+        private String mReason;
+
+        Run(final int generation, final String input) {
+            mStartedAt = generation;
+            mInput = input;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mStartedAt != mGeneration;
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) {
+                // the text changed while this waited for a thread
+                return;
+            }
+            try {
+                mReason = mValidator.validate(mInput, this);
+                mPassed = null == mReason;
+            } catch (Exception e) {
+                mPassed = false;
+                mReason = null;
+            }
+            mDelivery.execute(mDeliver);
+        }
+
+        /** Hands the result to the listener, unless the text changed. */
+        private final Runnable mDeliver = new Runnable() {
+            @Override
+            public void run() {
+                if (isCancelled()) {
+                    return;
+                }
+                mValid = mPassed;
+                mListener.onValidated(mInput, mPassed, mReason);
+            }
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Map from primitive int keys to non-null values, without boxing the keys.
+ * <p/>
+ * Uses open addressing with linear probing over power of two sized arrays, so a lookup is a
+ * multiplication, a mask and, almost always, a single array read. Not thread safe.
+ * @param <V> The type of the values.
+ */
+public final class IntHandlerMap<V> {
+    /** Initial number of slots. Must be a power of two. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Keys of the used slots. The key of a slot is meaningless if its value is {@code null}. */
+    private int[] mKeys;
+    /** Values of the slots. {@code null} marks a free slot. */
+    private Object[] mValues;
+    /** Number of used slots. */
+    private int mSize = 0;
+
+    /** Creates an empty map. */
+    public IntHandlerMap() {
+        mKeys = new int[DEFAULT_CAPACITY];
+        mValues = new Object[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * @param key The key to look for.
+     * @return The value for {@code key} or {@code null} if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int key) {
+        final int mask = mValues.length - 1;
+        int i = slot(key, mask);
+        Object value;
+        while (null != (value = mValues[i])) {
+            if (mKeys[i] == key) {
+                return (V) value;   //Cast
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Sets the value for {@code key}, replacing the previous one if there was one.
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(final int key, final V value) {
+        final int mask = mValues.length - 1;
+        int i = slot(key, mask);
+        while (null != mValues[i]) {
+            if (mKeys[i] == key) {
+                mValues[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        mKeys[i] = key;
+        mValues[i] = value;
+        mSize++;
+        if (mSize * 2 > mValues.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Removes the value for {@code key}.
+     * @param key The key.
+     * @return {@code true} if there was a value for {@code key}.
+     */
+    public boolean remove(final int key) {
+        final int mask = mValues.length - 1;
+        int i = slot(key, mask);
+        while (null != mValues[i]) {
+            if (mKeys[i] == key) {
+                mValues[i] = null;
+                mSize--;
+                closeGap(i, mask);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of entries in the map.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Moves back the entries that follow a freed slot so that every entry stays reachable from
+     * its home slot without crossing a free slot.
+     * @param gap The slot that was just freed.
+     * @param mask Slot count minus one.
+     */
+    private void closeGap(int gap, final int mask) {
+        int i = (gap + 1) & mask;
+        while (null != mValues[i]) {
+            final int home = slot(mKeys[i], mask);
+            // move the entry if its home slot is not in the cyclic range (gap, i]
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                mKeys[gap] = mKeys[i];
+                mValues[gap] = mValues[i];
+                mValues[i] = null;
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /** Doubles the number of slots and rehashes all the entries. */
+    private void grow() {
+        final int[] oldKeys = mKeys;
+        final Object[] oldValues = mValues;
+        mKeys = new int[oldValues.length * 2];
+        mValues = new Object[oldValues.length * 2];
+        final int mask = mValues.length - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (null != oldValues[j]) {
+                int i = slot(oldKeys[j], mask);
+                while (null != mValues[i]) {
+                    i = (i + 1) & mask;
+                }
+                mKeys[i] = oldKeys[j];
+                mValues[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * @param key The key.
+     * @param mask Slot count minus one.
+     * @return The home slot of {@code key}.
+     */
+    static int slot(final int key, final int mask) {
+        // Fibonacci hashing, spreads sequential keys across the table
+        final int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,21 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * The items of a list dialog, read on demand like a cursor.
+ * <p/>
+ * The dialog only asks for the labels of the rows on screen, so the items don't have to be in
+ * memory, or in the fragment arguments. Back it with a database cursor or with pages loaded as
+ * needed. Called on the main thread, so {@link #getLabel(int)} must be fast.
+ */
+public interface ItemSource {
+    /**
+     * @return The number of items. Must not change while the dialog is shown.
+     */
+    int getCount();
+
+    /**
+     * @param position The position of the item, from 0 to {@link #getCount()} - 1.
+     * @return The text of the item.
+     */
+    CharSequence getLabel(int position);
+}
@@ -0,0 +1,124 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations with fixed, logarithmic buckets.
+ * <p/>
+ * Like HdrHistogram, each power of two is split in {@link #SUB_BUCKETS} linear buckets, so every
+ * recorded value is within 12.5% of the value reported for its bucket. Durations are kept with
+ * microsecond resolution up to about nineteen hours; longer ones go to the last bucket. All the
+ * buckets are allocated up front and recording never allocates.
+ * <p/>
+ * Not thread safe. Reading from another thread while recording can give inconsistent results.
+ */
+public final class LatencyHistogram {
+    /** Log2 of {@link #SUB_BUCKETS}. */
+    private static final int SUB_BUCKET_BITS = 3;
+    /** Linear buckets per power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Highest power of two with its own buckets. */
+    private static final int MAX_MAGNITUDE = 35;
+    /** Total number of buckets. */
+    private static final int BUCKET_COUNT
+            = SUB_BUCKETS + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private final long[] mCounts = new long[BUCKET_COUNT];
+    private long mTotalCount = 0;
+    private long mMaxMicros = 0;
+    private long mSumMicros = 0;
+
+    /**
+     * Records a duration.
+     * @param nanos The duration in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(final long nanos) {
+        final long micros = Math.max(0, nanos / NANOS_PER_MICRO);
+        mCounts[bucketOf(micros)]++;
+        mTotalCount++;
+        mSumMicros += micros;
+        if (micros > mMaxMicros) {
+            mMaxMicros = micros;
+        }
+    }
+
+    /**
+     * @return The number of recorded durations.
+     */
+    public long getCount() {
+        return mTotalCount;
+    }
+
+    /**
+     * @return The longest recorded duration, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return mMaxMicros * NANOS_PER_MICRO;
+    }
+
+    /**
+     * @return The mean of the recorded durations, in nanoseconds. 0 if there are none.
+     */
+    public long getMeanNanos() {
+        return 0 == mTotalCount ? 0 : mSumMicros / mTotalCount * NANOS_PER_MICRO;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100.
+     * @return The duration below which {@code percentile} percent of the recorded durations are,
+     *         in nanoseconds, rounded up to the end of its bucket. 0 if there are none.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (0 == mTotalCount) {
+            return 0;
+        }
+        final double clamped = Math.min(100, Math.max(0, percentile));
+        final long target = Math.max(1, (long) Math.ceil(clamped / 100 * mTotalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), mMaxMicros) * NANOS_PER_MICRO;
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Forgets all the recorded durations.
+     */
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mTotalCount = 0;
+        mMaxMicros = 0;
+        mSumMicros = 0;
+    }
+
+    /**
+     * @param micros A duration in microseconds, {@code >= 0}.
+     * @return The bucket for the duration.
+     */
+    static int bucketOf(final long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        final int magnitude = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_MAGNITUDE);
+        final int shift = magnitude - SUB_BUCKET_BITS;
+        final long top = Math.min(micros >>> shift, 2 * SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (top - SUB_BUCKETS);
+    }
+
+    /**
+     * @param bucket A bucket.
+     * @return The highest duration, in microseconds, that goes into the bucket.
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final long top = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,228 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Listeners of dialog events keyed by dialog id, for components that are not the host of the
+ * dialog, like view models and repositories.
+ * <p/>
+ * Listeners are held through weak references, so a subscription never keeps its listener alive:
+ * the subscriber must keep a reference to it for as long as it wants the events. Listeners that
+ * were collected are pruned when their dialog key is next accessed.
+ * <p/>
+ * The listeners of each key are an immutable array, replaced with compare-and-set on every
+ * change, so delivering takes no lock and doesn't allocate if the dialog has no listeners. Each
+ * subscription chooses where its listener runs: on the thread that delivers, or on an
+ * {@link Executor}.
+ * <p/>
+ * Thread safe.
+ * @param <L> The type of the listeners.
+ */
+public final class ListenerRegistry<L> {
+    /**
+     * An event, delivered to each listener of its dialog. Can be run on any thread, and on
+     * several at once, so it must be immutable.
+     * @param <L> The type of the listeners.
+     */
+    public interface Event<L> {
+        void deliverTo(L listener);
+    }
+
+    /**
+     * One listener of one dialog key.
+     * @param <L> The type of the listeners.
+     */
+    public static final class Subscription<L> {
+        private final ListenerRegistry<L> mRegistry;
+        private final int mDialogKey;
+        private final WeakReference<L> mListener;
+        /** Runs the listener, or {@code null} to run it on the thread that delivers. */
+        private final Executor mExecutor;
+
+        Subscription(final ListenerRegistry<L> registry, final int dialogKey, final L listener,
+                     final Executor executor) {
+            mRegistry = registry;
+            mDialogKey = dialogKey;
+            mListener = new WeakReference<>(listener);
+            mExecutor = executor;
+        }
+
+        /**
+         * @return {@code true} until the subscription is cancelled or its listener collected.
+         */
+        public boolean isActive() {
+            return null != mListener.get() && mRegistry.contains(this);
+        }
+
+        /**
+         * Stops delivering events to the listener. Events already handed to the executor may
+         * still run.
+         */
+        public void cancel() {
+            mListener.clear();
+            mRegistry.prune(mDialogKey);
+        }
+    }
+
+    /** Shared by the keys that have no listeners. */
+    private static final Subscription<?>[] NO_SUBSCRIPTIONS = new Subscription<?>[0];
+
+    /**
+     * Subscriptions indexed by dialog key; a {@code null} slot has none. Neither the table nor
+     * the arrays in it are modified once published.
+     */
+    private final AtomicReference<Subscription<?>[][]> mTable
+            = new AtomicReference<>(new Subscription<?>[0][]);
+
+    /**
+     * @param dialogID The dialog string id.
+     * @param listener Receives the events of the dialog. Only weakly referenced.
+     * @param executor Runs the listener, or {@code null} to run it on the thread that delivers.
+     * @return The subscription, to cancel it.
+     */
+    public Subscription<L> subscribe(final String dialogID, final L listener,
+                                     final Executor executor) {
+        return subscribe(DialogIdInterner.intern(dialogID), listener, executor);
+    }
+
+    /**
+     * @param dialogKey The dialog id, interned with {@link DialogIdInterner#intern(String)}.
+     * @param listener Receives the events of the dialog. Only weakly referenced.
+     * @param executor Runs the listener, or {@code null} to run it on the thread that delivers.
+     * @return The subscription, to cancel it.
+     */
+    public Subscription<L> subscribe(final int dialogKey, final L listener,
+                                     final Executor executor) {
+        if (null == listener) {
+            throw new IllegalArgumentException("listener can't be null");
+        }
+        if (dialogKey < 0) {
+            throw new IllegalArgumentException("Invalid dialog key: " + dialogKey);
+        }
+        final Subscription<L> subscription = new Subscription<>(this, dialogKey, listener,
+                                                                executor);
+        while (true) {
+            final Subscription<?>[][] table = mTable.get();
+            final Subscription<?>[] live = live(slot(table, dialogKey), 1);
+            live[live.length - 1] = subscription;
+            if (mTable.compareAndSet(table, replace(table, dialogKey, live))) {
+                return subscription;
+            }
+        }
+    }
+
+    /**
+     * Delivers {@code event} to each listener of the dialog.
+     * @param dialogKey The interned dialog id.
+     * @param event The event.
+     * @return The number of listeners the event was delivered or handed to.
+     */
+    public int deliver(final int dialogKey, final Event<L> event) {
+        final Subscription<?>[] subscriptions = slot(mTable.get(), dialogKey);
+        int delivered = 0;
+        boolean stale = false;
+        for (final Subscription<?> s : subscriptions) {
+            @SuppressWarnings("unchecked")
+            final Subscription<L> subscription = (Subscription<L>) s;   //Cast
+            final L listener = subscription.mListener.get();
+            if (null == listener) {
+                stale = true;
+                continue;
+            }
+            if (null == subscription.mExecutor) {
+                event.deliverTo(listener);
+            } else {
+                subscription.mExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        event.deliverTo(listener);
+                    }
+                });
+            }
+            delivered++;
+        }
+        if (stale) {
+            prune(dialogKey);
+        }
+        return delivered;
+    }
+
+    /**
+     * @param dialogKey The interned dialog id.
+     * @return The number of listeners of the dialog that were not collected or cancelled.
+     */
+    public int size(final int dialogKey) {
+        int size = 0;
+        for (final Subscription<?> subscription : slot(mTable.get(), dialogKey)) {
+            if (null != subscription.mListener.get()) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /** @return {@code true} if {@code subscription} is still in the table. */
+    private boolean contains(final Subscription<L> subscription) {
+        for (final Subscription<?> s : slot(mTable.get(), subscription.mDialogKey)) {
+            if (s == subscription) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Removes the subscriptions of {@code dialogKey} whose listener is gone. */
+    private void prune(final int dialogKey) {
+        while (true) {
+            final Subscription<?>[][] table = mTable.get();
+            final Subscription<?>[] subscriptions = slot(table, dialogKey);
+            final Subscription<?>[] live = live(subscriptions, 0);
+            if (live.length == subscriptions.length
+                    || mTable.compareAndSet(table, replace(table, dialogKey, live))) {
+                return;
+            }
+        }
+    }
+
+    /** @return The subscriptions of {@code dialogKey} in {@code table}, never {@code null}. */
+    private static Subscription<?>[] slot(final Subscription<?>[][] table, final int dialogKey) {
+        if (dialogKey < 0 || dialogKey >= table.length || null == table[dialogKey]) {
+            return NO_SUBSCRIPTIONS;
+        }
+        return table[dialogKey];
+    }
+
+    /**
+     * @return A copy of the subscriptions whose listener is still there, with {@code extra}
+     *         empty slots at the end.
+     */
+    private static Subscription<?>[] live(final Subscription<?>[] subscriptions,
+                                          final int extra) {
+        final Subscription<?>[] live = new Subscription<?>[subscriptions.length + extra];
+        int count = 0;
+        for (final Subscription<?> subscription : subscriptions) {
+            if (null != subscription.mListener.get()) {
+                live[count++] = subscription;
+            }
+        }
+        if (count == subscriptions.length) {
+            return live;
+        }
+        final Subscription<?>[] compacted = new Subscription<?>[count + extra];
+        System.arraycopy(live, 0, compacted, 0, count);
+        return compacted;
+    }
+
+    /** @return A copy of {@code table}, big enough for {@code dialogKey}, with its slot set. */
+    private static Subscription<?>[][] replace(final Subscription<?>[][] table,
+                                               final int dialogKey,
+                                               final Subscription<?>[] subscriptions) {
+        final Subscription<?>[][] copy
+                = new Subscription<?>[Math.max(table.length, dialogKey + 1)][];
+        System.arraycopy(table, 0, copy, 0, table.length);
+        copy[dialogKey] = 0 == subscriptions.length ? null : subscriptions;
+        return copy;
+    }
+}
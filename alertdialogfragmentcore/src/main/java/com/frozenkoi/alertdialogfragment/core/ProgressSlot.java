@@ -0,0 +1,121 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest progress of a progress dialog, published by any number of workers and read by the UI.
+ * <p/>
+ * Publishing never locks or allocates: it stores the progress and its maximum in one atomic long,
+ * overwriting the value the UI hasn't read yet, so only the latest value is ever drawn. The
+ * {@link Waker} is only called when the slot goes from read to unread, so however often the
+ * workers publish, the UI is woken at most once per value it {@link #take()}s; on Android, once
+ * per frame instead of once per update.
+ */
+public final class ProgressSlot {
+    /** Returned by {@link #take()} when nothing was published since the last take. */
+    public static final long NONE = -1;
+
+    /**
+     * Wakes the UI to {@link #take()} the latest value.
+     */
+    public interface Waker {
+        /**
+         * Called on the publishing thread, at most once until the next {@link #take()}.
+         */
+        void wake();
+    }
+
+    /** The progress and its maximum, see {@link #pack(int, int)}. */
+    private final AtomicLong mValue = new AtomicLong(pack(0, 0));
+    /** {@code true} while the latest value hasn't been taken. */
+    private final AtomicBoolean mUnread = new AtomicBoolean();
+    private volatile Waker mWaker;
+
+    /**
+     * Publishes a new progress. Can be called from any thread, as often as needed.
+     * @param progress The progress, between 0 and {@code max}.
+     * @param max The progress when done, or 0 if the progress isn't known yet.
+     */
+    public void publish(final int progress, final int max) {
+        mValue.set(pack(progress, max));
+        // a plain read first, so the workers don't fight over the flag when it is already set
+        if (!mUnread.get() && mUnread.compareAndSet(false, true)) {
+            final Waker waker = mWaker;
+            if (null != waker) {
+                waker.wake();
+            }
+        }
+    }
+
+    /**
+     * Publishes the maximum progress.
+     * @param max The progress when done, at least 1.
+     */
+    public void complete(final int max) {
+        publish(max, max);
+    }
+
+    /**
+     * @param waker Wakes the UI from now on, or {@code null} while there is no UI. Woken right
+     *              away if there is a value the UI hasn't taken.
+     */
+    public void setWaker(final Waker waker) {
+        mWaker = waker;
+        if (null != waker && mUnread.get()) {
+            waker.wake();
+        }
+    }
+
+    /**
+     * Takes the latest value, for the UI.
+     * @return The value published since the last take, see {@link #getProgress(long)} and
+     *         {@link #getMax(long)}, or {@link #NONE}.
+     */
+    public long take() {
+        // cleared before the read, so a value published after the read wakes the UI again
+        if (!mUnread.getAndSet(false)) {
+            return NONE;
+        }
+        return mValue.get();
+    }
+
+    /**
+     * @return The latest value, read or not.
+     */
+    public long peek() {
+        return mValue.get();
+    }
+
+    private static long pack(final int progress, final int max) {
+        final int clampedMax = Math.max(0, max);
+        final int clamped
+                = Math.max(0, 0 == clampedMax ? progress : Math.min(progress, clampedMax));
+        return (long) clampedMax << 32 | clamped;
+    }
+
+    /**
+     * @param value A value of {@link #take()}.
+     * @return Its progress.
+     */
+    public static int getProgress(final long value) {
+        return (int) value;
+    }
+
+    /**
+     * @param value A value of {@link #take()}.
+     * @return Its maximum, or 0 if the progress isn't known yet.
+     */
+    public static int getMax(final long value) {
+        return (int) (value >>> 32);
+    }
+
+    /**
+     * @param value A value of {@link #take()}.
+     * @return {@code true} if its progress reached its maximum.
+     */
+    public static boolean isComplete(final long value) {
+        final int max = getMax(value);
+        return max > 0 && getProgress(value) >= max;
+    }
+}
@@ -0,0 +1,81 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Table of dialog event handlers keyed by dialog id.
+ * <p/>
+ * Hosts register one handler per dialog id, once, instead of switching on the dialog id inside a
+ * single handler. The table is keyed by the integer keys from {@link DialogIdInterner}, so a
+ * lookup doesn't hash the dialog id, and it has a version that changes with every registration so
+ * callers can cache what they resolved.
+ * @param <H> The type of the handlers.
+ */
+public final class RouteTable<H> {
+    /** Handlers keyed by interned dialog id. */
+    private final IntHandlerMap<H> mHandlers = new IntHandlerMap<>();
+    /**
+     * Incremented on every change to {@link #mHandlers}. Lets callers know that the handler
+     * they cached may be stale without having to look it up again.
+     */
+    private int mVersion = 0;
+
+    /**
+     * Registers the handler for the dialogs with the given id. Replaces any handler previously
+     * registered for the same id.
+     * @param dialogID The dialog string id.
+     * @param handler The handler.
+     */
+    public void register(final String dialogID, final H handler) {
+        register(DialogIdInterner.intern(dialogID), handler);
+    }
+
+    /**
+     * Registers the handler for the dialogs with the given key. Replaces any handler previously
+     * registered for the same key.
+     * @param dialogKey The dialog id, interned with {@link DialogIdInterner#intern(String)}.
+     * @param handler The handler. Can't be {@code null}, use {@link #unregister(int)}.
+     */
+    public void register(final int dialogKey, final H handler) {
+        if (null == handler) {
+            throw new IllegalArgumentException("handler can't be null");
+        }
+        mHandlers.put(dialogKey, handler);
+        mVersion++;
+    }
+
+    /**
+     * Removes the handler registered for the given dialog id, if any.
+     * @param dialogID The dialog string id.
+     * @return {@code true} if there was a handler.
+     */
+    public boolean unregister(final String dialogID) {
+        return unregister(DialogIdInterner.intern(dialogID));
+    }
+
+    /**
+     * Removes the handler registered for the given key, if any.
+     * @param dialogKey The dialog id, interned with {@link DialogIdInterner#intern(String)}.
+     * @return {@code true} if there was a handler.
+     */
+    public boolean unregister(final int dialogKey) {
+        if (mHandlers.remove(dialogKey)) {
+            mVersion++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param dialogKey The interned dialog id.
+     * @return The handler registered for {@code dialogKey} or {@code null} if there is none.
+     */
+    public H resolve(final int dialogKey) {
+        return mHandlers.get(dialogKey);
+    }
+
+    /**
+     * @return A number that changes every time a handler is registered or unregistered.
+     */
+    public int getVersion() {
+        return mVersion;
+    }
+}
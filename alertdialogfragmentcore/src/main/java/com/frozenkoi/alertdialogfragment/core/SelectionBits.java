@@ -0,0 +1,139 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * The checked items of a multi-choice dialog, one bit per item.
+ * <p/>
+ * Ten thousand items take 157 longs, in memory and in saved state, whatever number of them is
+ * checked. See {@link #toLongArray()} and {@link #fromLongArray(long[], int)}.
+ */
+public final class SelectionBits {
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private final long[] mWords;
+    private final int mSize;
+
+    /**
+     * @param size The number of items. None of them is checked.
+     */
+    public SelectionBits(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size < 0: " + size);
+        }
+        mSize = size;
+        mWords = new long[wordIndex(size + 63)];
+    }
+
+    /**
+     * @return The number of items.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @param position The position of the item.
+     * @return {@code true} if the item is checked.
+     */
+    public boolean get(final int position) {
+        checkPosition(position);
+        return 0 != (mWords[wordIndex(position)] & (1L << position));
+    }
+
+    /**
+     * @param position The position of the item.
+     * @param checked {@code true} to check the item.
+     */
+    public void set(final int position, final boolean checked) {
+        checkPosition(position);
+        if (checked) {
+            mWords[wordIndex(position)] |= 1L << position;
+        } else {
+            mWords[wordIndex(position)] &= ~(1L << position);
+        }
+    }
+
+    /**
+     * @param position The position of the item.
+     * @return {@code true} if the item is checked now.
+     */
+    public boolean toggle(final int position) {
+        checkPosition(position);
+        mWords[wordIndex(position)] ^= 1L << position;
+        return get(position);
+    }
+
+    /**
+     * Unchecks every item.
+     */
+    public void clear() {
+        for (int i = 0; i < mWords.length; i++) {
+            mWords[i] = 0;
+        }
+    }
+
+    /**
+     * @return The number of items checked.
+     */
+    public int cardinality() {
+        int count = 0;
+        for (final long word : mWords) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * For iterating over the checked items:
+     * {@code for (int i = bits.nextChecked(0); i >= 0; i = bits.nextChecked(i + 1))}.
+     * @param from The first position to look at.
+     * @return The first checked position from {@code from} on, or -1 if there is none.
+     */
+    public int nextChecked(final int from) {
+        if (from >= mSize) {
+            return -1;
+        }
+        int u = wordIndex(from);
+        long word = mWords[u] & (-1L << from);
+        while (true) {
+            if (0 != word) {
+                return u * 64 + Long.numberOfTrailingZeros(word);
+            }
+            if (++u == mWords.length) {
+                return -1;
+            }
+            word = mWords[u];
+        }
+    }
+
+    /**
+     * @return A copy of the bits, for saving them.
+     */
+    public long[] toLongArray() {
+        return mWords.clone();
+    }
+
+    /**
+     * @param words Bits returned by {@link #toLongArray()}.
+     * @param size The number of items.
+     * @return The selection, with the bits beyond {@code size} dropped.
+     */
+    public static SelectionBits fromLongArray(final long[] words, final int size) {
+        final SelectionBits bits = new SelectionBits(size);
+        System.arraycopy(words, 0, bits.mWords, 0, Math.min(words.length, bits.mWords.length));
+        final int tail = size & 63;
+        if (0 != tail && bits.mWords.length > 0) {
+            bits.mWords[bits.mWords.length - 1] &= (1L << tail) - 1;
+        }
+        return bits;
+    }
+
+    private static int wordIndex(final int position) {
+        return position >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void checkPosition(final int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + mSize);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Applies a {@link DialogSpec} to whatever builds the actual dialog.
+ * <p/>
+ * Holds the rules the adapters share: a String takes precedence over a resource id for the same
+ * text, texts with neither are left out, and the positive and negative buttons are swapped when
+ * the spec asks for it.
+ */
+public final class SpecBinder {
+    /**
+     * Receives the contents of the dialog. Each text is set at most once, either as a String or
+     * as a resource id.
+     */
+    public interface Target {
+        void setTitle(String title);
+
+        void setTitle(int titleId);
+
+        void setMessage(String message);
+
+        void setMessage(int messageId);
+
+        /**
+         * @param which The button, one of the {@link DialogButtons} constants, already reversed
+         *              if the spec reverses the buttons.
+         * @param label The label.
+         */
+        void setButton(int which, String label);
+
+        /**
+         * @param which The button, one of the {@link DialogButtons} constants, already reversed
+         *              if the spec reverses the buttons.
+         * @param labelId String resource of the label.
+         */
+        void setButton(int which, int labelId);
+    }
+
+    /** Not instantiable. */
+    private SpecBinder() {
+    }
+
+    /**
+     * Sets the contents of a dialog.
+     * @param spec The contents.
+     * @param target What builds the dialog.
+     */
+    public static void bind(final DialogSpec spec, final Target target) {
+        if (null != spec.getTitle()) {
+            target.setTitle(spec.getTitle());
+        } else if (DialogSpec.NO_RESOURCE != spec.getTitleId()) {
+            target.setTitle(spec.getTitleId());
+        }
+
+        if (null != spec.getMessage()) {
+            target.setMessage(spec.getMessage());
+        } else if (DialogSpec.NO_RESOURCE != spec.getMessageId()) {
+            target.setMessage(spec.getMessageId());
+        }
+
+        final boolean reverse = spec.isReverseButtons();
+        bindButton(target, DialogButtons.chooseButtonOrder(DialogButtons.BUTTON_POSITIVE, reverse),
+                spec.getPositiveButtonId(), spec.getPositiveButtonLabel());
+        bindButton(target, DialogButtons.chooseButtonOrder(DialogButtons.BUTTON_NEUTRAL, reverse),
+                spec.getNeutralButtonId(), spec.getNeutralButtonLabel());
+        bindButton(target, DialogButtons.chooseButtonOrder(DialogButtons.BUTTON_NEGATIVE, reverse),
+                spec.getNegativeButtonId(), spec.getNegativeButtonLabel());
+    }
+
+    /** Sets one button, if it has a label. */
+    private static void bindButton(final Target target, final int which, final int labelId,
+                                   final String label) {
+        if (null != label) {
+            target.setButton(which, label);
+        } else if (DialogSpec.NO_RESOURCE != labelId) {
+            target.setButton(which, labelId);
+        }
+    }
+}
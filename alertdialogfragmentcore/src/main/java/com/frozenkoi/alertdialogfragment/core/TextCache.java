@@ -0,0 +1,107 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Texts of string resources, by resource id, shared by all the dialogs.
+ * <p/>
+ * Dialogs often share labels, like OK and Cancel, and resolve the same ids again each time they
+ * are recreated. The cache resolves each id once until it is {@link #invalidate() invalidated},
+ * which the owner does when the configuration, like the locale, changes.
+ * <p/>
+ * Thread safe, so it can be {@link #warm(DialogSpec[], Resolver) warmed} in the background. A
+ * text resolved while the cache is invalidated is not cached.
+ */
+public final class TextCache {
+    /**
+     * Looks up the text of a resource.
+     */
+    public interface Resolver {
+        /**
+         * @param id The id of a string resource.
+         * @return The text.
+         */
+        CharSequence resolve(int id);
+    }
+
+    /** Guarded by {@code this}. */
+    private IntHandlerMap<CharSequence> mTexts = new IntHandlerMap<>();
+    /** Incremented on each invalidation. Guarded by {@code this}. */
+    private int mGeneration = 0;
+
+    /**
+     * @param id The id of a string resource.
+     * @param resolver Resolves the text if it isn't cached.
+     * @return The text.
+     */
+    public CharSequence get(final int id, final Resolver resolver) {
+        final int generation;
+        synchronized (this) {
+            final CharSequence cached = mTexts.get(id);
+            if (null != cached) {
+                return cached;
+            }
+            generation = mGeneration;
+        }
+        final CharSequence text = resolver.resolve(id);
+        put(generation, id, text);
+        return text;
+    }
+
+    /**
+     * Resolves the texts of the dialogs that are not cached yet. Meant to be called in the
+     * background, before the dialogs are shown.
+     * @param specs The dialogs.
+     * @param resolver Resolves the texts.
+     * @return The number of texts resolved.
+     */
+    public int warm(final DialogSpec[] specs, final Resolver resolver) {
+        int resolved = 0;
+        for (final DialogSpec spec : specs) {
+            resolved += warm(spec.getTitleId(), resolver);
+            resolved += warm(spec.getMessageId(), resolver);
+            resolved += warm(spec.getPositiveButtonId(), resolver);
+            resolved += warm(spec.getNeutralButtonId(), resolver);
+            resolved += warm(spec.getNegativeButtonId(), resolver);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return 1 if the text was resolved, 0 if it was cached or isn't set.
+     */
+    private int warm(final int id, final Resolver resolver) {
+        if (DialogSpec.NO_RESOURCE == id) {
+            return 0;
+        }
+        final int generation;
+        synchronized (this) {
+            if (null != mTexts.get(id)) {
+                return 0;
+            }
+            generation = mGeneration;
+        }
+        put(generation, id, resolver.resolve(id));
+        return 1;
+    }
+
+    /** Caches a text unless the cache was invalidated while resolving it. */
+    private synchronized void put(final int generation, final int id, final CharSequence text) {
+        if (generation == mGeneration && null != text) {
+            mTexts.put(id, text);
+        }
+    }
+
+    /**
+     * Forgets all the texts.
+     */
+    public synchronized void invalidate() {
+        mTexts = new IntHandlerMap<>();
+        mGeneration++;
+    }
+
+    /**
+     * @return The number of texts cached.
+     */
+    public synchronized int size() {
+        return mTexts.size();
+    }
+}
@@ -0,0 +1,67 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+/**
+ * Splits long texts in chunks that can be laid out separately, so a view that shows a long text
+ * only has to lay out the chunks on screen.
+ * <p/>
+ * Chunks only end after a line break, so laying them out separately breaks the lines where
+ * laying out the whole text would. A paragraph longer than a chunk is a chunk of its own.
+ */
+public final class TextChunks {
+    private TextChunks() {
+    }
+
+    /**
+     * @param text The text to split.
+     * @param maxChars The maximum length of a chunk, unless it is a single paragraph. At least 1.
+     * @return The end of each chunk, exclusive, in order. The last one is the length of the text.
+     *         Empty if the text is empty.
+     */
+    public static int[] split(final CharSequence text, final int maxChars) {
+        if (maxChars < 1) {
+            throw new IllegalArgumentException("maxChars < 1: " + maxChars);
+        }
+        final int length = text.length();
+        int[] ends = new int[length / maxChars + 1];
+        int count = 0;
+        int start = 0;
+        while (start < length) {
+            final int end = findEnd(text, start, Math.min(length, start + maxChars), length);
+            if (count == ends.length) {
+                final int[] grown = new int[ends.length * 2];
+                System.arraycopy(ends, 0, grown, 0, count);
+                ends = grown;
+            }
+            ends[count++] = end;
+            start = end;
+        }
+        if (count == ends.length) {
+            return ends;
+        }
+        final int[] trimmed = new int[count];
+        System.arraycopy(ends, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * @return Where the chunk that starts at {@code start} ends: after the last line break before
+     *         {@code limit}, or else at the end of its paragraph.
+     */
+    private static int findEnd(final CharSequence text, final int start, final int limit,
+                               final int length) {
+        if (limit == length) {
+            return limit;
+        }
+        for (int i = limit - 1; i >= start; i--) {
+            if ('\n' == text.charAt(i)) {
+                return i + 1;
+            }
+        }
+        for (int i = limit; i < length; i++) {
+            if ('\n' == text.charAt(i)) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+}
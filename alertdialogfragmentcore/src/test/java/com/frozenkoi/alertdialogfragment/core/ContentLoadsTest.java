@@ -0,0 +1,130 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ContentLoadsTest {
+    /** Runnables waiting for the background and the delivery "threads". */
+    private final Queue<Runnable> mBackground = new ArrayDeque<>();
+    private final Queue<Runnable> mDelivery = new ArrayDeque<>();
+    private int mLoadCount = 0;
+    private ContentLoads mLoads;
+
+    @Before
+    public void setUp() throws Exception {
+        mLoads = new ContentLoads(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                mBackground.add(command);
+            }
+        }, new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                mDelivery.add(command);
+            }
+        });
+    }
+
+    private ContentLoads.Source source(final String message) {
+        return new ContentLoads.Source() {
+            @Override
+            public DialogContent load() throws Exception {
+                mLoadCount++;
+                return new DialogContent(null, message);
+            }
+        };
+    }
+
+    private static void runAll(final Queue<Runnable> queue) {
+        while (!queue.isEmpty()) {
+            queue.remove().run();
+        }
+    }
+
+    @Test
+    public void result_isDeliveredToTheAttachedListener() throws Exception {
+        final Recorder listener = new Recorder();
+        assertTrue(mLoads.start("a#0", source("hello")));
+        assertTrue(mLoads.attach("a#0", listener));
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertEquals("hello", listener.mContent.getMessage());
+        assertFalse(mLoads.isPending("a#0"));
+    }
+
+    @Test
+    public void recreatedDialog_reattachesInsteadOfRestarting() throws Exception {
+        final Recorder first = new Recorder();
+        mLoads.start("a#0", source("hello"));
+        mLoads.attach("a#0", first);
+        // the dialog goes away for a configuration change while loading
+        mLoads.detach("a#0");
+        runAll(mBackground);
+        runAll(mDelivery);
+        assertNull(first.mContent);
+        assertTrue(mLoads.isPending("a#0"));
+
+        final Recorder second = new Recorder();
+        assertFalse(mLoads.start("a#0", source("again")));
+        assertTrue(mLoads.attach("a#0", second));
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertEquals(1, mLoadCount);
+        assertEquals("hello", second.mContent.getMessage());
+        assertNull(first.mContent);
+    }
+
+    @Test
+    public void removedLoad_isNotDelivered() throws Exception {
+        final Recorder listener = new Recorder();
+        mLoads.start("a#0", source("hello"));
+        mLoads.attach("a#0", listener);
+        mLoads.remove("a#0");
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertNull(listener.mContent);
+        assertFalse(mLoads.attach("a#0", listener));
+    }
+
+    @Test
+    public void failure_isDelivered() throws Exception {
+        final Recorder listener = new Recorder();
+        mLoads.start("a#0", new ContentLoads.Source() {
+            @Override
+            public DialogContent load() throws Exception {
+                throw new IllegalStateException("no disk");
+            }
+        });
+        mLoads.attach("a#0", listener);
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertNull(listener.mContent);
+        assertEquals("no disk", listener.mError.getMessage());
+    }
+
+    /** Keeps the result it gets. */
+    private static final class Recorder implements ContentLoads.Listener {
+        DialogContent mContent;
+        Exception mError;
+
+        @Override
+        public void onContentLoaded(final DialogContent content) {
+            mContent = content;
+        }
+
+        @Override
+        public void onContentFailed(final Exception error) {
+            mError = error;
+        }
+    }
+}
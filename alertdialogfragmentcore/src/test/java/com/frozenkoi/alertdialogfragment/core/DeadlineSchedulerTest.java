@@ -0,0 +1,107 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeadlineSchedulerTest {
+    private long mNow = 1000;
+    /** Deadline of the alarm, or -1 if none is set. */
+    private long mAlarm = -1;
+    private int mAlarmChanges = 0;
+    private final List<String> mExpired = new ArrayList<>();
+    private DeadlineScheduler mScheduler;
+
+    @Before
+    public void setUp() throws Exception {
+        mScheduler = new DeadlineScheduler(new DeadlineScheduler.Clock() {
+            @Override
+            public long now() {
+                return mNow;
+            }
+        }, new DeadlineScheduler.Alarm() {
+            @Override
+            public void set(final long deadline) {
+                mAlarm = deadline;
+                mAlarmChanges++;
+            }
+
+            @Override
+            public void clear() {
+                mAlarm = -1;
+                mAlarmChanges++;
+            }
+        });
+    }
+
+    private DeadlineScheduler.Task task(final String name) {
+        return new DeadlineScheduler.Task() {
+            @Override
+            protected void onExpired() {
+                mExpired.add(name);
+            }
+        };
+    }
+
+    /** Moves the clock and fires the alarm if it is due. */
+    private void advanceTo(final long now) {
+        mNow = now;
+        if (-1 != mAlarm && mAlarm <= now) {
+            mAlarm = -1;
+            mScheduler.runExpired();
+        }
+    }
+
+    @Test
+    public void runsTasksInDeadlineOrder() throws Exception {
+        mScheduler.schedule(task("c"), 300);
+        mScheduler.schedule(task("a"), 100);
+        mScheduler.schedule(task("b"), 200);
+        assertEquals(1100, mAlarm);
+
+        advanceTo(1150);
+        advanceTo(1300);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("a");
+        expected.add("b");
+        expected.add("c");
+        assertEquals(expected, mExpired);
+        assertEquals(-1, mAlarm);
+        assertEquals(0, mScheduler.size());
+    }
+
+    @Test
+    public void laterTasksDontTouchTheAlarm() throws Exception {
+        mScheduler.schedule(task("a"), 100);
+        final int changes = mAlarmChanges;
+        for (int i = 0; i < 50; i++) {
+            mScheduler.schedule(task("later"), 200 + i);
+        }
+        assertEquals(changes, mAlarmChanges);
+    }
+
+    @Test
+    public void cancel_returnsRemainingTime() throws Exception {
+        final DeadlineScheduler.Task a = task("a");
+        final DeadlineScheduler.Task b = task("b");
+        mScheduler.schedule(a, 100);
+        mScheduler.schedule(b, 500);
+        mNow = 1040;
+
+        assertEquals(60, mScheduler.cancel(a));
+        assertFalse(a.isScheduled());
+        assertEquals(-1, mScheduler.cancel(a));
+        assertEquals(1500, mAlarm);
+
+        mScheduler.schedule(b, 10);
+        assertEquals(1050, mAlarm);
+        advanceTo(1050);
+        assertEquals(1, mExpired.size());
+        assertEquals("b", mExpired.get(0));
+    }
+}
@@ -0,0 +1,199 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+public class DialogEventsTest {
+    /** Rounds of events run while counting allocations. */
+    private static final int ROUNDS = 100000;
+    /**
+     * Passes of {@link #ROUNDS} run before counting, so the JIT is done: compiling and switching
+     * to compiled code can allocate a few bytes on the thread, once.
+     */
+    private static final int WARM_UP_PASSES = 5;
+
+    private final RouteTable<Observer> mRoutes = new RouteTable<>();
+    private final Observer mObserver = new Observer();
+    /** Observer of the dialog whose gate is closed. */
+    private final Observer mClosedObserver = new Observer();
+    /** Listeners of other dialogs, so the registry isn't empty. */
+    private final ListenerRegistry<Observer> mListeners = new ListenerRegistry<>();
+    private final Observer mOtherListener = new Observer();
+    private final EventJournal mJournal = new EventJournal(1024);
+    /** Time to action by dialog key, as {@code DialogMetrics} keeps it. */
+    private final IntHandlerMap<LatencyHistogram> mTimeToAction = new IntHandlerMap<>();
+    private final EventDispatcher.Delivery<Object, Observer> mDelivery
+            = new EventDispatcher.Delivery<Object, Observer>() {
+        @Override
+        public void deliverClick(final Observer observer, final Object dialog, final int which) {
+            observer.mLastButton = which;
+            observer.mClicks++;
+        }
+
+        @Override
+        public void deliverCancel(final Observer observer, final Object dialog) {
+            observer.mCancels++;
+        }
+
+        @Override
+        public void deliverDismiss(final Observer observer, final Object dialog) {
+            observer.mDismisses++;
+        }
+    };
+    private final Object mDialog = new Object();
+    private final long mFirstDrawNanos = System.nanoTime();
+
+    @Before
+    public void setUp() throws Exception {
+        mRoutes.register("events_test", mObserver);
+        mRoutes.register("events_closed", mClosedObserver);
+        mListeners.subscribe("events_other", mOtherListener, null);
+    }
+
+    /** @return The events of a dialog, recording as the fragments do. */
+    private DialogEvents<Object, Observer> newEvents(final DialogSpec spec) {
+        final int key = DialogIdInterner.intern(spec.getDialogId());
+        mTimeToAction.put(key, new LatencyHistogram());
+        final EventDispatcher<Object, Observer> dispatcher = new EventDispatcher<>(
+                new EventDispatcher.Resolver<Observer>() {
+                    @Override
+                    public Observer resolve(final EventDispatcher<?, Observer> dispatcher) {
+                        dispatcher.watch(mRoutes);
+                        return mRoutes.resolve(key);
+                    }
+                }, mDelivery);
+        return new DialogEvents<>(spec, key, dispatcher, mDelivery, mListeners,
+                new DialogEvents.Recorder() {
+                    @Override
+                    public void record(final int type, final int which) {
+                        mJournal.record(key, type, which, System.nanoTime());
+                    }
+
+                    @Override
+                    public void recordAction() {
+                        mTimeToAction.get(key).record(System.nanoTime() - mFirstDrawNanos);
+                    }
+                });
+    }
+
+    @Test
+    public void completesTheFutureWithTheFirstResult() throws Exception {
+        final DialogEvents<Object, Observer> events = newEvents(
+                new DialogSpec.Builder("events_test")
+                        .setReverseButtons(true)
+                        .setResultEvents(EventGate.ALL_EVENTS)
+                        .build());
+        final DialogFuture future = new DialogFuture();
+        events.setResultFuture(future);
+
+        assertTrue(events.onClick(mDialog, DialogButtons.BUTTON_POSITIVE, 0));
+        assertFalse(events.onDismiss(mDialog));
+        assertTrue(future.isDone());
+        assertTrue(future.get().isClick());
+        assertEquals(DialogButtons.BUTTON_NEGATIVE, future.get().getWhich());
+        assertEquals(DialogButtons.BUTTON_NEGATIVE, mObserver.mLastButton);
+        assertEquals(0, mObserver.mDismisses);
+    }
+
+    @Test
+    public void droppedDismiss_stillCompletesTheFuture() throws Exception {
+        final DialogEvents<Object, Observer> events = newEvents(
+                new DialogSpec.Builder("events_test")
+                        .setResultEvents(EventGate.EVENT_CLICK)
+                        .build());
+        final DialogFuture future = new DialogFuture();
+        events.setResultFuture(future);
+
+        assertFalse(events.onCancel(mDialog));
+        assertFalse(future.isDone());
+        assertFalse(events.onDismiss(mDialog));
+        assertEquals(EventGate.EVENT_DISMISS, future.get().getEvent());
+        assertEquals(0, mObserver.mCancels);
+    }
+
+    @Test
+    public void onShow_recordsOncePerDialog() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("events_test").build();
+        final DialogEvents<Object, Observer> events = newEvents(spec);
+        events.onShow();
+        events.onShow();
+        // recreated after a configuration change
+        final DialogEvents<Object, Observer> recreated = newEvents(spec);
+        recreated.restore(events.isClosed(), events.isShowRecorded());
+        recreated.onShow();
+
+        assertEquals(1, mJournal.getRecorded());
+        assertEquals(EventJournal.TYPE_SHOW, mJournal.snapshot().get(0).getType());
+    }
+
+    /**
+     * Fails if the path of an event allocates, from the gate to the observer, with the journal,
+     * the metrics and a listener registry, for a dialog without listeners or future. Includes
+     * the events the gate drops.
+     */
+    @Test
+    public void eventsDoNotAllocate() throws Exception {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assertTrue("allocations can't be counted on this JVM",
+                   bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) bean;   //Cast
+        assertTrue("allocations can't be counted on this JVM",
+                   threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        final DialogEvents<Object, Observer> events = newEvents(
+                new DialogSpec.Builder("events_test").setClickDebounce(100).build());
+        final DialogEvents<Object, Observer> closed = newEvents(
+                new DialogSpec.Builder("events_closed")
+                        .setResultEvents(EventGate.EVENT_CLICK)
+                        .build());
+        closed.onClick(mDialog, DialogButtons.BUTTON_POSITIVE, 0);
+        final long threadId = Thread.currentThread().getId();
+        // the first pass resolves the observers and loads everything
+        for (int pass = 0; pass < WARM_UP_PASSES; pass++) {
+            run(events, closed, pass * ROUNDS);
+        }
+        // what measuring itself allocates, if anything
+        final long overhead = -threads.getThreadAllocatedBytes(threadId)
+                + threads.getThreadAllocatedBytes(threadId);
+
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        run(events, closed, WARM_UP_PASSES * ROUNDS);
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertEquals(2 * (WARM_UP_PASSES + 1) * ROUNDS, mObserver.mClicks);
+        assertEquals((WARM_UP_PASSES + 1) * ROUNDS, mObserver.mDismisses);
+        assertEquals(1, mClosedObserver.mClicks);
+        assertEquals(0, mOtherListener.mClicks);
+        assertEquals("events allocated " + allocated + " bytes", 0, allocated);
+    }
+
+    /** Runs rounds of clicks, cancels and dismisses, half of the clicks debounced. */
+    private void run(final DialogEvents<Object, Observer> events,
+                     final DialogEvents<Object, Observer> closed, final int offset) {
+        for (int i = 0; i < ROUNDS; i++) {
+            final long now = (offset + i) * 1000L;
+            events.onClick(mDialog, DialogButtons.BUTTON_POSITIVE, now);
+            events.onClick(mDialog, DialogButtons.BUTTON_POSITIVE, now + 1);
+            events.deliverClick(mDialog, 3);
+            events.onCancel(mDialog);
+            events.onDismiss(mDialog);
+            closed.onClick(mDialog, DialogButtons.BUTTON_POSITIVE, now);
+            closed.onDismiss(mDialog);
+        }
+    }
+
+    /** Counts the events it gets. */
+    private static final class Observer {
+        int mClicks = 0;
+        int mCancels = 0;
+        int mDismisses = 0;
+        int mLastButton = 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DialogFutureTest {
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            command.run();
+        }
+    };
+
+    private final DialogFuture mFuture = new DialogFuture();
+
+    @Test
+    public void complete_keepsTheFirstResult() throws Exception {
+        assertTrue(mFuture.complete(DialogResult.click("confirm", DialogButtons.BUTTON_POSITIVE)));
+        assertFalse(mFuture.complete(DialogResult.dismiss("confirm")));
+        assertFalse(mFuture.cancel(true));
+
+        final DialogResult result = mFuture.get();
+        assertTrue(mFuture.isDone());
+        assertTrue(result.isClick());
+        assertEquals(DialogButtons.BUTTON_POSITIVE, result.getWhich());
+        assertEquals("confirm", result.getDialogId());
+    }
+
+    @Test
+    public void get_waitsForTheDialog() throws Exception {
+        final AtomicReference<DialogResult> got = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    got.set(mFuture.get());
+                } catch (InterruptedException e) {
+                    // got stays empty
+                }
+                done.countDown();
+            }
+        }).start();
+        assertFalse(done.await(50, TimeUnit.MILLISECONDS));
+
+        mFuture.complete(DialogResult.cancel("confirm"));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(EventGate.EVENT_CANCEL, got.get().getEvent());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void get_timesOut() throws Exception {
+        mFuture.get(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = CancellationException.class)
+    public void cancel_failsTheWaiters() throws Exception {
+        assertTrue(mFuture.cancel(false));
+        assertTrue(mFuture.isCancelled());
+        assertFalse(mFuture.complete(DialogResult.dismiss("confirm")));
+        mFuture.get();
+    }
+
+    @Test
+    public void listeners_runOnceDone() throws Exception {
+        final List<String> calls = new ArrayList<>();
+        mFuture.addListener(new Runnable() {
+            @Override
+            public void run() {
+                calls.add("before");
+            }
+        }, DIRECT);
+        assertTrue(calls.isEmpty());
+
+        mFuture.complete(DialogResult.dismiss("confirm"));
+        mFuture.addListener(new Runnable() {
+            @Override
+            public void run() {
+                calls.add("after");
+            }
+        }, DIRECT);
+        mFuture.complete(DialogResult.dismiss("confirm"));
+
+        assertEquals("[before, after]", calls.toString());
+    }
+}
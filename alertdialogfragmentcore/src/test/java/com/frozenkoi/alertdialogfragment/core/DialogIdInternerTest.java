@@ -0,0 +1,25 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DialogIdInternerTest {
+    @Test
+    public void intern_keepsTheKey() throws Exception {
+        final int key = DialogIdInterner.intern("interner_kept");
+
+        assertTrue(key >= 0);
+        assertEquals(key, DialogIdInterner.intern("interner_kept"));
+        assertEquals("interner_kept", DialogIdInterner.lookup(key));
+    }
+
+    @Test
+    public void find_doesNotIntern() throws Exception {
+        assertEquals(DialogIdInterner.NOT_INTERNED, DialogIdInterner.find("interner_unknown"));
+        assertEquals(DialogIdInterner.NOT_INTERNED, DialogIdInterner.find("interner_unknown"));
+
+        final int key = DialogIdInterner.intern("interner_unknown");
+        assertEquals(key, DialogIdInterner.find("interner_unknown"));
+    }
+}
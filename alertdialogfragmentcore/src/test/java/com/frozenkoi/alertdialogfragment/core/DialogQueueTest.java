@@ -0,0 +1,117 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DialogQueueTest {
+    private final List<String> mPresented = new ArrayList<>();
+    private DialogQueue.Presenter mPresenter;
+
+    @Before
+    public void setUp() throws Exception {
+        mPresenter = new DialogQueue.Presenter() {
+            @Override
+            public void present(final DialogSpec spec) {
+                mPresented.add(spec.getDialogId());
+            }
+        };
+    }
+
+    private static DialogSpec spec(final String dialogID) {
+        return new DialogSpec.Builder(dialogID).build();
+    }
+
+    /** Finishes the dialogs until the queue is empty. */
+    private void drain(final DialogQueue queue) {
+        while (null != queue.getShowingDialogId()) {
+            queue.onDialogFinished(queue.getShowingDialogId());
+        }
+    }
+
+    @Test
+    public void showsHighestPriorityFirst() throws Exception {
+        final DialogQueue queue = new DialogQueue(mPresenter, 10,
+                DialogQueue.OverflowPolicy.DROP_NEWEST, DialogQueue.DuplicatePolicy.DROP, null);
+        queue.enqueue(spec("a"), 0);
+        queue.enqueue(spec("b"), 0);
+        queue.enqueue(spec("c"), 5);
+        queue.enqueue(spec("d"), 0);
+        drain(queue);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("a");
+        expected.add("c");
+        expected.add("b");
+        expected.add("d");
+        assertEquals(expected, mPresented);
+    }
+
+    @Test
+    public void dropsDuplicatesAndOverflow() throws Exception {
+        final DialogQueue queue = new DialogQueue(mPresenter, 2,
+                DialogQueue.OverflowPolicy.DROP_OLDEST, DialogQueue.DuplicatePolicy.DROP, null);
+        assertTrue(queue.enqueue(spec("a"), 0));
+        assertFalse(queue.enqueue(spec("a"), 0));
+        assertTrue(queue.enqueue(spec("b"), 0));
+        assertFalse(queue.enqueue(spec("b"), 9));
+        assertTrue(queue.enqueue(spec("c"), 0));
+        assertTrue(queue.enqueue(spec("d"), 0));
+        assertEquals(2, queue.getPendingCount());
+        drain(queue);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("a");
+        expected.add("c");
+        expected.add("d");
+        assertEquals(expected, mPresented);
+    }
+
+    @Test
+    public void coalescesOverflow() throws Exception {
+        final DialogQueue queue = new DialogQueue(mPresenter, 2,
+                DialogQueue.OverflowPolicy.COALESCE, DialogQueue.DuplicatePolicy.DROP,
+                new DialogQueue.SummaryFactory() {
+                    @Override
+                    public DialogSpec createSummary(final List<DialogSpec> coalesced) {
+                        return spec("summary" + coalesced.size());
+                    }
+                });
+        queue.enqueue(spec("a"), 0);
+        queue.enqueue(spec("b"), 0);
+        queue.enqueue(spec("c"), 0);
+        queue.enqueue(spec("d"), 0);
+        assertEquals(1, queue.getPendingCount());
+        drain(queue);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("a");
+        expected.add("summary3");
+        assertEquals(expected, mPresented);
+    }
+
+    @Test
+    public void restoreState_keepsOrderWithoutPresenting() throws Exception {
+        final DialogQueue queue = new DialogQueue(mPresenter, 10,
+                DialogQueue.OverflowPolicy.DROP_NEWEST, DialogQueue.DuplicatePolicy.MERGE, null);
+        queue.enqueue(spec("a"), 0);
+        queue.enqueue(spec("b"), 1);
+        queue.enqueue(spec("c"), 2);
+
+        final DialogQueue restored = new DialogQueue(mPresenter, 10,
+                DialogQueue.OverflowPolicy.DROP_NEWEST, DialogQueue.DuplicatePolicy.MERGE, null);
+        restored.restoreState(queue.getShowingDialogId(), queue.getPendingSpecs(),
+                              queue.getPendingPriorities());
+        mPresented.clear();
+        drain(restored);
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("c");
+        expected.add("b");
+        assertEquals(expected, mPresented);
+    }
+}
@@ -0,0 +1,182 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DialogSpecTest {
+    @Test
+    public void unpack_restoresEveryValue() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("full")
+                .setTitle(1)
+                .setTitle("title")
+                .setMessage(2)
+                .setMessage("message")
+                .setPositiveButton(3)
+                .setPositiveButton("yes")
+                .setNeutralButton(4)
+                .setNeutralButton("later")
+                .setNegativeButton(5)
+                .setNegativeButton("no")
+                .setReverseButtons(true)
+                .setCompactArguments(true)
+                .setAsyncContent(true)
+                .setLongMessage(true)
+                .setAutoDismiss(1500)
+                .build();
+
+        final DialogSpec copy = DialogSpec.unpack(spec.packInts(), spec.packStrings());
+
+        assertEquals("full", copy.getDialogId());
+        assertEquals(1, copy.getTitleId());
+        assertEquals("title", copy.getTitle());
+        assertEquals(2, copy.getMessageId());
+        assertEquals("message", copy.getMessage());
+        assertEquals(3, copy.getPositiveButtonId());
+        assertEquals("yes", copy.getPositiveButtonLabel());
+        assertEquals(4, copy.getNeutralButtonId());
+        assertEquals("later", copy.getNeutralButtonLabel());
+        assertEquals(5, copy.getNegativeButtonId());
+        assertEquals("no", copy.getNegativeButtonLabel());
+        assertTrue(copy.isReverseButtons());
+        assertTrue(copy.isCompactArguments());
+        assertTrue(copy.isAsyncContent());
+        assertTrue(copy.isLongMessage());
+        assertEquals(1500, copy.getAutoDismissMillis());
+    }
+
+    @Test
+    public void pack_leavesOutUnsetValues() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("sparse")
+                .setMessage(2)
+                .setNegativeButton("no")
+                .build();
+
+        assertEquals(2, spec.packInts().length);
+        assertArrayEquals(new String[] {"sparse", "no"}, spec.packStrings());
+
+        final DialogSpec copy = DialogSpec.unpack(spec.packInts(), spec.packStrings());
+        assertEquals(DialogSpec.NO_RESOURCE, copy.getTitleId());
+        assertNull(copy.getTitle());
+        assertEquals(2, copy.getMessageId());
+        assertEquals(DialogSpec.NO_RESOURCE, copy.getNegativeButtonId());
+        assertEquals("no", copy.getNegativeButtonLabel());
+        assertFalse(copy.isReverseButtons());
+        assertFalse(copy.isCompactArguments());
+        assertFalse(copy.isAsyncContent());
+        assertFalse(copy.isLongMessage());
+        assertEquals(DialogSpec.NO_AUTO_DISMISS, copy.getAutoDismissMillis());
+    }
+
+    @Test
+    public void bind_prefersStringsAndReversesButtons() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("bind")
+                .setTitle(1)
+                .setTitle("title")
+                .setMessage(2)
+                .setPositiveButton(3)
+                .setNegativeButton("no")
+                .setReverseButtons(true)
+                .build();
+        final List<String> calls = new ArrayList<>();
+
+        SpecBinder.bind(spec, new SpecBinder.Target() {
+            @Override
+            public void setTitle(final String title) {
+                calls.add("title " + title);
+            }
+
+            @Override
+            public void setTitle(final int titleId) {
+                calls.add("title #" + titleId);
+            }
+
+            @Override
+            public void setMessage(final String message) {
+                calls.add("message " + message);
+            }
+
+            @Override
+            public void setMessage(final int messageId) {
+                calls.add("message #" + messageId);
+            }
+
+            @Override
+            public void setButton(final int which, final String label) {
+                calls.add(which + " " + label);
+            }
+
+            @Override
+            public void setButton(final int which, final int labelId) {
+                calls.add(which + " #" + labelId);
+            }
+        });
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("title title");
+        expected.add("message #2");
+        expected.add(DialogButtons.BUTTON_NEGATIVE + " #3");
+        expected.add(DialogButtons.BUTTON_POSITIVE + " no");
+        assertEquals(expected, calls);
+    }
+
+    @Test
+    public void itemMode_roundTrip() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("picker")
+                .setClickDebounce(200)
+                .setItemMode(DialogSpec.ITEMS_MULTI_CHOICE)
+                .build();
+        final DialogSpec copy = DialogSpec.unpack(spec.packInts(), spec.packStrings());
+        assertEquals(DialogSpec.ITEMS_MULTI_CHOICE, copy.getItemMode());
+        assertEquals(200, copy.getClickDebounceMillis());
+    }
+
+    @Test
+    public void textInput_roundTrip() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("rename")
+                .setItemMode(DialogSpec.ITEMS_NONE)
+                .setTextInput(true)
+                .setInputDebounce(400)
+                .build();
+        final DialogSpec copy = DialogSpec.unpack(spec.packInts(), spec.packStrings());
+        assertTrue(copy.isTextInput());
+        assertEquals(400, copy.getInputDebounceMillis());
+        assertEquals(DialogSpec.DEFAULT_INPUT_DEBOUNCE, DialogSpec.unpack(
+                new DialogSpec.Builder("x").build().packInts(), new String[] {"x"})
+                .getInputDebounceMillis());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void textInputAndItems_areRejected() throws Exception {
+        new DialogSpec.Builder("picker")
+                .setItemMode(DialogSpec.ITEMS_LIST)
+                .setTextInput(true)
+                .build();
+    }
+
+    @Test
+    public void progress_roundTrip() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("import").setProgress(true).build();
+        assertTrue(DialogSpec.unpack(spec.packInts(), spec.packStrings()).isProgress());
+        assertFalse(new DialogSpec.Builder("x").build().isProgress());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void progressAndTextInput_areRejected() throws Exception {
+        new DialogSpec.Builder("import")
+                .setProgress(true)
+                .setTextInput(true)
+                .build();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void itemsAndLongMessage_areRejected() throws Exception {
+        new DialogSpec.Builder("picker")
+                .setItemMode(DialogSpec.ITEMS_LIST)
+                .setLongMessage(true)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventDispatcherTest {
+    private final RouteTable<Observer> mRoutes = new RouteTable<>();
+    private final Observer mHandler = new Observer();
+    private final Observer mFallback = new Observer();
+    private int mResolutions = 0;
+    private int mDialogKey;
+    private EventDispatcher<Object, Observer> mDispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        mDialogKey = DialogIdInterner.intern("dispatch_test");
+        mDispatcher = new EventDispatcher<>(new EventDispatcher.Resolver<Observer>() {
+            @Override
+            public Observer resolve(final EventDispatcher<?, Observer> dispatcher) {
+                mResolutions++;
+                dispatcher.watch(mRoutes);
+                final Observer handler = mRoutes.resolve(mDialogKey);
+                return null != handler ? handler : mFallback;
+            }
+        }, new EventDispatcher.Delivery<Object, Observer>() {
+            @Override
+            public void deliverClick(final Observer observer, final Object dialog,
+                                     final int which) {
+                observer.mLastButton = which;
+                observer.mClicks++;
+            }
+
+            @Override
+            public void deliverCancel(final Observer observer, final Object dialog) {
+                observer.mCancels++;
+            }
+
+            @Override
+            public void deliverDismiss(final Observer observer, final Object dialog) {
+                observer.mDismisses++;
+            }
+        });
+    }
+
+    @Test
+    public void resolvesOnceUntilTheRoutesChange() throws Exception {
+        final Object dialog = new Object();
+        mDispatcher.dispatchClick(dialog, DialogButtons.BUTTON_POSITIVE);
+        mDispatcher.dispatchCancel(dialog);
+        assertEquals(1, mResolutions);
+        assertEquals(1, mFallback.mClicks);
+        assertEquals(1, mFallback.mCancels);
+
+        mRoutes.register(mDialogKey, mHandler);
+        mDispatcher.dispatchDismiss(dialog);
+        assertEquals(2, mResolutions);
+        assertEquals(1, mHandler.mDismisses);
+
+        mDispatcher.invalidate();
+        mDispatcher.dispatchDismiss(dialog);
+        assertEquals(3, mResolutions);
+        assertEquals(2, mHandler.mDismisses);
+    }
+
+    @Test
+    public void watchesEveryTableConsulted() throws Exception {
+        // like a target fragment's router that misses, then the Activity's
+        final RouteTable<Observer> first = new RouteTable<>();
+        final RouteTable<Observer> second = new RouteTable<>();
+        second.register(mDialogKey, mFallback);
+        final EventDispatcher<Object, Observer> dispatcher = new EventDispatcher<>(
+                new EventDispatcher.Resolver<Observer>() {
+                    @Override
+                    public Observer resolve(final EventDispatcher<?, Observer> dispatcher) {
+                        mResolutions++;
+                        dispatcher.watch(first);
+                        final Observer handler = first.resolve(mDialogKey);
+                        if (null != handler) {
+                            return handler;
+                        }
+                        dispatcher.watch(second);
+                        return second.resolve(mDialogKey);
+                    }
+                }, null);
+        assertSame(mFallback, dispatcher.getTarget());
+        assertSame(mFallback, dispatcher.getTarget());
+        assertEquals(1, mResolutions);
+
+        first.register(mDialogKey, mHandler);
+        assertSame(mHandler, dispatcher.getTarget());
+        assertEquals(2, mResolutions);
+    }
+
+    @Test
+    public void reversesButtons() throws Exception {
+        mDispatcher.setReverseButtons(true);
+        mDispatcher.dispatchClick(this, DialogButtons.BUTTON_POSITIVE);
+        assertEquals(DialogButtons.BUTTON_NEGATIVE, mFallback.mLastButton);
+        mDispatcher.dispatchClick(this, DialogButtons.BUTTON_NEUTRAL);
+        assertEquals(DialogButtons.BUTTON_NEUTRAL, mFallback.mLastButton);
+    }
+
+    /** Counts the events it gets. */
+    private static final class Observer {
+        int mClicks = 0;
+        int mCancels = 0;
+        int mDismisses = 0;
+        int mLastButton = 0;
+    }
+}
@@ -0,0 +1,95 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventGateTest {
+    @Test
+    public void deliverAll_letsEverythingThrough() throws Exception {
+        final EventGate gate = new EventGate(EventGate.DELIVER_ALL, EventGate.NO_DEBOUNCE);
+        assertTrue(gate.onClick(0));
+        assertTrue(gate.onClick(0));
+        assertTrue(gate.onCancel());
+        assertTrue(gate.onDismiss());
+        assertFalse(gate.isClosed());
+    }
+
+    @Test
+    public void debounce_dropsClicksInsideTheWindow() throws Exception {
+        final EventGate gate = new EventGate(EventGate.DELIVER_ALL, 300);
+        assertTrue(gate.onClick(1000));
+        assertFalse(gate.onClick(1100));
+        assertFalse(gate.onClick(1299));
+        // the window counts from the last click let through, not the last one dropped
+        assertTrue(gate.onClick(1300));
+        assertFalse(gate.onClick(1400));
+    }
+
+    @Test
+    public void result_isDeliveredOnce() throws Exception {
+        final EventGate gate = new EventGate(EventGate.EVENT_CLICK | EventGate.EVENT_CANCEL,
+                                             EventGate.NO_DEBOUNCE);
+        assertTrue(gate.onClick(0));
+        assertTrue(gate.isClosed());
+        assertFalse(gate.onClick(1000));
+        assertFalse(gate.onCancel());
+        assertFalse(gate.onDismiss());
+    }
+
+    @Test
+    public void cancelAndDismiss_areCoalesced() throws Exception {
+        final EventGate gate = new EventGate(EventGate.EVENT_CANCEL | EventGate.EVENT_DISMISS,
+                                             EventGate.NO_DEBOUNCE);
+        assertFalse(gate.onClick(0));
+        assertTrue(gate.onCancel());
+        assertFalse(gate.onDismiss());
+    }
+
+    @Test
+    public void restore_keepsARecreatedDialogClosed() throws Exception {
+        final EventGate gate = new EventGate(EventGate.ALL_EVENTS, EventGate.NO_DEBOUNCE);
+        assertTrue(gate.onDismiss());
+
+        // the instance created after a configuration change
+        final EventGate recreated = new EventGate(EventGate.ALL_EVENTS, EventGate.NO_DEBOUNCE);
+        recreated.restore(gate.isClosed());
+        assertFalse(recreated.onClick(0));
+        assertFalse(recreated.onCancel());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownEvents_areRejected() throws Exception {
+        new EventGate(1 << 5, EventGate.NO_DEBOUNCE);
+    }
+
+    @Test
+    public void spec_packsTheGateSettings() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("gate")
+                .setAutoDismiss(5000)
+                .setResultEvents(EventGate.EVENT_CLICK)
+                .setClickDebounce(250)
+                .build();
+        final DialogSpec copy = DialogSpec.unpack(spec.packInts(), spec.packStrings());
+        assertEquals(5000, copy.getAutoDismissMillis());
+        assertEquals(EventGate.EVENT_CLICK, copy.getResultEvents());
+        assertEquals(250, copy.getClickDebounceMillis());
+
+        final DialogSpec plain = new DialogSpec.Builder("plain").build();
+        assertEquals(1, plain.packInts().length);
+        final DialogSpec plainCopy = DialogSpec.unpack(plain.packInts(), plain.packStrings());
+        assertEquals(EventGate.DELIVER_ALL, plainCopy.getResultEvents());
+        assertEquals(EventGate.NO_DEBOUNCE, plainCopy.getClickDebounceMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeAutoDismiss_isRejected() throws Exception {
+        new DialogSpec.Builder("gate").setAutoDismiss(-1);
+    }
+
+    @Test
+    public void negativeClickDebounce_isNoDebounce() throws Exception {
+        final DialogSpec spec = new DialogSpec.Builder("gate").setClickDebounce(-1).build();
+        assertEquals(EventGate.NO_DEBOUNCE, spec.getClickDebounceMillis());
+    }
+}
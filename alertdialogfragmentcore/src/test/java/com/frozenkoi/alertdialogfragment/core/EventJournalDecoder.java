@@ -0,0 +1,57 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prints a dump written by {@link EventJournal#writeTo(java.io.OutputStream)}, one event per
+ * line: the wall clock time, the milliseconds since the previous event, the dialog id, the event
+ * and the button, item or type dropped.
+ * <p/>
+ * Pull the dump from the device and run
+ * {@code gradle :alertdialogfragmentcore:decodeJournal -Pjournal=dialogs.journal}.
+ */
+public final class EventJournalDecoder {
+    private EventJournalDecoder() {
+    }
+
+    /**
+     * @param args The dump files.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (0 == args.length) {
+            System.err.println("usage: EventJournalDecoder <journal file>...");
+            System.exit(2);
+        }
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        for (final String path : args) {
+            final InputStream in = new BufferedInputStream(new FileInputStream(path));
+            final List<EventJournal.Entry> entries;
+            try {
+                entries = EventJournal.read(in);
+            } finally {
+                in.close();
+            }
+            System.out.println(path + ": " + entries.size() + " events");
+            long previousNanos = entries.isEmpty() ? 0 : entries.get(0).getNanos();
+            for (final EventJournal.Entry entry : entries) {
+                final int type = entry.getType();
+                final String which = EventJournal.TYPE_CLICK == type
+                        ? String.valueOf(entry.getWhich())
+                        : EventJournal.TYPE_DROPPED == type
+                        ? EventJournal.typeName(entry.getWhich()) : "";
+                System.out.println(String.format(Locale.US, "%s %+9.1f ms  #%-8d %-24s %-8s %s",
+                        format.format(new Date(entry.getWallMillis())),
+                        (entry.getNanos() - previousNanos) / 1e6, entry.getSequence(),
+                        entry.getDialogId(), EventJournal.typeName(type), which));
+                previousNanos = entry.getNanos();
+            }
+        }
+    }
+}
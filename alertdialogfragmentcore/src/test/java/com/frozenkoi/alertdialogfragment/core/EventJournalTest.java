@@ -0,0 +1,114 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class EventJournalTest {
+    private final int mKey = DialogIdInterner.intern("journal_test");
+    private final int mOtherKey = DialogIdInterner.intern("journal_other");
+
+    @Test
+    public void capacity_isRoundedUpToAPowerOfTwo() throws Exception {
+        assertEquals(8, new EventJournal(5).getCapacity());
+        assertEquals(8, new EventJournal(8).getCapacity());
+        assertEquals(1, new EventJournal(1).getCapacity());
+    }
+
+    @Test
+    public void snapshot_keepsTheLastEventsOldestFirst() throws Exception {
+        final EventJournal journal = new EventJournal(4);
+        for (int i = 0; i < 6; i++) {
+            journal.record(mKey, EventJournal.TYPE_CLICK, i, 100 + i);
+        }
+
+        final List<EventJournal.Entry> entries = journal.snapshot();
+        assertEquals(6, journal.getRecorded());
+        assertEquals(4, entries.size());
+        for (int i = 0; i < 4; i++) {
+            final EventJournal.Entry entry = entries.get(i);
+            assertEquals(i + 2, entry.getSequence());
+            assertEquals(102 + i, entry.getNanos());
+            assertEquals(i + 2, entry.getWhich());
+            assertEquals("journal_test", entry.getDialogId());
+            assertEquals(EventJournal.TYPE_CLICK, entry.getType());
+        }
+    }
+
+    @Test
+    public void record_keepsNegativeButtons() throws Exception {
+        final EventJournal journal = new EventJournal(4);
+        journal.record(mKey, EventJournal.TYPE_CLICK, DialogButtons.BUTTON_NEGATIVE, 0);
+        journal.record(mOtherKey, EventJournal.TYPE_DROPPED, EventJournal.TYPE_CANCEL, 0);
+
+        final List<EventJournal.Entry> entries = journal.snapshot();
+        assertEquals(DialogButtons.BUTTON_NEGATIVE, entries.get(0).getWhich());
+        assertEquals("journal_other", entries.get(1).getDialogId());
+        assertEquals(EventJournal.TYPE_CANCEL, entries.get(1).getWhich());
+    }
+
+    @Test
+    public void read_decodesWhatWriteToDumps() throws Exception {
+        final EventJournal journal = new EventJournal(16);
+        final long now = System.nanoTime();
+        journal.record(mKey, EventJournal.TYPE_SHOW, 0, now - 2000L * 1000 * 1000);
+        journal.record(mKey, EventJournal.TYPE_CLICK, DialogButtons.BUTTON_POSITIVE, now);
+        journal.record(mOtherKey, EventJournal.TYPE_SHOW, 0, now);
+        journal.record(mKey, EventJournal.TYPE_DISMISS, 0, now);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final long before = System.currentTimeMillis();
+        journal.writeTo(out);
+        final List<EventJournal.Entry> decoded
+                = EventJournal.read(new ByteArrayInputStream(out.toByteArray()));
+
+        final List<EventJournal.Entry> expected = journal.snapshot();
+        assertEquals(expected.size(), decoded.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), decoded.get(i).toString());
+            assertEquals(expected.get(i).getNanos(), decoded.get(i).getNanos());
+        }
+        // about two seconds before the dump
+        final long age = before - decoded.get(0).getWallMillis();
+        assertTrue(String.valueOf(age), age > 1500 && age < 2500);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsOtherFiles() throws Exception {
+        EventJournal.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void snapshot_neverMixesEventsWhileOthersRecord() throws Exception {
+        final EventJournal journal = new EventJournal(64);
+        final int writers = 4;
+        final int perWriter = 200000;
+        final CountDownLatch done = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perWriter; i++) {
+                        // the time and which agree, so a mixed event shows
+                        journal.record(writer, EventJournal.TYPE_CLICK, i, i);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        while (done.getCount() > 0) {
+            for (final EventJournal.Entry entry : journal.snapshot()) {
+                assertEquals(entry.getNanos(), entry.getWhich());
+            }
+        }
+        assertEquals(writers * perWriter, journal.getRecorded());
+        assertEquals(64, journal.snapshot().size());
+    }
+}
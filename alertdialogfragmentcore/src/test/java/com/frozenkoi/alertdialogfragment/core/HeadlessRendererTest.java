@@ -0,0 +1,159 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HeadlessRendererTest {
+    /** Events received by the hosts, in order. */
+    private final List<String> mEvents = new ArrayList<>();
+    private int mHosts = 0;
+    private HeadlessRenderer mRenderer;
+
+    @Before
+    public void setUp() throws Exception {
+        mRenderer = new HeadlessRenderer(new HeadlessRenderer.HostFactory() {
+            @Override
+            public HeadlessRenderer.Host createHost() {
+                final String name = "host" + mHosts++;
+                final RouteTable<HeadlessRenderer.Observer> routes = new RouteTable<>();
+                final HeadlessRenderer.Observer observer = new HeadlessRenderer.Observer() {
+                    @Override
+                    public void onClick(final String dialogID, final int which) {
+                        mEvents.add(name + " click " + dialogID + " " + which);
+                    }
+
+                    @Override
+                    public void onCancel(final String dialogID) {
+                        mEvents.add(name + " cancel " + dialogID);
+                    }
+
+                    @Override
+                    public void onDismiss(final String dialogID) {
+                        mEvents.add(name + " dismiss " + dialogID);
+                    }
+                };
+                routes.register("a", observer);
+                routes.register("b", observer);
+                return new HeadlessRenderer.Host() {
+                    @Override
+                    public RouteTable<HeadlessRenderer.Observer> getRoutes() {
+                        return routes;
+                    }
+                };
+            }
+        }, null, 4, DialogQueue.OverflowPolicy.DROP_NEWEST, DialogQueue.DuplicatePolicy.DROP,
+                null);
+    }
+
+    private static DialogSpec spec(final String id) {
+        return new DialogSpec.Builder(id)
+                .setTitle("Title " + id)
+                .setPositiveButton("OK")
+                .setNegativeButton("Cancel")
+                .build();
+    }
+
+    @Test
+    public void gatedDismiss_stillShowsTheNextDialog() throws Exception {
+        final DialogSpec clicksOnly = new DialogSpec.Builder("a")
+                .setPositiveButton("OK")
+                .setResultEvents(EventGate.EVENT_CLICK)
+                .build();
+        assertTrue(mRenderer.enqueue(clicksOnly, 0));
+        assertTrue(mRenderer.enqueue(spec("b"), 0));
+
+        // neither the cancel nor its dismiss reach the observer, the queue moves on anyway
+        assertTrue(mRenderer.cancel());
+        assertTrue(mEvents.isEmpty());
+        assertEquals(2, mRenderer.getDropped());
+        assertEquals("b", mRenderer.getShowingDialogId());
+    }
+
+    @Test
+    public void click_dismissesAndShowsTheNextDialog() throws Exception {
+        assertTrue(mRenderer.enqueue(spec("a"), 0));
+        assertTrue(mRenderer.enqueue(spec("b"), 0));
+        assertEquals("a", mRenderer.getShowingDialogId());
+        assertEquals("Title a", mRenderer.getShowingTitle());
+        assertEquals(2, mRenderer.getShowingButtons().length);
+
+        assertFalse(mRenderer.click(DialogButtons.BUTTON_NEUTRAL, 0));
+        assertTrue(mRenderer.click(DialogButtons.BUTTON_POSITIVE, 0));
+        assertEquals("b", mRenderer.getShowingDialogId());
+        assertTrue(mRenderer.cancel());
+        assertNull(mRenderer.getShowingDialogId());
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("host0 click a " + DialogButtons.BUTTON_POSITIVE);
+        expected.add("host0 dismiss a");
+        expected.add("host0 cancel b");
+        expected.add("host0 dismiss b");
+        assertEquals(expected, mEvents);
+        assertEquals(2, mRenderer.getShows());
+        assertEquals(2, mRenderer.getDismisses());
+    }
+
+    @Test
+    public void rotate_keepsTheDialogsAndRoutesToTheNewHost() throws Exception {
+        mRenderer.enqueue(spec("a"), 0);
+        mRenderer.enqueue(spec("b"), 1);
+        mRenderer.rotate();
+
+        assertEquals("a", mRenderer.getShowingDialogId());
+        assertEquals("Title a", mRenderer.getShowingTitle());
+        assertEquals(1, mRenderer.getPendingCount());
+        mRenderer.click(DialogButtons.BUTTON_NEGATIVE, 0);
+        assertEquals("host1 click a " + DialogButtons.BUTTON_NEGATIVE, mEvents.get(0));
+        assertEquals("b", mRenderer.getShowingDialogId());
+        assertEquals(3, mRenderer.getShows());
+    }
+
+    @Test
+    public void rotate_journalsOneShowAndOneDismiss() throws Exception {
+        final EventJournal journal = new EventJournal(64);
+        mRenderer.setJournal(journal);
+        mRenderer.enqueue(spec("a"), 0);
+        mRenderer.rotate();
+        mRenderer.rotate();
+        mRenderer.cancel();
+
+        final List<String> types = new ArrayList<>();
+        for (final EventJournal.Entry entry : journal.snapshot()) {
+            types.add(EventJournal.typeName(entry.getType()));
+        }
+        final List<String> expected = new ArrayList<>();
+        expected.add(EventJournal.typeName(EventJournal.TYPE_SHOW));
+        expected.add(EventJournal.typeName(EventJournal.TYPE_CANCEL));
+        expected.add(EventJournal.typeName(EventJournal.TYPE_DISMISS));
+        assertEquals(expected, types);
+    }
+
+    @Test
+    public void resultEvents_dropTheDismissAfterTheResult() throws Exception {
+        mRenderer.enqueue(new DialogSpec.Builder("a")
+                .setPositiveButton("OK")
+                .setResultEvents(EventGate.ALL_EVENTS)
+                .build(), 0);
+        mRenderer.click(DialogButtons.BUTTON_POSITIVE, 0);
+
+        assertEquals(1, mEvents.size());
+        assertEquals(1, mRenderer.getClicks());
+        assertEquals(0, mRenderer.getDismisses());
+        assertEquals(1, mRenderer.getDropped());
+    }
+
+    @Test
+    public void soak_doesNotLeakHostsOrListeners() throws Exception {
+        final SoakDriver.Report report = new SoakDriver(7).run(200000);
+        assertTrue(report.toString(), report.mRotations > 0);
+        assertEquals(report.toString(), 0, report.mLeakedHosts);
+        assertTrue(report.toString(), report.mShows > 0);
+        // the current host's listener for each dialog, and nothing else
+        assertTrue(report.toString(), report.mLiveListeners <= 64);
+    }
+}
@@ -0,0 +1,186 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class InputValidationTest {
+    private long mNow = 1000;
+    /** Deadline of the alarm, or -1 if none is set. */
+    private long mAlarm = -1;
+    private DeadlineScheduler mScheduler;
+    /** The validations waiting for a background thread. */
+    private final ArrayDeque<Runnable> mBackground = new ArrayDeque<>();
+    /** The results waiting for the main thread. */
+    private final ArrayDeque<Runnable> mDelivery = new ArrayDeque<>();
+    /** The texts the validator was called with. */
+    private final List<String> mValidated = new ArrayList<>();
+    /** The results delivered, as "text=valid". */
+    private final List<String> mResults = new ArrayList<>();
+    private InputValidation mValidation;
+
+    @Before
+    public void setUp() throws Exception {
+        mScheduler = new DeadlineScheduler(new DeadlineScheduler.Clock() {
+            @Override
+            public long now() {
+                return mNow;
+            }
+        }, new DeadlineScheduler.Alarm() {
+            @Override
+            public void set(final long deadline) {
+                mAlarm = deadline;
+            }
+
+            @Override
+            public void clear() {
+                mAlarm = -1;
+            }
+        });
+        mValidation = validation(new InputValidation.Validator() {
+            @Override
+            public String validate(final String text, final InputValidation.Request request) {
+                mValidated.add(text);
+                return text.contains("@") ? null : "no @";
+            }
+        });
+    }
+
+    private InputValidation validation(final InputValidation.Validator validator) {
+        return new InputValidation(validator, new InputValidation.Listener() {
+            @Override
+            public void onValidated(final String text, final boolean valid, final String error) {
+                mResults.add(text + '=' + valid);
+            }
+        }, mScheduler, queue(mBackground), queue(mDelivery), 250);
+    }
+
+    private static Executor queue(final ArrayDeque<Runnable> queue) {
+        return new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                queue.add(command);
+            }
+        };
+    }
+
+    /** Moves the clock and fires the alarm if it is due. */
+    private void advanceTo(final long now) {
+        mNow = now;
+        if (-1 != mAlarm && mAlarm <= now) {
+            mAlarm = -1;
+            mScheduler.runExpired();
+        }
+    }
+
+    private static void runAll(final ArrayDeque<Runnable> queue) {
+        while (!queue.isEmpty()) {
+            queue.poll().run();
+        }
+    }
+
+    @Test
+    public void typing_isValidatedOnceItPauses() throws Exception {
+        mValidation.onTextChanged("a");
+        advanceTo(1100);
+        mValidation.onTextChanged("a@");
+        advanceTo(1200);
+        mValidation.onTextChanged("a@b");
+        advanceTo(1400);
+        assertTrue(mBackground.isEmpty());
+
+        advanceTo(1450);
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertEquals(1, mValidated.size());
+        assertEquals("[a@b=true]", mResults.toString());
+        assertTrue(mValidation.isValid());
+    }
+
+    @Test
+    public void staleResults_areDropped() throws Exception {
+        mValidation.onTextChanged("a@");
+        advanceTo(1250);
+        runAll(mBackground);
+        // the text changes before the result is delivered
+        mValidation.onTextChanged("a");
+        runAll(mDelivery);
+
+        assertEquals("[a@]", mValidated.toString());
+        assertTrue(mResults.isEmpty());
+        assertFalse(mValidation.isValid());
+
+        advanceTo(1500);
+        runAll(mBackground);
+        runAll(mDelivery);
+        assertEquals("[a=false]", mResults.toString());
+    }
+
+    @Test
+    public void staleValidations_areSkipped() throws Exception {
+        mValidation.onTextChanged("a@");
+        advanceTo(1250);
+        // the text changes before a thread picks the validation up
+        mValidation.cancel();
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertTrue(mValidated.isEmpty());
+        assertTrue(mResults.isEmpty());
+    }
+
+    @Test
+    public void runningValidations_seeTheyWentStale() throws Exception {
+        final boolean[] cancelled = new boolean[1];
+        mValidation = validation(new InputValidation.Validator() {
+            @Override
+            public String validate(final String text, final InputValidation.Request request) {
+                mValidation.onTextChanged("b");
+                cancelled[0] = request.isCancelled();
+                return null;
+            }
+        });
+        mValidation.validateNow("a");
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertTrue(cancelled[0]);
+        assertTrue(mResults.isEmpty());
+    }
+
+    @Test
+    public void failingValidators_meanInvalid() throws Exception {
+        mValidation = validation(new InputValidation.Validator() {
+            @Override
+            public String validate(final String text, final InputValidation.Request request)
+                    throws Exception {
+                throw new Exception("offline");
+            }
+        });
+        mValidation.validateNow("a@b");
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertEquals("[a@b=false]", mResults.toString());
+        assertFalse(mValidation.isValid());
+    }
+
+    @Test
+    public void validateNow_skipsTheDebounce() throws Exception {
+        mValidation.onTextChanged("a");
+        mValidation.validateNow("a@b");
+        assertEquals(-1, mAlarm);
+        runAll(mBackground);
+        runAll(mDelivery);
+
+        assertEquals("[a@b]", mValidated.toString());
+        assertEquals("[a@b=true]", mResults.toString());
+    }
+}
@@ -0,0 +1,109 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntHandlerMapTest {
+    /** Slot count minus one of a new map, which grows past 8 entries. */
+    private static final int MASK = 15;
+
+    private final IntHandlerMap<String> mMap = new IntHandlerMap<>();
+
+    /** @return {@code count} keys with the home slot {@code home} in a new map. */
+    private static int[] keysAt(final int home, final int count) {
+        final int[] keys = new int[count];
+        int found = 0;
+        for (int key = 0; found < count; key++) {
+            if (home == IntHandlerMap.slot(key, MASK)) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+    private void putAll(final int... keys) {
+        for (final int key : keys) {
+            mMap.put(key, "v" + key);
+        }
+    }
+
+    private void assertAll(final int... keys) {
+        for (final int key : keys) {
+            assertEquals("v" + key, mMap.get(key));
+        }
+    }
+
+    @Test
+    public void collisions_keepAllTheValues() throws Exception {
+        final int[] keys = keysAt(3, 5);
+        putAll(keys);
+        mMap.put(keys[2], "replaced");
+
+        assertEquals(5, mMap.size());
+        assertEquals("replaced", mMap.get(keys[2]));
+        assertAll(keys[0], keys[1], keys[3], keys[4]);
+        assertNull(mMap.get(keysAt(4, 1)[0]));
+    }
+
+    @Test
+    public void remove_middleOfChain_keepsTheRestReachable() throws Exception {
+        final int[] keys = keysAt(3, 3);
+        // home slot 4, but probed to 6 behind the chain of slot 3
+        final int other = keysAt(4, 1)[0];
+        putAll(keys);
+        putAll(other);
+
+        assertTrue(mMap.remove(keys[1]));
+        assertFalse(mMap.remove(keys[1]));
+
+        assertEquals(3, mMap.size());
+        assertNull(mMap.get(keys[1]));
+        assertAll(keys[0], keys[2], other);
+        putAll(keys[1]);
+        assertAll(keys);
+    }
+
+    @Test
+    public void remove_chainWrappingPastTheEnd_keepsTheRestReachable() throws Exception {
+        // slots 15, 0 and 1
+        final int[] keys = keysAt(MASK, 3);
+        // home slot 0, but probed to 2
+        final int other = keysAt(0, 1)[0];
+        putAll(keys);
+        putAll(other);
+
+        assertTrue(mMap.remove(keys[0]));
+        assertNull(mMap.get(keys[0]));
+        assertAll(keys[1], keys[2], other);
+
+        assertTrue(mMap.remove(keys[2]));
+        assertAll(keys[1], other);
+        assertEquals(2, mMap.size());
+    }
+
+    @Test
+    public void resize_keepsAllTheValues() throws Exception {
+        final Map<Integer, String> expected = new HashMap<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            // few distinct keys, so there are replaces and removes of present keys
+            final int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(null != expected.remove(key), mMap.remove(key));
+            } else {
+                expected.put(key, "v" + i);
+                mMap.put(key, "v" + i);
+            }
+        }
+
+        assertEquals(expected.size(), mMap.size());
+        for (int key = -1000; key < 1000; key++) {
+            assertEquals(expected.get(key), mMap.get(key));
+        }
+    }
+}
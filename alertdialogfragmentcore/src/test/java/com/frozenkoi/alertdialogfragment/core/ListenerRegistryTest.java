@@ -0,0 +1,127 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ListenerRegistryTest {
+    private final ListenerRegistry<List<String>> mRegistry = new ListenerRegistry<>();
+    /** Runnables handed to {@link #mQueued}, not run yet. */
+    private final List<Runnable> mQueue = new ArrayList<>();
+    private final Executor mQueued = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            mQueue.add(command);
+        }
+    };
+    private int mDialogKey;
+
+    @Before
+    public void setUp() throws Exception {
+        mDialogKey = DialogIdInterner.intern("registry_test");
+    }
+
+    private static ListenerRegistry.Event<List<String>> event(final String name) {
+        return new ListenerRegistry.Event<List<String>>() {
+            @Override
+            public void deliverTo(final List<String> listener) {
+                listener.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void deliversDirectlyOrThroughTheExecutor() throws Exception {
+        final List<String> direct = new ArrayList<>();
+        final List<String> queued = new ArrayList<>();
+        mRegistry.subscribe(mDialogKey, direct, null);
+        mRegistry.subscribe(mDialogKey, queued, mQueued);
+
+        assertEquals(2, mRegistry.deliver(mDialogKey, event("click")));
+        assertEquals(1, direct.size());
+        assertTrue(queued.isEmpty());
+
+        assertEquals(1, mQueue.size());
+        mQueue.get(0).run();
+        assertEquals("click", queued.get(0));
+        assertEquals(0, mRegistry.deliver(DialogIdInterner.intern("registry_other"),
+                                          event("click")));
+    }
+
+    @Test
+    public void cancel_stopsDelivery() throws Exception {
+        final List<String> listener = new ArrayList<>();
+        final ListenerRegistry.Subscription<List<String>> subscription
+                = mRegistry.subscribe(mDialogKey, listener, null);
+        assertTrue(subscription.isActive());
+
+        subscription.cancel();
+        assertFalse(subscription.isActive());
+        assertEquals(0, mRegistry.deliver(mDialogKey, event("click")));
+        assertEquals(0, mRegistry.size(mDialogKey));
+        assertTrue(listener.isEmpty());
+    }
+
+    @Test
+    public void doesNotKeepListenersAlive() throws Exception {
+        List<String> listener = new ArrayList<>();
+        final WeakReference<List<String>> collected = new WeakReference<>(listener);
+        final ListenerRegistry.Subscription<List<String>> subscription
+                = mRegistry.subscribe(mDialogKey, listener, null);
+        listener = null;
+        for (int i = 0; i < 10 && null != collected.get(); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assume.assumeTrue(null == collected.get());
+
+        assertEquals(0, mRegistry.deliver(mDialogKey, event("click")));
+        assertFalse(subscription.isActive());
+    }
+
+    @Test
+    public void concurrentSubscriptionsAreAllKept() throws Exception {
+        final int threads = 4;
+        final int perThread = 500;
+        // strong references, so none is collected
+        final List<List<String>> listeners = new ArrayList<>();
+        for (int i = 0; i < threads * perThread; i++) {
+            listeners.add(new ArrayList<String>());
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int first = t * perThread;
+            final Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = first; i < first + perThread; i++) {
+                        mRegistry.subscribe(mDialogKey, listeners.get(i), null);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread, mRegistry.size(mDialogKey));
+        assertEquals(threads * perThread, mRegistry.deliver(mDialogKey, event("click")));
+    }
+}
@@ -0,0 +1,102 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ProgressSlotTest {
+    private final ProgressSlot mSlot = new ProgressSlot();
+    private final AtomicInteger mWakes = new AtomicInteger();
+    private final ProgressSlot.Waker mWaker = new ProgressSlot.Waker() {
+        @Override
+        public void wake() {
+            mWakes.incrementAndGet();
+        }
+    };
+
+    @Test
+    public void publish_keepsOnlyTheLatestValue() throws Exception {
+        mSlot.setWaker(mWaker);
+        for (int i = 1; i <= 50; i++) {
+            mSlot.publish(i, 100);
+        }
+
+        assertEquals(1, mWakes.get());
+        final long value = mSlot.take();
+        assertEquals(50, ProgressSlot.getProgress(value));
+        assertEquals(100, ProgressSlot.getMax(value));
+        assertFalse(ProgressSlot.isComplete(value));
+        assertEquals(ProgressSlot.NONE, mSlot.take());
+    }
+
+    @Test
+    public void take_rearmsTheWaker() throws Exception {
+        mSlot.setWaker(mWaker);
+        mSlot.publish(1, 10);
+        mSlot.take();
+        mSlot.publish(2, 10);
+
+        assertEquals(2, mWakes.get());
+        assertEquals(2, ProgressSlot.getProgress(mSlot.take()));
+    }
+
+    @Test
+    public void setWaker_wakesForValuesPublishedBefore() throws Exception {
+        mSlot.publish(3, 10);
+        assertEquals(0, mWakes.get());
+
+        mSlot.setWaker(mWaker);
+        assertEquals(1, mWakes.get());
+        assertEquals(3, ProgressSlot.getProgress(mSlot.take()));
+    }
+
+    @Test
+    public void publish_clampsTheProgress() throws Exception {
+        mSlot.publish(12, 10);
+        final long value = mSlot.take();
+        assertEquals(10, ProgressSlot.getProgress(value));
+        assertTrue(ProgressSlot.isComplete(value));
+
+        mSlot.publish(-1, 0);
+        assertEquals(0, ProgressSlot.getProgress(mSlot.take()));
+
+        mSlot.complete(7);
+        assertTrue(ProgressSlot.isComplete(mSlot.take()));
+        assertFalse(ProgressSlot.isComplete(mSlot.peek() & 0xffffffffL));
+    }
+
+    @Test
+    public void concurrentWorkers_wakeOncePerTake() throws Exception {
+        mSlot.setWaker(mWaker);
+        final int workers = 4;
+        final int perWorker = 100000;
+        final CountDownLatch done = new CountDownLatch(workers);
+        for (int w = 0; w < workers; w++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 1; i <= perWorker; i++) {
+                        mSlot.publish(i, perWorker);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        int takes = 0;
+        while (done.getCount() > 0) {
+            if (ProgressSlot.NONE != mSlot.take()) {
+                takes++;
+            }
+        }
+        if (ProgressSlot.NONE != mSlot.take()) {
+            takes++;
+        }
+
+        // each value taken was announced by exactly one wake
+        assertEquals(takes, mWakes.get());
+        assertTrue(mWakes.get() < workers * perWorker);
+    }
+}
@@ -0,0 +1,59 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SelectionBitsTest {
+    @Test
+    public void setAndToggle() throws Exception {
+        final SelectionBits bits = new SelectionBits(10000);
+        bits.set(0, true);
+        bits.set(63, true);
+        bits.set(64, true);
+        assertTrue(bits.toggle(9999));
+        assertFalse(bits.toggle(63));
+
+        assertTrue(bits.get(0));
+        assertFalse(bits.get(63));
+        assertTrue(bits.get(64));
+        assertTrue(bits.get(9999));
+        assertEquals(3, bits.cardinality());
+        assertEquals(157, bits.toLongArray().length);
+    }
+
+    @Test
+    public void nextChecked_iteratesInOrder() throws Exception {
+        final SelectionBits bits = new SelectionBits(300);
+        bits.set(5, true);
+        bits.set(128, true);
+        bits.set(299, true);
+        assertEquals(5, bits.nextChecked(0));
+        assertEquals(128, bits.nextChecked(6));
+        assertEquals(299, bits.nextChecked(129));
+        assertEquals(-1, bits.nextChecked(300));
+
+        bits.clear();
+        assertEquals(-1, bits.nextChecked(0));
+    }
+
+    @Test
+    public void savedBits_roundTrip() throws Exception {
+        final SelectionBits bits = new SelectionBits(70);
+        bits.set(3, true);
+        bits.set(69, true);
+        final SelectionBits copy = SelectionBits.fromLongArray(bits.toLongArray(), 70);
+        assertTrue(copy.get(3));
+        assertTrue(copy.get(69));
+        assertEquals(2, copy.cardinality());
+
+        // a shorter list drops the items past its end
+        final SelectionBits shorter = SelectionBits.fromLongArray(bits.toLongArray(), 10);
+        assertEquals(1, shorter.cardinality());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfRange_throws() throws Exception {
+        new SelectionBits(10).get(10);
+    }
+}
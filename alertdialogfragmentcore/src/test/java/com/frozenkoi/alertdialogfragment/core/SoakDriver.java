@@ -0,0 +1,286 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays random dialog interactions against a {@link HeadlessRenderer}: dialogs enqueued with
+ * random priorities, clicks, double clicks, cancels and rotations. Reports the throughput, the
+ * heap growth and the hosts and listeners that outlived their rotation.
+ * <p/>
+ * Run with {@code gradle :alertdialogfragmentcore:soak -Pinteractions=5000000}.
+ */
+public final class SoakDriver {
+    /** Distinct dialog ids. */
+    private static final int DIALOGS = 64;
+    /** Interactions between two heap samples, also the length of the warm-up. */
+    private static final int SAMPLE_EVERY = 100000;
+
+    /**
+     * What a run measured.
+     */
+    public static final class Report {
+        long mInteractions;
+        /** Time spent replaying the interactions, without the heap samples. */
+        long mNanos;
+        long mShows;
+        /** Events delivered to the hosts. */
+        long mEvents;
+        /** Events delivered to the listeners of the registry. */
+        long mListenerEvents;
+        long mRotations;
+        /** Heap used after the warm-up and at the end, after collecting. */
+        long mHeapBefore;
+        long mHeapAfter;
+        /** Largest heap sample, taken after collecting every {@link #SAMPLE_EVERY} interactions. */
+        long mHeapPeak;
+        /** Replaced hosts still reachable at the end. */
+        int mLeakedHosts;
+        /** Listeners still subscribed at the end. Only the current host's should be. */
+        int mLiveListeners;
+
+        /** @return Interactions per second. */
+        double getThroughput() {
+            return mInteractions * 1e9 / Math.max(1, mNanos);
+        }
+
+        /** @return Bytes the heap grew between the warm-up and the end. */
+        long getHeapGrowth() {
+            return mHeapAfter - mHeapBefore;
+        }
+
+        @Override
+        public String toString() {
+            return mInteractions + " interactions in " + mNanos / 1000000 + " ms ("
+                    + (long) getThroughput() + "/s), " + mShows + " shows, " + mEvents
+                    + " events, " + mListenerEvents + " listener events, " + mRotations
+                    + " rotations; heap " + mHeapBefore / 1024
+                    + " KB -> " + mHeapAfter / 1024 + " KB (" + getHeapGrowth() / 1024
+                    + " KB, peak " + mHeapPeak / 1024 + " KB); leaked hosts " + mLeakedHosts
+                    + ", live listeners " + mLiveListeners;
+        }
+    }
+
+    private final Random mRandom;
+    private final DialogSpec[] mSpecs = new DialogSpec[DIALOGS];
+    private final int[] mKeys = new int[DIALOGS];
+    private final ListenerRegistry<HeadlessRenderer.Observer> mListeners
+            = new ListenerRegistry<>();
+    /** Hosts replaced by a rotation, to check they are collected. */
+    private final List<WeakReference<SoakHost>> mRetired = new ArrayList<>();
+    private SoakHost mCurrent;
+    private int mHostsRetired = 0;
+    private long mEvents = 0;
+    private long mListenerEvents = 0;
+    private long mNow = 0;
+
+    /**
+     * @param seed Seed of the interactions, so a run can be replayed.
+     */
+    public SoakDriver(final long seed) {
+        mRandom = new Random(seed);
+        for (int i = 0; i < DIALOGS; i++) {
+            final DialogSpec.Builder b = new DialogSpec.Builder("soak_" + i)
+                    .setTitle("Dialog " + i)
+                    .setMessage(i)
+                    .setPositiveButton("OK")
+                    .setNegativeButton(i)
+                    .setReverseButtons(0 == i % 5);
+            if (0 == i % 3) {
+                b.setNeutralButton("Later");
+            }
+            if (0 == i % 2) {
+                b.setResultEvents(EventGate.ALL_EVENTS).setClickDebounce(300);
+            }
+            mSpecs[i] = b.build();
+            mKeys[i] = DialogIdInterner.intern(mSpecs[i].getDialogId());
+        }
+    }
+
+    /**
+     * Replays a warm-up, which the report leaves out, then the interactions.
+     * @param interactions Number of interactions to replay.
+     * @return What the run measured.
+     */
+    public Report run(final long interactions) {
+        final HeadlessRenderer renderer = newRenderer();
+        // warm up, so the heap holds what any run needs before it is sampled
+        replay(renderer, Math.min(interactions, SAMPLE_EVERY));
+
+        final Report report = new Report();
+        final long shows = renderer.getShows();
+        final long rotations = renderer.getRotations();
+        mEvents = 0;
+        mListenerEvents = 0;
+        report.mHeapBefore = usedHeap();
+        report.mHeapPeak = report.mHeapBefore;
+        report.mHeapAfter = report.mHeapBefore;
+        for (long done = 0; done < interactions; done += SAMPLE_EVERY) {
+            final long start = System.nanoTime();
+            replay(renderer, Math.min(SAMPLE_EVERY, interactions - done));
+            report.mNanos += System.nanoTime() - start;
+            report.mHeapAfter = usedHeap();
+            report.mHeapPeak = Math.max(report.mHeapPeak, report.mHeapAfter);
+        }
+        report.mInteractions = interactions;
+        report.mShows = renderer.getShows() - shows;
+        report.mEvents = mEvents;
+        report.mListenerEvents = mListenerEvents;
+        report.mRotations = renderer.getRotations() - rotations;
+        for (final WeakReference<SoakHost> host : mRetired) {
+            if (null != host.get()) {
+                report.mLeakedHosts++;
+            }
+        }
+        for (final int key : mKeys) {
+            report.mLiveListeners += mListeners.size(key);
+        }
+        return report;
+    }
+
+    private HeadlessRenderer newRenderer() {
+        return new HeadlessRenderer(new HeadlessRenderer.HostFactory() {
+            @Override
+            public HeadlessRenderer.Host createHost() {
+                if (null != mCurrent) {
+                    // most hosts unsubscribe when they go, the rest rely on the weak references
+                    if (0 != mHostsRetired++ % 4) {
+                        mCurrent.unsubscribe();
+                    }
+                    mRetired.add(new WeakReference<>(mCurrent));
+                }
+                mCurrent = new SoakHost();
+                return mCurrent;
+            }
+        }, mListeners, 8, DialogQueue.OverflowPolicy.DROP_OLDEST,
+                DialogQueue.DuplicatePolicy.MERGE, null);
+    }
+
+    /** Replays {@code count} random interactions. */
+    private void replay(final HeadlessRenderer renderer, final long count) {
+        for (long i = 0; i < count; i++) {
+            mNow += mRandom.nextInt(400);
+            final int roll = mRandom.nextInt(100);
+            if (roll < 40) {
+                renderer.enqueue(mSpecs[mRandom.nextInt(DIALOGS)], mRandom.nextInt(3));
+            } else if (roll < 75) {
+                final int[] buttons = renderer.getShowingButtons();
+                if (0 != buttons.length) {
+                    renderer.click(buttons[mRandom.nextInt(buttons.length)], mNow);
+                }
+            } else if (roll < 80) {
+                // a double tap, the second one lands on the next dialog or nowhere
+                renderer.click(DialogButtons.BUTTON_POSITIVE, mNow);
+                renderer.click(DialogButtons.BUTTON_POSITIVE, mNow + 1);
+            } else if (roll < 95) {
+                renderer.cancel();
+            } else {
+                renderer.rotate();
+                // rotations can't grow the list without bound on long runs
+                pruneRetired();
+            }
+        }
+    }
+
+    /** Forgets the retired hosts that were collected. */
+    private void pruneRetired() {
+        for (int i = mRetired.size() - 1; i >= 0; i--) {
+            if (null == mRetired.get(i).get()) {
+                mRetired.remove(i);
+            }
+        }
+    }
+
+    /** @return Bytes of heap in use, after collecting as much as possible. */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Stands for an Activity: registers an observer for every dialog and subscribes a listener,
+     * which the registry must let go of when the host goes.
+     */
+    private final class SoakHost implements HeadlessRenderer.Host {
+        private final RouteTable<HeadlessRenderer.Observer> mRoutes = new RouteTable<>();
+        private final List<ListenerRegistry.Subscription<HeadlessRenderer.Observer>>
+                mSubscriptions = new ArrayList<>(DIALOGS);
+        private final HeadlessRenderer.Observer mListener = new HeadlessRenderer.Observer() {
+            @Override
+            public void onClick(final String dialogID, final int which) {
+                mListenerEvents++;
+            }
+
+            @Override
+            public void onCancel(final String dialogID) {
+                mListenerEvents++;
+            }
+
+            @Override
+            public void onDismiss(final String dialogID) {
+                mListenerEvents++;
+            }
+        };
+        private final HeadlessRenderer.Observer mObserver = new HeadlessRenderer.Observer() {
+            @Override
+            public void onClick(final String dialogID, final int which) {
+                mEvents++;
+            }
+
+            @Override
+            public void onCancel(final String dialogID) {
+                mEvents++;
+            }
+
+            @Override
+            public void onDismiss(final String dialogID) {
+                mEvents++;
+            }
+        };
+
+        SoakHost() {
+            for (final int key : mKeys) {
+                mRoutes.register(key, mObserver);
+                mSubscriptions.add(mListeners.subscribe(key, mListener, null));
+            }
+        }
+
+        void unsubscribe() {
+            for (final ListenerRegistry.Subscription<HeadlessRenderer.Observer> subscription
+                    : mSubscriptions) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public RouteTable<HeadlessRenderer.Observer> getRoutes() {
+            return mRoutes;
+        }
+    }
+
+    /**
+     * @param args The number of interactions, a million by default, and the seed.
+     */
+    public static void main(final String[] args) {
+        final long interactions = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        final long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        final Report report = new SoakDriver(seed).run(interactions);
+        System.out.println(report);
+        if (report.mLeakedHosts > 0) {
+            System.exit(1);
+        }
+    }
+}
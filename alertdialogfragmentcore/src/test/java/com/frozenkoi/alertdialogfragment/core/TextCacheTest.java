@@ -0,0 +1,70 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TextCacheTest {
+    private final TextCache mCache = new TextCache();
+    private String mLocale = "en";
+    private int mLookups = 0;
+    private final TextCache.Resolver mResolver = new TextCache.Resolver() {
+        @Override
+        public CharSequence resolve(final int id) {
+            mLookups++;
+            return mLocale + id;
+        }
+    };
+
+    @Test
+    public void resolvesEachIdOnce() throws Exception {
+        assertEquals("en1", mCache.get(1, mResolver));
+        assertEquals("en1", mCache.get(1, mResolver));
+        assertEquals("en2", mCache.get(2, mResolver));
+        assertEquals(2, mLookups);
+    }
+
+    @Test
+    public void invalidate_resolvesAgain() throws Exception {
+        mCache.get(1, mResolver);
+        mLocale = "fr";
+        mCache.invalidate();
+        assertEquals(0, mCache.size());
+        assertEquals("fr1", mCache.get(1, mResolver));
+    }
+
+    @Test
+    public void warm_resolvesTheIdsOfTheSpecs() throws Exception {
+        final DialogSpec confirm = new DialogSpec.Builder("confirm")
+                .setTitle(10)
+                .setPositiveButton(1)
+                .setNegativeButton(2)
+                .setMessage("not a resource")
+                .build();
+        final DialogSpec delete = new DialogSpec.Builder("delete")
+                .setTitle(11)
+                .setPositiveButton(1)
+                .setNegativeButton(2)
+                .build();
+
+        // the shared labels are resolved once
+        assertEquals(4, mCache.warm(new DialogSpec[] {confirm, delete}, mResolver));
+        assertEquals(4, mLookups);
+        mCache.get(1, mResolver);
+        mCache.get(11, mResolver);
+        assertEquals(4, mLookups);
+    }
+
+    @Test
+    public void textsResolvedDuringAnInvalidation_areNotCached() throws Exception {
+        mCache.get(1, new TextCache.Resolver() {
+            @Override
+            public CharSequence resolve(final int id) {
+                // the configuration changes while the old text is being resolved
+                mCache.invalidate();
+                return "stale";
+            }
+        });
+        assertEquals("en1", mCache.get(1, mResolver));
+    }
+}
@@ -0,0 +1,102 @@
+package com.frozenkoi.alertdialogfragment.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TextChunksTest {
+    @Test
+    public void shortText_isOneChunk() throws Exception {
+        assertArrayEquals(new int[] {5}, TextChunks.split("hello", 10));
+        assertArrayEquals(new int[0], TextChunks.split("", 10));
+    }
+
+    @Test
+    public void splitsAfterLineBreaks() throws Exception {
+        // "aaaa\nbbbb\ncc"
+        assertArrayEquals(new int[] {5, 10, 12}, TextChunks.split("aaaa\nbbbb\ncc", 6));
+    }
+
+    @Test
+    public void groupsShortParagraphs() throws Exception {
+        assertArrayEquals(new int[] {6, 9}, TextChunks.split("aa\nbb\ncc\n", 7));
+    }
+
+    @Test
+    public void longParagraph_isOneChunk() throws Exception {
+        assertArrayEquals(new int[] {15}, TextChunks.split("aaaaa bbbbb ccc", 8));
+        assertArrayEquals(new int[] {3, 14, 16}, TextChunks.split("aa\nbbbbb bbbb\ncc", 8));
+    }
+
+    @Test
+    public void longParagraph_breaksLinesAsTheWholeText() throws Exception {
+        final StringBuilder text = new StringBuilder("A short one.\n");
+        for (int i = 0; i < 400; i++) {
+            text.append("word").append(i % 7).append(i % 3 == 0 ? ", " : " ");
+        }
+        text.append("\nThe end.");
+        final int width = 37;
+
+        final List<String> chunked = new ArrayList<>();
+        int start = 0;
+        for (final int end : TextChunks.split(text, 256)) {
+            // the line break ending a chunk, dropped as MessageLayouts drops it
+            final int textEnd = '\n' == text.charAt(end - 1) ? end - 1 : end;
+            chunked.addAll(breakLines(text.subSequence(start, textEnd), width));
+            start = end;
+        }
+        assertEquals(breakLines(text, width), chunked);
+    }
+
+    @Test
+    public void chunksCoverTheWholeText() throws Exception {
+        final StringBuilder trace = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            trace.append("\tat com.example.Foo.bar(Foo.java:").append(i).append(")\n");
+        }
+        final int[] ends = TextChunks.split(trace, 1024);
+        int start = 0;
+        for (final int end : ends) {
+            assertTrue(end > start);
+            assertTrue(end - start <= 1024);
+            assertEquals('\n', trace.charAt(end - 1));
+            start = end;
+        }
+        assertEquals(trace.length(), start);
+    }
+
+    /**
+     * Breaks lines as a text layout does, with every char one unit wide: at line breaks, and
+     * after the last space that fits, or in the middle of a word too long for a line. Spaces at
+     * the end of a line hang past the width.
+     */
+    private static List<String> breakLines(final CharSequence text, final int width) {
+        final List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int end = start;
+            int space = -1;
+            while (end < text.length() && '\n' != text.charAt(end)
+                    && (end - start < width || ' ' == text.charAt(end))) {
+                if (' ' == text.charAt(end)) {
+                    space = end + 1;
+                }
+                end++;
+            }
+            if (end == text.length() || '\n' == text.charAt(end)) {
+                lines.add(text.subSequence(start, end).toString());
+                if (end == text.length()) {
+                    return lines;
+                }
+                start = end + 1;
+            } else {
+                final int lineEnd = -1 != space ? space : end;
+                lines.add(text.subSequence(start, lineEnd).toString());
+                start = lineEnd;
+            }
+        }
+    }
+}
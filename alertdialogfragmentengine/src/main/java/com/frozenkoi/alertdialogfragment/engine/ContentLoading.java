@@ -0,0 +1,87 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import com.frozenkoi.alertdialogfragment.core.ContentLoads;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the {@link ContentLoads} of the process. The loads outlive the fragments that start them,
+ * so a dialog recreated after a configuration change gets the result of the load it started.
+ * <p/>
+ * Results are delivered on the main thread. Must be used from the main thread.
+ */
+final class ContentLoading {
+    private static ContentLoads sInstance;
+    /** Runs the loads, and the other background work of the dialogs. */
+    @NonNull
+    private static volatile Executor sBackground = AsyncTask.THREAD_POOL_EXECUTOR;
+    /** Runs each command on {@link #sBackground}, as set at the time. */
+    @NonNull
+    private static final Executor BACKGROUND = new Executor() {
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            sBackground.execute(command);
+        }
+    };
+    /** Posts to the main thread. */
+    private static Executor sMain;
+
+    private ContentLoading() {
+    }
+
+    /**
+     * @param executor Runs the loads started from now on.
+     */
+    static void setExecutor(@NonNull final Executor executor) {
+        sBackground = executor;
+    }
+
+    /**
+     * @return The executor that runs the background work of the dialogs.
+     */
+    @NonNull
+    static Executor getExecutor() {
+        return sBackground;
+    }
+
+    /**
+     * @return Runs on the executor of {@link #getExecutor()} at the time of each call.
+     */
+    @NonNull
+    static Executor getForwardingExecutor() {
+        return BACKGROUND;
+    }
+
+    /**
+     * @return Posts to the main thread.
+     */
+    @NonNull
+    static Executor getMainExecutor() {
+        if (null == sMain) {
+            final Handler main = new Handler(Looper.getMainLooper());
+            sMain = new Executor() {
+                @Override
+                public void execute(@NonNull final Runnable command) {
+                    main.post(command);
+                }
+            };
+        }
+        return sMain;
+    }
+
+    /**
+     * @return The loads of the process.
+     */
+    @NonNull
+    static ContentLoads getInstance() {
+        if (null == sInstance) {
+            sInstance = new ContentLoads(BACKGROUND, getMainExecutor());
+        }
+        return sInstance;
+    }
+}
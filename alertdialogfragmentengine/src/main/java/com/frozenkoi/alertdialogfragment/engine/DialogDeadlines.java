@@ -0,0 +1,69 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.frozenkoi.alertdialogfragment.core.DeadlineScheduler;
+
+/**
+ * The deadlines shared by all the dialogs of the process: the timeouts of the auto-dismissed
+ * dialogs and the debounces of the text inputs, run with a single pending {@link Handler} message.
+ * <p/>
+ * A {@link DeadlineScheduler} on {@link SystemClock#uptimeMillis()} whose alarm is a message in
+ * the main thread queue. Must be used from the main thread.
+ */
+final class DialogDeadlines implements Handler.Callback, DeadlineScheduler.Clock,
+        DeadlineScheduler.Alarm {
+    /** The only message this scheduler sends. */
+    private static final int MSG_EXPIRE = 1;
+
+    private static DialogDeadlines sInstance;
+
+    @NonNull
+    private final Handler mHandler = new Handler(Looper.getMainLooper(), this);
+    @NonNull
+    private final DeadlineScheduler mScheduler = new DeadlineScheduler(this, this);
+
+    private DialogDeadlines() {
+    }
+
+    /**
+     * @return The scheduler of the process, shared by the auto-dismiss timeouts and the input
+     *         debounces.
+     */
+    @NonNull
+    static DeadlineScheduler getInstance() {
+        if (null == sInstance) {
+            sInstance = new DialogDeadlines();
+        }
+        return sInstance.mScheduler;
+    }
+
+    @Override
+    public long now() {
+        return SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public void set(final long deadline) {
+        mHandler.removeMessages(MSG_EXPIRE);
+        mHandler.sendEmptyMessageAtTime(MSG_EXPIRE, deadline);
+    }
+
+    @Override
+    public void clear() {
+        mHandler.removeMessages(MSG_EXPIRE);
+    }
+
+    @Override
+    public boolean handleMessage(final Message msg) {
+        if (MSG_EXPIRE != msg.what) {
+            return false;
+        }
+        mScheduler.runExpired();
+        return true;
+    }
+}
@@ -0,0 +1,1142 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.app.Dialog;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.AdapterView;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.ProgressBar;
+
+import com.frozenkoi.alertdialogfragment.core.ContentLoads;
+import com.frozenkoi.alertdialogfragment.core.DeadlineScheduler;
+import com.frozenkoi.alertdialogfragment.core.DialogButtons;
+import com.frozenkoi.alertdialogfragment.core.DialogContent;
+import com.frozenkoi.alertdialogfragment.core.DialogEvents;
+import com.frozenkoi.alertdialogfragment.core.DialogFuture;
+import com.frozenkoi.alertdialogfragment.core.DialogIdInterner;
+import com.frozenkoi.alertdialogfragment.core.DialogQueue;
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+import com.frozenkoi.alertdialogfragment.core.EventDispatcher;
+import com.frozenkoi.alertdialogfragment.core.EventGate;
+import com.frozenkoi.alertdialogfragment.core.InputValidation;
+import com.frozenkoi.alertdialogfragment.core.ItemSource;
+import com.frozenkoi.alertdialogfragment.core.ListenerRegistry;
+import com.frozenkoi.alertdialogfragment.core.ProgressSlot;
+import com.frozenkoi.alertdialogfragment.core.SelectionBits;
+import com.frozenkoi.alertdialogfragment.core.SpecBinder;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Everything an {@code AlertDialogFragment} does, for both the support library and the framework
+ * fragments.
+ * <p/>
+ * Each flavor of the library has a thin {@code DialogFragment} subclass that owns one engine,
+ * forwards its lifecycle callbacks to it and implements {@link Adapter}: the few calls whose
+ * types differ between the support library and the framework, and the delivery to its own
+ * observer interface. Everything else, and every optimization, is written once here.
+ * @param <O> The type of the observers of the flavor.
+ */
+public final class DialogEngine<O> {
+    private static final String TAG = "AlertDialogFragment";
+
+    /**
+     * Key for the {@link DialogSpec} of the dialog. Stores a Parcelable in the bundle, unless the
+     * spec uses the compact format.
+     * @see DialogSpec.Builder#setCompactArguments(boolean)
+     */
+    static final String KEY_DIALOG_SPEC = "key_dialog_spec";
+
+    // Keys used by arguments written before DialogSpec. Only read, for restoring old state.
+    /** Stores the dialog id, a String, or an int for the framework flavor. */
+    public static final String KEY_DIALOG_ID = "key_dialog_id";
+    public static final String KEY_BUTTON_TEXT_ID_POSITIVE = "key_positive_text_id";
+    public static final String KEY_BUTTON_TEXT_ID_NEUTRAL  = "key_neutral_text_id";
+    public static final String KEY_BUTTON_TEXT_ID_NEGATIVE = "key_negative_text_id";
+    static final String KEY_BUTTON_TEXT_STRING_POSITIVE = "key_positive_text_label";
+    static final String KEY_BUTTON_TEXT_STRING_NEUTRAL = "key_neutral_text_label";
+    static final String KEY_BUTTON_TEXT_STRING_NEGATIVE = "key_negative_text_label";
+
+    public static final String KEY_DIALOG_TITLE_ID = "key_dialog_title_text_id";
+    public static final String KEY_DIALOG_MESSAGE_ID = "key_dialog_message_text_id";
+    static final String KEY_DIALOG_TITLE_STRING = "key_dialog_title_string";
+    static final String KEY_DIALOG_MESSAGE_STRING = "key_dialog_message_string";
+
+    public static final int ID_NOT_FOUND = DialogSpec.NO_RESOURCE;
+    public static final String DIALOG_ID_NOT_FOUND = "-1";
+
+    /**
+     * Key for configuration for reversing button order. Stores a boolean in the bundle.
+     * @see DialogSpec#isReverseButtons()
+     */
+    public static final String KEY_REVERSE_BUTTON_ORDER = "key_reverse_buttons";
+    /**
+     * Key for the time left before the dialog dismisses itself. Stores a long in the saved state.
+     */
+    private static final String KEY_AUTO_DISMISS_REMAINING = "key_auto_dismiss_remaining";
+    /**
+     * Key for the load of the content, see {@link ContentLoads}. Stores a String in the saved
+     * state.
+     */
+    private static final String KEY_CONTENT_LOAD = "key_content_load";
+    /** Key for the loaded content. Stores a String array in the saved state, title and message. */
+    private static final String KEY_CONTENT_LOADED = "key_content_loaded";
+    /** Key for the checked item of a single choice dialog. Stores an int in the saved state. */
+    private static final String KEY_CHECKED_ITEM = "key_checked_item";
+    /**
+     * Key for the checked items of a multi choice dialog. Stores a long array in the saved state,
+     * see {@link SelectionBits#toLongArray()}.
+     */
+    private static final String KEY_CHECKED_ITEMS = "key_checked_items";
+    /** Key for the token of the {@link DialogFuture} of the dialog, in the arguments. */
+    private static final String KEY_RESULT_FUTURE = "key_result_future";
+    /** Key for {@link EventGate#isClosed()}, so a recreated dialog doesn't deliver twice. */
+    private static final String KEY_GATE_CLOSED = "key_gate_closed";
+    /** Key for {@link DialogEvents#isShowRecorded()}. Stores a boolean. */
+    private static final String KEY_SHOW_RECORDED = "key_show_recorded";
+    /** Key for the text of a text input dialog. */
+    private static final String KEY_INPUT_TEXT = "key_input_text";
+
+    /**
+     * The part of the fragment that depends on its flavor. Implemented by the fragment that owns
+     * the engine.
+     * @param <O> The type of the observers of the flavor.
+     */
+    public interface Adapter<O> {
+        /**
+         * @return The Activity the fragment is attached to, or {@code null}.
+         */
+        @Nullable
+        Activity getActivity();
+
+        /**
+         * @return The target fragment, or {@code null}.
+         */
+        @Nullable
+        Object getTargetFragment();
+
+        /**
+         * @return The dialog of the fragment, or {@code null} if it isn't created.
+         */
+        @Nullable
+        Dialog getDialog();
+
+        /**
+         * @return The arguments of the fragment, written by {@link #writeArguments}.
+         */
+        Bundle getArguments();
+
+        /**
+         * Dismisses the fragment.
+         */
+        void dismiss();
+
+        /**
+         * Checks if {@code host} can observe the dialog. A handler registered in the router of
+         * the host takes precedence over the host itself implementing the observer interface.
+         * @param host The target fragment or the Activity. Can be {@code null}.
+         * @param dialogKey The interned id of the dialog.
+         * @param dispatcher Must {@link EventDispatcher#watch watch} the router consulted.
+         * @return The observer {@code host} provides, or {@code null}.
+         */
+        @Nullable
+        O resolveObserver(@Nullable Object host, int dialogKey,
+                          @NonNull EventDispatcher<?, O> dispatcher);
+
+        /**
+         * @return Process-wide listeners that also receive the events, after the observer, or
+         *         {@code null} if the flavor has none.
+         */
+        @Nullable
+        ListenerRegistry<O> getListeners();
+    }
+
+    /**
+     * Provides the content of the dialogs that load it in the background, see
+     * {@link DialogSpec.Builder#setAsyncContent(boolean)}. Implemented by the target fragment or
+     * the Activity.
+     */
+    public interface ContentProvider {
+        /**
+         * Called on the main thread when the dialog is first shown. The source runs on a
+         * background thread and can outlive the host, so it must not reference the host.
+         * @param whichDialog The id of the dialog.
+         * @return Computes the content of the dialog.
+         */
+        @NonNull
+        ContentLoads.Source onCreateContentSource(@NonNull final String whichDialog);
+    }
+
+    /**
+     * Provides the items of the dialogs that have items, see
+     * {@link DialogSpec.Builder#setItemMode(int)}. Implemented by the target fragment or the
+     * Activity.
+     */
+    public interface ItemProvider {
+        /**
+         * Called on the main thread each time the dialog is created, after the host is created.
+         * @param whichDialog The id of the dialog.
+         * @return The items of the dialog.
+         */
+        @NonNull
+        ItemSource onCreateItemSource(@NonNull final String whichDialog);
+    }
+
+    /**
+     * Provides the validator of the text input dialogs, see
+     * {@link DialogSpec.Builder#setTextInput(boolean)}. Implemented by the target fragment or the
+     * Activity; without one, any text is valid.
+     */
+    public interface InputValidatorProvider {
+        /**
+         * Called on the main thread each time the dialog is created, after the host is created.
+         * @param whichDialog The id of the dialog.
+         * @return Checks the text, or {@code null} to take any text.
+         */
+        @Nullable
+        InputValidation.Validator onCreateInputValidator(@NonNull final String whichDialog);
+    }
+
+    @NonNull
+    private final Adapter<O> mAdapter;
+    /** Calls the observers of the flavor. */
+    @NonNull
+    private final EventDispatcher.Delivery<DialogInterface, O> mDelivery;
+
+    /**
+     * The contents of the dialog, decoded from the arguments once in {@link #onCreate(Bundle)}.
+     */
+    private DialogSpec mSpec;
+    /** The dialog string id, from {@link #mSpec}. */
+    @NonNull
+    private String mDialogId = DIALOG_ID_NOT_FOUND;
+    /** {@link #mDialogId} interned with {@link DialogIdInterner}. */
+    private int mDialogKey = ID_NOT_FOUND;
+
+    /** Delivers the events of this dialog to its observer, cached after the first event. */
+    @NonNull
+    private final EventDispatcher<DialogInterface, O> mDispatcher;
+    /**
+     * Takes the events through the gate declared in {@link #mSpec} to the observer, the
+     * listeners and the future, created in {@link #onCreate(Bundle)}.
+     */
+    private DialogEvents<DialogInterface, O> mEvents;
+    /** Records the events of this dialog in the journal and the metrics. */
+    private final DialogEvents.Recorder mRecorder = new DialogEvents.Recorder() {
+        @Override
+        public void record(final int type, final int which) {
+            EventJournaling.record(mDialogKey, type, which);
+        }
+
+        @Override
+        public void recordAction() {
+            final DialogMetrics metrics = sDialogMetrics;
+            if (null != metrics) {
+                metrics.recordAction(mDialogKey, mFirstDrawNanos, System.nanoTime());
+            }
+        }
+    };
+    /**
+     * Time left before the dialog dismisses itself, while the timeout is not running. Zero if the
+     * dialog doesn't dismiss itself.
+     */
+    private long mAutoDismissRemaining = DialogSpec.NO_AUTO_DISMISS;
+    /** Dismisses the dialog when its time runs out. */
+    private final DeadlineScheduler.Task mAutoDismissTask = new DeadlineScheduler.Task() {
+        @Override
+        protected void onExpired() {
+            mAutoDismissRemaining = DialogSpec.NO_AUTO_DISMISS;
+            mAdapter.dismiss();
+        }
+    };
+
+    /** Metrics installed with {@link #setDialogMetrics(DialogMetrics)}, if any. */
+    @Nullable
+    private static volatile DialogMetrics sDialogMetrics;
+    /** {@link System#nanoTime()} when {@code createDialogFragment} was called, or 0. */
+    private long mCreatedNanos = 0;
+    /** {@link System#nanoTime()} when {@link #onCreateDialog(Bundle)} was entered, or 0. */
+    private long mCreateDialogNanos = 0;
+    /** {@link System#nanoTime()} when the dialog was first drawn, or 0. */
+    private long mFirstDrawNanos = 0;
+    /** View the first draw is being waited on, or {@code null}. */
+    @Nullable
+    private View mFirstDrawView;
+    /** Records the first draw of the dialog for {@link DialogMetrics}. */
+    private final ViewTreeObserver.OnPreDrawListener mFirstDrawListener
+            = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            mFirstDrawNanos = System.nanoTime();
+            if (null != mFirstDrawView) {
+                mFirstDrawView.getViewTreeObserver().removeOnPreDrawListener(this);
+                mFirstDrawView = null;
+            }
+            final DialogMetrics metrics = sDialogMetrics;
+            if (null != metrics) {
+                metrics.recordFirstDraw(mDialogKey, mCreatedNanos, mCreateDialogNanos,
+                                        mFirstDrawNanos);
+            }
+            return true;
+        }
+    };
+
+    /** Frame monitor of this dialog, created the first time it is needed. */
+    @Nullable
+    private FrameDropMonitor mFrameDropMonitor;
+
+    /**
+     * {@code true} once the host is known to be going away for a configuration change, so the
+     * dismiss that follows is not the end of the dialog. Set while the host is still attached,
+     * the dismiss arrives after the fragment is detached.
+     */
+    private boolean mChangingConfigurations = false;
+
+    /** Shows the message of the dialog, if it is a long message. */
+    @Nullable
+    private LongMessageView mLongMessage;
+    /** Shows the items of the dialog, if it has items. */
+    @Nullable
+    private ListView mItemList;
+    /** Theme of {@link #mLongMessage} and {@link #mItemList}, see {@link DialogViewPool}. */
+    private int mViewTheme;
+
+    /** The items of the dialog, if it has items. */
+    @Nullable
+    private ItemAdapter mItemAdapter;
+    /** Checked item restored in {@link #onCreate(Bundle)}, until the items are created. */
+    private int mSavedCheckedItem = AdapterView.INVALID_POSITION;
+    /** Checked items restored in {@link #onCreate(Bundle)}, until the items are created. */
+    @Nullable
+    private long[] mSavedCheckedItems;
+    /** Delivers the item clicks to the observer. */
+    private final AdapterView.OnItemClickListener mItemClickListener
+            = new AdapterView.OnItemClickListener() {
+        @Override
+        public void onItemClick(final AdapterView<?> parent, final View view, final int position,
+                                final long id) {
+            final Dialog dialog = mAdapter.getDialog();
+            if (null == mItemAdapter || null == dialog) {
+                return;
+            }
+            if (DialogSpec.ITEMS_LIST == mSpec.getItemMode()) {
+                // picking an item is the result of the dialog, like a button
+                mButtonEventHandler.onClick(dialog, position);
+                mAdapter.dismiss();
+                return;
+            }
+            mItemAdapter.onItemClicked(position, view);
+            mEvents.deliverClick(dialog, position);
+        }
+    };
+
+    /** The text field, if the dialog is a text input. */
+    @Nullable
+    private EditText mInput;
+    /** The text of the text input, kept across recreation. {@code null} for other dialogs. */
+    @Nullable
+    private String mInputText;
+    /** Validates {@link #mInputText}, if the dialog is a text input with a validator. */
+    @Nullable
+    private InputValidation mInputValidation;
+    /** Validates the text as it is typed. */
+    private final TextWatcher mInputWatcher = new TextWatcher() {
+        @Override
+        public void beforeTextChanged(final CharSequence s, final int start, final int count,
+                                      final int after) {
+        }
+
+        @Override
+        public void onTextChanged(final CharSequence s, final int start, final int before,
+                                  final int count) {
+        }
+
+        @Override
+        public void afterTextChanged(final Editable s) {
+            mInputText = s.toString();
+            if (null != mInputValidation) {
+                mInputValidation.onTextChanged(mInputText);
+                // no accepting the text until its validation is back
+                applyInputValidity();
+            }
+        }
+    };
+    /** Shows the validity of the text. */
+    private final InputValidation.Listener mInputListener = new InputValidation.Listener() {
+        @Override
+        public void onValidated(final String text, final boolean valid, final String error) {
+            applyInputValidity();
+            if (null != mInput) {
+                mInput.setError(error);
+            }
+        }
+    };
+
+    /** Draws the progress, if the dialog is a progress dialog. */
+    @Nullable
+    private ProgressUpdater mProgressUpdater;
+    /** Dismisses the dialog once its progress is complete. */
+    private final Runnable mProgressComplete = new Runnable() {
+        @Override
+        public void run() {
+            mAdapter.dismiss();
+        }
+    };
+
+    /** Token of the future of the dialog, if shown for a result, until the dialog is over. */
+    @Nullable
+    private String mResultFuture;
+
+    /** Numbers the content loads, so each instance of a dialog gets its own. */
+    private static int sContentLoadCount = 0;
+    /** Key of the content load of this dialog, if it loads its content. Kept across recreation. */
+    @Nullable
+    private String mContentLoad;
+    /** The content, once loaded. */
+    @Nullable
+    private DialogContent mContent;
+    /** Puts the loaded content in the dialog. */
+    private final ContentLoads.Listener mContentListener = new ContentLoads.Listener() {
+        @Override
+        public void onContentLoaded(final DialogContent content) {
+            mContent = content;
+            final Dialog dialog = mAdapter.getDialog();
+            if (dialog instanceof AlertDialog) {
+                final AlertDialog alertDialog = (AlertDialog) dialog;   //Cast
+                if (null != content.getTitle()) {
+                    alertDialog.setTitle(content.getTitle());
+                }
+                if (null != content.getMessage() && null != mLongMessage) {
+                    mLongMessage.setText(content.getMessage());
+                } else if (null != content.getMessage()) {
+                    alertDialog.setMessage(content.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void onContentFailed(final Exception error) {
+            Log.w(TAG, "dialog[" + mDialogId + "] content could not be loaded", error);
+        }
+    };
+
+    /**
+     * @param adapter The fragment that owns the engine.
+     * @param delivery Calls the observers of the flavor, and its listeners.
+     */
+    public DialogEngine(@NonNull final Adapter<O> adapter,
+                        @NonNull final EventDispatcher.Delivery<DialogInterface, O> delivery) {
+        mAdapter = adapter;
+        mDelivery = delivery;
+        mDispatcher = new EventDispatcher<>(new EventDispatcher.Resolver<O>() {
+            @Override
+            public O resolve(final EventDispatcher<?, O> dispatcher) {
+                return resolveTarget(dispatcher);
+            }
+        }, delivery);
+    }
+
+    /**
+     * Stores a spec in fragment arguments.
+     * @param spec The contents of the dialog.
+     * @param args The arguments of a new fragment.
+     */
+    public static void writeArguments(@NonNull final DialogSpec spec, @NonNull final Bundle args) {
+        SpecArguments.write(spec, args);
+    }
+
+    /**
+     * Installs the metrics that all the dialogs record into. Opt-in, no metrics are recorded
+     * by default.
+     * @param metrics The metrics, or {@code null} to stop recording.
+     */
+    public static void setDialogMetrics(@Nullable final DialogMetrics metrics) {
+        sDialogMetrics = metrics;
+    }
+
+    /**
+     * Sets the executor that loads the content of the dialogs and lays out their long messages,
+     * see {@link DialogSpec.Builder#setAsyncContent(boolean)} and
+     * {@link DialogSpec.Builder#setLongMessage(boolean)}. By default
+     * {@link android.os.AsyncTask#THREAD_POOL_EXECUTOR}.
+     * @param executor Runs the work started from now on.
+     */
+    public static void setContentExecutor(@NonNull final Executor executor) {
+        ContentLoading.setExecutor(executor);
+    }
+
+    /**
+     * @return The executor that runs the background work of the dialogs.
+     */
+    @NonNull
+    public static Executor getContentExecutor() {
+        return ContentLoading.getExecutor();
+    }
+
+    /**
+     * Creates the future of a dialog shown for a result. Call it on the main thread, on the
+     * arguments of a fragment before it is shown.
+     * @param args The arguments of the fragment, with its spec.
+     * @return Completed with the result of the dialog, across configuration changes.
+     */
+    @NonNull
+    public static DialogFuture newResultFuture(@NonNull final Bundle args) {
+        final DialogFuture future = new DialogFuture();
+        args.putString(KEY_RESULT_FUTURE, ResultFutures.register(future));
+        return future;
+    }
+
+    /**
+     * Gets the progress of a progress dialog, to publish to from the workers. The same slot is
+     * returned until the dialog is gone for good, across configuration changes.
+     * @param dialogId The id of the dialog. It doesn't have to be shown yet.
+     * @return The progress of the dialog. Can be used from any thread.
+     * @see DialogSpec.Builder#setProgress(boolean)
+     */
+    @NonNull
+    public static ProgressSlot getProgress(@NonNull final String dialogId) {
+        return ProgressUpdater.getSlot(dialogId);
+    }
+
+    /**
+     * Resolves the string resources of the dialogs on the background executor, see
+     * {@link #setContentExecutor(Executor)}. The texts are cached for all the dialogs, and
+     * resolved again if the locale changes.
+     * @param context The context the dialogs will be shown in, like their Activity.
+     * @param specs The dialogs that will be shown.
+     */
+    public static void warmStrings(@NonNull final Context context,
+                                   @NonNull final DialogSpec... specs) {
+        StringCache.warm(context, specs);
+    }
+
+    /**
+     * Prepares the first dialog shaped like {@code spec} while the main thread is idle: resolves
+     * its theme, loads its classes and creates the views this library adds to it, which are
+     * then reused by the dialogs of the same shape.
+     * @param activity The Activity that will show the dialog.
+     * @param spec A dialog of the shape to prepare. Only its shape is used.
+     */
+    public static void prewarm(@NonNull final Activity activity, @NonNull final DialogSpec spec) {
+        DialogViewPool.prewarm(activity, spec);
+    }
+
+    /**
+     * Records when the fragment was created, for {@link DialogMetrics}. Called by the factories
+     * of the fragment.
+     */
+    public void onCreatedByFactory() {
+        if (null != sDialogMetrics) {
+            mCreatedNanos = System.nanoTime();
+        }
+    }
+
+    public void onCreate(@Nullable final Bundle savedInstanceState) {
+        mSpec = SpecArguments.read(mAdapter.getArguments());
+        mDialogId = mSpec.getDialogId();
+        mDialogKey = DialogIdInterner.intern(mDialogId);
+        mEvents = new DialogEvents<>(mSpec, mDialogKey, mDispatcher, mDelivery,
+                                     mAdapter.getListeners(), mRecorder);
+        if (null != savedInstanceState) {
+            mEvents.restore(savedInstanceState.getBoolean(KEY_GATE_CLOSED, false),
+                            savedInstanceState.getBoolean(KEY_SHOW_RECORDED, false));
+        }
+        final Bundle args = mAdapter.getArguments();
+        mResultFuture = null != args ? args.getString(KEY_RESULT_FUTURE) : null;
+        if (null != mResultFuture) {
+            mEvents.setResultFuture(ResultFutures.get(mResultFuture));
+        }
+        if (null != savedInstanceState) {
+            mAutoDismissRemaining = savedInstanceState.getLong(KEY_AUTO_DISMISS_REMAINING,
+                    mSpec.getAutoDismissMillis());
+        } else {
+            mAutoDismissRemaining = mSpec.getAutoDismissMillis();
+        }
+        if (DialogSpec.ITEMS_NONE != mSpec.getItemMode() && null != savedInstanceState) {
+            mSavedCheckedItem = savedInstanceState.getInt(KEY_CHECKED_ITEM,
+                    AdapterView.INVALID_POSITION);
+            mSavedCheckedItems = savedInstanceState.getLongArray(KEY_CHECKED_ITEMS);
+        }
+        if (mSpec.isTextInput()) {
+            mInputText = null != savedInstanceState
+                    ? savedInstanceState.getString(KEY_INPUT_TEXT, "") : "";
+        }
+        if (mSpec.isAsyncContent()) {
+            if (null != savedInstanceState) {
+                mContentLoad = savedInstanceState.getString(KEY_CONTENT_LOAD);
+                final String[] loaded = savedInstanceState.getStringArray(KEY_CONTENT_LOADED);
+                if (null != loaded) {
+                    mContent = new DialogContent(loaded[0], loaded[1]);
+                }
+            }
+            if (null == mContentLoad) {
+                mContentLoad = mDialogId + '#' + sContentLoadCount++;
+            }
+        }
+    }
+
+    public void onStart() {
+        mEvents.onShow();
+        final Dialog dialog = mAdapter.getDialog();
+        if (null != sDialogMetrics && 0 == mFirstDrawNanos && null == mFirstDrawView
+                && null != dialog && null != dialog.getWindow()) {
+            mFirstDrawView = dialog.getWindow().getDecorView();
+            mFirstDrawView.getViewTreeObserver().addOnPreDrawListener(mFirstDrawListener);
+        }
+        startFrameDropMonitor(FrameDropSink.PHASE_SHOW);
+        if (null != mProgressUpdater) {
+            mProgressUpdater.start();
+        }
+        applyInputValidity();
+        if (null != mContentLoad && null == mContent) {
+            final ContentLoads loads = ContentLoading.getInstance();
+            if (!loads.attach(mContentLoad, mContentListener)) {
+                // first start, or the process was restarted: load again
+                loads.start(mContentLoad, findProvider(ContentProvider.class)
+                        .onCreateContentSource(mDialogId));
+                loads.attach(mContentLoad, mContentListener);
+            }
+        }
+    }
+
+    /**
+     * @param type {@link ContentProvider} or {@link ItemProvider}.
+     * @return The target fragment or the Activity, whichever implements {@code type}.
+     * @throws IllegalStateException If neither does.
+     */
+    @NonNull
+    private <T> T findProvider(@NonNull final Class<T> type) {
+        final T provider = findOptionalProvider(type);
+        if (null != provider) {
+            return provider;
+        }
+        throw new IllegalStateException("dialog[" + mDialogId + "] needs a "
+                + type.getSimpleName()
+                + ", but neither its target fragment nor its Activity is one");
+    }
+
+    /**
+     * @param type The provider interface.
+     * @return The target fragment or the Activity, whichever implements {@code type}, or
+     *         {@code null}.
+     */
+    @Nullable
+    private <T> T findOptionalProvider(@NonNull final Class<T> type) {
+        final Object t = mAdapter.getTargetFragment();
+        if (type.isInstance(t)) {
+            return type.cast(t);
+        }
+        final Activity a = mAdapter.getActivity();
+        if (type.isInstance(a)) {
+            return type.cast(a);
+        }
+        return null;
+    }
+
+    /**
+     * Monitors the frames of the dialog animating in or out, if a {@link FrameDropSink} is set.
+     * @param phase {@link FrameDropSink#PHASE_SHOW} or {@link FrameDropSink#PHASE_DISMISS}.
+     */
+    private void startFrameDropMonitor(final int phase) {
+        final DialogMetrics metrics = sDialogMetrics;
+        if (null == metrics || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+        final FrameDropSink sink = metrics.getFrameDropSink();
+        if (null == sink) {
+            return;
+        }
+        if (null == mFrameDropMonitor) {
+            long frameIntervalNanos = FrameDropMonitor.DEFAULT_FRAME_INTERVAL_NANOS;
+            final Activity a = mAdapter.getActivity();
+            if (null != a) {
+                final float refreshRate
+                        = a.getWindowManager().getDefaultDisplay().getRefreshRate();
+                if (refreshRate > 0) {
+                    frameIntervalNanos = (long) (1000L * 1000 * 1000 / refreshRate);
+                }
+            }
+            mFrameDropMonitor = new FrameDropMonitor(mDialogId, sink, frameIntervalNanos);
+        }
+        mFrameDropMonitor.start(phase);
+    }
+
+    public void onStop() {
+        if (null != mFirstDrawView) {
+            mFirstDrawView.getViewTreeObserver().removeOnPreDrawListener(mFirstDrawListener);
+            mFirstDrawView = null;
+        }
+        if (null != mContentLoad) {
+            // a result that arrives now waits for onStart
+            ContentLoading.getInstance().detach(mContentLoad);
+        }
+        if (null != mProgressUpdater) {
+            // the progress published now is drawn on the next start
+            mProgressUpdater.stop();
+        }
+    }
+
+    public void onDestroy() {
+        updateChangingConfigurations();
+        if (null != mContentLoad && !mChangingConfigurations) {
+            ContentLoading.getInstance().remove(mContentLoad);
+        }
+        if (null != mProgressUpdater && !mChangingConfigurations) {
+            ProgressUpdater.removeSlot(mDialogId);
+        }
+        if (null != mResultFuture && !mChangingConfigurations) {
+            // destroyed for good before its dismiss completed the future: no result will come,
+            // so the waiters must not stay blocked
+            final DialogFuture future = ResultFutures.remove(mResultFuture);
+            mResultFuture = null;
+            if (null != future) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    public void onResume() {
+        if (DialogSpec.NO_AUTO_DISMISS != mAutoDismissRemaining) {
+            DialogDeadlines.getInstance().schedule(mAutoDismissTask, mAutoDismissRemaining);
+        }
+    }
+
+    public void onPause() {
+        // the time only runs while the user can see the dialog
+        final long remaining = DialogDeadlines.getInstance().cancel(mAutoDismissTask);
+        if (remaining >= 0) {
+            mAutoDismissRemaining = Math.max(1, remaining);
+        }
+    }
+
+    /** Records whether the host is going away for a configuration change. */
+    private void updateChangingConfigurations() {
+        final Activity a = mAdapter.getActivity();
+        mChangingConfigurations = null != a && a.isChangingConfigurations();
+    }
+
+    public void onSaveInstanceState(@NonNull final Bundle outState) {
+        updateChangingConfigurations();
+        if (mEvents.isClosed()) {
+            outState.putBoolean(KEY_GATE_CLOSED, true);
+        }
+        if (mEvents.isShowRecorded()) {
+            outState.putBoolean(KEY_SHOW_RECORDED, true);
+        }
+        if (DialogSpec.NO_AUTO_DISMISS != mAutoDismissRemaining) {
+            final long remaining = DialogDeadlines.getInstance().getRemaining(mAutoDismissTask);
+            outState.putLong(KEY_AUTO_DISMISS_REMAINING,
+                             remaining >= 0 ? Math.max(1, remaining) : mAutoDismissRemaining);
+        }
+        if (null != mItemAdapter) {
+            outState.putInt(KEY_CHECKED_ITEM, mItemAdapter.getCheckedItem());
+            final SelectionBits selection = mItemAdapter.getSelection();
+            if (null != selection) {
+                outState.putLongArray(KEY_CHECKED_ITEMS, selection.toLongArray());
+            }
+        }
+        if (null != mContentLoad) {
+            outState.putString(KEY_CONTENT_LOAD, mContentLoad);
+            if (null != mContent) {
+                outState.putStringArray(KEY_CONTENT_LOADED,
+                        new String[] {mContent.getTitle(), mContent.getMessage()});
+            }
+        }
+        if (null != mInputText) {
+            outState.putString(KEY_INPUT_TEXT, mInputText);
+        }
+        if (SavedStateBudget.isEnabled()) {
+            SavedStateBudget.check(mDialogId, mAdapter.getArguments(), outState);
+        }
+    }
+
+    /**
+     * @return The contents of the dialog. Only valid once the fragment has been created.
+     */
+    public DialogSpec getSpec() {
+        return mSpec;
+    }
+
+    /**
+     * @return The dialog string id. Only valid once the fragment has been created.
+     */
+    @NonNull
+    public String getDialogId() {
+        return mDialogId;
+    }
+
+    /**
+     * @return The dialog string id, interned with {@link DialogIdInterner#intern(String)}. Only
+     *         valid once the fragment has been created.
+     */
+    public int getDialogKey() {
+        return mDialogKey;
+    }
+
+    @NonNull
+    public Dialog onCreateDialog(@Nullable final Bundle savedInstanceState) {
+        final DialogMetrics metrics = sDialogMetrics;
+        mCreateDialogNanos = null != metrics ? System.nanoTime() : 0;
+        final DialogSpec spec = mSpec;
+
+        final Activity activity = mAdapter.getActivity();
+        AlertDialog.Builder b = new AlertDialog.Builder(activity);
+        mViewTheme = DialogViewPool.resolveTheme(activity);
+        mLongMessage = null;
+        if (spec.isLongMessage()) {
+            final View pooled = DialogViewPool.acquire(DialogViewPool.KIND_LONG_MESSAGE,
+                                                       mViewTheme);
+            mLongMessage = null != pooled ? (LongMessageView) pooled   //Cast
+                    : new LongMessageView(DialogViewPool.getContext(activity, mViewTheme));
+        }
+        final BuilderTarget target = new BuilderTarget(b, mButtonEventHandler, mLongMessage);
+        SpecBinder.bind(spec, target);
+        if (null != mContent) {
+            if (null != mContent.getTitle()) {
+                target.setTitle(mContent.getTitle());
+            }
+            if (null != mContent.getMessage()) {
+                target.setMessage(mContent.getMessage());
+            }
+        }
+        if (null != mLongMessage) {
+            b.setView(mLongMessage);
+        }
+        if (DialogSpec.ITEMS_NONE != spec.getItemMode()) {
+            b.setView(createItemList(activity));
+        }
+        if (spec.isTextInput()) {
+            b.setView(createInput(activity));
+        }
+        if (spec.isProgress()) {
+            if (null == mProgressUpdater) {
+                mProgressUpdater = new ProgressUpdater(mDialogId, mProgressComplete);
+            }
+            final ProgressBar bar = new ProgressBar(activity, null,
+                                                    android.R.attr.progressBarStyleHorizontal);
+            mProgressUpdater.setBar(bar);
+            b.setView(bar);
+        }
+
+        final long builderStartNanos = null != metrics ? System.nanoTime() : 0;
+        AlertDialog dialog = b.create();
+
+        if (null != metrics) {
+            metrics.recordCreateDialog(mDialogKey, mCreateDialogNanos, builderStartNanos,
+                                       System.nanoTime());
+        }
+        return dialog;
+    }
+
+    /**
+     * Creates the list of items, keeping the checked items of the previous instance, if any.
+     * @param activity The Activity of the dialog.
+     * @return The list.
+     */
+    @NonNull
+    private ListView createItemList(@NonNull final Activity activity) {
+        final ItemSource items = findProvider(ItemProvider.class).onCreateItemSource(mDialogId);
+        if (null == mItemAdapter) {
+            mItemAdapter = new ItemAdapter(items, mSpec.getItemMode(), mSavedCheckedItems);
+            mItemAdapter.setCheckedItem(mSavedCheckedItem);
+        } else {
+            // the dialog is created again, for the same fragment
+            final ItemAdapter previous = mItemAdapter;
+            final SelectionBits selection = previous.getSelection();
+            mItemAdapter = new ItemAdapter(items, mSpec.getItemMode(),
+                    null != selection ? selection.toLongArray() : null);
+            mItemAdapter.setCheckedItem(previous.getCheckedItem());
+        }
+        mSavedCheckedItems = null;
+        final View pooled = DialogViewPool.acquire(DialogViewPool.KIND_ITEM_LIST, mViewTheme);
+        mItemList = null != pooled ? (ListView) pooled   //Cast
+                : new ListView(DialogViewPool.getContext(activity, mViewTheme));
+        mItemList.setAdapter(mItemAdapter);
+        mItemList.setOnItemClickListener(mItemClickListener);
+        return mItemList;
+    }
+
+    /**
+     * Creates the text field with the text of the previous instance, if any, and starts
+     * validating it.
+     * @param activity The Activity of the dialog.
+     * @return The text field.
+     */
+    @NonNull
+    private EditText createInput(@NonNull final Activity activity) {
+        mInput = new EditText(activity);
+        mInput.setSingleLine(true);
+        // before the watcher, the restored text was already typed
+        mInput.setText(mInputText);
+        mInput.setSelection(mInputText.length());
+        mInput.addTextChangedListener(mInputWatcher);
+        final InputValidatorProvider provider = findOptionalProvider(InputValidatorProvider.class);
+        final InputValidation.Validator validator
+                = null != provider ? provider.onCreateInputValidator(mDialogId) : null;
+        if (null != validator) {
+            mInputValidation = new InputValidation(validator, mInputListener,
+                    DialogDeadlines.getInstance(), ContentLoading.getForwardingExecutor(),
+                    ContentLoading.getMainExecutor(), mSpec.getInputDebounceMillis());
+            mInputValidation.validateNow(mInputText);
+        }
+        return mInput;
+    }
+
+    /**
+     * Enables the positive button of a text input dialog only while its text is known to be
+     * valid.
+     */
+    private void applyInputValidity() {
+        final Dialog dialog = mAdapter.getDialog();
+        if (null == mInput || !(dialog instanceof AlertDialog)) {
+            return;
+        }
+        final Button positive = ((AlertDialog) dialog).getButton(   //Cast
+                DialogButtons.chooseButtonOrder(DialogButtons.BUTTON_POSITIVE,
+                                                mSpec.isReverseButtons()));
+        if (null != positive) {
+            positive.setEnabled(null == mInputValidation || mInputValidation.isValid());
+        }
+    }
+
+    /**
+     * @return The text of a text input dialog, or {@code null} for other dialogs. Only valid once
+     *         the fragment has been created.
+     * @see DialogSpec#isTextInput()
+     */
+    @Nullable
+    public String getInputText() {
+        return mInputText;
+    }
+
+    public void onDestroyView() {
+        // the dialog is gone, its views can be reused by the next one
+        if (null != mLongMessage) {
+            mLongMessage.setText(null);
+            DialogViewPool.release(DialogViewPool.KIND_LONG_MESSAGE, mViewTheme, mLongMessage);
+            mLongMessage = null;
+        }
+        if (null != mItemList) {
+            mItemList.setAdapter(null);
+            mItemList.setOnItemClickListener(null);
+            DialogViewPool.release(DialogViewPool.KIND_ITEM_LIST, mViewTheme, mItemList);
+            mItemList = null;
+        }
+        if (null != mInputValidation) {
+            // a validation still running is of no use to the next dialog
+            mInputValidation.cancel();
+            mInputValidation = null;
+        }
+        if (null != mInput) {
+            mInput.removeTextChangedListener(mInputWatcher);
+            mInput = null;
+        }
+        if (null != mProgressUpdater) {
+            mProgressUpdater.setBar(null);
+        }
+    }
+
+    /**
+     * @return The checked item of a single choice dialog, or {@link AdapterView#INVALID_POSITION}
+     *         if there is none, or if the dialog isn't created yet.
+     * @see DialogSpec#ITEMS_SINGLE_CHOICE
+     */
+    public int getCheckedItem() {
+        return null != mItemAdapter ? mItemAdapter.getCheckedItem()
+                                    : AdapterView.INVALID_POSITION;
+    }
+
+    /**
+     * @return The checked items of a multi choice dialog, or {@code null} for other dialogs, or if
+     *         the dialog isn't created yet. Changes as the user checks items, copy it with
+     *         {@link SelectionBits#toLongArray()} to keep it.
+     * @see DialogSpec#ITEMS_MULTI_CHOICE
+     */
+    @Nullable
+    public SelectionBits getCheckedItems() {
+        return null != mItemAdapter ? mItemAdapter.getSelection() : null;
+    }
+
+    /**
+     * Sets the contents of a dialog on its {@link AlertDialog.Builder}. All the buttons get the
+     * same listener.
+     */
+    private static final class BuilderTarget implements SpecBinder.Target {
+        @NonNull
+        private final AlertDialog.Builder mBuilder;
+        @NonNull
+        private final DialogInterface.OnClickListener mListener;
+        /** Shows the message instead of the builder, for long messages. */
+        @Nullable
+        private final LongMessageView mLongMessage;
+
+        BuilderTarget(@NonNull final AlertDialog.Builder builder,
+                      @NonNull final DialogInterface.OnClickListener listener,
+                      @Nullable final LongMessageView longMessage) {
+            mBuilder = builder;
+            mListener = listener;
+            mLongMessage = longMessage;
+        }
+
+        @Override
+        public void setTitle(final String title) {
+            mBuilder.setTitle(title);
+        }
+
+        @Override
+        public void setTitle(@StringRes final int titleId) {
+            mBuilder.setTitle(StringCache.getText(mBuilder.getContext(), titleId));
+        }
+
+        @Override
+        public void setMessage(final String message) {
+            if (null != mLongMessage) {
+                mLongMessage.setText(message);
+            } else {
+                mBuilder.setMessage(message);
+            }
+        }
+
+        @Override
+        public void setMessage(@StringRes final int messageId) {
+            final CharSequence message = StringCache.getText(mBuilder.getContext(), messageId);
+            if (null != mLongMessage) {
+                mLongMessage.setText(message);
+            } else {
+                mBuilder.setMessage(message);
+            }
+        }
+
+        @Override
+        public void setButton(final int which, final String label) {
+            switch (which) {
+                case DialogInterface.BUTTON_POSITIVE:
+                    mBuilder.setPositiveButton(label, mListener);
+                    break;
+                case DialogInterface.BUTTON_NEGATIVE:
+                    mBuilder.setNegativeButton(label, mListener);
+                    break;
+                default:
+                    mBuilder.setNeutralButton(label, mListener);
+            }
+        }
+
+        @Override
+        public void setButton(final int which, @StringRes final int labelId) {
+            final CharSequence label = StringCache.getText(mBuilder.getContext(), labelId);
+            switch (which) {
+                case DialogInterface.BUTTON_POSITIVE:
+                    mBuilder.setPositiveButton(label, mListener);
+                    break;
+                case DialogInterface.BUTTON_NEGATIVE:
+                    mBuilder.setNegativeButton(label, mListener);
+                    break;
+                default:
+                    mBuilder.setNeutralButton(label, mListener);
+            }
+        }
+    }
+
+    public void onAttach() {
+        invalidateTarget();
+    }
+
+    public void onDetach() {
+        invalidateTarget();
+    }
+
+    /**
+     * Forgets the cached observer, so the next event resolves it again.
+     */
+    private void invalidateTarget() {
+        mDispatcher.invalidate();
+    }
+
+    /**
+     * Looks for the observer of this dialog: first in the target fragment and then in the
+     * Activity, see {@link Adapter#resolveObserver(Object, int, EventDispatcher)}.
+     * @param dispatcher The dispatcher of this dialog, to watch the routers consulted.
+     * @return The observer, or {@code null} if there is none.
+     */
+    @Nullable
+    private O resolveTarget(@NonNull final EventDispatcher<?, O> dispatcher) {
+        final Object t = mAdapter.getTargetFragment();
+        final Activity a = mAdapter.getActivity();
+        O target = mAdapter.resolveObserver(t, mDialogKey, dispatcher);
+        if (null == target) {
+            target = mAdapter.resolveObserver(a, mDialogKey, dispatcher);
+        }
+        return target;
+    }
+
+    /**
+     * @return The {@link DialogQueue} of the target fragment or else of the Activity, or
+     *         {@code null} if neither has one.
+     */
+    @Nullable
+    private DialogQueue findQueue() {
+        final Object t = mAdapter.getTargetFragment();
+        if (t instanceof DialogQueue.Host) {
+            return ((DialogQueue.Host) t).getDialogQueue();   //Cast
+        }
+        final Activity a = mAdapter.getActivity();
+        if (a instanceof DialogQueue.Host) {
+            return ((DialogQueue.Host) a).getDialogQueue();   //Cast
+        }
+        return null;
+    }
+
+    private final DialogInterface.OnClickListener mButtonEventHandler
+            = new DialogInterface.OnClickListener() {
+        @Override
+        public void onClick(final DialogInterface dialog, final int which) {
+            mEvents.onClick(dialog, which, SystemClock.uptimeMillis());
+        }
+    };
+
+    public void onCancel(@NonNull final DialogInterface dialog) {
+        mEvents.onCancel(dialog);
+    }
+
+    public void onDismiss(@NonNull final DialogInterface dialog) {
+        DialogDeadlines.getInstance().cancel(mAutoDismissTask);
+        mAutoDismissRemaining = DialogSpec.NO_AUTO_DISMISS;
+        if (mChangingConfigurations) {
+            // not the end of the dialog: it comes back with the new host, with its gate, and
+            // the next dialog of the queue must wait for it. Nothing is journaled or measured,
+            // the dialog isn't going away
+            return;
+        }
+
+        final DialogMetrics metrics = sDialogMetrics;
+        if (null != metrics) {
+            metrics.recordDismiss(mDialogKey, mFirstDrawNanos, System.nanoTime());
+            startFrameDropMonitor(FrameDropSink.PHASE_DISMISS);
+        }
+        mEvents.onDismiss(dialog);
+        // whether or not the gate let a result through, the dialog is over
+        final DialogQueue queue = findQueue();
+        if (null != queue) {
+            queue.onDialogFinished(mDialogId);
+        }
+        if (null != mResultFuture) {
+            ResultFutures.remove(mResultFuture);
+            mResultFuture = null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.frozenkoi.alertdialogfragment.core.DialogIdInterner;
+import com.frozenkoi.alertdialogfragment.core.IntHandlerMap;
+import com.frozenkoi.alertdialogfragment.core.LatencyHistogram;
+
+/**
+ * Opt-in latency metrics of the dialog fragments, per dialog id.
+ * <p/>
+ * Once installed with {@link DialogEngine#setDialogMetrics(DialogMetrics)}, every dialog
+ * records {@link System#nanoTime()} timestamps when it is created with
+ * {@code createDialogFragment}, around {@code onCreateDialog} and
+ * {@code AlertDialog.Builder.create()}, on its first draw and when it is clicked, cancelled or
+ * dismissed. The durations between them go into {@link LatencyHistogram}s, so after the first
+ * dialog with a given id recording doesn't allocate.
+ * <p/>
+ * Dialogs can also count the frames dropped while they animate in and out, see
+ * {@link #setFrameDropSink(FrameDropSink)}.
+ * <p/>
+ * Recording happens on the main thread. Reading from another thread can give inconsistent results.
+ */
+public final class DialogMetrics {
+    /** Stats keyed by interned dialog id. */
+    @NonNull
+    private final IntHandlerMap<DialogStats> mStats = new IntHandlerMap<>();
+    /** Where frame statistics go, or {@code null} to not monitor frames. */
+    @Nullable
+    private volatile FrameDropSink mFrameDropSink;
+
+    /**
+     * Makes dialogs monitor the frames drawn while they animate in and out, and report them to a
+     * sink. Requires API 16, ignored on older versions.
+     * @param sink Where the frame statistics go, or {@code null} to stop monitoring frames.
+     */
+    public void setFrameDropSink(@Nullable final FrameDropSink sink) {
+        mFrameDropSink = sink;
+    }
+
+    /**
+     * @return Where the frame statistics go, or {@code null} if frames are not monitored.
+     */
+    @Nullable
+    FrameDropSink getFrameDropSink() {
+        return mFrameDropSink;
+    }
+
+    /**
+     * @param dialogID The dialog string id.
+     * @return The stats of the dialogs with that id, empty if none has been recorded. Asking for
+     *         an id never shown doesn't intern it.
+     */
+    @NonNull
+    public DialogStats getStats(@NonNull final String dialogID) {
+        final int key = DialogIdInterner.find(dialogID);
+        final DialogStats stats = DialogIdInterner.NOT_INTERNED != key ? mStats.get(key) : null;
+        return null != stats ? stats : new DialogStats();
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        for (int key = 0; null != DialogIdInterner.lookup(key); key++) {
+            final DialogStats stats = mStats.get(key);
+            if (null != stats) {
+                stats.reset();
+            }
+        }
+    }
+
+    /**
+     * Records the time spent in {@code onCreateDialog}.
+     * @param dialogKey The interned dialog id.
+     * @param entryNanos When {@code onCreateDialog} was entered.
+     * @param builderStartNanos When {@code AlertDialog.Builder.create()} was called.
+     * @param exitNanos When {@code onCreateDialog} returned.
+     */
+    void recordCreateDialog(final int dialogKey, final long entryNanos,
+                            final long builderStartNanos, final long exitNanos) {
+        final DialogStats stats = statsFor(dialogKey);
+        stats.mCreateDialog.record(exitNanos - entryNanos);
+        stats.mBuilderCreate.record(exitNanos - builderStartNanos);
+    }
+
+    /**
+     * Records the first draw of a dialog.
+     * @param dialogKey The interned dialog id.
+     * @param createdNanos When {@code createDialogFragment} was called, or 0 if not known, like
+     *                     for fragments recreated after a configuration change.
+     * @param createDialogNanos When {@code onCreateDialog} was entered.
+     * @param drawNanos When the dialog was first drawn.
+     */
+    void recordFirstDraw(final int dialogKey, final long createdNanos,
+                         final long createDialogNanos, final long drawNanos) {
+        final DialogStats stats = statsFor(dialogKey);
+        if (0 != createdNanos) {
+            stats.mShowLatency.record(drawNanos - createdNanos);
+        }
+        stats.mCreateToDraw.record(drawNanos - createDialogNanos);
+    }
+
+    /**
+     * Records a click or a cancel.
+     * @param dialogKey The interned dialog id.
+     * @param firstDrawNanos When the dialog was first drawn, or 0 if it wasn't.
+     * @param nowNanos When the event happened.
+     */
+    void recordAction(final int dialogKey, final long firstDrawNanos, final long nowNanos) {
+        if (0 != firstDrawNanos) {
+            statsFor(dialogKey).mTimeToAction.record(nowNanos - firstDrawNanos);
+        }
+    }
+
+    /**
+     * Records the dismissal of a dialog.
+     * @param dialogKey The interned dialog id.
+     * @param firstDrawNanos When the dialog was first drawn, or 0 if it wasn't.
+     * @param nowNanos When the dialog was dismissed.
+     */
+    void recordDismiss(final int dialogKey, final long firstDrawNanos, final long nowNanos) {
+        if (0 != firstDrawNanos) {
+            statsFor(dialogKey).mVisibleTime.record(nowNanos - firstDrawNanos);
+        }
+    }
+
+    /** @return The stats for a dialog id, created the first time. */
+    @NonNull
+    private DialogStats statsFor(final int dialogKey) {
+        DialogStats stats = mStats.get(dialogKey);
+        if (null == stats) {
+            stats = new DialogStats();
+            mStats.put(dialogKey, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * The histograms of the dialogs with one id.
+     */
+    public static final class DialogStats {
+        private final LatencyHistogram mShowLatency = new LatencyHistogram();
+        private final LatencyHistogram mCreateDialog = new LatencyHistogram();
+        private final LatencyHistogram mBuilderCreate = new LatencyHistogram();
+        private final LatencyHistogram mCreateToDraw = new LatencyHistogram();
+        private final LatencyHistogram mTimeToAction = new LatencyHistogram();
+        private final LatencyHistogram mVisibleTime = new LatencyHistogram();
+
+        DialogStats() {
+        }
+
+        /**
+         * @return Time from {@code createDialogFragment} to the first draw of the dialog.
+         */
+        @NonNull
+        public LatencyHistogram getShowLatency() {
+            return mShowLatency;
+        }
+
+        /**
+         * @return Time spent in {@code onCreateDialog}.
+         */
+        @NonNull
+        public LatencyHistogram getCreateDialogTime() {
+            return mCreateDialog;
+        }
+
+        /**
+         * @return Time spent in {@code AlertDialog.Builder.create()}.
+         */
+        @NonNull
+        public LatencyHistogram getBuilderCreateTime() {
+            return mBuilderCreate;
+        }
+
+        /**
+         * @return Time from entering {@code onCreateDialog} to the first draw of the dialog.
+         *         Also recorded for dialogs recreated after a configuration change.
+         */
+        @NonNull
+        public LatencyHistogram getCreateToDrawTime() {
+            return mCreateToDraw;
+        }
+
+        /**
+         * @return Time from the first draw to a button click or a cancel.
+         */
+        @NonNull
+        public LatencyHistogram getTimeToAction() {
+            return mTimeToAction;
+        }
+
+        /**
+         * @return Time from the first draw to the dismissal of the dialog.
+         */
+        @NonNull
+        public LatencyHistogram getVisibleTime() {
+            return mVisibleTime;
+        }
+
+        void reset() {
+            mShowLatency.reset();
+            mCreateDialog.reset();
+            mBuilderCreate.reset();
+            mCreateToDraw.reset();
+            mTimeToAction.reset();
+            mVisibleTime.reset();
+        }
+    }
+}
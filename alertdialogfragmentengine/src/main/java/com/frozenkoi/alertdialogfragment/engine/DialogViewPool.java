@@ -0,0 +1,179 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.content.Context;
+import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.ListView;
+
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Keeps the views the dialogs add to the platform layout, so the next dialog of the same shape
+ * and theme reuses them, and creates them ahead of time with
+ * {@link #prewarm(Activity, DialogSpec)}.
+ * <p/>
+ * The views are created with the application context wrapped in the dialog theme, so keeping
+ * them doesn't keep any Activity. At most one view of each kind is kept per theme, which is
+ * enough for dialogs shown one after the other. Must be used from the main thread.
+ */
+final class DialogViewPool {
+    /** A {@link LongMessageView}. */
+    static final int KIND_LONG_MESSAGE = 0;
+    /** The {@link ListView} of a dialog with items. */
+    static final int KIND_ITEM_LIST = 1;
+
+    /** Pooled views by kind, then by theme. */
+    private static final SparseArray<SparseArray<View>> sPool = new SparseArray<>();
+    /** Themed contexts by theme. */
+    private static final SparseArray<Context> sContexts = new SparseArray<>();
+
+    private DialogViewPool() {
+    }
+
+    /**
+     * @param activity The Activity that shows the dialog.
+     * @return The alert dialog theme of {@code activity}, or 0 if it has none.
+     */
+    static int resolveTheme(@NonNull final Activity activity) {
+        final TypedValue value = new TypedValue();
+        if (activity.getTheme().resolveAttribute(android.R.attr.alertDialogTheme, value, true)) {
+            return value.resourceId;
+        }
+        return 0;
+    }
+
+    /**
+     * @param activity The Activity that shows the dialog.
+     * @param theme The theme, from {@link #resolveTheme(Activity)}.
+     * @return The context to create views of that theme with. Doesn't reference the Activity.
+     */
+    @NonNull
+    static Context getContext(@NonNull final Activity activity, final int theme) {
+        Context context = sContexts.get(theme);
+        if (null == context) {
+            context = new ContextThemeWrapper(activity.getApplicationContext(), theme);
+            sContexts.put(theme, context);
+        }
+        return context;
+    }
+
+    /**
+     * Takes a view out of the pool.
+     * @param kind {@link #KIND_LONG_MESSAGE} or {@link #KIND_ITEM_LIST}.
+     * @param theme The theme, from {@link #resolveTheme(Activity)}.
+     * @return The view, or {@code null} if there is none.
+     */
+    @Nullable
+    static View acquire(final int kind, final int theme) {
+        final SparseArray<View> views = sPool.get(kind);
+        if (null == views) {
+            return null;
+        }
+        final View view = views.get(theme);
+        views.remove(theme);
+        return view;
+    }
+
+    /**
+     * Puts a view back in the pool, once its dialog is gone. The caller resets its contents.
+     * @param kind {@link #KIND_LONG_MESSAGE} or {@link #KIND_ITEM_LIST}.
+     * @param theme The theme the view was created with.
+     * @param view The view.
+     */
+    static void release(final int kind, final int theme, @NonNull final View view) {
+        final ViewParent parent = view.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(view);   //Cast
+        }
+        SparseArray<View> views = sPool.get(kind);
+        if (null == views) {
+            views = new SparseArray<>();
+            sPool.put(kind, views);
+        }
+        views.put(theme, view);
+    }
+
+    /**
+     * Creates the views of a dialog shaped like {@code spec} the next time the main thread is
+     * idle, and on Lollipop and later also creates, without showing it, a platform dialog of that
+     * shape. That resolves the theme, loads the classes and fills the resource caches, so the
+     * first dialog doesn't pay for it.
+     * @param activity The Activity that will show the dialog.
+     * @param spec A dialog of the shape to prepare. Only its shape is used.
+     */
+    static void prewarm(@NonNull final Activity activity, @NonNull final DialogSpec spec) {
+        final WeakReference<Activity> activityRef = new WeakReference<>(activity);
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                final Activity a = activityRef.get();
+                if (null != a && !a.isFinishing()) {
+                    prewarmNow(a, spec);
+                }
+                return false;
+            }
+        });
+    }
+
+    /** Does the work of {@link #prewarm(Activity, DialogSpec)}. */
+    private static void prewarmNow(@NonNull final Activity activity,
+                                   @NonNull final DialogSpec spec) {
+        final int theme = resolveTheme(activity);
+        final Context context = getContext(activity, theme);
+        if (spec.isLongMessage()) {
+            final View view = acquire(KIND_LONG_MESSAGE, theme);
+            release(KIND_LONG_MESSAGE, theme, null != view ? view : new LongMessageView(context));
+        }
+        if (DialogSpec.ITEMS_NONE != spec.getItemMode()) {
+            View view = acquire(KIND_ITEM_LIST, theme);
+            if (null == view) {
+                view = new ListView(context);
+            }
+            // inflating one row loads the row layout and its classes
+            LayoutInflater.from(context).inflate(ItemAdapter.getRowLayout(spec.getItemMode()),
+                    (ViewGroup) view, false);
+            release(KIND_ITEM_LIST, theme, view);
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            final AlertDialog.Builder b = new AlertDialog.Builder(activity);
+            if (DialogSpec.NO_RESOURCE != spec.getTitleId() || null != spec.getTitle()) {
+                b.setTitle(" ");
+            }
+            final boolean hasMessage
+                    = DialogSpec.NO_RESOURCE != spec.getMessageId() || null != spec.getMessage();
+            if (!spec.isLongMessage() && DialogSpec.ITEMS_NONE == spec.getItemMode()
+                    && hasMessage) {
+                b.setMessage(" ");
+            }
+            if (DialogSpec.NO_RESOURCE != spec.getPositiveButtonId()
+                    || null != spec.getPositiveButtonLabel()) {
+                b.setPositiveButton(" ", null);
+            }
+            if (DialogSpec.NO_RESOURCE != spec.getNeutralButtonId()
+                    || null != spec.getNeutralButtonLabel()) {
+                b.setNeutralButton(" ", null);
+            }
+            if (DialogSpec.NO_RESOURCE != spec.getNegativeButtonId()
+                    || null != spec.getNegativeButtonLabel()) {
+                b.setNegativeButton(" ", null);
+            }
+            // inflates the dialog layout without showing it
+            b.create().create();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.frozenkoi.alertdialogfragment.core.EventJournal;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Holds the {@link EventJournal} the dialogs of the process record their events into. On by
+ * default, with room for the last {@link #DEFAULT_CAPACITY} events.
+ * <p/>
+ * Dump it with {@link #dump(File)} when something looks wrong, or have it dumped when the process
+ * crashes with {@link #dumpOnCrash(File)}, and decode the file with the
+ * {@code decodeJournal} task of the core module.
+ */
+public final class EventJournaling {
+    private static final String TAG = "EventJournaling";
+    /** Events kept by the default journal. About 24 bytes each. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    @Nullable
+    private static volatile EventJournal sJournal = new EventJournal(DEFAULT_CAPACITY);
+    /** File written on a crash, or {@code null} if crashes are not dumped. */
+    @Nullable
+    private static volatile File sCrashFile;
+
+    private EventJournaling() {
+    }
+
+    /**
+     * @param journal The journal the dialogs record into from now on, or {@code null} to stop
+     *                recording.
+     */
+    public static void setJournal(@Nullable final EventJournal journal) {
+        sJournal = journal;
+    }
+
+    /**
+     * @return The journal the dialogs record into, or {@code null} if they don't.
+     */
+    @Nullable
+    public static EventJournal getJournal() {
+        return sJournal;
+    }
+
+    /**
+     * Records an event in the journal, if there is one.
+     * @see EventJournal#record(int, int, int, long)
+     */
+    static void record(final int dialogKey, final int type, final int which) {
+        final EventJournal journal = sJournal;
+        if (null != journal) {
+            journal.record(dialogKey, type, which, System.nanoTime());
+        }
+    }
+
+    /**
+     * Writes the journal to a file, on the calling thread. Replaces the file.
+     * @param file The file.
+     * @return {@code false} if there is no journal or the file could not be written.
+     */
+    public static boolean dump(@NonNull final File file) {
+        final EventJournal journal = sJournal;
+        if (null == journal) {
+            return false;
+        }
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(file));
+            journal.writeTo(out);
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "could not write to " + file, e);
+            return false;
+        } finally {
+            if (null != out) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // nothing to do
+                }
+            }
+        }
+    }
+
+    /**
+     * Dumps the journal to {@code file} when a thread dies of an uncaught exception, before the
+     * handler that was installed. Safe to call again, for instance from each
+     * {@code Activity.onCreate}: only the file changes.
+     * @param file The file, replaced on each crash.
+     */
+    public static void dumpOnCrash(@NonNull final File file) {
+        synchronized (EventJournaling.class) {
+            final boolean installed = null != sCrashFile;
+            sCrashFile = file;
+            if (installed) {
+                return;
+            }
+            final Thread.UncaughtExceptionHandler previous
+                    = Thread.getDefaultUncaughtExceptionHandler();
+            Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(final Thread thread, final Throwable error) {
+                    final File crashFile = sCrashFile;
+                    if (null != crashFile) {
+                        dump(crashFile);
+                    }
+                    if (null != previous) {
+                        previous.uncaughtException(thread, error);
+                    }
+                }
+            });
+        }
+    }
+}
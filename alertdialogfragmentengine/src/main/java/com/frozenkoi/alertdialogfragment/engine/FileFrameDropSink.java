@@ -0,0 +1,63 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link FrameDropSink} that appends one CSV line per report to a local file. Meant for test
+ * runs. The file is written on a background thread.
+ * <p/>
+ * The columns are: dialog id, phase ({@code show} or {@code dismiss}), frames, janky frames,
+ * dropped frames and the worst frame in microseconds.
+ */
+public final class FileFrameDropSink implements FrameDropSink {
+    private static final String TAG = "FileFrameDropSink";
+
+    @NonNull
+    private final File mFile;
+    @NonNull
+    private final Executor mWriter = Executors.newSingleThreadExecutor();
+
+    /**
+     * @param file The file to append to. Created if it doesn't exist.
+     */
+    public FileFrameDropSink(@NonNull final File file) {
+        mFile = file;
+    }
+
+    @Override
+    public void onFrameStats(@NonNull final String dialogID, final int phase,
+                             final int frameCount, final int jankyFrames,
+                             final int droppedFrames, final long worstFrameNanos) {
+        final String line = dialogID + ',' + (PHASE_SHOW == phase ? "show" : "dismiss")
+                + ',' + frameCount + ',' + jankyFrames + ',' + droppedFrames
+                + ',' + worstFrameNanos / 1000 + '\n';
+        mWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                Writer w = null;
+                try {
+                    w = new FileWriter(mFile, true);
+                    w.write(line);
+                } catch (IOException e) {
+                    Log.w(TAG, "could not write to " + mFile, e);
+                } finally {
+                    if (null != w) {
+                        try {
+                            w.close();
+                        } catch (IOException e) {
+                            // nothing to do
+                        }
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+/**
+ * Counts the frames that overrun the vsync budget while a dialog animates in or out.
+ * <p/>
+ * Only runs for {@link #WINDOW_NANOS} after each {@link #start(int)}, which covers the window
+ * animations of the dialog, and reports to a {@link FrameDropSink} when done. One monitor is
+ * reused by a dialog for all its shows and dismisses. Must be used from the main thread.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class FrameDropMonitor implements Choreographer.FrameCallback {
+    /** How long each phase is monitored. */
+    static final long WINDOW_NANOS = 500L * 1000 * 1000;
+    /** Frame interval of a 60Hz display. */
+    static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000L * 1000 * 1000 / 60;
+
+    @NonNull
+    private final String mDialogId;
+    @NonNull
+    private final FrameDropSink mSink;
+    private final long mFrameIntervalNanos;
+    /** Frames longer than this are janky. Half an interval of slack absorbs vsync jitter. */
+    private final long mJankThresholdNanos;
+
+    /** Phase being monitored, or 0 if not running. */
+    private int mPhase = 0;
+    private long mStartNanos;
+    private long mLastFrameNanos;
+    private int mFrameCount;
+    private int mJankyFrames;
+    private int mDroppedFrames;
+    private long mWorstFrameNanos;
+
+    /**
+     * @param dialogID The id the frames are attributed to.
+     * @param sink Where the results go.
+     * @param frameIntervalNanos Duration of a vsync of the display showing the dialog.
+     */
+    FrameDropMonitor(@NonNull final String dialogID, @NonNull final FrameDropSink sink,
+                     final long frameIntervalNanos) {
+        mDialogId = dialogID;
+        mSink = sink;
+        mFrameIntervalNanos = frameIntervalNanos;
+        mJankThresholdNanos = frameIntervalNanos + frameIntervalNanos / 2;
+    }
+
+    /**
+     * Starts monitoring. Reports the phase being monitored, if any, first.
+     * @param phase {@link FrameDropSink#PHASE_SHOW} or {@link FrameDropSink#PHASE_DISMISS}.
+     */
+    void start(final int phase) {
+        stop();
+        mPhase = phase;
+        mStartNanos = System.nanoTime();
+        mLastFrameNanos = 0;
+        mFrameCount = 0;
+        mJankyFrames = 0;
+        mDroppedFrames = 0;
+        mWorstFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Stops monitoring and reports, if running.
+     */
+    void stop() {
+        if (0 == mPhase) {
+            return;
+        }
+        Choreographer.getInstance().removeFrameCallback(this);
+        final int phase = mPhase;
+        mPhase = 0;
+        mSink.onFrameStats(mDialogId, phase, mFrameCount, mJankyFrames, mDroppedFrames,
+                           mWorstFrameNanos);
+    }
+
+    @Override
+    public void doFrame(final long frameTimeNanos) {
+        if (0 != mLastFrameNanos) {
+            final long duration = frameTimeNanos - mLastFrameNanos;
+            mFrameCount++;
+            if (duration > mJankThresholdNanos) {
+                mJankyFrames++;
+                mDroppedFrames += (int) ((duration + mFrameIntervalNanos / 2)
+                        / mFrameIntervalNanos) - 1;
+            }
+            if (duration > mWorstFrameNanos) {
+                mWorstFrameNanos = duration;
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+
+        if (frameTimeNanos - mStartNanos >= WINDOW_NANOS) {
+            stop();
+        } else {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives the frame statistics of dialogs animating in and out.
+ * @see DialogMetrics#setFrameDropSink(FrameDropSink)
+ */
+public interface FrameDropSink {
+    /** The dialog was being shown. */
+    int PHASE_SHOW = 1;
+    /** The dialog was being dismissed. */
+    int PHASE_DISMISS = 2;
+
+    /**
+     * Called on the main thread after a dialog has been monitored for a show or a dismiss.
+     * @param dialogID The id of the dialog.
+     * @param phase {@link #PHASE_SHOW} or {@link #PHASE_DISMISS}.
+     * @param frameCount The number of frames monitored.
+     * @param jankyFrames The number of frames that took longer than the frame budget.
+     * @param droppedFrames The number of vsyncs missed by those frames.
+     * @param worstFrameNanos The duration of the longest frame.
+     */
+    void onFrameStats(@NonNull String dialogID, int phase, int frameCount, int jankyFrames,
+                      int droppedFrames, long worstFrameNanos);
+}
@@ -0,0 +1,144 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.Checkable;
+import android.widget.TextView;
+
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+import com.frozenkoi.alertdialogfragment.core.ItemSource;
+import com.frozenkoi.alertdialogfragment.core.SelectionBits;
+
+/**
+ * Rows of a list dialog. Reads the labels from an {@link ItemSource} as the rows are shown and
+ * reuses the rows that scroll out of view, so the cost doesn't depend on the number of items.
+ * <p/>
+ * The checked state is kept here, as a position for single choice or as {@link SelectionBits}
+ * for multi choice, not in the list view.
+ */
+final class ItemAdapter extends BaseAdapter {
+    @NonNull
+    private final ItemSource mItems;
+    /** One of the {@code DialogSpec.ITEMS_} modes. */
+    private final int mItemMode;
+    /** The row layout of the mode. */
+    private final int mRowLayout;
+    /** The checked items, for multi choice. */
+    @Nullable
+    private final SelectionBits mSelection;
+    /** The checked item, for single choice. */
+    private int mCheckedItem = AdapterView.INVALID_POSITION;
+
+    /**
+     * @param items The items.
+     * @param itemMode One of the {@code DialogSpec.ITEMS_} modes, other than
+     *                 {@link DialogSpec#ITEMS_NONE}.
+     * @param savedSelection The checked items saved by {@link SelectionBits#toLongArray()}, for
+     *                       multi choice, or {@code null}.
+     */
+    ItemAdapter(@NonNull final ItemSource items, final int itemMode,
+                @Nullable final long[] savedSelection) {
+        mItems = items;
+        mItemMode = itemMode;
+        mRowLayout = getRowLayout(itemMode);
+        if (DialogSpec.ITEMS_MULTI_CHOICE == itemMode) {
+            mSelection = null != savedSelection
+                    ? SelectionBits.fromLongArray(savedSelection, items.getCount())
+                    : new SelectionBits(items.getCount());
+        } else {
+            mSelection = null;
+        }
+    }
+
+    /**
+     * @param itemMode One of the {@code DialogSpec.ITEMS_} modes.
+     * @return The layout of the rows in that mode.
+     */
+    static int getRowLayout(final int itemMode) {
+        switch (itemMode) {
+            case DialogSpec.ITEMS_SINGLE_CHOICE:
+                return android.R.layout.simple_list_item_single_choice;
+            case DialogSpec.ITEMS_MULTI_CHOICE:
+                return android.R.layout.simple_list_item_multiple_choice;
+            default:
+                return android.R.layout.simple_list_item_1;
+        }
+    }
+
+    /**
+     * @return The checked item for single choice, or {@link AdapterView#INVALID_POSITION}.
+     */
+    int getCheckedItem() {
+        return mCheckedItem;
+    }
+
+    /**
+     * @param position The checked item for single choice, or
+     *                 {@link AdapterView#INVALID_POSITION}.
+     */
+    void setCheckedItem(final int position) {
+        if (position != mCheckedItem) {
+            mCheckedItem = position;
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * @return The checked items for multi choice, or {@code null} in other modes.
+     */
+    @Nullable
+    SelectionBits getSelection() {
+        return mSelection;
+    }
+
+    /**
+     * Checks or unchecks an item according to the mode. Doesn't do anything for plain lists.
+     * @param position The position of the item clicked.
+     * @param row The row of the item, to update it without rebinding the others.
+     */
+    void onItemClicked(final int position, @Nullable final View row) {
+        if (DialogSpec.ITEMS_SINGLE_CHOICE == mItemMode) {
+            setCheckedItem(position);
+        } else if (null != mSelection) {
+            final boolean checked = mSelection.toggle(position);
+            if (row instanceof Checkable) {
+                ((Checkable) row).setChecked(checked);   //Cast
+            } else {
+                notifyDataSetChanged();
+            }
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mItems.getCount();
+    }
+
+    @Override
+    public Object getItem(final int position) {
+        return mItems.getLabel(position);
+    }
+
+    @Override
+    public long getItemId(final int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(final int position, final View convertView, final ViewGroup parent) {
+        final View row = null != convertView ? convertView
+                : LayoutInflater.from(parent.getContext()).inflate(mRowLayout, parent, false);
+        ((TextView) row).setText(mItems.getLabel(position));   //Cast
+        if (row instanceof Checkable) {
+            final boolean checked = null != mSelection ? mSelection.get(position)
+                                                       : position == mCheckedItem;
+            ((Checkable) row).setChecked(checked);   //Cast
+        }
+        return row;
+    }
+}
@@ -0,0 +1,223 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+/**
+ * Shows a long message as a list of rows of a few lines of the layouts computed in the background
+ * by {@link MessageLayouts}. Only the rows on screen are measured and drawn, so a long paragraph
+ * laid out whole only draws its lines on screen, and nothing is laid out on the main thread.
+ * Empty until the layouts for the current width are ready.
+ */
+final class LongMessageView extends ListView {
+    /** Horizontal padding of the text, in dp. Matches the message of the platform dialogs. */
+    private static final int TEXT_PADDING_DP = 24;
+    /** Lines drawn by a row, at most. */
+    private static final int LINES_PER_ROW = 32;
+
+    /** The paint of a plain TextView in the dialog theme. */
+    @NonNull
+    private final TextPaint mPaint;
+    /** Horizontal padding of the text, in pixels. */
+    private final int mTextPadding;
+    @Nullable
+    private String mText;
+    /** Width of the layouts shown or being computed, or 0. */
+    private int mLayoutWidth = 0;
+    /** Incremented on each request, so stale layouts are dropped. */
+    private int mGeneration = 0;
+
+    /**
+     * @param context The themed context of the dialog.
+     */
+    LongMessageView(@NonNull final Context context) {
+        super(context);
+        mPaint = new TextPaint(new TextView(context).getPaint());
+        final float density = context.getResources().getDisplayMetrics().density;
+        mTextPadding = (int) (TEXT_PADDING_DP * density + 0.5f);
+        setPadding(0, mTextPadding / 2, 0, mTextPadding / 2);
+        setClipToPadding(false);
+        setDividerHeight(0);
+    }
+
+    /**
+     * @param text The message. Spans are dropped.
+     */
+    void setText(@Nullable final CharSequence text) {
+        mText = null != text ? text.toString() : null;
+        mLayoutWidth = 0;
+        mGeneration++;
+        setAdapter(null);
+        requestLayouts(getWidth());
+    }
+
+    @Override
+    protected void onSizeChanged(final int w, final int h, final int oldw, final int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        requestLayouts(w);
+    }
+
+    /**
+     * Shows the cached layouts for {@code width}, or computes them in the background.
+     */
+    private void requestLayouts(final int width) {
+        final int textWidth = width - getPaddingLeft() - getPaddingRight() - 2 * mTextPadding;
+        if (null == mText || textWidth <= 0 || textWidth == mLayoutWidth) {
+            return;
+        }
+        mLayoutWidth = textWidth;
+        final int generation = ++mGeneration;
+        final MessageLayouts.Key key = new MessageLayouts.Key(mText, textWidth, mPaint);
+        final Layout[] cached = MessageLayouts.getCached(key);
+        if (null != cached) {
+            setAdapter(new ChunkAdapter(cached, mTextPadding));
+            return;
+        }
+        ContentLoading.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final Layout[] layouts = MessageLayouts.compute(key);
+                MessageLayouts.MAIN.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            setAdapter(new ChunkAdapter(layouts, mTextPadding));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * One row per {@link #LINES_PER_ROW} lines of each layout, so a layout is never cut in the
+     * middle of a line. The rows can't be selected.
+     */
+    private static final class ChunkAdapter extends BaseAdapter {
+        @NonNull
+        private final Layout[] mLayouts;
+        private final int mTextPadding;
+        /** Index in {@link #mLayouts} of the layout of each row. */
+        @NonNull
+        private final int[] mRowLayouts;
+        /** First line of each row. */
+        @NonNull
+        private final int[] mRowLines;
+
+        ChunkAdapter(@NonNull final Layout[] layouts, final int textPadding) {
+            mLayouts = layouts;
+            mTextPadding = textPadding;
+            int rows = 0;
+            for (final Layout layout : layouts) {
+                rows += rowCount(layout);
+            }
+            mRowLayouts = new int[rows];
+            mRowLines = new int[rows];
+            int row = 0;
+            for (int i = 0; i < layouts.length; i++) {
+                for (int r = 0; r < rowCount(layouts[i]); r++) {
+                    mRowLayouts[row] = i;
+                    mRowLines[row] = r * LINES_PER_ROW;
+                    row++;
+                }
+            }
+        }
+
+        private static int rowCount(@NonNull final Layout layout) {
+            return (layout.getLineCount() + LINES_PER_ROW - 1) / LINES_PER_ROW;
+        }
+
+        @Override
+        public int getCount() {
+            return mRowLines.length;
+        }
+
+        @Override
+        public Object getItem(final int position) {
+            return mLayouts[mRowLayouts[position]];
+        }
+
+        @Override
+        public long getItemId(final int position) {
+            return position;
+        }
+
+        @Override
+        public boolean areAllItemsEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isEnabled(final int position) {
+            return false;
+        }
+
+        @Override
+        public View getView(final int position, final View convertView, final ViewGroup parent) {
+            final ChunkView row = convertView instanceof ChunkView
+                    ? (ChunkView) convertView   //Cast
+                    : new ChunkView(parent.getContext(), mTextPadding);
+            final Layout layout = mLayouts[mRowLayouts[position]];
+            final int firstLine = mRowLines[position];
+            row.setLines(layout, firstLine,
+                         Math.min(layout.getLineCount(), firstLine + LINES_PER_ROW));
+            return row;
+        }
+    }
+
+    /** Draws some lines of a layout computed beforehand. */
+    private static final class ChunkView extends View {
+        private final int mTextPadding;
+        @Nullable
+        private Layout mLayout;
+        /** First line drawn. */
+        private int mFirstLine;
+        /** Line after the last one drawn. */
+        private int mEndLine;
+
+        ChunkView(@NonNull final Context context, final int textPadding) {
+            super(context);
+            mTextPadding = textPadding;
+        }
+
+        void setLines(@NonNull final Layout layout, final int firstLine, final int endLine) {
+            if (layout != mLayout || firstLine != mFirstLine || endLine != mEndLine) {
+                mLayout = layout;
+                mFirstLine = firstLine;
+                mEndLine = endLine;
+                requestLayout();
+                invalidate();
+            }
+        }
+
+        @Override
+        protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+            final int height = null != mLayout
+                    ? mLayout.getLineTop(mEndLine) - mLayout.getLineTop(mFirstLine) : 0;
+            setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), height);
+        }
+
+        @Override
+        protected void onDraw(final Canvas canvas) {
+            if (null == mLayout) {
+                return;
+            }
+            final int top = mLayout.getLineTop(mFirstLine);
+            final int saveCount = canvas.save();
+            canvas.clipRect(0, 0, getWidth(), mLayout.getLineTop(mEndLine) - top);
+            // the layout only draws the lines inside the clip
+            canvas.translate(mTextPadding, -top);
+            mLayout.draw(canvas);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+}
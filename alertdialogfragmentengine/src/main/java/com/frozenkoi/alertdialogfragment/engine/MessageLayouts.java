@@ -0,0 +1,139 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+import com.frozenkoi.alertdialogfragment.core.TextChunks;
+
+/**
+ * Lays out long messages in chunks, off the main thread, and caches the result.
+ * <p/>
+ * The text is split at line breaks with {@link TextChunks} and each chunk gets its own
+ * {@link StaticLayout}, which breaks its lines where a layout of the whole text would. A paragraph
+ * longer than a chunk is laid out whole, and {@link LongMessageView} only draws the lines of it
+ * that are on screen. Layouts are cached by text, width and paint, so showing the same message
+ * again, or rotating back, lays out nothing.
+ */
+final class MessageLayouts {
+    /** Maximum length of a chunk, unless it is a single paragraph. About a screen of text. */
+    private static final int CHUNK_CHARS = 1024;
+    /** Cache budget, in chars of the texts laid out. */
+    private static final int MAX_CACHED_CHARS = 256 * 1024;
+
+    /** For handing the layouts back to the views. */
+    static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    /** Layouts by text, width and paint. Thread safe. */
+    private static final LruCache<Key, Layout[]> sCache
+            = new LruCache<Key, Layout[]>(MAX_CACHED_CHARS) {
+        @Override
+        protected int sizeOf(final Key key, final Layout[] value) {
+            return key.mText.length();
+        }
+    };
+
+    private MessageLayouts() {
+    }
+
+    /**
+     * @param key The text, width and paint.
+     * @return The layouts of the chunks of the text, or {@code null} if they aren't cached.
+     */
+    @Nullable
+    static Layout[] getCached(@NonNull final Key key) {
+        return sCache.get(key);
+    }
+
+    /**
+     * Lays out the chunks of the text and caches them. Can be called from any thread.
+     * @param key The text, width and paint.
+     * @return The layouts of the chunks of the text.
+     */
+    @NonNull
+    static Layout[] compute(@NonNull final Key key) {
+        final Layout[] cached = sCache.get(key);
+        if (null != cached) {
+            return cached;
+        }
+        final int[] ends = TextChunks.split(key.mText, CHUNK_CHARS);
+        final Layout[] layouts = new Layout[ends.length];
+        int start = 0;
+        for (int i = 0; i < ends.length; i++) {
+            int end = ends[i];
+            // the line break ending a chunk would add an empty line to it
+            final int textEnd = end > start && '\n' == key.mText.charAt(end - 1) ? end - 1 : end;
+            layouts[i] = new StaticLayout(key.mText.substring(start, textEnd), key.mPaint,
+                    key.mWidth, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+            start = end;
+        }
+        sCache.put(key, layouts);
+        return layouts;
+    }
+
+    /**
+     * What a layout depends on. The paint is copied, so later changes to the original don't
+     * affect the layouts.
+     */
+    static final class Key {
+        @NonNull
+        final String mText;
+        final int mWidth;
+        @NonNull
+        final TextPaint mPaint;
+        private final float mTextSize;
+        private final float mTextScaleX;
+        private final int mColor;
+        private final int mFlags;
+        @Nullable
+        private final Typeface mTypeface;
+
+        /**
+         * @param text The text.
+         * @param width The width available for the text, in pixels.
+         * @param paint The paint the text is drawn with.
+         */
+        Key(@NonNull final String text, final int width, @NonNull final TextPaint paint) {
+            mText = text;
+            mWidth = width;
+            mPaint = new TextPaint(paint);
+            mTextSize = paint.getTextSize();
+            mTextScaleX = paint.getTextScaleX();
+            mColor = paint.getColor();
+            mFlags = paint.getFlags();
+            mTypeface = paint.getTypeface();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;   //Cast
+            return mWidth == other.mWidth && mTextSize == other.mTextSize
+                    && mTextScaleX == other.mTextScaleX && mColor == other.mColor
+                    && mFlags == other.mFlags
+                    && (null == mTypeface ? null == other.mTypeface
+                                          : mTypeface.equals(other.mTypeface))
+                    && mText.equals(other.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText.hashCode();
+            result = 31 * result + mWidth;
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + mColor;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+
+/**
+ * Parcelable holder of a {@link DialogSpec}, for storing it in a Bundle.
+ * <p/>
+ * The spec is written in its packed form, see {@link DialogSpec#packInts()} and
+ * {@link DialogSpec#packStrings()}.
+ */
+public final class ParcelableDialogSpec implements Parcelable {
+    @NonNull
+    private final DialogSpec mSpec;
+
+    /**
+     * @param spec The spec to hold.
+     */
+    public ParcelableDialogSpec(@NonNull final DialogSpec spec) {
+        mSpec = spec;
+    }
+
+    /**
+     * @return The spec.
+     */
+    @NonNull
+    public DialogSpec getSpec() {
+        return mSpec;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(final Parcel dest, final int flags) {
+        dest.writeIntArray(mSpec.packInts());
+        dest.writeStringArray(mSpec.packStrings());
+    }
+
+    public static final Creator<ParcelableDialogSpec> CREATOR
+            = new Creator<ParcelableDialogSpec>() {
+        @Override
+        public ParcelableDialogSpec createFromParcel(final Parcel in) {
+            final int[] ints = in.createIntArray();
+            final String[] strings = in.createStringArray();
+            return new ParcelableDialogSpec(DialogSpec.unpack(ints, strings));
+        }
+
+        @Override
+        public ParcelableDialogSpec[] newArray(final int size) {
+            return new ParcelableDialogSpec[size];
+        }
+    };
+}
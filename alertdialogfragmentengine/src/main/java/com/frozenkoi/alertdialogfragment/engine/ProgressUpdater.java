@@ -0,0 +1,177 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+import android.widget.ProgressBar;
+
+import com.frozenkoi.alertdialogfragment.core.ProgressSlot;
+
+import java.util.HashMap;
+
+/**
+ * Draws the {@link ProgressSlot} of a progress dialog on its {@link ProgressBar}, at most once per
+ * frame.
+ * <p/>
+ * The workers only wake the main thread when the slot goes from read to unread, and the wake
+ * waits for the next frame before taking the latest value, so the main thread gets one message
+ * and one redraw per frame however often the progress is published. Before Jelly Bean there is
+ * no {@link Choreographer}, and the value is taken when the message runs.
+ * <p/>
+ * The slots are kept by dialog id for the process, so the workers can keep publishing while the
+ * dialog is recreated. Must be used from the main thread, except {@link #getSlot(String)}.
+ */
+final class ProgressUpdater implements ProgressSlot.Waker, Runnable {
+    private static final HashMap<String, ProgressSlot> sSlots = new HashMap<>();
+
+    @NonNull
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    @NonNull
+    private final ProgressSlot mSlot;
+    /** Called once the progress is complete. */
+    @NonNull
+    private final Runnable mOnComplete;
+    @Nullable
+    private ProgressBar mBar;
+    /** {@code true} between {@link #start()} and {@link #stop()}. */
+    private boolean mStarted = false;
+    /** Takes the value on the next frame, once created. A {@link Choreographer.FrameCallback}. */
+    @Nullable
+    private Object mFrameCallback;
+
+    /**
+     * @param dialogId The id of the dialog.
+     * @param onComplete Called once the progress is complete.
+     */
+    ProgressUpdater(@NonNull final String dialogId, @NonNull final Runnable onComplete) {
+        mSlot = getSlot(dialogId);
+        mOnComplete = onComplete;
+    }
+
+    /**
+     * @param dialogId The id of the dialog.
+     * @return The slot of the dialog, created if needed. Can be called from any thread, before
+     *         the dialog is shown.
+     */
+    @NonNull
+    static ProgressSlot getSlot(@NonNull final String dialogId) {
+        synchronized (sSlots) {
+            ProgressSlot slot = sSlots.get(dialogId);
+            if (null == slot) {
+                slot = new ProgressSlot();
+                sSlots.put(dialogId, slot);
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Forgets the slot of a dialog that is gone for good. Workers still holding it publish to
+     * nobody.
+     * @param dialogId The id of the dialog.
+     */
+    static void removeSlot(@NonNull final String dialogId) {
+        synchronized (sSlots) {
+            sSlots.remove(dialogId);
+        }
+    }
+
+    /**
+     * @param bar The bar of the dialog, or {@code null} once the dialog is gone. Shows the latest
+     *            value right away.
+     */
+    void setBar(@Nullable final ProgressBar bar) {
+        mBar = bar;
+        if (null != bar) {
+            show(mSlot.peek());
+        }
+    }
+
+    /**
+     * Starts drawing the values published, and those published while stopped.
+     */
+    void start() {
+        mStarted = true;
+        mSlot.setWaker(this);
+    }
+
+    /**
+     * Stops drawing. The values published meanwhile wait in the slot.
+     */
+    void stop() {
+        mStarted = false;
+        mSlot.setWaker(null);
+        mHandler.removeCallbacks(this);
+        if (null != mFrameCallback) {
+            removeFrameCallback();
+        }
+    }
+
+    @Override
+    public void wake() {
+        mHandler.post(this);
+    }
+
+    @Override
+    public void run() {
+        if (!mStarted) {
+            // woken by a worker that raced stop(); start() wakes again
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            postFrameCallback();
+        } else {
+            update();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        if (null == mFrameCallback) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(final long frameTimeNanos) {
+                    update();
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback(
+                (Choreographer.FrameCallback) mFrameCallback);   //Cast
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void removeFrameCallback() {
+        Choreographer.getInstance().removeFrameCallback(
+                (Choreographer.FrameCallback) mFrameCallback);   //Cast
+    }
+
+    /** Takes the latest value and draws it. */
+    private void update() {
+        final long value = mSlot.take();
+        if (ProgressSlot.NONE == value) {
+            return;
+        }
+        show(value);
+        if (ProgressSlot.isComplete(value)) {
+            mOnComplete.run();
+        }
+    }
+
+    private void show(final long value) {
+        if (null == mBar) {
+            return;
+        }
+        final int max = ProgressSlot.getMax(value);
+        if (0 == max) {
+            mBar.setIndeterminate(true);
+            return;
+        }
+        mBar.setIndeterminate(false);
+        mBar.setMax(max);
+        mBar.setProgress(ProgressSlot.getProgress(value));
+    }
+}
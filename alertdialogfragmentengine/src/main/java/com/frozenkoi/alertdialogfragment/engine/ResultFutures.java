@@ -0,0 +1,54 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.frozenkoi.alertdialogfragment.core.DialogFuture;
+
+import java.util.HashMap;
+
+/**
+ * Holds the {@link DialogFuture}s of the dialogs shown for a result, by a token kept in the
+ * arguments of their fragments. The futures outlive the fragments, so a dialog recreated after a
+ * configuration change completes the future its first instance was shown with.
+ * <p/>
+ * Must be used from the main thread.
+ */
+final class ResultFutures {
+    private static final HashMap<String, DialogFuture> sFutures = new HashMap<>();
+    /** Numbers the futures, so each gets its own token. */
+    private static int sCount = 0;
+
+    private ResultFutures() {
+    }
+
+    /**
+     * @param future A new future.
+     * @return The token of the future.
+     */
+    @NonNull
+    static String register(@NonNull final DialogFuture future) {
+        final String token = "future#" + sCount++;
+        sFutures.put(token, future);
+        return token;
+    }
+
+    /**
+     * @param token The token of the future.
+     * @return The future, or {@code null} if it was already removed, or lost with the process.
+     */
+    @Nullable
+    static DialogFuture get(@NonNull final String token) {
+        return sFutures.get(token);
+    }
+
+    /**
+     * Removes a future, once its dialog is over.
+     * @param token The token of the future.
+     * @return The future, or {@code null} if it was already removed, or lost with the process.
+     */
+    @Nullable
+    static DialogFuture remove(@NonNull final String token) {
+        return sFutures.remove(token);
+    }
+}
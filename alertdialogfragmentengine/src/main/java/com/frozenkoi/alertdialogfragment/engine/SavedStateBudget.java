@@ -0,0 +1,82 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+/**
+ * Opt-in check of how much each dialog fragment adds to the saved state.
+ * <p/>
+ * The saved state of all the fragments of an Activity travels in a single Binder transaction,
+ * which fails with {@code TransactionTooLargeException} past 1MB. When a threshold is set the
+ * fragment measures its arguments and saved state in {@code onSaveInstanceState} and logs a
+ * warning if they are above it. Measuring marshals both Bundles, so it is disabled by default.
+ */
+public final class SavedStateBudget {
+    private static final String TAG = "SavedStateBudget";
+
+    /** Threshold that disables the check. */
+    public static final int DISABLED = 0;
+
+    /** Size in bytes above which a warning is logged, or {@link #DISABLED}. */
+    private static volatile int sWarningThreshold = DISABLED;
+
+    /** Not instantiable. */
+    private SavedStateBudget() {
+    }
+
+    /**
+     * Enables or disables the check.
+     * @param bytes Size of the arguments plus the saved state of a single dialog above which a
+     *              warning is logged. {@link #DISABLED} to disable the check.
+     */
+    public static void setWarningThreshold(final int bytes) {
+        sWarningThreshold = bytes;
+    }
+
+    /**
+     * @return {@code true} if the check is enabled.
+     */
+    static boolean isEnabled() {
+        return DISABLED != sWarningThreshold;
+    }
+
+    /**
+     * Logs a warning if the size of {@code args} and {@code outState} together is above the
+     * threshold.
+     * @param dialogID The id of the dialog being saved.
+     * @param args The fragment arguments.
+     * @param outState The saved state of the fragment.
+     */
+    static void check(@NonNull final String dialogID, @Nullable final Bundle args,
+                      @NonNull final Bundle outState) {
+        final int threshold = sWarningThreshold;
+        if (DISABLED == threshold) {
+            return;
+        }
+        final int size = measure(args) + measure(outState);
+        if (size > threshold) {
+            Log.w(TAG, "dialog[" + dialogID + "] saved state is " + size + " bytes, over the "
+                    + threshold + " bytes budget");
+        }
+    }
+
+    /**
+     * @param bundle The Bundle to measure.
+     * @return The size of {@code bundle} once written to a Parcel, in bytes.
+     */
+    static int measure(@Nullable final Bundle bundle) {
+        if (null == bundle) {
+            return 0;
+        }
+        final Parcel parcel = Parcel.obtain();
+        try {
+            bundle.writeToParcel(parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+
+/**
+ * Stores {@link DialogSpec}s in fragment arguments and reads them back.
+ * <p/>
+ * By default the spec is stored as a {@link ParcelableDialogSpec}. Specs built with
+ * {@link DialogSpec.Builder#setCompactArguments(boolean)} are stored instead as their packed
+ * arrays under two short keys. That leaves out the class name of the Parcelable, which adds up
+ * when many dialogs are in the saved state.
+ */
+final class SpecArguments {
+    /** Key for the packed resource ids and bitmask of a compact spec. */
+    private static final String KEY_PACKED_INTS = "s";
+    /** Key for the packed Strings of a compact spec. */
+    private static final String KEY_PACKED_STRINGS = "t";
+
+    /** Not instantiable. */
+    private SpecArguments() {
+    }
+
+    /**
+     * Stores a spec in fragment arguments, in the format chosen with
+     * {@link DialogSpec.Builder#setCompactArguments(boolean)}.
+     * @param spec The spec.
+     * @param args The fragment arguments.
+     */
+    static void write(@NonNull final DialogSpec spec, @NonNull final Bundle args) {
+        if (spec.isCompactArguments()) {
+            args.putIntArray(KEY_PACKED_INTS, spec.packInts());
+            args.putStringArray(KEY_PACKED_STRINGS, spec.packStrings());
+        } else {
+            args.putParcelable(DialogEngine.KEY_DIALOG_SPEC, new ParcelableDialogSpec(spec));
+        }
+    }
+
+    /**
+     * Reads the spec stored in fragment arguments.
+     * <p/>
+     * Arguments written before the spec existed store each value under its own key. Those are
+     * still understood, so fragments restored from an older saved state keep working.
+     * @param args The fragment arguments.
+     * @return The spec described by {@code args}.
+     */
+    @NonNull
+    static DialogSpec read(@NonNull final Bundle args) {
+        final int[] ints = args.getIntArray(KEY_PACKED_INTS);
+        final String[] strings = args.getStringArray(KEY_PACKED_STRINGS);
+        if (null != ints && null != strings) {
+            return DialogSpec.unpack(ints, strings);
+        }
+
+        final ParcelableDialogSpec parcelable
+                = args.getParcelable(DialogEngine.KEY_DIALOG_SPEC);
+        if (null != parcelable) {
+            return parcelable.getSpec();
+        }
+        return new DialogSpec.Builder(readLegacyDialogId(args))
+                .setTitle(args.getInt(DialogEngine.KEY_DIALOG_TITLE_ID,
+                                      DialogEngine.ID_NOT_FOUND))
+                .setTitle(args.getString(DialogEngine.KEY_DIALOG_TITLE_STRING))
+                .setMessage(args.getInt(DialogEngine.KEY_DIALOG_MESSAGE_ID,
+                                        DialogEngine.ID_NOT_FOUND))
+                .setMessage(args.getString(DialogEngine.KEY_DIALOG_MESSAGE_STRING))
+                .setPositiveButton(args.getInt(DialogEngine.KEY_BUTTON_TEXT_ID_POSITIVE,
+                                               DialogEngine.ID_NOT_FOUND))
+                .setPositiveButton(args.getString(
+                        DialogEngine.KEY_BUTTON_TEXT_STRING_POSITIVE))
+                .setNeutralButton(args.getInt(DialogEngine.KEY_BUTTON_TEXT_ID_NEUTRAL,
+                                              DialogEngine.ID_NOT_FOUND))
+                .setNeutralButton(args.getString(
+                        DialogEngine.KEY_BUTTON_TEXT_STRING_NEUTRAL))
+                .setNegativeButton(args.getInt(DialogEngine.KEY_BUTTON_TEXT_ID_NEGATIVE,
+                                               DialogEngine.ID_NOT_FOUND))
+                .setNegativeButton(args.getString(
+                        DialogEngine.KEY_BUTTON_TEXT_STRING_NEGATIVE))
+                .setReverseButtons(args.getBoolean(DialogEngine.KEY_REVERSE_BUTTON_ORDER,
+                                                   false))
+                .build();
+    }
+
+    /**
+     * @param args Arguments written before DialogSpec.
+     * @return The dialog id, which the framework flavor stored as an int.
+     */
+    @NonNull
+    private static String readLegacyDialogId(@NonNull final Bundle args) {
+        final Object id = args.get(DialogEngine.KEY_DIALOG_ID);
+        if (null == id) {
+            return DialogEngine.DIALOG_ID_NOT_FOUND;
+        }
+        return id instanceof String ? (String) id : String.valueOf(id);   //Cast
+    }
+}
@@ -0,0 +1,79 @@
+package com.frozenkoi.alertdialogfragment.engine;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.support.annotation.NonNull;
+import android.support.annotation.StringRes;
+
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+import com.frozenkoi.alertdialogfragment.core.TextCache;
+
+/**
+ * The {@link TextCache} of the process, for the string resources of the dialogs.
+ * <p/>
+ * Valid for one locale: a lookup with resources of another locale, or of another mobile network
+ * code, empties the cache first. Other changes, like a rotation, keep it, so strings that have
+ * variants for other qualifiers, like {@code values-land}, are not supported. Thread safe.
+ */
+final class StringCache {
+    /** The configuration changes that can change the texts. */
+    private static final int TEXT_CHANGES = ActivityInfo.CONFIG_LOCALE | ActivityInfo.CONFIG_MCC
+            | ActivityInfo.CONFIG_MNC;
+
+    private static final TextCache sTexts = new TextCache();
+    /** Configuration of the cached texts, or {@code null}. Guarded by the class. */
+    private static Configuration sConfiguration;
+
+    private StringCache() {
+    }
+
+    /**
+     * @param context The context of the dialog.
+     * @param id The id of a string resource.
+     * @return The text.
+     */
+    @NonNull
+    static CharSequence getText(@NonNull final Context context, @StringRes final int id) {
+        return sTexts.get(id, resolverFor(context.getResources()));
+    }
+
+    /**
+     * Resolves the texts of the dialogs on the background executor.
+     * @param context The context the dialogs will be shown in, like their Activity, so the texts
+     *                are resolved with the resources the dialogs use.
+     * @param specs The dialogs.
+     */
+    static void warm(@NonNull final Context context, @NonNull final DialogSpec[] specs) {
+        final Resources resources = context.getResources();
+        ContentLoading.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                sTexts.warm(specs, resolverFor(resources));
+            }
+        });
+    }
+
+    /**
+     * Empties the cache if {@code resources} have another locale than the cached texts.
+     * @return Resolves ids with {@code resources}.
+     */
+    @NonNull
+    private static TextCache.Resolver resolverFor(@NonNull final Resources resources) {
+        final Configuration configuration = resources.getConfiguration();
+        synchronized (StringCache.class) {
+            if (null == sConfiguration
+                    || 0 != (sConfiguration.diff(configuration) & TEXT_CHANGES)) {
+                sTexts.invalidate();
+                sConfiguration = new Configuration(configuration);
+            }
+        }
+        return new TextCache.Resolver() {
+            @Override
+            public CharSequence resolve(final int id) {
+                return resources.getText(id);
+            }
+        };
+    }
+}
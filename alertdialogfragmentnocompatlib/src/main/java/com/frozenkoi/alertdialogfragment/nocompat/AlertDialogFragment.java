@@ -0,0 +1,400 @@
+package com.frozenkoi.alertdialogfragment.nocompat;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+import android.app.Dialog;
+import android.app.DialogFragment;
+import android.app.FragmentManager;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.StringRes;
+import android.widget.AdapterView;
+
+import com.frozenkoi.alertdialogfragment.core.DialogFuture;
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+import com.frozenkoi.alertdialogfragment.core.EventDispatcher;
+import com.frozenkoi.alertdialogfragment.core.ListenerRegistry;
+import com.frozenkoi.alertdialogfragment.core.ProgressSlot;
+import com.frozenkoi.alertdialogfragment.core.SelectionBits;
+import com.frozenkoi.alertdialogfragment.engine.DialogEngine;
+
+/**
+ * Subclass of DialogFragment that handles click events and other dialog lifecycle events.
+ * <p/>
+ * The work is done by a {@link DialogEngine}, shared with the support library flavor of the
+ * library; this class only adapts it to the framework fragments and to the integer dialog ids of
+ * {@link AlertDialogObserver}.
+ */
+public final class AlertDialogFragment extends DialogFragment
+        implements DialogEngine.Adapter<AlertDialogFragment.AlertDialogObserver> {
+    public static final String KEY_DIALOG_ID = DialogEngine.KEY_DIALOG_ID;
+    public static final String KEY_BUTTON_TEXT_ID_POSITIVE
+            = DialogEngine.KEY_BUTTON_TEXT_ID_POSITIVE;
+    public static final String KEY_BUTTON_TEXT_ID_NEUTRAL
+            = DialogEngine.KEY_BUTTON_TEXT_ID_NEUTRAL;
+    public static final String KEY_BUTTON_TEXT_ID_NEGATIVE
+            = DialogEngine.KEY_BUTTON_TEXT_ID_NEGATIVE;
+
+    public static final String KEY_DIALOG_TITLE_ID = DialogEngine.KEY_DIALOG_TITLE_ID;
+    public static final String KEY_DIALOG_MESSAGE_ID = DialogEngine.KEY_DIALOG_MESSAGE_ID;
+    public static final int ID_NOT_FOUND = DialogEngine.ID_NOT_FOUND;
+
+    /**
+     * Key for configuration for reversing button order. Stores a boolean in the bundle.
+     * @see DialogSpec#isReverseButtons()
+     */
+    public static final String KEY_REVERSE_BUTTON_ORDER = DialogEngine.KEY_REVERSE_BUTTON_ORDER;
+    /**
+     * Default configuration for button reversal. Used when no configuration is explicitly used.
+     */
+    private static final boolean DEFAULT_BUTTON_INVERSION = false;
+
+    /** The dialog integer id, parsed from the spec once in {@link #onCreate(Bundle)}. */
+    private int mDialogId = ID_NOT_FOUND;
+
+    /** Does the work of the fragment. */
+    @NonNull
+    private final DialogEngine<AlertDialogObserver> mEngine = new DialogEngine<>(this,
+            new EventDispatcher.Delivery<DialogInterface, AlertDialogObserver>() {
+                @Override
+                public void deliverClick(final AlertDialogObserver observer,
+                                         final DialogInterface dialog, final int which) {
+                    observer.onDialogButtonClicked(dialog, mDialogId, which);
+                }
+
+                @Override
+                public void deliverCancel(final AlertDialogObserver observer,
+                                          final DialogInterface dialog) {
+                    observer.onDialogCancelled(dialog, mDialogId);
+                }
+
+                @Override
+                public void deliverDismiss(final AlertDialogObserver observer,
+                                           final DialogInterface dialog) {
+                    observer.onDialogDismissed(dialog, mDialogId);
+                }
+            });
+
+    /** Required empty constructor. */
+    public AlertDialogFragment() {
+        super();
+    }
+
+    /**
+     * @param dialogID The dialog integer id. Used to identify one AlertDialogFragment from another.
+     * @return A builder for the contents of a dialog with that id, for
+     *         {@link #createDialogFragment(DialogSpec)}.
+     */
+    @NonNull
+    public static DialogSpec.Builder specBuilder(final int dialogID) {
+        return new DialogSpec.Builder(String.valueOf(dialogID));
+    }
+
+    /**
+     * @param dialogID The id of a progress dialog.
+     * @return The progress of the dialog, to publish to from the workers.
+     * @see DialogEngine#getProgress(String)
+     */
+    @NonNull
+    public static ProgressSlot getProgress(final int dialogID) {
+        return DialogEngine.getProgress(String.valueOf(dialogID));
+    }
+
+    /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
+     * @param spec The contents of the dialog, from {@link #specBuilder(int)}.
+     * @return A newly created AlertDialogFragment with a {@link Bundle} set as the arguments.
+     */
+    public static AlertDialogFragment createDialogFragment(@NonNull final DialogSpec spec) {
+        AlertDialogFragment adf = new AlertDialogFragment();
+        adf.mEngine.onCreatedByFactory();
+        final Bundle args = new Bundle();
+        DialogEngine.writeArguments(spec, args);
+        adf.setArguments(args);
+        return adf;
+    }
+
+    /**
+     * Shows a dialog and returns its result as a future, for code that isn't its host. The
+     * observer of the host, if any, still gets the events. Call it on the main thread.
+     * @param manager Shows the dialog, tagged with its id.
+     * @param spec The contents of the dialog, from {@link #specBuilder(int)}.
+     * @return Completed on the main thread with the first click, cancel or dismiss the observer
+     *         gets, or with a dismiss if the dialog ends without delivering a result event,
+     *         across configuration changes. Can be waited on from a background thread.
+     */
+    @NonNull
+    public static DialogFuture showForResult(@NonNull final FragmentManager manager,
+                                             @NonNull final DialogSpec spec) {
+        final AlertDialogFragment adf = createDialogFragment(spec);
+        final DialogFuture future = DialogEngine.newResultFuture(adf.getArguments());
+        adf.show(manager, spec.getDialogId());
+        return future;
+    }
+
+    /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
+     * @param dialogID The dialog integer id. Used to identify one AlertDialogFragment from another.
+     * @param titleId The resource id of the text to use for the title.
+     * @param messageId The resource id of the text to use for the body text.
+     * @return A newly created AlertDialogFragment with a {@link Bundle} set as the arguments.
+     */
+    public static AlertDialogFragment createDialogFragment(final int dialogID
+            , @StringRes final int titleId, @StringRes final int messageId) {
+        return createDialogFragment(specBuilder(dialogID)
+                .setTitle(titleId)
+                .setMessage(messageId)
+                .build());
+    }
+
+    /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
+     * @param dialogID The dialog integer id. Used to identify one AlertDialogFragment from another.
+     * @param titleId The resource id of the text to use for the title.
+     * @param messageId The resource id of the text to use for the body text.
+     * @param positiveButtonId String resource to use for the label of the positive button.
+     * @param neutralButtonId String resource to use for the label of the neutral button.
+     * @param negativeButtonId String resource to use for the label of the negative button.
+     * @return A newly created AlertDialogFragment with a {@link Bundle} set as the arguments.
+     */
+    private static AlertDialogFragment createDialogFragment(final int dialogID
+            , @StringRes final int titleId, @StringRes final int messageId
+            , @StringRes final int positiveButtonId, @StringRes final int neutralButtonId
+            , @StringRes final int negativeButtonId) {
+        return createDialogFragment(dialogID, titleId, messageId, DEFAULT_BUTTON_INVERSION,
+                positiveButtonId, neutralButtonId, negativeButtonId);
+    }
+
+    /** Creates a new AlertDialogFragment and adds a Bundle with arguments.
+     * @param dialogID The dialog integer id. Used to identify one AlertDialogFragment from another.
+     * @param titleId The resource id of the text to use for the title.
+     * @param messageId The resource id of the text to use for the body text.
+     * @param reverseButtons Set to {@code true} to invert the order of the positive and negative
+     *                       buttons.<p/>
+     *                       The reversal is done when setting the buttons and when calling
+     *                       #onDialogButtonClicked. Using {@link #getDialog()} and
+     *                       {@link AlertDialog#getButton(int)} will not yield consistent results if
+     *                       this parameter is set to {@code true}.
+     * @param positiveButtonId String resource to use for the label of the positive button.
+     * @param neutralButtonId String resource to use for the label of the neutral button.
+     * @param negativeButtonId String resource to use for the label of the negative button.
+     * @return A newly created AlertDialogFragment with a {@link Bundle} set as the arguments.
+     */
+    public static AlertDialogFragment createDialogFragment(final int dialogID
+            , @StringRes final int titleId, @StringRes final int messageId
+            , final boolean reverseButtons
+            , @StringRes final int positiveButtonId, @StringRes final int neutralButtonId
+            , @StringRes final int negativeButtonId) {
+        return createDialogFragment(specBuilder(dialogID)
+                .setTitle(titleId)
+                .setMessage(messageId)
+                .setReverseButtons(reverseButtons)
+                .setPositiveButton(positiveButtonId)
+                .setNeutralButton(neutralButtonId)
+                .setNegativeButton(negativeButtonId)
+                .build());
+    }
+
+    @Override
+    public void onCreate(final Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mEngine.onCreate(savedInstanceState);
+        try {
+            mDialogId = Integer.parseInt(mEngine.getDialogId());
+        } catch (NumberFormatException e) {
+            // a spec that wasn't built with specBuilder(int)
+            mDialogId = ID_NOT_FOUND;
+        }
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        mEngine.onStart();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        mEngine.onStop();
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mEngine.onDestroy();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        mEngine.onResume();
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        mEngine.onPause();
+    }
+
+    @Override
+    public void onSaveInstanceState(final Bundle outState) {
+        super.onSaveInstanceState(outState);
+        mEngine.onSaveInstanceState(outState);
+    }
+
+    @Override
+    public Dialog onCreateDialog(final Bundle savedInstanceState) {
+        return mEngine.onCreateDialog(savedInstanceState);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        mEngine.onDestroyView();
+    }
+
+    /**
+     * @return The checked item of a single choice dialog, or {@link AdapterView#INVALID_POSITION}
+     *         if there is none, or if the dialog isn't created yet.
+     * @see DialogSpec#ITEMS_SINGLE_CHOICE
+     */
+    public int getCheckedItem() {
+        return mEngine.getCheckedItem();
+    }
+
+    /**
+     * @return The checked items of a multi choice dialog, or {@code null} for other dialogs, or if
+     *         the dialog isn't created yet.
+     * @see DialogSpec#ITEMS_MULTI_CHOICE
+     */
+    @Nullable
+    public SelectionBits getCheckedItems() {
+        return mEngine.getCheckedItems();
+    }
+
+    /**
+     * @return The text of a text input dialog, or {@code null} for other dialogs, or if the dialog
+     *         isn't created yet.
+     * @see DialogSpec#isTextInput()
+     */
+    @Nullable
+    public String getInputText() {
+        return mEngine.getInputText();
+    }
+
+    @Override
+    public void onAttach(final Activity activity) {
+        super.onAttach(activity);
+        mEngine.onAttach();
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        mEngine.onDetach();
+    }
+
+    @Override
+    public void onCancel(final DialogInterface dialog) {
+        super.onCancel(dialog);
+        mEngine.onCancel(dialog);
+    }
+
+    @Override
+    public void onDismiss(final DialogInterface dialog) {
+        super.onDismiss(dialog);
+        mEngine.onDismiss(dialog);
+    }
+
+    /**
+     * A handler registered in the {@link DialogRouter} of {@code host} takes precedence over
+     * {@code host} itself implementing {@link AlertDialogObserver}. The routers are keyed by the
+     * integer id, not by {@code dialogKey}.
+     */
+    @Nullable
+    @Override
+    public AlertDialogObserver resolveObserver(
+            @Nullable final Object host, final int dialogKey,
+            @NonNull final EventDispatcher<?, AlertDialogObserver> dispatcher) {
+        if (host instanceof DialogRouter.Host) {
+            final DialogRouter router = ((DialogRouter.Host) host).getDialogRouter();   //Cast
+            dispatcher.watch(router.getRoutes());
+            final AlertDialogObserver handler = router.resolve(mDialogId);
+            if (null != handler) {
+                return handler;
+            }
+        }
+        if (host instanceof AlertDialogObserver) {
+            return (AlertDialogObserver) host;   //Cast
+        }
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public ListenerRegistry<AlertDialogObserver> getListeners() {
+        return null;
+    }
+
+    /**
+     * Provides the content of the dialogs that load it in the background, see
+     * {@link DialogSpec.Builder#setAsyncContent(boolean)}. Implemented by the target fragment or
+     * the Activity. Gets the dialog integer id in its decimal form.
+     */
+    public interface ContentProvider extends DialogEngine.ContentProvider {
+    }
+
+    /**
+     * Provides the items of the dialogs that have items, see
+     * {@link DialogSpec.Builder#setItemMode(int)}. Implemented by the target fragment or the
+     * Activity. Gets the dialog integer id in its decimal form.
+     */
+    public interface ItemProvider extends DialogEngine.ItemProvider {
+    }
+
+    /**
+     * Provides the validator of the text input dialogs, see
+     * {@link DialogSpec.Builder#setTextInput(boolean)}. Implemented by the target fragment or the
+     * Activity; without one, any text is valid. Gets the dialog integer id in its decimal form.
+     */
+    public interface InputValidatorProvider extends DialogEngine.InputValidatorProvider {
+    }
+
+    /**
+     * Interface for observers of a AlertDialogFragment.
+     */
+    public interface AlertDialogObserver {
+        /**
+         * Called when one of the dialog buttons is clicked.
+         * @param dialog The dialog that received the click.
+         * @param whichDialog The id of the dialog that is being dismissed.
+         * @param whichButton Id of the button that was clicked. The button that was clicked (e.g.
+         *            {@link DialogInterface#BUTTON1}) or the position
+         *            of the item clicked.
+         *
+         * @see android.content.DialogInterface.OnClickListener#onClick(
+           android.content.DialogInterface, int)
+         */
+        void onDialogButtonClicked(DialogInterface dialog, int whichDialog, int whichButton);
+
+        /**
+         * Called when the dialog is cancelled.
+         * @param dialog The dialog that was canceled will be passed into the method.
+         * @param whichDialog The id of the dialog that is being dismissed.
+         *
+         * @see android.app.DialogFragment#onCancel(android.content.DialogInterface)
+         * @see AlertDialogFragment#createDialogFragment createDialogFragment's dialogID parameter.
+         */
+        void onDialogCancelled(DialogInterface dialog, int whichDialog);
+
+        /**
+         * Called when the dialog is dismissed.
+         * @param dialog The dialog that was dismissed will be passed into the method.
+         * @param whichDialog The id of the dialog that is being dismissed.
+         *
+         * @see android.app.DialogFragment#onDismiss(android.content.DialogInterface)
+         * @see AlertDialogFragment#createDialogFragment createDialogFragment's dialogID parameter.
+         */
+        void onDialogDismissed(DialogInterface dialog, int whichDialog);
+    }
+}
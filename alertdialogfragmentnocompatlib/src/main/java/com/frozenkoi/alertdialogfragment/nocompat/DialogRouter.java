@@ -0,0 +1,64 @@
+package com.frozenkoi.alertdialogfragment.nocompat;
+
+import com.frozenkoi.alertdialogfragment.core.RouteTable;
+
+/**
+ * Table of {@link AlertDialogFragment.AlertDialogObserver}s keyed by dialog id.
+ * <p/>
+ * Hosts register one handler per dialog id, once, instead of switching on the dialog id inside a
+ * single observer. An {@link AlertDialogFragment} looks up its handler the first time it needs it
+ * and keeps it until it is attached or detached again, or until the table changes.
+ * <p/>
+ * The integer dialog ids are used directly as the keys of the underlying {@link RouteTable}.
+ */
+public final class DialogRouter {
+    /** Handlers keyed by dialog id. */
+    private final RouteTable<AlertDialogFragment.AlertDialogObserver> mHandlers
+            = new RouteTable<>();
+
+    /**
+     * Registers the handler for all the events of the dialogs with the given id. Replaces any
+     * handler previously registered for the same id.
+     * @param dialogID The dialog integer id, as passed to
+     *                 {@link AlertDialogFragment#createDialogFragment}.
+     * @param handler The observer that will receive the events of that dialog.
+     */
+    public void register(final int dialogID,
+                         final AlertDialogFragment.AlertDialogObserver handler) {
+        mHandlers.register(dialogID, handler);
+    }
+
+    /**
+     * Removes the handler registered for the given dialog id, if any.
+     * @param dialogID The dialog integer id.
+     */
+    public void unregister(final int dialogID) {
+        mHandlers.unregister(dialogID);
+    }
+
+    /**
+     * @param dialogID The dialog integer id.
+     * @return The handler registered for {@code dialogID} or {@code null} if there is none.
+     */
+    AlertDialogFragment.AlertDialogObserver resolve(final int dialogID) {
+        return mHandlers.resolve(dialogID);
+    }
+
+    /**
+     * @return The table behind this router, for watching its version.
+     */
+    RouteTable<AlertDialogFragment.AlertDialogObserver> getRoutes() {
+        return mHandlers;
+    }
+
+    /**
+     * Implemented by Activities and Fragments that route dialog events through a
+     * {@link DialogRouter} instead of implementing {@link AlertDialogFragment.AlertDialogObserver}.
+     */
+    public interface Host {
+        /**
+         * @return The router with the handlers for the dialogs shown by this host.
+         */
+        DialogRouter getDialogRouter();
+    }
+}
@@ -0,0 +1,66 @@
+package com.frozenkoi.alertdialogfragment.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * What the processor found in one host class: the dialogs declared and the handlers of each
+ * dialog id.
+ */
+final class DialogHost {
+    /** One {@code @DeclareDialog} field. */
+    static final class Dialog {
+        String mId;
+        String mName;
+        int mTitle;
+        int mMessage;
+        int mPositive;
+        int mNeutral;
+        int mNegative;
+        boolean mReverseButtons;
+        long mAutoDismissMillis;
+    }
+
+    /** The handler methods of one dialog id, or {@code null} for the events not handled. */
+    static final class Handlers {
+        /** Handles the clicks. */
+        String mClick;
+        /** {@code true} if {@link #mClick} takes the dialog. */
+        boolean mClickTakesDialog;
+        String mCancel;
+        boolean mCancelTakesDialog;
+        String mDismiss;
+        boolean mDismissTakesDialog;
+    }
+
+    final TypeElement mType;
+    final List<Dialog> mDialogs = new ArrayList<>();
+    /** Handlers by dialog id, sorted so the output doesn't depend on the declaration order. */
+    final Map<String, Handlers> mHandlers = new TreeMap<>();
+    /** The annotated elements, for the filer. */
+    final List<Element> mOrigins = new ArrayList<>();
+    /** {@code true} if an error was reported for this host. */
+    boolean mInvalid = false;
+
+    DialogHost(final TypeElement type) {
+        mType = type;
+    }
+
+    /**
+     * @param id A dialog id.
+     * @return The handlers of {@code id}, created if there are none yet.
+     */
+    Handlers handlersOf(final String id) {
+        Handlers handlers = mHandlers.get(id);
+        if (null == handlers) {
+            handlers = new Handlers();
+            mHandlers.put(id, handlers);
+        }
+        return handlers;
+    }
+}
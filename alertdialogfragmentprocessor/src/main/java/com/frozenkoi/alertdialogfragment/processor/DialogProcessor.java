@@ -0,0 +1,242 @@
+package com.frozenkoi.alertdialogfragment.processor;
+
+import com.frozenkoi.alertdialogfragment.annotations.DeclareDialog;
+import com.frozenkoi.alertdialogfragment.annotations.OnDialogCancel;
+import com.frozenkoi.alertdialogfragment.annotations.OnDialogClick;
+import com.frozenkoi.alertdialogfragment.annotations.OnDialogDismiss;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates, for each class with {@link DeclareDialog} fields or {@code OnDialog} methods, a
+ * class with the suffix {@code Dialogs} that has a spec builder and a factory per dialog and a
+ * {@code bind} method that registers the handlers in a {@code DialogRouter}. See
+ * {@link DialogsWriter} for the generated code.
+ * <p/>
+ * The handlers are called directly by the generated observers, so there is no reflection and no
+ * switch on the dialog id at runtime.
+ */
+public final class DialogProcessor extends AbstractProcessor {
+    /** The type dialog handlers can take as their first parameter. */
+    private static final String DIALOG_INTERFACE = "android.content.DialogInterface";
+
+    /** Hosts found in the current round. */
+    private final Map<TypeElement, DialogHost> mHosts = new LinkedHashMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(
+                DeclareDialog.class.getCanonicalName(),
+                OnDialogClick.class.getCanonicalName(),
+                OnDialogCancel.class.getCanonicalName(),
+                OnDialogDismiss.class.getCanonicalName()));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment roundEnv) {
+        mHosts.clear();
+        for (final Element e : roundEnv.getElementsAnnotatedWith(DeclareDialog.class)) {
+            addDialog(hostOf(e), (VariableElement) e);
+        }
+        for (final Element e : roundEnv.getElementsAnnotatedWith(OnDialogClick.class)) {
+            final ExecutableElement method = (ExecutableElement) e;
+            final DialogHost host = hostOf(e);
+            final DialogHost.Handlers handlers
+                    = host.handlersOf(e.getAnnotation(OnDialogClick.class).value());
+            if (null != handlers.mClick) {
+                error(e, "Dialog already has a click handler: " + handlers.mClick);
+            } else if (checkHandler(method, true)) {
+                handlers.mClick = method.getSimpleName().toString();
+                handlers.mClickTakesDialog = 2 == method.getParameters().size();
+            }
+        }
+        for (final Element e : roundEnv.getElementsAnnotatedWith(OnDialogCancel.class)) {
+            final ExecutableElement method = (ExecutableElement) e;
+            final DialogHost.Handlers handlers
+                    = hostOf(e).handlersOf(e.getAnnotation(OnDialogCancel.class).value());
+            if (null != handlers.mCancel) {
+                error(e, "Dialog already has a cancel handler: " + handlers.mCancel);
+            } else if (checkHandler(method, false)) {
+                handlers.mCancel = method.getSimpleName().toString();
+                handlers.mCancelTakesDialog = 1 == method.getParameters().size();
+            }
+        }
+        for (final Element e : roundEnv.getElementsAnnotatedWith(OnDialogDismiss.class)) {
+            final ExecutableElement method = (ExecutableElement) e;
+            final DialogHost.Handlers handlers
+                    = hostOf(e).handlersOf(e.getAnnotation(OnDialogDismiss.class).value());
+            if (null != handlers.mDismiss) {
+                error(e, "Dialog already has a dismiss handler: " + handlers.mDismiss);
+            } else if (checkHandler(method, false)) {
+                handlers.mDismiss = method.getSimpleName().toString();
+                handlers.mDismissTakesDialog = 1 == method.getParameters().size();
+            }
+        }
+
+        for (final DialogHost host : mHosts.values()) {
+            // the errors are enough, a half generated class would only add more
+            if (!host.mInvalid) {
+                write(host);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The host of {@code e}, the class that declares it, after recording {@code e} as
+     *         one of its origins.
+     */
+    private DialogHost hostOf(final Element e) {
+        final TypeElement type = (TypeElement) e.getEnclosingElement();
+        DialogHost host = mHosts.get(type);
+        if (null == host) {
+            host = new DialogHost(type);
+            mHosts.put(type, host);
+        }
+        host.mOrigins.add(e);
+        return host;
+    }
+
+    /** Reads a {@link DeclareDialog} field, if it is a String constant. */
+    private void addDialog(final DialogHost host, final VariableElement field) {
+        final Object value = field.getConstantValue();
+        if (!field.getModifiers().contains(Modifier.STATIC) || !(value instanceof String)) {
+            error(field, "@DeclareDialog must be on a static final String constant");
+            return;
+        }
+        final DeclareDialog declaration = field.getAnnotation(DeclareDialog.class);
+        final DialogHost.Dialog dialog = new DialogHost.Dialog();
+        dialog.mId = (String) value;
+        dialog.mName = declaration.name().isEmpty()
+                ? camelCase(field.getSimpleName().toString()) : declaration.name();
+        if (!SourceVersion.isIdentifier("new" + dialog.mName)) {
+            error(field, "Not a valid method name: " + dialog.mName);
+            return;
+        }
+        for (final DialogHost.Dialog other : host.mDialogs) {
+            if (other.mName.equals(dialog.mName)) {
+                error(field, "Another dialog is named " + dialog.mName);
+                return;
+            }
+        }
+        dialog.mTitle = declaration.title();
+        dialog.mMessage = declaration.message();
+        dialog.mPositive = declaration.positive();
+        dialog.mNeutral = declaration.neutral();
+        dialog.mNegative = declaration.negative();
+        dialog.mReverseButtons = declaration.reverseButtons();
+        dialog.mAutoDismissMillis = declaration.autoDismissMillis();
+        if (dialog.mAutoDismissMillis < 0) {
+            error(field, "autoDismissMillis can't be negative");
+            return;
+        }
+        host.mDialogs.add(dialog);
+    }
+
+    /**
+     * Checks that a handler can be called from the generated class.
+     * @param method The handler.
+     * @param click {@code true} for click handlers, that take the button.
+     * @return {@code true} if the handler is valid; otherwise an error was reported.
+     */
+    private boolean checkHandler(final ExecutableElement method, final boolean click) {
+        if (method.getModifiers().contains(Modifier.PRIVATE)
+                || method.getModifiers().contains(Modifier.STATIC)) {
+            error(method, "Dialog handlers must be instance methods and not private");
+            return false;
+        }
+        if (ElementKind.CLASS != method.getEnclosingElement().getKind()) {
+            error(method, "Dialog handlers must be in a class");
+            return false;
+        }
+        final List<? extends VariableElement> parameters = method.getParameters();
+        int next = 0;
+        if (!parameters.isEmpty()
+                && DIALOG_INTERFACE.equals(parameters.get(0).asType().toString())) {
+            next = 1;
+        }
+        if (click) {
+            if (parameters.size() != next + 1
+                    || TypeKind.INT != parameters.get(next).asType().getKind()) {
+                error(method, "Click handlers take (int) or (DialogInterface, int)");
+                return false;
+            }
+        } else if (parameters.size() != next) {
+            error(method, "Cancel and dismiss handlers take () or (DialogInterface)");
+            return false;
+        }
+        return true;
+    }
+
+    /** Writes the {@code Dialogs} class of a host. */
+    private void write(final DialogHost host) {
+        final DialogsWriter dialogs = new DialogsWriter(processingEnv.getElementUtils(), host);
+        try {
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                    dialogs.getQualifiedName(),
+                    host.mOrigins.toArray(new Element[host.mOrigins.size()]));
+            final Writer writer = file.openWriter();
+            try {
+                dialogs.write(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(host.mType, "Could not write " + dialogs.getQualifiedName() + ": " + e);
+        }
+    }
+
+    /** Reports an error on {@code element} and marks its host as invalid. */
+    private void error(final Element element, final String message) {
+        final DialogHost host = mHosts.get(element.getEnclosingElement());
+        if (null != host) {
+            host.mInvalid = true;
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * @param constantName A name like {@code DIALOG_CONFIRM}.
+     * @return The name in camel case, like {@code DialogConfirm}.
+     */
+    static String camelCase(final String constantName) {
+        final StringBuilder name = new StringBuilder(constantName.length());
+        boolean upper = true;
+        for (int i = 0; i < constantName.length(); i++) {
+            final char c = constantName.charAt(i);
+            if ('_' == c) {
+                upper = true;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,217 @@
+package com.frozenkoi.alertdialogfragment.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+/**
+ * Writes the {@code Dialogs} class of a host, for the compat library:
+ * <pre>
+ * public final class HostDialogs {
+ *     public static DialogSpec.Builder confirmSpec() { ... }
+ *     public static AlertDialogFragment newConfirm() { ... }
+ *     public static void bind(DialogRouter router, Host host) { ... }
+ * }
+ * </pre>
+ * {@code bind} registers one observer per dialog id that has handlers. Each observer calls the
+ * handlers of its dialog; the events without a handler are ignored.
+ */
+final class DialogsWriter {
+    private static final String CORE = "com.frozenkoi.alertdialogfragment.core";
+    private static final String COMPAT = "com.frozenkoi.alertdialogfragment.lib.compat";
+    private static final String INDENT = "    ";
+
+    private final DialogHost mHost;
+    private final String mPackage;
+    /** Name of the host in its package, like {@code Outer.Inner}. */
+    private final String mHostName;
+    /** Simple name of the generated class. */
+    private final String mClassName;
+
+    DialogsWriter(final Elements elements, final DialogHost host) {
+        mHost = host;
+        final PackageElement pkg = elements.getPackageOf(host.mType);
+        mPackage = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final StringBuilder hostName = new StringBuilder();
+        final StringBuilder className = new StringBuilder();
+        for (Element e = host.mType; ElementKind.PACKAGE != e.getKind();
+             e = e.getEnclosingElement()) {
+            hostName.insert(0, e.getSimpleName()).insert(0, '.');
+            className.insert(0, e.getSimpleName()).insert(0, '_');
+        }
+        mHostName = hostName.substring(1);
+        mClassName = className.substring(1) + "Dialogs";
+    }
+
+    /**
+     * @return The qualified name of the generated class.
+     */
+    String getQualifiedName() {
+        return mPackage.isEmpty() ? mClassName : mPackage + '.' + mClassName;
+    }
+
+    /**
+     * @param out Receives the source of the generated class.
+     * @throws IOException If {@code out} fails.
+     */
+    void write(final Writer out) throws IOException {
+        out.write("// Generated by " + DialogProcessor.class.getName() + ". Do not edit.\n");
+        if (!mPackage.isEmpty()) {
+            out.write("package " + mPackage + ";\n");
+        }
+        out.write("\n");
+        out.write("import android.content.DialogInterface;\n");
+        out.write("import android.support.annotation.NonNull;\n\n");
+        out.write("import " + CORE + ".DialogSpec;\n");
+        out.write("import " + COMPAT + ".AlertDialogFragment;\n");
+        out.write("import " + COMPAT + ".DialogRouter;\n\n");
+        out.write("/**\n * Dialogs of {@link " + mHostName + "}.\n */\n");
+        out.write("public final class " + mClassName + " {\n");
+        out.write(INDENT + "private " + mClassName + "() {\n" + INDENT + "}\n");
+        for (final DialogHost.Dialog dialog : mHost.mDialogs) {
+            writeFactories(out, dialog);
+        }
+        writeBind(out);
+        out.write("}\n");
+    }
+
+    private void writeFactories(final Writer out, final DialogHost.Dialog dialog)
+            throws IOException {
+        final String spec = Character.toLowerCase(dialog.mName.charAt(0))
+                + dialog.mName.substring(1) + "Spec";
+        out.write("\n");
+        out.write(INDENT + "/**\n");
+        out.write(INDENT + " * @return A builder with the values declared for " + javadocId(dialog)
+                + ".\n");
+        out.write(INDENT + " */\n");
+        out.write(INDENT + "@NonNull\n");
+        out.write(INDENT + "public static DialogSpec.Builder " + spec + "() {\n");
+        out.write(INDENT + INDENT + "return new DialogSpec.Builder(" + literal(dialog.mId) + ")");
+        writeSetter(out, "setTitle", dialog.mTitle);
+        writeSetter(out, "setMessage", dialog.mMessage);
+        writeSetter(out, "setPositiveButton", dialog.mPositive);
+        writeSetter(out, "setNeutralButton", dialog.mNeutral);
+        writeSetter(out, "setNegativeButton", dialog.mNegative);
+        if (dialog.mReverseButtons) {
+            out.write("\n" + INDENT + INDENT + INDENT + INDENT + ".setReverseButtons(true)");
+        }
+        if (0 != dialog.mAutoDismissMillis) {
+            out.write("\n" + INDENT + INDENT + INDENT + INDENT + ".setAutoDismiss("
+                    + dialog.mAutoDismissMillis + "L)");
+        }
+        out.write(";\n");
+        out.write(INDENT + "}\n\n");
+
+        out.write(INDENT + "/**\n");
+        out.write(INDENT + " * @return A new fragment for " + javadocId(dialog) + ".\n");
+        out.write(INDENT + " */\n");
+        out.write(INDENT + "@NonNull\n");
+        out.write(INDENT + "public static AlertDialogFragment new" + dialog.mName + "() {\n");
+        out.write(INDENT + INDENT + "return AlertDialogFragment.createDialogFragment(" + spec
+                + "().build());\n");
+        out.write(INDENT + "}\n");
+    }
+
+    private static void writeSetter(final Writer out, final String setter, final int id)
+            throws IOException {
+        if (-1 != id) {
+            out.write("\n" + INDENT + INDENT + INDENT + INDENT + "." + setter + "(" + id + ")");
+        }
+    }
+
+    private void writeBind(final Writer out) throws IOException {
+        final String i2 = INDENT + INDENT;
+        final String i3 = i2 + INDENT;
+        final String i4 = i3 + INDENT;
+        out.write("\n");
+        out.write(INDENT + "/**\n");
+        out.write(INDENT + " * Registers the dialog handlers of {@code host} in {@code router}.\n");
+        out.write(INDENT + " */\n");
+        out.write(INDENT + "public static void bind(@NonNull final DialogRouter router,\n");
+        out.write(INDENT + "                        @NonNull final " + mHostName + " host) {\n");
+        for (final Map.Entry<String, DialogHost.Handlers> entry : mHost.mHandlers.entrySet()) {
+            final DialogHost.Handlers handlers = entry.getValue();
+            out.write(i2 + "router.register(" + literal(entry.getKey())
+                    + ", new AlertDialogFragment.AlertDialogObserver() {\n");
+
+            out.write(i3 + "@Override\n");
+            out.write(i3 + "public void onDialogButtonClicked(@NonNull final DialogInterface"
+                    + " dialog,\n");
+            out.write(i3 + "        @NonNull final String whichDialog, final int whichButton) {\n");
+            if (null != handlers.mClick) {
+                out.write(i4 + "host." + handlers.mClick + "("
+                        + (handlers.mClickTakesDialog ? "dialog, " : "") + "whichButton);\n");
+            }
+            out.write(i3 + "}\n\n");
+
+            out.write(i3 + "@Override\n");
+            out.write(i3 + "public void onDialogCancelled(@NonNull final DialogInterface"
+                    + " dialog,\n");
+            out.write(i3 + "        @NonNull final String whichDialog) {\n");
+            if (null != handlers.mCancel) {
+                out.write(i4 + "host." + handlers.mCancel + "("
+                        + (handlers.mCancelTakesDialog ? "dialog" : "") + ");\n");
+            }
+            out.write(i3 + "}\n\n");
+
+            out.write(i3 + "@Override\n");
+            out.write(i3 + "public void onDialogDismissed(@NonNull final DialogInterface"
+                    + " dialog,\n");
+            out.write(i3 + "        @NonNull final String whichDialog) {\n");
+            if (null != handlers.mDismiss) {
+                out.write(i4 + "host." + handlers.mDismiss + "("
+                        + (handlers.mDismissTakesDialog ? "dialog" : "") + ");\n");
+            }
+            out.write(i3 + "}\n");
+            out.write(i2 + "});\n");
+        }
+        out.write(INDENT + "}\n");
+    }
+
+    /** The id of a dialog, for a doc comment. */
+    private static String javadocId(final DialogHost.Dialog dialog) {
+        return "{@code " + literal(dialog.mId).replace("*/", "*&#47;") + "}";
+    }
+
+    /**
+     * @param value Any String.
+     * @return The Java literal for {@code value}.
+     */
+    static String literal(final String value) {
+        final StringBuilder literal = new StringBuilder(value.length() + 2);
+        literal.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
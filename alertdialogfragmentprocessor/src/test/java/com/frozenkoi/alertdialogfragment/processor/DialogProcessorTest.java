@@ -0,0 +1,191 @@
+package com.frozenkoi.alertdialogfragment.processor;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the processor in javac, with minimal stand-ins for the Android and library classes the
+ * generated code uses, and compiles the result.
+ */
+public class DialogProcessorTest {
+    /** Stand-ins for the classes the generated code uses. */
+    private static final String[][] STUBS = {
+        {"android.content.DialogInterface", "package android.content;"
+                + " public interface DialogInterface {}"},
+        {"android.support.annotation.NonNull", "package android.support.annotation;"
+                + " public @interface NonNull {}"},
+        {"com.frozenkoi.alertdialogfragment.core.DialogSpec",
+                "package com.frozenkoi.alertdialogfragment.core; public final class DialogSpec {"
+                + " public static final class Builder { public Builder(String id) {}"
+                + " public Builder setTitle(int i) { return this; }"
+                + " public Builder setMessage(int i) { return this; }"
+                + " public Builder setPositiveButton(int i) { return this; }"
+                + " public Builder setNeutralButton(int i) { return this; }"
+                + " public Builder setNegativeButton(int i) { return this; }"
+                + " public Builder setReverseButtons(boolean b) { return this; }"
+                + " public Builder setAutoDismiss(long l) { return this; }"
+                + " public DialogSpec build() { return null; } } }"},
+        {"com.frozenkoi.alertdialogfragment.lib.compat.AlertDialogFragment",
+                "package com.frozenkoi.alertdialogfragment.lib.compat;"
+                + " import android.content.DialogInterface;"
+                + " import com.frozenkoi.alertdialogfragment.core.DialogSpec;"
+                + " public final class AlertDialogFragment {"
+                + " public static AlertDialogFragment createDialogFragment(DialogSpec s) {"
+                + " return null; }"
+                + " public interface AlertDialogObserver {"
+                + " void onDialogButtonClicked(DialogInterface d, String w, int b);"
+                + " void onDialogCancelled(DialogInterface d, String w);"
+                + " void onDialogDismissed(DialogInterface d, String w); } }"},
+        {"com.frozenkoi.alertdialogfragment.lib.compat.DialogRouter",
+                "package com.frozenkoi.alertdialogfragment.lib.compat;"
+                + " public final class DialogRouter { public void register(String id,"
+                + " AlertDialogFragment.AlertDialogObserver h) {} }"},
+    };
+
+    private JavaCompiler mCompiler;
+    private File mOut;
+    private final DiagnosticCollector<JavaFileObject> mDiagnostics = new DiagnosticCollector<>();
+
+    @Before
+    public void setUp() throws Exception {
+        mCompiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(mCompiler);
+        mOut = Files.createTempDirectory("dialogs").toFile();
+    }
+
+    private static JavaFileObject source(final String className, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///"
+                + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    /** Compiles {@code host} with the processor. */
+    private boolean compile(final String host) throws IOException {
+        final List<JavaFileObject> sources = new ArrayList<>();
+        for (final String[] stub : STUBS) {
+            sources.add(source(stub[0], stub[1]));
+        }
+        sources.add(source("demo.Host", host));
+        final StandardJavaFileManager files = mCompiler.getStandardFileManager(mDiagnostics,
+                null, Charset.forName("UTF-8"));
+        final JavaCompiler.CompilationTask task = mCompiler.getTask(null, files, mDiagnostics,
+                Arrays.asList("-d", mOut.getPath(), "-s", mOut.getPath(),
+                              "-classpath", System.getProperty("java.class.path")),
+                null, sources);
+        task.setProcessors(Collections.singletonList(new DialogProcessor()));
+        final boolean ok = task.call();
+        files.close();
+        return ok;
+    }
+
+    private String generated(final String path) throws IOException {
+        return new String(Files.readAllBytes(new File(mOut, path).toPath()), "UTF-8");
+    }
+
+    private String errors() {
+        final StringBuilder errors = new StringBuilder();
+        for (final Diagnostic<? extends JavaFileObject> d : mDiagnostics.getDiagnostics()) {
+            if (Diagnostic.Kind.ERROR == d.getKind()) {
+                errors.append(d.getMessage(null)).append('\n');
+            }
+        }
+        return errors.toString();
+    }
+
+    @Test
+    public void generatesFactoriesAndDispatcher() throws Exception {
+        assertTrue(errors(), compile("package demo;"
+                + " import android.content.DialogInterface;"
+                + " import com.frozenkoi.alertdialogfragment.annotations.*;"
+                + " public class Host {"
+                + " @DeclareDialog(name = \"Confirm\", title = 10, positive = 11, negative = 12,"
+                + "     autoDismissMillis = 5000)"
+                + " static final String CONFIRM = \"dialog.confirm\";"
+                + " @DeclareDialog(message = 20)"
+                + " static final String DIALOG_INFO = \"dialog.info\";"
+                + " @OnDialogClick(CONFIRM) void onConfirmClicked(int which) {}"
+                + " @OnDialogCancel(CONFIRM) void onConfirmCancelled(DialogInterface d) {}"
+                + " @OnDialogDismiss(\"dialog.other\") void onOtherDismissed() {}"
+                + " }"));
+
+        final String code = generated("demo/HostDialogs.java");
+        assertTrue(code, code.contains("public static DialogSpec.Builder confirmSpec()"));
+        assertTrue(code, code.contains(".setTitle(10)"));
+        assertTrue(code, code.contains(".setAutoDismiss(5000L)"));
+        assertTrue(code, code.contains("public static AlertDialogFragment newDialogInfo()"));
+        assertTrue(code, code.contains("router.register(\"dialog.confirm\""));
+        assertTrue(code, code.contains("host.onConfirmClicked(whichButton);"));
+        assertTrue(code, code.contains("host.onConfirmCancelled(dialog);"));
+        assertTrue(code, code.contains("host.onOtherDismissed();"));
+        assertFalse(code, code.contains("switch"));
+        assertTrue(new File(mOut, "demo/HostDialogs.class").exists());
+    }
+
+    @Test
+    public void rejectsInvalidHandlers() throws Exception {
+        assertFalse(compile("package demo;"
+                + " import com.frozenkoi.alertdialogfragment.annotations.*;"
+                + " public class Host {"
+                + " @OnDialogClick(\"a\") private void hidden(int which) {}"
+                + " @OnDialogCancel(\"a\") void tooMany(int which) {}"
+                + " @OnDialogDismiss(\"a\") void first() {}"
+                + " @OnDialogDismiss(\"a\") void second() {}"
+                + " }"));
+        final String errors = errors();
+        assertTrue(errors, errors.contains("not private"));
+        assertTrue(errors, errors.contains("take () or (DialogInterface)"));
+        assertTrue(errors, errors.contains("already has a dismiss handler"));
+        assertFalse(new File(mOut, "demo/HostDialogs.java").exists());
+    }
+
+    @Test
+    public void rejectsNonConstantIds() throws Exception {
+        assertFalse(compile("package demo;"
+                + " import com.frozenkoi.alertdialogfragment.annotations.*;"
+                + " public class Host {"
+                + " @DeclareDialog String mId = \"a\";"
+                + " }"));
+        assertTrue(errors(), errors().contains("static final String constant"));
+    }
+
+    @Test
+    public void rejectsNegativeAutoDismiss() throws Exception {
+        assertFalse(compile("package demo;"
+                + " import com.frozenkoi.alertdialogfragment.annotations.*;"
+                + " public class Host {"
+                + " @DeclareDialog(autoDismissMillis = -1) static final String ID = \"a\";"
+                + " }"));
+        assertTrue(errors(), errors().contains("can't be negative"));
+    }
+
+    @Test
+    public void namesAndLiterals() throws Exception {
+        assertEquals("DialogWithTimer", DialogProcessor.camelCase("DIALOG_WITH_TIMER"));
+        assertEquals("\"a\\\"b\\\\c\\n\\u00e9\"", DialogsWriter.literal("a\"b\\c\n\u00e9"));
+    }
+}
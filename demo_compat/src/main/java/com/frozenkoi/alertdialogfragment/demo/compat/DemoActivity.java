@@ -1,10 +1,7 @@
 package com.frozenkoi.alertdialogfragment.demo.compat;
 
 import android.content.DialogInterface;
-import android.os.Handler;
 import android.support.annotation.NonNull;
-import android.support.v4.app.DialogFragment;
-import android.support.v4.app.Fragment;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.util.Log;
@@ -12,40 +9,55 @@ import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
+import java.io.File;
+
+import com.frozenkoi.alertdialogfragment.annotations.DeclareDialog;
+import com.frozenkoi.alertdialogfragment.annotations.OnDialogCancel;
+import com.frozenkoi.alertdialogfragment.annotations.OnDialogClick;
+import com.frozenkoi.alertdialogfragment.annotations.OnDialogDismiss;
+import com.frozenkoi.alertdialogfragment.core.DialogSpec;
+import com.frozenkoi.alertdialogfragment.core.EventGate;
+import com.frozenkoi.alertdialogfragment.engine.EventJournaling;
 import com.frozenkoi.alertdialogfragment.lib.compat.AlertDialogFragment;
+import com.frozenkoi.alertdialogfragment.lib.compat.DialogBatcher;
+import com.frozenkoi.alertdialogfragment.lib.compat.DialogRouter;
 
 /**
  * Activity to demonstrate usage of the DkAlertDialogFragment library.
  */
 public final class DemoActivity extends AppCompatActivity
-                                implements AlertDialogFragment.AlertDialogObserver {
+                                implements DialogRouter.Host {
     private static final String TAG = "DemoActivity";
 
     private static final String DIALOG_WITH_RESOURCES_FRAGMENT_TAG = "dialog.with.resources";
     private static final String DIALOG_WITH_STRINGS_FRAGMENT_TAG = "dialog.with.strings";
-    private static final String DIALOG_WITH_TIMER_FRAGMENT_TAG = "dialog.with.timer";
-
     private static final long CLOSE_TIMER = 5 * 1000;
 
+    @DeclareDialog(name = "Timer",
+            title = R.string.dialog_title_with_timer,
+            message = R.string.dialog_message_with_timer,
+            positive = R.string.dialog_button_positive,
+            neutral = R.string.dialog_button_neutral,
+            negative = R.string.dialog_button_negative,
+            autoDismissMillis = CLOSE_TIMER)
+    static final String DIALOG_WITH_TIMER_FRAGMENT_TAG = "dialog.with.timer";
+
     private TextView mTextResourcesResult;
     private TextView mTextStringsResult;
     private TextView mTextWithTimerResult;
 
     @NonNull
-    private final Runnable mTimedDialogCloser = new Runnable() {
-        @Override
-        public void run() {
-            closeTimedDialog();
-        }
-    };
+    private final DialogRouter mDialogRouter = new DialogRouter();
 
-    @NonNull
-    private final Handler mHandler = new Handler();
+    private DialogBatcher mDialogBatcher;
 
     @Override
     protected void onCreate(final Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // pull it with adb and decode it with the decodeJournal task of the core module
+        EventJournaling.dumpOnCrash(new File(getFilesDir(), "dialogs.journal"));
         setContentView(R.layout.activity_demo);
+        mDialogBatcher = new DialogBatcher(getSupportFragmentManager());
 
         final Button buttonRes = (Button) findViewById(R.id.button_show_dialog_with_resources);
         mTextResourcesResult = (TextView) findViewById(R.id.text_last_action_dialog_with_resources);
@@ -73,32 +85,35 @@ public final class DemoActivity extends AppCompatActivity
                 showDialogWithTimer();
             }
         });
+
+        mDialogRouter.register(DIALOG_WITH_RESOURCES_FRAGMENT_TAG,
+                new LastActionObserver(mTextResourcesResult));
+        mDialogRouter.register(DIALOG_WITH_STRINGS_FRAGMENT_TAG,
+                new LastActionObserver(mTextStringsResult));
+        DemoActivityDialogs.bind(mDialogRouter, this);
+
+        // all the demo dialogs have a title, a message and three buttons
+        final DialogSpec withResources = new DialogSpec.Builder(DIALOG_WITH_RESOURCES_FRAGMENT_TAG)
+                .setTitle(R.string.dialog_title_with_resources)
+                .setMessage(R.string.dialog_message_with_resources)
+                .setPositiveButton(R.string.dialog_button_positive)
+                .setNeutralButton(R.string.dialog_button_neutral)
+                .setNegativeButton(R.string.dialog_button_negative)
+                .build();
+        AlertDialogFragment.prewarm(this, withResources);
+        AlertDialogFragment.warmStrings(this, withResources);
     }
 
+    @NonNull
     @Override
-    protected void onResume() {
-        super.onResume();
-
-        // check if there is a visible timed dialog. does onResume run after or before the fragments
-        // are finished being re-added?
-
-        final Fragment fragment
-                = getSupportFragmentManager().findFragmentByTag(DIALOG_WITH_TIMER_FRAGMENT_TAG);
-        if (fragment != null) {
-            Log.d(TAG, "dialog is visible? " + fragment.isVisible());
-
-            if (fragment instanceof AlertDialogFragment) {
-                // start timer to close dialog
-                startTimerToCloseDialog();
-            }
-        }
+    public DialogRouter getDialogRouter() {
+        return mDialogRouter;
     }
 
     @Override
-    protected void onPause() {
-        super.onPause();
-
-        // stop timer, since we don't want to close the dialog while the user can't see
+    protected void onDestroy() {
+        super.onDestroy();
+        mDialogBatcher.cancel();
     }
 
     /**
@@ -133,98 +148,79 @@ public final class DemoActivity extends AppCompatActivity
         adf.show(getSupportFragmentManager(), DIALOG_WITH_STRINGS_FRAGMENT_TAG);
     }
 
+    /**
+     * Helper method to create and show a dialog that closes itself after {@link #CLOSE_TIMER}.
+     * The time only runs while the dialog is visible. Only the first event is shown, so a click
+     * isn't replaced by the dismiss that follows it.
+     */
     private void showDialogWithTimer() {
         mTextWithTimerResult.setText(R.string.label_no_last_action);
-        AlertDialogFragment adf
-                = AlertDialogFragment.createDialogFragment(DIALOG_WITH_TIMER_FRAGMENT_TAG,
-                    R.string.dialog_title_with_timer,
-                    R.string.dialog_message_with_timer,
-                    false,
-                    R.string.dialog_button_positive,
-                    R.string.dialog_button_neutral,
-                    R.string.dialog_button_negative);
-        adf.show(getSupportFragmentManager(), DIALOG_WITH_TIMER_FRAGMENT_TAG);
-
-        startTimerToCloseDialog();
+        AlertDialogFragment adf = AlertDialogFragment.createDialogFragment(
+                DemoActivityDialogs.timerSpec()
+                    .setResultEvents(EventGate.ALL_EVENTS)
+                    .build());
+        mDialogBatcher.show(adf, DIALOG_WITH_TIMER_FRAGMENT_TAG);
     }
 
-    private void cancelTimerToCloseDialog() {
-        Log.d(TAG, "cancelling timer");
-        mHandler.removeCallbacks(mTimedDialogCloser);
+    /**
+     * Called by the dispatcher generated in {@code DemoActivityDialogs}.
+     */
+    @OnDialogClick(DIALOG_WITH_TIMER_FRAGMENT_TAG)
+    void onTimerButtonClicked(final int whichButton) {
+        mTextWithTimerResult.setText(getString(R.string.button_label, whichButton));
     }
 
-    private void startTimerToCloseDialog() {
-        cancelTimerToCloseDialog();
+    /**
+     * Called by the dispatcher generated in {@code DemoActivityDialogs}.
+     */
+    @OnDialogCancel(DIALOG_WITH_TIMER_FRAGMENT_TAG)
+    void onTimerCancelled() {
+        mTextWithTimerResult.setText("cancelled");
+    }
 
-        Log.d(TAG, "starting timer to close timed dialog. will close in " + CLOSE_TIMER + " ms");
-        mHandler.postDelayed(mTimedDialogCloser, CLOSE_TIMER);
+    /**
+     * Called by the dispatcher generated in {@code DemoActivityDialogs}, when the time runs out.
+     */
+    @OnDialogDismiss(DIALOG_WITH_TIMER_FRAGMENT_TAG)
+    void onTimerDismissed() {
+        mTextWithTimerResult.setText("dismissed");
     }
 
-    private void closeTimedDialog() {
-        final Fragment fragment
-                = getSupportFragmentManager().findFragmentByTag(DIALOG_WITH_TIMER_FRAGMENT_TAG);
-        if (fragment != null) {
-            Log.d(TAG, "dialog is visible? " + fragment.isVisible());
+    /**
+     * Shows the last action taken on one dialog in a TextView.
+     */
+    private final class LastActionObserver implements AlertDialogFragment.AlertDialogObserver {
+        @NonNull
+        private final TextView mResult;
 
-            if (fragment instanceof AlertDialogFragment) {
-                DialogFragment dialogFragment = (DialogFragment) fragment;
-                dialogFragment.dismiss();
-            }
+        LastActionObserver(@NonNull final TextView result) {
+            mResult = result;
         }
-    }
 
-    @Override
-    public void onDialogButtonClicked(@NonNull final DialogInterface dialog,
-                                      @NonNull final String whichDialog,
-                                      final int whichButton) {
-        final String text = getString(R.string.button_label, whichButton);
-        Log.d(TAG, "onDialogButtonClicked dialog[" + dialog + "]"
-                + " whichDialog[" + whichDialog + "]"
-                + " whichButton[" + whichButton + "]");
-        switch (whichDialog) {
-            case DIALOG_WITH_RESOURCES_FRAGMENT_TAG:
-                mTextResourcesResult.setText(text);
-                break;
-            case DIALOG_WITH_STRINGS_FRAGMENT_TAG:
-                mTextStringsResult.setText(text);
-                break;
-            default:
-                // we don't handle this unknown dialog
+        @Override
+        public void onDialogButtonClicked(@NonNull final DialogInterface dialog,
+                                          @NonNull final String whichDialog,
+                                          final int whichButton) {
+            Log.d(TAG, "onDialogButtonClicked dialog[" + dialog + "]"
+                    + " whichDialog[" + whichDialog + "]"
+                    + " whichButton[" + whichButton + "]");
+            mResult.setText(getString(R.string.button_label, whichButton));
         }
-    }
 
-    @Override
-    public void onDialogCancelled(@NonNull final DialogInterface dialog,
-                                  @NonNull final String whichDialog) {
-        Log.d(TAG, "onDialogCancelled dialog[" + dialog + "]"
-                + " whichDialog[" + whichDialog + "]");
-
-        switch (whichDialog) {
-            case DIALOG_WITH_RESOURCES_FRAGMENT_TAG:
-                mTextResourcesResult.setText("cancelled");
-                break;
-            case DIALOG_WITH_STRINGS_FRAGMENT_TAG:
-                mTextStringsResult.setText("cancelled");
-                break;
-            default:
-                // we don't handle this unknown dialog
+        @Override
+        public void onDialogCancelled(@NonNull final DialogInterface dialog,
+                                      @NonNull final String whichDialog) {
+            Log.d(TAG, "onDialogCancelled dialog[" + dialog + "]"
+                    + " whichDialog[" + whichDialog + "]");
+            mResult.setText("cancelled");
         }
-    }
 
-    @Override
-    public void onDialogDismissed(@NonNull final DialogInterface dialog,
-                                  @NonNull final String whichDialog) {
-        Log.d(TAG, "onDialogDismissed dialog[" + dialog + "]"
-                + " whichDialog[" + whichDialog + "]");
-        switch (whichDialog) {
-            case DIALOG_WITH_RESOURCES_FRAGMENT_TAG:
-                mTextResourcesResult.setText("dismissed");
-                break;
-            case DIALOG_WITH_STRINGS_FRAGMENT_TAG:
-                mTextStringsResult.setText("dismissed");
-                break;
-            default:
-                // we don't handle this unknown dialog
+        @Override
+        public void onDialogDismissed(@NonNull final DialogInterface dialog,
+                                      @NonNull final String whichDialog) {
+            Log.d(TAG, "onDialogDismissed dialog[" + dialog + "]"
+                    + " whichDialog[" + whichDialog + "]");
+            mResult.setText("dismissed");
         }
     }
 }